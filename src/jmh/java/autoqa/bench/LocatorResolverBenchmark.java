@@ -0,0 +1,135 @@
+package autoqa.bench;
+
+import autoqa.model.ElementInfo;
+import autoqa.model.ElementLocator;
+import autoqa.player.LocatorCache;
+import autoqa.player.LocatorResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LocatorResolver} against a stubbed {@link WebDriver}: sequential
+ * versus batched lookups, with and without a {@link LocatorCache}.
+ *
+ * <p>The stub page matches only the {@code match} strategy, so e.g.
+ * {@code CSS} costs two misses first in sequential mode.  Each driver call
+ * burns {@code roundTripTokens} of {@link Blackhole#consumeCPU} to stand in for
+ * the WebDriver wire hop; {@code 0} measures resolver overhead alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocatorResolverBenchmark {
+
+    @Param({"ID", "CSS", "XPATH"})
+    public String match;
+
+    @Param({"false", "true"})
+    public boolean batched;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    @Param({"0", "10000"})
+    public long roundTripTokens;
+
+    private LocatorResolver resolver;
+    private ElementInfo element;
+
+    @Setup
+    public void setUp() {
+        element = new ElementInfo();
+        element.setTagName("button");
+        element.setId("save");
+        element.setName("save");
+        element.setCss("#main form.order-form button[type='submit']");
+        element.setXpath("/html/body/div[1]/main/form/div[4]/button");
+
+        resolver = new LocatorResolver(stubDriver(match, roundTripTokens), null, 4, batched);
+        if (cached) {
+            LocatorCache cache = new LocatorCache();
+            cache.setPage("https://app.example.com/orders/1");
+            resolver.setCache(cache);
+        }
+    }
+
+    @Benchmark
+    public ElementLocator resolve() {
+        return resolver.resolve(element);
+    }
+
+    // ── Stub driver ───────────────────────────────────────────────────────
+
+    /**
+     * Driver whose page contains one element, reachable only through the
+     * {@code match} strategy.  Implements {@code findElement} and the batched
+     * resolver's {@code executeScript} contract; every other call returns null.
+     */
+    private static WebDriver stubDriver(String match, long tokens) {
+        WebElement found = (WebElement) Proxy.newProxyInstance(
+                WebElement.class.getClassLoader(), new Class<?>[]{WebElement.class},
+                (proxy, method, args) -> method.getName().equals("toString") ? "stub-element" : null);
+
+        return (WebDriver) Proxy.newProxyInstance(
+                WebDriver.class.getClassLoader(), new Class<?>[]{WebDriver.class, JavascriptExecutor.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findElement" -> {
+                            Blackhole.consumeCPU(tokens);
+                            if (strategyOf((By) args[0]).equals(match)) return found;
+                            throw new NoSuchElementException("no such element: " + args[0]);
+                        }
+                        case "executeScript" -> {
+                            Blackhole.consumeCPU(tokens);
+                            List<?> candidates = (List<?>) ((Object[]) args[1])[0];
+                            for (int i = 0; i < candidates.size(); i++) {
+                                if (((List<?>) candidates.get(i)).get(0).equals(match)) return List.of((long) i, found);
+                            }
+                            return null;
+                        }
+                        case "toString" -> {
+                            return "stub-driver";
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        default -> {
+                            return null;
+                        }
+                    }
+                });
+    }
+
+    private static String strategyOf(By by) {
+        String s = by.toString();
+        if (s.startsWith("By.id:"))          return "ID";
+        if (s.startsWith("By.name:"))        return "NAME";
+        if (s.startsWith("By.cssSelector:")) return "CSS";
+        return "XPATH";
+    }
+}
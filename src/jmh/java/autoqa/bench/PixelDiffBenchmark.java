@@ -0,0 +1,139 @@
+package autoqa.bench;
+
+import autoqa.player.PixelDiff;
+import autoqa.player.VisualRegression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Screenshot comparison: the per-pixel {@code getRGB} loops that
+ * {@code PlayerEngine.cpScreenshot} and {@code VisualRegression.pixelDiff}
+ * used before, against {@link PixelDiff} and the perceptual
+ * {@link VisualRegression.Mode modes}.
+ *
+ * <p>Images are PNG round-tripped so they have the raster layout ImageIO
+ * gives real screenshots.  {@code changed} is the fraction of rows that
+ * differ; with the 2% checkpoint threshold, 0.0 passes and 0.25 fails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PixelDiffBenchmark {
+
+    private static final double THRESHOLD = 0.02;
+
+    @Param({"1280x720", "1920x1080", "2560x1440"})
+    public String resolution;
+
+    @Param({"0.0", "0.25"})
+    public double changed;
+
+    private BufferedImage baseline;
+    private BufferedImage current;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] wh = resolution.split("x");
+        int w = Integer.parseInt(wh[0]);
+        int h = Integer.parseInt(wh[1]);
+        baseline = decode(draw(w, h, 0));
+        current  = decode(draw(w, h, (int) (h * changed)));
+    }
+
+    /** Former {@code cpScreenshot} loop: column-major {@code getRGB(x, y)}. */
+    @Benchmark
+    public long legacyColumnMajor() {
+        int w = Math.min(current.getWidth(), baseline.getWidth());
+        int h = Math.min(current.getHeight(), baseline.getHeight());
+        long diff = 0;
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                if (current.getRGB(x, y) != baseline.getRGB(x, y)) diff++;
+            }
+        }
+        return diff;
+    }
+
+    /** Former {@code VisualRegression.pixelDiff} loop: {@code getRGB} plus {@code setRGB} into a diff image. */
+    @Benchmark
+    public BufferedImage legacyWithDiffImage() {
+        int w = Math.min(current.getWidth(), baseline.getWidth());
+        int h = Math.min(current.getHeight(), baseline.getHeight());
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int b = baseline.getRGB(x, y);
+                int c = current.getRGB(x, y);
+                out.setRGB(x, y, b != c ? 0xFF0000 : (b & 0xFEFEFE) >> 1);
+            }
+        }
+        return out;
+    }
+
+    /** Full count, no early exit. */
+    @Benchmark
+    public PixelDiff.Result pixelDiffFullScan() {
+        return PixelDiff.compare(baseline, current, 0, 1.0);
+    }
+
+    /** Checkpoint use: stop once the threshold is exceeded. */
+    @Benchmark
+    public PixelDiff.Result pixelDiffWithThreshold() {
+        return PixelDiff.compare(baseline, current, 0, THRESHOLD);
+    }
+
+    /** Perceptual mode; budget is ~20 ms at 1920x1080. */
+    @Benchmark
+    public VisualRegression.DiffResult ssim() {
+        return VisualRegression.compare(baseline, current, VisualRegression.CompareOptions.ssim(THRESHOLD), null);
+    }
+
+    @Benchmark
+    public VisualRegression.DiffResult blockHash() {
+        return VisualRegression.compare(baseline, current, VisualRegression.CompareOptions.blockHash(THRESHOLD), null);
+    }
+
+    // ── Fixtures ──────────────────────────────────────────────────────────
+
+    private static BufferedImage draw(int w, int h, int changedRows) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, w, h);
+        g.setColor(new Color(0x33, 0x66, 0x99));
+        for (int y = 40; y < h; y += 80) g.fillRect(40, y, w - 80, 24); // page-like bands
+        if (changedRows > 0) {
+            g.setColor(Color.RED);
+            g.fillRect(0, h - changedRows, w, changedRows);
+        }
+        g.dispose();
+        return img;
+    }
+
+    private static BufferedImage decode(BufferedImage img) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "PNG", out);
+        return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
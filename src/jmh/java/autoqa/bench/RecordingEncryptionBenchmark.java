@@ -0,0 +1,58 @@
+package autoqa.bench;
+
+import autoqa.model.RecordingEncryption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AES-256-GCM throughput of {@link RecordingEncryption} in operations per
+ * second; multiply by {@code payloadKb} for KB/s.  4 KB is roughly one event,
+ * 1 MB a short recording and 16 MB a long one with inline screenshots.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordingEncryptionBenchmark {
+
+    @Param({"4", "1024", "16384"})
+    public int payloadKb;
+
+    private RecordingEncryption encryption;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+
+    @Setup
+    public void setUp() {
+        encryption = new RecordingEncryption(RecordingEncryption.generateKey());
+        plaintext = new byte[payloadKb * 1024];
+        // JSON-like byte distribution; GCM cost does not depend on content
+        Random rnd = new Random(42);
+        for (int i = 0; i < plaintext.length; i++) plaintext[i] = (byte) (' ' + rnd.nextInt(95));
+        ciphertext = encryption.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public byte[] encrypt() {
+        return encryption.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public byte[] decrypt() {
+        return encryption.decrypt(ciphertext);
+    }
+}
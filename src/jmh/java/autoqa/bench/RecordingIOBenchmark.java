@@ -0,0 +1,183 @@
+package autoqa.bench;
+
+import autoqa.model.Coordinates;
+import autoqa.model.ElementInfo;
+import autoqa.model.InputData;
+import autoqa.model.RecordedEvent;
+import autoqa.model.RecordedSession;
+import autoqa.model.RecordingIO;
+import autoqa.model.RecordingReader;
+import autoqa.model.RecordingWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Recording parse and serialize at 1k / 10k / 100k events, in memory and
+ * through both file formats, plus the recorder's per-event NDJSON journal
+ * append.
+ *
+ * <p>{@code readJson} includes schema validation, as {@link RecordingIO#read}
+ * does for every {@code .json} recording; {@code fromJson} does not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordingIOBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int events;
+
+    private Path dir;
+    private RecordedSession session;
+    private String json;
+    private Path jsonFile;
+    private Path ndjsonFile;
+    private Path scratchJson;
+    private Path scratchNdjson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("autoqa-bench-io");
+        session = session(events);
+        json = RecordingIO.toJson(session);
+        jsonFile   = dir.resolve("fixture.json");
+        ndjsonFile = dir.resolve("fixture" + RecordingIO.NDJSON_EXTENSION);
+        RecordingIO.write(session, jsonFile);
+        RecordingIO.write(session, ndjsonFile);
+        scratchJson   = dir.resolve("out.json");
+        scratchNdjson = dir.resolve("out" + RecordingIO.NDJSON_EXTENSION);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    @Benchmark
+    public String toJson() throws IOException {
+        return RecordingIO.toJson(session);
+    }
+
+    @Benchmark
+    public RecordedSession fromJson() throws IOException {
+        return RecordingIO.fromJson(json);
+    }
+
+    @Benchmark
+    public void writeJson() throws IOException {
+        RecordingIO.write(session, scratchJson);
+    }
+
+    @Benchmark
+    public void writeNdjson() throws IOException {
+        RecordingIO.write(session, scratchNdjson);
+    }
+
+    @Benchmark
+    public RecordedSession readJson() throws IOException {
+        return RecordingIO.read(jsonFile);
+    }
+
+    @Benchmark
+    public RecordedSession readNdjson() throws IOException {
+        return RecordingIO.read(ndjsonFile);
+    }
+
+    /** Playback path: events are consumed as parsed, never held as a list. */
+    @Benchmark
+    public void streamNdjson(Blackhole bh) throws IOException {
+        try (RecordingReader reader = RecordingIO.openReader(ndjsonFile)) {
+            while (reader.hasNext()) bh.consume(reader.next());
+        }
+    }
+
+    /** Recorder path: one flushed line per captured event. */
+    @Benchmark
+    public int journalAppend() throws IOException {
+        try (RecordingWriter writer = RecordingIO.openWriter(session, scratchNdjson)) {
+            for (RecordedEvent e : session.getEvents()) writer.append(e);
+            writer.finish(session.getEndTimestamp());
+            return writer.getEventCount();
+        }
+    }
+
+    // ── Fixtures ──────────────────────────────────────────────────────────
+
+    /** Click / input / navigate mix with realistic locator and attribute payloads. */
+    static RecordedSession session(int count) {
+        RecordedSession s = new RecordedSession();
+        s.setSessionId("bench-" + count);
+        s.setBrowserName("msedge");
+        s.setBrowserVersion("124.0");
+        s.setOsName("Windows 11");
+        s.setRecordedBy("bench");
+        Instant t0 = Instant.parse("2026-01-01T00:00:00Z");
+        s.setStartTimestamp(t0);
+        for (int i = 0; i < count; i++) {
+            RecordedEvent e = new RecordedEvent();
+            e.setTimestamp(t0.plusMillis(i * 250L));
+            e.setUrl("https://app.example.com/orders/" + (i / 50) + "?tab=details");
+            e.setPageTitle("Order " + (i / 50));
+            switch (i % 10) {
+                case 0 -> e.setEventType(RecordedEvent.EventType.NAVIGATE);
+                case 1, 2, 3 -> {
+                    e.setEventType(RecordedEvent.EventType.INPUT);
+                    e.setElement(element(i, "input"));
+                    InputData in = new InputData();
+                    in.setKeys("value-" + i);
+                    e.setInputData(in);
+                }
+                default -> {
+                    e.setEventType(RecordedEvent.EventType.CLICK);
+                    e.setElement(element(i, "button"));
+                    Coordinates c = new Coordinates();
+                    c.setX(100.0 + i % 900);
+                    c.setY(40.0 + i % 600);
+                    e.setCoordinates(c);
+                }
+            }
+            s.addEvent(e);
+        }
+        s.setEndTimestamp(t0.plusMillis(count * 250L));
+        return s;
+    }
+
+    private static ElementInfo element(int i, String tag) {
+        ElementInfo el = new ElementInfo();
+        el.setTagName(tag);
+        el.setId(tag + "-" + i);
+        el.setName("field_" + (i % 40));
+        el.setClassName("form-control form-control-sm");
+        el.setCss("#main > form.order-form " + tag + "[data-row='" + i + "']");
+        el.setXpath("/html/body/div[1]/main/form/div[" + (i % 20 + 1) + "]/" + tag);
+        el.setText(tag.equals("button") ? "Save" : null);
+        el.setAttributes(Map.of("data-row", String.valueOf(i), "aria-label", "Row " + i));
+        return el;
+    }
+}
@@ -6,12 +6,13 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Properties;
 
 /**
  * Reads AI module settings from {@code config.properties} on the classpath and
- * exposes factory methods for {@link LLMClient}, {@link TestGenerator}, and
- * {@link LocatorHealer}.
+ * exposes factory methods for {@link LLMClient}, {@link TestGenerator},
+ * {@link LocatorHealer} and {@link HealCache}.
  *
  * <p>All property keys mirror those documented in {@code config.properties}.
  * Each getter provides a safe default if the key is absent or unparseable.
@@ -78,6 +79,15 @@ public class AIConfig {
         return parseLong("ai.llm.retry.delay.ms", 2000L);
     }
 
+    /**
+     * Requests the shared {@link LLMGateway} lets reach the server at once;
+     * match it to the server's parallelism ({@code OLLAMA_NUM_PARALLEL}).
+     * Defaults to {@code 2}.
+     */
+    public int getLlmMaxConcurrent() {
+        return parseInt("ai.llm.max.concurrent", 2);
+    }
+
     /**
      * Directory where {@link TestGenerator} writes {@code .java} files.
      * Defaults to {@code generated-tests} relative to the working directory.
@@ -94,16 +104,97 @@ public class AIConfig {
         return parseInt("ai.healer.dom.snippet.chars", 3000);
     }
 
+    /** Whether healed locators are persisted and reused across runs; defaults to {@code true}. */
+    public boolean isHealCacheEnabled() {
+        return Boolean.parseBoolean(props.getProperty("ai.heal.cache.enabled", "true"));
+    }
+
+    /** JSON file backing the {@link HealCache}; defaults to {@code healing/heal-cache.json}. */
+    public Path getHealCacheFile() {
+        return Path.of(props.getProperty("ai.heal.cache.file", "healing/" + HealCache.DEFAULT_FILENAME));
+    }
+
+    /**
+     * Whether confirmed heals are written back into the Object Repository the
+     * failed element came from; defaults to {@code false}.
+     */
+    public boolean isHealWriteBackEnabled() {
+        return Boolean.parseBoolean(props.getProperty("ai.heal.writeback.or", "false"));
+    }
+
+    /** Whether LLM completions are cached by prompt hash; defaults to {@code true}. */
+    public boolean isLlmCacheEnabled() {
+        return Boolean.parseBoolean(props.getProperty("ai.llm.cache.enabled", "true"));
+    }
+
+    /** Directory backing the {@link LLMResponseCache}; defaults to {@code healing/llm-cache}. */
+    public Path getLlmCacheDir() {
+        return Path.of(props.getProperty("ai.llm.cache.dir", "healing/llm-cache"));
+    }
+
+    /** Maximum cached completions; the least recently used is evicted first. Defaults to {@code 500}. */
+    public int getLlmCacheMaxEntries() {
+        return parseInt("ai.llm.cache.max.entries", 500);
+    }
+
+    /** How long a cached completion stays valid; defaults to 168 hours (one week). */
+    public Duration getLlmCacheTtl() {
+        return Duration.ofHours(parseLong("ai.llm.cache.ttl.hours", 168L));
+    }
+
+    /**
+     * Whether {@link LocatorHealer} streams the completion and stops at the
+     * first complete locator line; defaults to {@code true}.
+     */
+    public boolean isHealerStreamEnabled() {
+        return Boolean.parseBoolean(props.getProperty("ai.healer.stream", "true"));
+    }
+
+    /**
+     * Whether {@link LocatorHealer} sends a pruned excerpt around the element
+     * ({@link DomSnippetExtractor}) instead of the head of the page source;
+     * defaults to {@code true}.
+     */
+    public boolean isHealerDomPruneEnabled() {
+        return Boolean.parseBoolean(props.getProperty("ai.healer.dom.prune", "true"));
+    }
+
+    /** Whether {@link LocalHealer} ranks the page before the LLM is asked; defaults to {@code true}. */
+    public boolean isLocalHealEnabled() {
+        return Boolean.parseBoolean(props.getProperty("ai.heal.local.enabled", "true"));
+    }
+
+    /** Minimum confidence (0–1) of the best local candidate; defaults to {@code 0.75}. */
+    public double getLocalHealMinConfidence() {
+        return parseDouble("ai.heal.local.min.confidence", 0.75);
+    }
+
+    /** Minimum confidence lead of the best local candidate over the runner-up; defaults to {@code 0.15}. */
+    public double getLocalHealMinMargin() {
+        return parseDouble("ai.heal.local.min.margin", 0.15);
+    }
+
     // ── Factory methods ───────────────────────────────────────────────────
 
     /**
-     * Creates a fully configured {@link LLMClient} using the current properties.
+     * Creates a fully configured {@link LLMClient} in the {@link LLMGateway.Lane#NORMAL} lane.
      *
      * @return new {@link LLMClient} instance
      */
     public LLMClient createLLMClient() {
-        return new LLMClient(
-                getLlmBaseUrl(),
+        return createLLMClient(LLMGateway.Lane.NORMAL);
+    }
+
+    /**
+     * Creates a fully configured {@link LLMClient} that sends through the
+     * JVM-wide {@link LLMGateway} for the configured endpoint in {@code lane}.
+     *
+     * @return new {@link LLMClient} instance
+     */
+    public LLMClient createLLMClient(LLMGateway.Lane lane) {
+        LLMClient client = new LLMClient(
+                LLMGateway.shared(getLlmBaseUrl(), getLlmMaxConcurrent()),
+                lane,
                 getLlmModel(),
                 getTemperature(),
                 getMaxTokens(),
@@ -111,24 +202,47 @@ public class AIConfig {
                 getRetryCount(),
                 getRetryDelayMs()
         );
+        if (isLlmCacheEnabled()) {
+            client.setResponseCache(LLMResponseCache.open(getLlmCacheDir(), getLlmCacheMaxEntries(), getLlmCacheTtl()));
+        }
+        return client;
     }
 
     /**
-     * Creates a {@link TestGenerator} backed by a fresh {@link LLMClient}.
+     * Creates a {@link TestGenerator} backed by a fresh {@link LLMClient} in the bulk lane.
      *
      * @return new {@link TestGenerator} instance
      */
     public TestGenerator createTestGenerator() {
-        return new TestGenerator(createLLMClient(), getGeneratedTestsDir());
+        return new TestGenerator(createLLMClient(LLMGateway.Lane.BULK), getGeneratedTestsDir());
     }
 
     /**
-     * Creates a {@link LocatorHealer} backed by a fresh {@link LLMClient}.
+     * Creates a {@link LocatorHealer} backed by a fresh {@link LLMClient} in the interactive lane.
      *
      * @return new {@link LocatorHealer} instance
      */
     public LocatorHealer createLocatorHealer() {
-        return new LocatorHealer(createLLMClient(), getDomSnippetChars());
+        return new LocatorHealer(createLLMClient(LLMGateway.Lane.INTERACTIVE), getDomSnippetChars(),
+                isHealerStreamEnabled(), isHealerDomPruneEnabled());
+    }
+
+    /**
+     * Creates the deterministic {@link LocalHealer}, or returns {@code null}
+     * when local healing is disabled.
+     */
+    public LocalHealer createLocalHealer() {
+        return isLocalHealEnabled()
+                ? new LocalHealer(getLocalHealMinConfidence(), getLocalHealMinMargin())
+                : null;
+    }
+
+    /**
+     * Returns the shared {@link HealCache} for {@link #getHealCacheFile()}, or
+     * {@code null} when the heal cache is disabled.
+     */
+    public HealCache createHealCache() {
+        return isHealCacheEnabled() ? HealCache.open(getHealCacheFile()) : null;
     }
 
     // ── Property parsing helpers ──────────────────────────────────────────
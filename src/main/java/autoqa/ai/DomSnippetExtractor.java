@@ -0,0 +1,139 @@
+package autoqa.ai;
+
+import autoqa.model.ElementInfo;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds the page excerpt for a healing prompt in the browser, from the parts
+ * of the DOM most likely to hold the element that was lost.
+ *
+ * <p>One {@code executeScript} call ranks live elements against the recorded
+ * one with {@link ElementScoring} (tag, text, attributes, class overlap and
+ * distance from the recorded {@code BoundingBox}).  For the best few it
+ * serialises the element with as many ancestors as fit its share of the
+ * budget, each region headed by its ancestor path.  Scripts, styles, inline
+ * handlers and SVG internals are dropped, long text and attribute values are
+ * clipped, and every candidate is preceded by a {@code <!-- candidate N -->}
+ * comment so the model sees the ranking without a marker attribute it might
+ * copy into a locator.
+ *
+ * <p>{@link #extract} returns {@code null} when the driver cannot run scripts
+ * or nothing scores, and the caller falls back to truncated page source.
+ */
+public class DomSnippetExtractor {
+
+    private static final Logger log = LoggerFactory.getLogger(DomSnippetExtractor.class);
+
+    /** Candidates included in the excerpt by default. */
+    public static final int DEFAULT_CANDIDATES = 5;
+
+    /** Arguments: target description, character budget, candidate count. */
+    private static final String PRUNE_JS = """
+            var t = arguments[0], budget = arguments[1], maxCand = arguments[2];
+            """ + ElementScoring.RANK_JS + """
+            if (!ranked.length) return null;
+            var VOID = {area: 1, base: 1, br: 1, col: 1, embed: 1, hr: 1, img: 1, input: 1,
+                        source: 1, track: 1, wbr: 1};
+
+            var marks = new Map();
+            ranked.forEach(function (p, i) { marks.set(p[1], i + 1); });
+
+            function clip(s, n) { return s.length > n ? s.substring(0, n) + '\\u2026' : s; }
+            function esc(s) { return s.replace(/&/g, '&amp;').replace(/</g, '&lt;'); }
+            function serialize(root, limit) {
+              var out = '';
+              (function walk(n) {
+                if (out.length > limit) return;
+                if (n.nodeType === 3) {
+                  var s = n.nodeValue.replace(/\\s+/g, ' ');
+                  if (s.trim()) out += esc(clip(s, 80));
+                  return;
+                }
+                if (n.nodeType !== 1 || SKIP[n.tagName]) return;
+                var name = n.tagName.toLowerCase();
+                if (marks.has(n)) out += '<!-- candidate ' + marks.get(n) + ' -->';
+                out += '<' + name;
+                for (var a = 0; a < n.attributes.length; a++) {
+                  var at = n.attributes[a];
+                  if (at.name === 'style' || at.name.indexOf('on') === 0) continue;
+                  out += ' ' + at.name + '="' + clip(at.value, 100).replace(/"/g, '&quot;') + '"';
+                }
+                out += '>';
+                if (VOID[name]) return;
+                if (name !== 'svg') {
+                  for (var c = n.firstChild; c; c = c.nextSibling) walk(c);
+                }
+                out += '</' + name + '>';
+              })(root);
+              return out.length > limit ? out.substring(0, limit) + '\\u2026' : out;
+            }
+            function path(el) {
+              var parts = [];
+              for (var e = el; e && e.nodeType === 1 && parts.length < 6; e = e.parentElement) {
+                var p = e.tagName.toLowerCase();
+                if (e.id) p += '#' + e.id;
+                else if (typeof e.className === 'string' && e.className.trim())
+                  p += '.' + e.className.trim().split(/\\s+/).slice(0, 2).join('.');
+                parts.unshift(p);
+              }
+              return parts.join(' > ');
+            }
+
+            var per = Math.max(200, Math.floor(budget / ranked.length)), roots = [];
+            ranked.forEach(function (p) {
+              var root = p[1];
+              for (var lvl = 0; lvl < 3; lvl++) {
+                var up = root.parentElement;
+                if (!up || up === document.body || up === document.documentElement) break;
+                if (serialize(up, per + 1).length > per) break;
+                root = up;
+              }
+              if (roots.some(function (r) { return r.contains(root); })) return;
+              roots = roots.filter(function (r) { return !root.contains(r); });
+              roots.push(root);
+            });
+
+            var out = '';
+            for (var j = 0; j < roots.length && out.length < budget; j++) {
+              out += '<!-- region ' + (j + 1) + ' | ' + path(roots[j]) + ' -->\\n'
+                   + serialize(roots[j], per) + '\\n';
+            }
+            return out.substring(0, budget);
+            """;
+
+    private final int maxChars;
+    private final int maxCandidates;
+
+    /**
+     * @param maxChars      character budget for the whole excerpt
+     * @param maxCandidates number of ranked candidates to include
+     */
+    public DomSnippetExtractor(int maxChars, int maxCandidates) {
+        this.maxChars      = maxChars;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Returns the pruned excerpt around the likely position of {@code element},
+     * or {@code null} if it cannot be built.
+     */
+    public String extract(WebDriver driver, ElementInfo element) {
+        if (!(driver instanceof JavascriptExecutor js) || element == null) return null;
+        try {
+            Object raw = js.executeScript(PRUNE_JS, ElementScoring.describe(element), maxChars, maxCandidates);
+            if (!(raw instanceof String snippet) || snippet.isBlank()) {
+                log.debug("DOM pruner found no candidates for {}", element);
+                return null;
+            }
+            log.debug("DOM pruner: {} char(s) for {}", snippet.length(), element);
+            return snippet;
+        } catch (WebDriverException e) {
+            log.debug("DOM pruner failed — falling back to page source: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package autoqa.ai;
+
+import autoqa.model.BoundingBox;
+import autoqa.model.ElementInfo;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-page similarity ranking of live elements against a recorded
+ * {@link ElementInfo}, shared by {@link LocalHealer} and
+ * {@link DomSnippetExtractor}.
+ *
+ * <p>{@link #RANK_JS} is a script prefix: it expects {@code t} (the map from
+ * {@link #describe}) and {@code maxCand} to be declared, and leaves
+ * {@code ranked} — up to {@code maxCand} {@code [score, element, confidence]}
+ * triples, best first — for the rest of the script.  Every visible element in
+ * the body (up to 5000) plus whatever sits at the recorded position is scored
+ * on tag, text-word overlap, class overlap, exact attribute matches and
+ * distance from the recorded bounding box.  Confidence is the score over the
+ * best score reachable with the signals the recording actually has, so an
+ * element without recorded text is not penalised for it.
+ */
+final class ElementScoring {
+
+    static final String RANK_JS = """
+            var SKIP = {SCRIPT: 1, STYLE: 1, NOSCRIPT: 1, TEMPLATE: 1, LINK: 1, META: 1, HEAD: 1};
+            function words(s) {
+              return String(s || '').toLowerCase().split(/[^a-z0-9]+/)
+                  .filter(function (w) { return w.length > 1; });
+            }
+            function overlap(a, b) {
+              if (!a.length || !b.length) return 0;
+              var set = {}, n = 0;
+              b.forEach(function (w) { set[w] = 1; });
+              a.forEach(function (w) { if (set[w]) n++; });
+              return n / Math.max(a.length, b.length);
+            }
+            var tag = String(t.tag || '').toLowerCase(), want = words(t.text), cls = words(t.cls);
+            var attrs = t.attrs || {}, box = t.box, attrCount = 0;
+            for (var k in attrs) if (k !== 'class' && k !== 'style' && attrs[k] != null) attrCount++;
+            var maxScore = (tag ? 2 : 0) + (want.length ? 4 : 0) + (cls.length ? 2 : 0)
+                         + 1.5 * attrCount + (box ? 3 : 0);
+
+            function score(el, r) {
+              var s = 0;
+              if (tag && el.tagName.toLowerCase() === tag) s += 2;
+              // Text of large containers is costly and never a close match
+              if (want.length && el.childElementCount < 10)
+                s += 4 * overlap(want, words(String(el.textContent || '').substring(0, 300)));
+              if (cls.length) s += 2 * overlap(cls, words(el.getAttribute('class')));
+              for (var k in attrs) {
+                if (k === 'class' || k === 'style' || attrs[k] == null) continue;
+                if (el.getAttribute(k) === attrs[k]) s += 1.5;
+              }
+              if (box) {
+                var dx = (r.left + r.width / 2) - (box.x + box.width / 2);
+                var dy = (r.top + r.height / 2) - (box.y + box.height / 2);
+                s += 3 * Math.exp(-Math.sqrt(dx * dx + dy * dy) / 200);
+              }
+              return s;
+            }
+
+            var seen = new Set(), ranked = [];
+            function consider(el) {
+              if (!el || el.nodeType !== 1 || seen.has(el) || SKIP[el.tagName]
+                  || el === document.body || el === document.documentElement) return;
+              seen.add(el);
+              var r = el.getBoundingClientRect();
+              if (r.width === 0 && r.height === 0) return;
+              var s = score(el, r);
+              if (s > 0.5) ranked.push([s, el, maxScore > 0 ? s / maxScore : 0]);
+            }
+            var all = document.body ? document.body.getElementsByTagName('*') : [];
+            for (var i = 0; i < all.length && i < 5000; i++) consider(all[i]);
+            if (box && document.elementsFromPoint) {
+              var px = box.x + box.width / 2, py = box.y + box.height / 2;
+              if (px >= 0 && py >= 0 && px < innerWidth && py < innerHeight) {
+                document.elementsFromPoint(px, py).slice(0, 5).forEach(consider);
+              }
+            }
+            ranked.sort(function (a, b) { return b[0] - a[0]; });
+            ranked = ranked.slice(0, maxCand);
+            """;
+
+    private ElementScoring() {}
+
+    /** The recorded element as the plain map the script receives as {@code t}. */
+    static Map<String, Object> describe(ElementInfo element) {
+        Map<String, Object> t = new HashMap<>();
+        t.put("tag",  element.getTagName());
+        t.put("text", element.getText());
+        t.put("cls",  element.getClassName());
+        Map<String, String> attrs = new HashMap<>();
+        if (element.getAttributes() != null) attrs.putAll(element.getAttributes());
+        if (element.getId() != null)   attrs.putIfAbsent("id", element.getId());
+        if (element.getName() != null) attrs.putIfAbsent("name", element.getName());
+        t.put("attrs", attrs);
+        BoundingBox b = element.getBoundingBox();
+        if (b != null && b.getX() != null && b.getY() != null && b.getWidth() != null && b.getHeight() != null) {
+            t.put("box", Map.of("x", b.getX(), "y", b.getY(), "width", b.getWidth(), "height", b.getHeight()));
+        }
+        return t;
+    }
+}
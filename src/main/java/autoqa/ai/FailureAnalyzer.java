@@ -132,9 +132,9 @@ public class FailureAnalyzer {
     private static String buildPrompt(String url, String title, String dom,
                                        String error, String exception,
                                        int stepCompleted, int totalSteps) {
-        String stepInfo = stepCompleted >= 0
-                ? String.format("Failed at step %d of %d.", stepCompleted, totalSteps)
-                : "Failure details:";
+        String stepInfo = stepCompleted < 0 ? "Failure details:"
+                : totalSteps >= 0 ? String.format("Failed at step %d of %d.", stepCompleted, totalSteps)
+                : String.format("Failed at step %d.", stepCompleted);
 
         // Trim DOM to avoid exceeding LLM context
         String domTrimmed = dom != null && dom.length() > MAX_DOM_CHARS
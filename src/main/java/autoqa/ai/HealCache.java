@@ -0,0 +1,312 @@
+package autoqa.ai;
+
+import autoqa.model.ElementInfo;
+import autoqa.model.ElementLocator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durable store of healed locators, so a broken locator costs one LLM call
+ * ever rather than one per run.
+ *
+ * <p>Entries are keyed by recording (session ID), the failed element's
+ * {@link ElementInfo#fingerprint()} and the page URL (query string dropped).
+ * Each entry holds the healed locator, where it came from ({@code local},
+ * {@code llm} or {@code dom}) and a confidence that grows every time the locator is
+ * re-validated on a later run.  {@link HealingInterceptor} consults the cache
+ * before the LLM and drops entries whose locator no longer matches.
+ *
+ * <p>The store is a pretty-printed JSON file, rewritten atomically.  Changes
+ * are batched: the first change after a save schedules the next one
+ * {@value #SAVE_DELAY_MS} ms later on a background thread, so confirming a
+ * heal on every step never waits for disk.  {@link #flush()} saves at once;
+ * the player calls it when a run ends and {@link #open(Path)} registers it as
+ * a shutdown hook.  Use {@link #open(Path)} so that all engines in one JVM
+ * share the same instance per file.
+ */
+public class HealCache {
+
+    private static final Logger log = LoggerFactory.getLogger(HealCache.class);
+
+    public static final String DEFAULT_FILENAME = "heal-cache.json";
+
+    /** Initial confidence of a locator suggested by the LLM. */
+    public static final double LLM_CONFIDENCE = 0.7;
+
+    /** Initial confidence of a locator chosen by {@link LocalHealer}'s similarity ranking. */
+    public static final double LOCAL_CONFIDENCE = 0.6;
+
+    /** Initial confidence of a locator from the text-based DOM comparison fallback. */
+    public static final double DOM_CONFIDENCE = 0.5;
+
+    /** Fraction of the remaining gap to 1.0 gained on each successful re-validation. */
+    private static final double CONFIRM_GAIN = 0.25;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .findAndRegisterModules();
+
+    /** Delay between the first unsaved change and the save that writes it. */
+    static final long SAVE_DELAY_MS = 2_000;
+
+    private static final Map<Path, HealCache> OPEN = new ConcurrentHashMap<>();
+
+    /** Runs the batched saves of every cache; its thread starts on the first save. */
+    private static final ScheduledExecutorService SAVER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "heal-cache-save");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Path file;
+
+    /** Entries are read lock-free but changed, and snapshotted for saving, only under {@code this}. */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /** Serialises file writes so an older snapshot never lands after a newer one. */
+    private final Object saveLock = new Object();
+    private boolean dirty;          // guarded by this
+    private boolean saveScheduled;  // guarded by this
+
+    private final LongAdder hits   = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stale  = new LongAdder();
+
+    /**
+     * @param file JSON file backing the cache, or {@code null} for an
+     *             in-memory cache that is never persisted
+     */
+    public HealCache(Path file) {
+        this.file = file;
+        if (file != null && Files.exists(file)) {
+            try {
+                Map<String, Entry> loaded = MAPPER.readValue(file.toFile(),
+                        new TypeReference<LinkedHashMap<String, Entry>>() {});
+                entries.putAll(loaded);
+                log.info("HealCache: loaded {} entr(ies) from {}", entries.size(), file);
+            } catch (IOException e) {
+                log.warn("HealCache: cannot read {} — starting empty: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /** Returns the JVM-wide cache for {@code file}, loading it on first use. */
+    public static HealCache open(Path file) {
+        return OPEN.computeIfAbsent(file.toAbsolutePath().normalize(), f -> {
+            HealCache c = new HealCache(f);
+            Runtime.getRuntime().addShutdownHook(new Thread(c::flush, "heal-cache-flush"));
+            return c;
+        });
+    }
+
+    // ── Lookup ────────────────────────────────────────────────────────────
+
+    /**
+     * Returns the cached heal for {@code element}, or {@code null} (counted as
+     * a miss).
+     */
+    public Entry get(String recording, ElementInfo element, String url) {
+        Entry e = entries.get(key(recording, element, url));
+        if (e == null) misses.increment();
+        return e;
+    }
+
+    /**
+     * Stores a heal that has just located the element.
+     *
+     * @param result a successful {@link LocatorHealer.HealingResult}
+     * @param source {@code local}, {@code llm} or {@code dom}
+     */
+    public void put(String recording, ElementInfo element, String url,
+                    LocatorHealer.HealingResult result, String source) {
+        if (!result.healed()) return;
+        Entry e = new Entry();
+        e.strategy    = result.strategy();
+        e.locator     = result.locatorValue();
+        e.source      = source;
+        e.confidence  = switch (source) {
+            case "llm"   -> LLM_CONFIDENCE;
+            case "local" -> LOCAL_CONFIDENCE;
+            default      -> DOM_CONFIDENCE;
+        };
+        e.createdAt   = Instant.now().toString();
+        e.confirmedAt = e.createdAt;
+        synchronized (this) {
+            entries.put(key(recording, element, url), e);
+            changed();
+        }
+    }
+
+    /** Records that a cached heal located the element again. */
+    public void confirm(String recording, ElementInfo element, String url) {
+        String key = key(recording, element, url);
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e == null) return;
+            hits.increment();
+            e.confidence  = e.confidence + (1.0 - e.confidence) * CONFIRM_GAIN;
+            e.uses++;
+            e.confirmedAt = Instant.now().toString();
+            changed();
+        }
+    }
+
+    /** Drops a cached heal whose locator no longer matches. */
+    public void invalidate(String recording, ElementInfo element, String url) {
+        String key = key(recording, element, url);
+        synchronized (this) {
+            if (entries.remove(key) == null) return;
+            stale.increment();
+            changed();
+        }
+    }
+
+    // ── Statistics ────────────────────────────────────────────────────────
+
+    /** Lookups answered by a cached heal that still matched. */
+    public long getHits()   { return hits.sum(); }
+
+    /** Lookups with no cached heal. */
+    public long getMisses() { return misses.sum(); }
+
+    /** Cached heals dropped because they no longer matched. */
+    public long getStale()  { return stale.sum(); }
+
+    /** Number of stored heals. */
+    public int size()       { return entries.size(); }
+
+    /** Backing file, or {@code null} for an in-memory cache. */
+    public Path getFile()   { return file; }
+
+    // ── Persistence ───────────────────────────────────────────────────────
+
+    /**
+     * Writes unsaved changes to the backing file now: a snapshot taken under
+     * the entry lock goes to a temp file that is moved over the backing file.
+     * A failed write leaves the changes unsaved for the next attempt.
+     */
+    public void flush() {
+        if (file == null) return;
+        synchronized (saveLock) {
+            byte[] json;
+            synchronized (this) {
+                saveScheduled = false;
+                if (!dirty) return;
+                try {
+                    json = MAPPER.writeValueAsBytes(new LinkedHashMap<>(entries));
+                } catch (IOException e) {
+                    log.warn("HealCache: cannot serialise {}: {}", file, e.getMessage());
+                    return;
+                }
+                dirty = false;
+            }
+            if (!write(json)) {
+                synchronized (this) {
+                    dirty = true;
+                }
+            }
+        }
+    }
+
+    /** Marks the cache changed and schedules a save unless one is pending. Caller holds {@code this}. */
+    private void changed() {
+        dirty = true;
+        if (file != null && !saveScheduled) {
+            saveScheduled = true;
+            SAVER.schedule(this::flush, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private boolean write(byte[] json) {
+        Path tmp = null;
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, "heal-cache", ".tmp");
+            Files.write(tmp, json);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+            return true;
+        } catch (IOException e) {
+            log.warn("HealCache: cannot write {}: {}", file, e.getMessage());
+            return false;
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    log.debug("HealCache: cannot delete {}: {}", tmp, e.getMessage());
+                }
+            }
+        }
+    }
+
+    // ── Key ───────────────────────────────────────────────────────────────
+
+    static String key(String recording, ElementInfo element, String url) {
+        return (recording != null ? recording : "") + "|" + element.fingerprint() + "|" + normalizeUrl(url);
+    }
+
+    /** Drops the query string so cache-busting parameters do not split entries. */
+    static String normalizeUrl(String url) {
+        if (url == null) return "";
+        int q = url.indexOf('?');
+        if (q < 0) return url;
+        int hash = url.indexOf('#', q);
+        return url.substring(0, q) + (hash >= 0 ? url.substring(hash) : "");
+    }
+
+    // ═════════════════════════════════════════════════════════════════════
+    // Entry
+    // ═════════════════════════════════════════════════════════════════════
+
+    /** One stored heal. */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static final class Entry {
+
+        @JsonProperty("strategy")    private ElementLocator.Strategy strategy;
+        @JsonProperty("locator")     private String locator;
+        @JsonProperty("source")      private String source;
+        @JsonProperty("confidence")  private double confidence;
+        @JsonProperty("uses")        private int    uses;
+        @JsonProperty("createdAt")   private String createdAt;
+        @JsonProperty("confirmedAt") private String confirmedAt;
+
+        public ElementLocator.Strategy getStrategy() { return strategy; }
+        public String  getLocator()     { return locator; }
+        public String  getSource()      { return source; }
+        public double  getConfidence()  { return confidence; }
+        public int     getUses()        { return uses; }
+        public String  getCreatedAt()   { return createdAt; }
+        public String  getConfirmedAt() { return confirmedAt; }
+
+        /** The stored locator as a {@link LocatorHealer.HealingResult}. */
+        public LocatorHealer.HealingResult toResult() {
+            return LocatorHealer.HealingResult.success(locator, strategy);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("HealCache.Entry{%s '%s', %s, confidence=%.2f, uses=%d}",
+                    strategy, locator, source, confidence, uses);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package autoqa.ai;
 
+import autoqa.metrics.Metrics;
 import autoqa.model.ElementInfo;
 import autoqa.model.ElementLocator;
+import autoqa.model.ObjectRepository;
+import autoqa.model.TestObject;
 import autoqa.player.AutoQAException;
 import autoqa.player.LocatorResolver;
 import org.openqa.selenium.By;
@@ -12,6 +15,10 @@ import org.openqa.selenium.WebElement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
 /**
  * Decorates {@link LocatorResolver} with LLM-based self-healing on
  * {@link NoSuchElementException} or {@link AutoQAException}.
@@ -20,13 +27,21 @@ import org.slf4j.LoggerFactory;
  * infinite retry loops. The healing cascade is:
  * <ol>
  *   <li>Try {@link LocatorResolver#findElement} normally.</li>
- *   <li>On failure, ask the {@link LocatorHealer} LLM path.</li>
+ *   <li>On failure, try a heal stored in the {@link HealCache} by an earlier
+ *       run — re-validated with one {@code findElements} call.</li>
+ *   <li>When a {@link LocalHealer} is attached, rank the page in one script
+ *       and use the top candidate if it clearly wins — no model call.</li>
+ *   <li>Otherwise ask the {@link LocatorHealer} LLM path.</li>
  *   <li>If the LLM returns {@code CANNOT_HEAL} or errors, fall back to
  *       {@link LocatorHealer#healByDomComparison}.</li>
  *   <li>If every strategy fails, throw {@link AutoQAException} wrapping the
  *       original exception.</li>
  * </ol>
  *
+ * <p>Heals that locate the element are written to the {@link HealCache} and,
+ * when an Object Repository is attached via {@link #setObjectRepository}, into
+ * the matching {@link TestObject} so the repository itself is repaired.
+ *
  * <p>All healing events are logged at {@code INFO} level through the
  * {@code autoqa.ai.HealingInterceptor} logger, which logback routes to
  * {@code logs/healing.log} as well as the console appender.
@@ -39,6 +54,12 @@ public class HealingInterceptor {
     private final LocatorResolver resolver;
     private final LocatorHealer healer;
     private final WebDriver driver;
+    private final HealCache cache;
+
+    private volatile String recording;
+    private volatile ObjectRepository objectRepository;
+    private volatile Path objectRepositoryFile;
+    private volatile LocalHealer localHealer;
 
     /**
      * @param resolver the primary locator resolution strategy
@@ -46,9 +67,53 @@ public class HealingInterceptor {
      * @param driver   active WebDriver session used for page source and healed lookups
      */
     public HealingInterceptor(LocatorResolver resolver, LocatorHealer healer, WebDriver driver) {
+        this(resolver, healer, driver, null);
+    }
+
+    /**
+     * @param resolver the primary locator resolution strategy
+     * @param healer   the LLM-backed healer (also exposes DOM comparison fallback)
+     * @param driver   active WebDriver session used for page source and healed lookups
+     * @param cache    durable store of earlier heals, or {@code null} to always ask the LLM
+     */
+    public HealingInterceptor(LocatorResolver resolver, LocatorHealer healer, WebDriver driver,
+                              HealCache cache) {
         this.resolver = resolver;
         this.healer   = healer;
         this.driver   = driver;
+        this.cache    = cache;
+    }
+
+    /**
+     * Sets the recording (session ID) heals are cached under.  Call before
+     * each playback.
+     */
+    public void setRecording(String recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Enables write-back of confirmed heals into {@code or}: the
+     * {@link TestObject} whose locators produced the failed element gets the
+     * healed locator.  When {@code orFile} is non-null the repository is
+     * saved there after each write-back.
+     */
+    public void setObjectRepository(ObjectRepository or, Path orFile) {
+        this.objectRepository     = or;
+        this.objectRepositoryFile = orFile;
+    }
+
+    /**
+     * Enables the deterministic local stage, tried before the LLM; {@code null}
+     * disables it.
+     */
+    public void setLocalHealer(LocalHealer localHealer) {
+        this.localHealer = localHealer;
+    }
+
+    /** The heal cache, or {@code null}. */
+    public HealCache getCache() {
+        return cache;
     }
 
     /**
@@ -74,37 +139,65 @@ public class HealingInterceptor {
     // ── Private healing cascade ───────────────────────────────────────────
 
     /**
-     * Runs the two-stage healing cascade and applies the winning locator.
+     * Runs the healing cascade and applies the winning locator.
      *
      * @param element    the element that could not be found by the resolver
      * @param originalEx the exception thrown by the resolver
      * @return the live {@link WebElement} located by the healed locator
-     * @throws AutoQAException when both healing stages fail
+     * @throws AutoQAException when every healing stage fails
      */
     private WebElement attemptHealing(ElementInfo element, RuntimeException originalEx) {
-        String pageSource = driver.getPageSource();
         String currentUrl = driver.getCurrentUrl();
 
-        // Stage 1: LLM-based healing
+        // Stage 0: heal cached by an earlier run
+        WebElement cached = tryCachedHeal(element, currentUrl);
+        if (cached != null) {
+            Metrics.HEAL_ATTEMPTS.labels("cached").inc();
+            return cached;
+        }
+
+        // Stage 1: local similarity ranking — milliseconds, used only when one candidate clearly wins
+        LocalHealer local = localHealer;
+        if (local != null) {
+            LocatorHealer.HealingResult localResult = local.heal(element, driver);
+            if (localResult.healed()) {
+                try {
+                    WebElement found = driver.findElement(toBy(localResult));
+                    log.info("HEALING SUCCESS | element={} | local locator: {}", element, localResult.locatorValue());
+                    recordHeal(element, currentUrl, localResult, "local");
+                    return found;
+                } catch (NoSuchElementException e) {
+                    log.debug("Local heal {} did not resolve — asking the LLM", localResult.locatorValue());
+                }
+            } else {
+                log.info("Local healing inconclusive ({}), asking the LLM", localResult.failureReason());
+            }
+        }
+
+        // Excerpt around the element's likely position; whole page source if that fails
+        String pageSource = healer.pruneDom(element, driver);
+        if (pageSource == null) pageSource = driver.getPageSource();
+
+        // Stage 2: LLM-based healing
         LocatorHealer.HealingResult result = healer.heal(element, pageSource, currentUrl);
+        String source = "llm";
 
-        // Stage 2: DOM comparison fallback
+        // Stage 3: DOM comparison fallback
         if (!result.healed()) {
             log.info("LLM healing failed ({}), trying DOM comparison fallback", result.failureReason());
             result = healer.healByDomComparison(element, driver);
+            source = "dom";
         }
 
         if (!result.healed()) {
+            Metrics.HEAL_ATTEMPTS.labels("failed").inc();
             log.error("All healing strategies exhausted for element: {}", element);
             throw new AutoQAException(
                     "Element not found and healing failed. Original: " + originalEx.getMessage(),
                     originalEx);
         }
 
-        // Build the Selenium By from the healed locator
-        By healedBy = result.strategy() == ElementLocator.Strategy.XPATH
-                ? By.xpath(result.locatorValue())
-                : By.cssSelector(result.locatorValue());
+        By healedBy = toBy(result);
 
         log.info("HEALING ATTEMPT | element={} | strategy={} | locator={} | url={}",
                 element, result.strategy(), result.locatorValue(), currentUrl);
@@ -113,14 +206,79 @@ public class HealingInterceptor {
         try {
             WebElement found = driver.findElement(healedBy);
             log.info("HEALING SUCCESS | element={} | healed locator: {}", element, result.locatorValue());
+            recordHeal(element, currentUrl, result, source);
             return found;
         } catch (NoSuchElementException healEx) {
+            Metrics.HEAL_ATTEMPTS.labels("failed").inc();
             log.error("HEALING FAILED | element={} | healed locator did not find element: {}",
                     element, result.locatorValue());
+            if ("llm".equals(source)) healer.rejectHeal(element, pageSource, currentUrl);
             throw new AutoQAException(
                     "Healed locator also failed. Tried: " + result.locatorValue()
                             + ". Original: " + originalEx.getMessage(),
                     originalEx);
         }
     }
+
+    /** Counts a heal that located the element, caches it and writes it back. */
+    private void recordHeal(ElementInfo element, String currentUrl,
+                            LocatorHealer.HealingResult result, String source) {
+        Metrics.HEAL_ATTEMPTS.labels(source).inc();
+        if (cache != null) cache.put(recording, element, currentUrl, result, source);
+        writeBack(element, result);
+    }
+
+    /**
+     * Re-validates a cached heal with a single {@code findElements} call —
+     * no page source, no LLM.  A cached locator that no longer matches is
+     * dropped so the caller falls through to a fresh heal.
+     *
+     * @return the located element, or {@code null} if there is no usable cached heal
+     */
+    private WebElement tryCachedHeal(ElementInfo element, String currentUrl) {
+        if (cache == null) return null;
+        HealCache.Entry entry = cache.get(recording, element, currentUrl);
+        if (entry == null) return null;
+
+        List<WebElement> found = driver.findElements(toBy(entry.toResult()));
+        if (found.isEmpty()) {
+            log.info("HEAL CACHE STALE | element={} | cached locator: {}", element, entry.getLocator());
+            cache.invalidate(recording, element, currentUrl);
+            return null;
+        }
+        cache.confirm(recording, element, currentUrl);
+        log.info("HEAL CACHE HIT | element={} | locator={} | confidence={}",
+                element, entry.getLocator(), String.format("%.2f", entry.getConfidence()));
+        return found.get(0);
+    }
+
+    /**
+     * Copies a confirmed heal into the Object Repository entry the failed
+     * element came from, if any, and saves the repository when a file is set.
+     */
+    private void writeBack(ElementInfo element, LocatorHealer.HealingResult result) {
+        ObjectRepository or = objectRepository;
+        if (or == null) return;
+        synchronized (or) {
+            TestObject obj = or.findByElement(element);
+            if (obj == null) return;
+            obj.setLocator(result.strategy(), result.locatorValue());
+            log.info("HEALING WRITE-BACK | object={} | {}={}", obj.getName(),
+                    result.strategy(), result.locatorValue());
+            if (objectRepositoryFile != null) {
+                try {
+                    or.save(objectRepositoryFile);
+                } catch (IOException e) {
+                    log.warn("Could not save Object Repository {}: {}", objectRepositoryFile, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Builds the Selenium {@link By} for a healed locator. */
+    private static By toBy(LocatorHealer.HealingResult result) {
+        return result.strategy() == ElementLocator.Strategy.XPATH
+                ? By.xpath(result.locatorValue())
+                : By.cssSelector(result.locatorValue());
+    }
 }
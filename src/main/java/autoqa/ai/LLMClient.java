@@ -1,5 +1,6 @@
 package autoqa.ai;
 
+import autoqa.metrics.Metrics;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -9,18 +10,33 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.Properties;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 /**
  * OpenAI-compatible HTTP client that targets Ollama's /v1/chat/completions endpoint.
- * Supports configurable timeouts and automatic retry on 5xx errors.
+ * Supports configurable timeouts and automatic retry on 5xx, 429 and I/O errors,
+ * with exponential backoff and jitter between attempts.
+ *
+ * <p>Requests go through an {@link LLMGateway}, which owns the connection pool
+ * and limits how many requests reach the server at once; each client sends in
+ * one {@link LLMGateway.Lane priority lane}.
+ *
+ * <p>{@link #complete(List, Predicate)} streams the completion as server-sent
+ * events and returns as soon as the caller's predicate accepts the text so far,
+ * so a caller that needs one line does not wait for the whole answer.  With an
+ * {@link LLMResponseCache} attached, a prompt that was answered before is
+ * returned from the cache without contacting the endpoint.
  */
 public class LLMClient {
 
@@ -28,6 +44,11 @@ public class LLMClient {
     private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
+    /** Cache-key suffix for streamed answers that {@code isComplete} cut short. */
+    private static final String PARTIAL_SUFFIX = "-partial";
+
+    private final LLMGateway gateway;
+    private final LLMGateway.Lane lane;
     private final String baseUrl;
     private final String model;
     private final double temperature;
@@ -36,31 +57,125 @@ public class LLMClient {
     private final int retryCount;
     private final long retryDelayMs;
     private final OkHttpClient httpClient;
+    private volatile LLMResponseCache cache;
 
+    /**
+     * Creates a client with its own gateway to {@code baseUrl}, not limited in
+     * concurrency and not shared with other clients.
+     */
     public LLMClient(String baseUrl, String model, double temperature, int maxTokens,
                      int timeoutSec, int retryCount, long retryDelayMs) {
-        this.baseUrl      = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this(new LLMGateway(baseUrl, Integer.MAX_VALUE), LLMGateway.Lane.NORMAL,
+                model, temperature, maxTokens, timeoutSec, retryCount, retryDelayMs);
+    }
+
+    /**
+     * Creates a client that sends through {@code gateway} in {@code lane}.
+     *
+     * @param retryDelayMs base delay before the first retry; doubled per attempt, with jitter
+     */
+    public LLMClient(LLMGateway gateway, LLMGateway.Lane lane, String model, double temperature,
+                     int maxTokens, int timeoutSec, int retryCount, long retryDelayMs) {
+        this.gateway      = gateway;
+        this.lane         = lane;
+        this.baseUrl      = gateway.getBaseUrl();
         this.model        = model;
         this.temperature  = temperature;
         this.maxTokens    = maxTokens;
         this.timeoutSec   = timeoutSec;
         this.retryCount   = retryCount;
         this.retryDelayMs = retryDelayMs;
-        this.httpClient   = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(timeoutSec, TimeUnit.SECONDS)
-                .writeTimeout(30, TimeUnit.SECONDS)
-                .build();
+        this.httpClient   = gateway.httpClient(timeoutSec);
+    }
+
+    /** Priority lane this client's requests wait in. */
+    public LLMGateway.Lane getLane() {
+        return lane;
+    }
+
+    /**
+     * Attaches a response cache consulted before every request, or detaches it
+     * when {@code cache} is {@code null}.
+     */
+    public void setResponseCache(LLMResponseCache cache) {
+        this.cache = cache;
     }
 
     /**
      * Sends a chat completion request to the configured Ollama endpoint.
+     * Latency (including retries) and the token usage reported by the server
+     * are recorded in {@link Metrics}.
      *
      * @param messages list of {@link ChatMessage} objects in conversation order
      * @return the assistant's response text (choices[0].message.content), trimmed
      * @throws IOException if the request fails after all retries are exhausted
      */
     public String complete(List<ChatMessage> messages) throws IOException {
+        return cachedSend(messages, null);
+    }
+
+    /**
+     * Streams a chat completion and returns once {@code isComplete} accepts the
+     * text received so far, or when the stream ends.  Stopping early closes the
+     * connection, so the model's remaining output is never waited for.
+     *
+     * <p>An answer cut short by {@code isComplete} is cached apart from full
+     * answers: {@link #complete(List)} never sees it, while a later streaming
+     * call for the same prompt is served from either.
+     *
+     * @param messages   list of {@link ChatMessage} objects in conversation order
+     * @param isComplete tested against the accumulated content after every chunk
+     * @return the content received, trimmed
+     * @throws IOException if the request fails after all retries are exhausted
+     */
+    public String complete(List<ChatMessage> messages, Predicate<String> isComplete) throws IOException {
+        return cachedSend(messages, isComplete);
+    }
+
+    /**
+     * Drops any cached answer to {@code messages}, full or cut short, so the
+     * next request for the same prompt goes to the model.  Callers use this
+     * when an answer proved unusable — a cached wrong answer would otherwise
+     * be replayed until it expires.
+     */
+    public void invalidateCached(List<ChatMessage> messages) {
+        LLMResponseCache c = cache;
+        if (c == null) return;
+        String key = LLMResponseCache.key(model, temperature, maxTokens, messages);
+        c.invalidate(key);
+        c.invalidate(key + PARTIAL_SUFFIX);
+    }
+
+    private String cachedSend(List<ChatMessage> messages, Predicate<String> isComplete) throws IOException {
+        LLMResponseCache c = cache;
+        String key = c != null ? LLMResponseCache.key(model, temperature, maxTokens, messages) : null;
+        if (c != null) {
+            String hit = c.get(key);
+            if (hit == null && isComplete != null) hit = c.get(key + PARTIAL_SUFFIX);
+            Metrics.LLM_CACHE.labels(hit != null ? "hit" : "miss").inc();
+            if (hit != null) {
+                log.debug("LLM response served from cache ({})", key);
+                return hit;
+            }
+        }
+
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            Completion completion = send(messages, isComplete);
+            ok = true;
+            // A blank answer (e.g. a server that ignored stream:true) must not be replayed for the whole TTL
+            String content = completion.content();
+            if (c != null && content != null && !content.isBlank()) {
+                c.put(completion.stoppedEarly() ? key + PARTIAL_SUFFIX : key, content);
+            }
+            return content;
+        } finally {
+            Metrics.LLM_DURATION.labels(ok ? "ok" : "error").observeSince(start);
+        }
+    }
+
+    private Completion send(List<ChatMessage> messages, Predicate<String> isComplete) throws IOException {
         // Log first user message snippet at DEBUG for diagnostics
         messages.stream()
                 .filter(m -> "user".equals(m.role()))
@@ -73,17 +188,19 @@ public class LLMClient {
                             baseUrl, model, snippet);
                 });
 
-        String requestJson = buildRequestJson(messages);
+        boolean stream = isComplete != null;
+        String requestJson = buildRequestJson(messages, stream);
         String url = baseUrl + "/chat/completions";
 
         IOException lastException = null;
 
         for (int attempt = 0; attempt <= retryCount; attempt++) {
             if (attempt > 0) {
+                long delayMs = LLMGateway.backoffMillis(attempt, retryDelayMs);
                 log.warn("Retrying LLM request (attempt {}/{}) after {}ms delay",
-                        attempt, retryCount, retryDelayMs);
+                        attempt, retryCount, delayMs);
                 try {
-                    Thread.sleep(retryDelayMs);
+                    Thread.sleep(delayMs);
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
                     throw new IOException("Interrupted during retry delay", ie);
@@ -96,10 +213,19 @@ public class LLMClient {
                     .header("Content-Type", "application/json")
                     .build();
 
-            try (Response response = httpClient.newCall(request).execute()) {
+            // Held for this attempt only, so the slot is free while we back off
+            LLMGateway.Permit permit;
+            try {
+                permit = gateway.acquire(lane);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for an LLM request slot", ie);
+            }
+
+            try (permit; Response response = httpClient.newCall(request).execute()) {
                 int statusCode = response.code();
 
-                if (statusCode >= 500) {
+                if (statusCode >= 500 || statusCode == 429) {
                     String errorBody = response.body() != null ? response.body().string() : "<empty>";
                     log.warn("LLM endpoint returned {} on attempt {}: {}", statusCode, attempt + 1, errorBody);
                     lastException = new IOException(
@@ -112,8 +238,11 @@ public class LLMClient {
                     throw new IOException("LLM request failed with HTTP " + statusCode + ": " + errorBody);
                 }
 
+                if (stream) {
+                    return readStream(response.body(), isComplete);
+                }
                 String responseBody = response.body() != null ? response.body().string() : "";
-                return parseContent(responseBody);
+                return new Completion(parseContent(responseBody), false);
 
             } catch (IOException e) {
                 if (e.getMessage() != null && (
@@ -138,12 +267,15 @@ public class LLMClient {
     /**
      * Builds the JSON request body for the /chat/completions endpoint.
      */
-    private String buildRequestJson(List<ChatMessage> messages) throws IOException {
+    private String buildRequestJson(List<ChatMessage> messages, boolean stream) throws IOException {
         ObjectNode root = MAPPER.createObjectNode();
         root.put("model", model);
         root.put("temperature", temperature);
         root.put("max_tokens", maxTokens);
-        root.put("stream", false);  // Ollama defaults to streaming — disable it explicitly
+        root.put("stream", stream);  // Ollama defaults to streaming — always set it explicitly
+        if (stream) {
+            root.putObject("stream_options").put("include_usage", true);
+        }
 
         ArrayNode msgs = root.putArray("messages");
         for (ChatMessage msg : messages) {
@@ -169,14 +301,56 @@ public class LLMClient {
             if (content.isMissingNode()) {
                 throw new IOException("LLM response missing choices[0].message.content: " + responseBody);
             }
+            recordUsage(root.path("usage"));
             return content.asText().trim();
         } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
             throw new IOException("Failed to parse LLM response JSON: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Reads {@code data:} lines of a server-sent event stream, appending each
+     * chunk's choices[0].delta.content, until {@code [DONE]}, the end of the
+     * body, or {@code isComplete} accepts the text so far.
+     */
+    private Completion readStream(ResponseBody body, Predicate<String> isComplete) throws IOException {
+        if (body == null) throw new IOException("LLM response missing body");
+        StringBuilder content = new StringBuilder();
+        BufferedSource source = body.source();
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (!line.startsWith("data:")) continue;  // blank separators, comments, event names
+            String data = line.substring(5).trim();
+            if (data.equals("[DONE]")) break;
+            JsonNode chunk;
+            try {
+                chunk = MAPPER.readTree(data);
+            } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+                throw new IOException("Failed to parse LLM response chunk: " + e.getMessage(), e);
+            }
+            recordUsage(chunk.path("usage"));
+            JsonNode delta = chunk.path("choices").path(0).path("delta").path("content");
+            if (!delta.isTextual() || delta.asText().isEmpty()) continue;
+            content.append(delta.asText());
+            if (isComplete.test(content.toString())) {
+                log.debug("LLM stream stopped early after {} char(s)", content.length());
+                return new Completion(content.toString().trim(), true);
+            }
+        }
+        return new Completion(content.toString().trim(), false);
+    }
+
+    private static void recordUsage(JsonNode usage) {
+        if (!usage.isObject()) return;
+        Metrics.LLM_TOKENS.labels("prompt").add(Math.max(0, usage.path("prompt_tokens").asLong()));
+        Metrics.LLM_TOKENS.labels("completion").add(Math.max(0, usage.path("completion_tokens").asLong()));
+    }
+
     // ── Nested types ──────────────────────────────────────────────────────
 
+    /** Text returned by one request, and whether streaming stopped before the model finished. */
+    private record Completion(String content, boolean stoppedEarly) {}
+
     /**
      * Simple record representing a single chat turn.
      */
@@ -207,6 +381,11 @@ public class LLMClient {
      *   <li>{@code ai.llm.timeout.sec}     — {@code 120}</li>
      *   <li>{@code ai.llm.retry.count}     — {@code 2}</li>
      *   <li>{@code ai.llm.retry.delay.ms}  — {@code 2000}</li>
+     *   <li>{@code ai.llm.max.concurrent}  — {@code 2}</li>
+     *   <li>{@code ai.llm.cache.enabled}   — {@code true}</li>
+     *   <li>{@code ai.llm.cache.dir}       — {@code healing/llm-cache}</li>
+     *   <li>{@code ai.llm.cache.max.entries} — {@code 500}</li>
+     *   <li>{@code ai.llm.cache.ttl.hours} — {@code 168}</li>
      * </ul>
      *
      * @return a fully configured {@link LLMClient}
@@ -237,7 +416,17 @@ public class LLMClient {
                         + "timeoutSec={}, retryCount={}, retryDelayMs={}",
                 baseUrl, model, temperature, maxTokens, timeoutSec, retryCount, retryDelayMs);
 
-        return new LLMClient(baseUrl, model, temperature, maxTokens, timeoutSec, retryCount, retryDelayMs);
+        int    maxConcurrent = parseInt(props,   "ai.llm.max.concurrent", 2);
+
+        LLMClient client = new LLMClient(LLMGateway.shared(baseUrl, maxConcurrent), LLMGateway.Lane.NORMAL,
+                model, temperature, maxTokens, timeoutSec, retryCount, retryDelayMs);
+        if (Boolean.parseBoolean(props.getProperty("ai.llm.cache.enabled", "true"))) {
+            client.setResponseCache(LLMResponseCache.open(
+                    Path.of(props.getProperty("ai.llm.cache.dir", "healing/llm-cache")),
+                    parseInt(props, "ai.llm.cache.max.entries", 500),
+                    Duration.ofHours(parseLong(props, "ai.llm.cache.ttl.hours", 168L))));
+        }
+        return client;
     }
 
     private static double parseDouble(Properties props, String key, double defaultVal) {
@@ -0,0 +1,223 @@
+package autoqa.ai;
+
+import autoqa.metrics.Metrics;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One LLM endpoint shared by every {@link LLMClient} that talks to it: a
+ * single OkHttp connection pool, and a cap on concurrent requests matched to
+ * what the local Ollama / vLLM server can serve in parallel.
+ *
+ * <p>Requests acquire a {@link Permit} before they are sent.  When all
+ * permits are taken, waiters queue per {@link Lane} and a released permit goes
+ * to the oldest waiter of the highest-priority lane, so a healing request
+ * issued mid-playback overtakes any queued bulk test generation.  Requests
+ * already in flight are never interrupted.  Clients release their permit
+ * while sleeping between retries; see {@link #backoffMillis}.
+ *
+ * <p>Use {@link #shared} so that all clients in one JVM share the gateway per
+ * base URL.  Queue depth per lane and requests in flight are exported as
+ * gauges, and time spent queued as {@code autoqa_llm_queue_wait_seconds}.
+ */
+public final class LLMGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(LLMGateway.class);
+
+    /** Upper bound for one retry delay, whatever the attempt number. */
+    static final long MAX_BACKOFF_MS = 30_000;
+
+    /** Idle connections kept for a gateway whose concurrency is effectively unbounded. */
+    private static final int MAX_IDLE_CONNECTIONS = 16;
+
+    private static final Map<String, LLMGateway> SHARED = new ConcurrentHashMap<>();
+
+    static {
+        Metrics.REGISTRY.gauge("autoqa_llm_queue_depth",
+                "LLM requests waiting for a gateway permit, by lane.", "lane", () -> {
+                    Map<String, Integer> depth = new LinkedHashMap<>();
+                    for (Lane lane : Lane.values()) {
+                        depth.put(lane.label(), SHARED.values().stream().mapToInt(g -> g.queued(lane)).sum());
+                    }
+                    return depth;
+                });
+        Metrics.REGISTRY.gauge("autoqa_llm_in_flight",
+                "LLM requests holding a gateway permit.",
+                () -> SHARED.values().stream().mapToInt(LLMGateway::inFlight).sum());
+    }
+
+    /** Priority lanes, highest first. */
+    public enum Lane {
+        /** Self-healing during playback — a test step is waiting on the answer. */
+        INTERACTIVE,
+        /** Failure analysis and other one-off requests. */
+        NORMAL,
+        /** Test generation and other batch work that can wait. */
+        BULK;
+
+        String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final String baseUrl;
+    private final int maxConcurrent;
+    private final OkHttpClient httpClient;
+
+    /** Guarded by {@code this}. */
+    private int inFlight;
+    private final Map<Lane, ArrayDeque<Waiter>> queues = new EnumMap<>(Lane.class);
+
+    private static final class Waiter {
+        boolean granted;
+    }
+
+    /**
+     * @param baseUrl       OpenAI-compatible base URL, e.g. {@code http://localhost:11434/v1}
+     * @param maxConcurrent requests allowed in flight at once
+     */
+    public LLMGateway(String baseUrl, int maxConcurrent) {
+        if (maxConcurrent < 1) throw new IllegalArgumentException("maxConcurrent must be >= 1: " + maxConcurrent);
+        this.baseUrl       = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.maxConcurrent = maxConcurrent;
+        for (Lane lane : Lane.values()) queues.put(lane, new ArrayDeque<>());
+
+        // Permits bound concurrency, so the pool never needs more idle connections than that
+        this.httpClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(Math.min(maxConcurrent, MAX_IDLE_CONNECTIONS), 5, TimeUnit.MINUTES))
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /** Returns the JVM-wide gateway for {@code baseUrl}, creating it on first use. */
+    public static LLMGateway shared(String baseUrl, int maxConcurrent) {
+        String key = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        LLMGateway g = SHARED.computeIfAbsent(key, k -> {
+            log.info("LLMGateway: {} with {} concurrent request(s)", k, maxConcurrent);
+            return new LLMGateway(k, maxConcurrent);
+        });
+        if (g.maxConcurrent != maxConcurrent) {
+            log.debug("LLMGateway: {} already open with maxConcurrent={}, ignoring {}",
+                    key, g.maxConcurrent, maxConcurrent);
+        }
+        return g;
+    }
+
+    public String getBaseUrl()    { return baseUrl; }
+
+    public int getMaxConcurrent() { return maxConcurrent; }
+
+    /**
+     * HTTP client on the shared pool with the given read timeout.  Clients
+     * derived this way share connections and the dispatcher.
+     */
+    OkHttpClient httpClient(int readTimeoutSec) {
+        return httpClient.newBuilder().readTimeout(readTimeoutSec, TimeUnit.SECONDS).build();
+    }
+
+    // ── Permits ───────────────────────────────────────────────────────────
+
+    /**
+     * Blocks until a request slot is free and this caller is the oldest
+     * waiter of the highest waiting lane.
+     *
+     * @throws InterruptedException if interrupted while queued
+     */
+    public Permit acquire(Lane lane) throws InterruptedException {
+        long start = System.nanoTime();
+        synchronized (this) {
+            if (inFlight < maxConcurrent && nobodyWaiting()) {
+                inFlight++;
+            } else {
+                Waiter w = new Waiter();
+                queues.get(lane).addLast(w);
+                try {
+                    while (!w.granted) wait();
+                } catch (InterruptedException e) {
+                    if (w.granted) {
+                        handOff();       // the slot was passed to us — pass it on
+                    } else {
+                        queues.get(lane).remove(w);
+                    }
+                    throw e;
+                }
+                // inFlight was left unchanged when the slot was handed to us
+            }
+        }
+        Metrics.LLM_QUEUE_WAIT.labels(lane.label()).observeSince(start);
+        return new Permit();
+    }
+
+    /** Gives the slot to the next waiter, or frees it when nobody waits. Caller holds the lock. */
+    private void handOff() {
+        for (Lane lane : Lane.values()) {
+            Waiter next = queues.get(lane).pollFirst();
+            if (next != null) {
+                next.granted = true;
+                notifyAll();
+                return;
+            }
+        }
+        inFlight--;
+    }
+
+    private boolean nobodyWaiting() {
+        for (ArrayDeque<Waiter> q : queues.values()) {
+            if (!q.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    /** Requests waiting in {@code lane}. */
+    public synchronized int queued(Lane lane) {
+        return queues.get(lane).size();
+    }
+
+    /** Requests currently holding a permit. */
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    /** A held request slot; closing it more than once has no further effect. */
+    public final class Permit implements AutoCloseable {
+
+        private boolean released;
+
+        private Permit() {}
+
+        @Override
+        public void close() {
+            synchronized (LLMGateway.this) {
+                if (released) return;
+                released = true;
+                handOff();
+            }
+        }
+    }
+
+    // ── Backoff ───────────────────────────────────────────────────────────
+
+    /**
+     * Delay before retry number {@code attempt} (1-based): the base delay
+     * doubled per attempt, capped at {@link #MAX_BACKOFF_MS}, then jittered to
+     * a random point in its upper half so clients that failed together do not
+     * retry together.
+     */
+    public static long backoffMillis(int attempt, long baseDelayMs) {
+        if (baseDelayMs <= 0) return 0;
+        int shift = Math.min(Math.max(attempt - 1, 0), 20);
+        long ceiling = Math.min(MAX_BACKOFF_MS, baseDelayMs << shift);
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling - ceiling / 2 + 1);
+    }
+}
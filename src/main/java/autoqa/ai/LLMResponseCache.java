@@ -0,0 +1,291 @@
+package autoqa.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of LLM completions keyed by a SHA-256 hash of the model
+ * settings and the full prompt, so a repeated healing or failure-analysis
+ * prompt is answered without another model call.
+ *
+ * <p>Entries live in an access-ordered map capped at {@code maxEntries}; the
+ * least recently used entry is evicted first, and entries older than the TTL
+ * are dropped when they are next looked up.  When a directory is given, every
+ * entry is also written there as {@code <hash>.json} (atomically, via a temp
+ * file) and evicted entries are deleted, so the disk copy never outgrows the
+ * in-memory bound.  File writes and deletes are serialized and always bring a
+ * key's file in line with the map, so a write racing an eviction of the same
+ * key cannot leave an orphan file.  On start-up the newest unexpired files
+ * are loaded back.
+ *
+ * <p>Use {@link #open} so that all clients in one JVM share the same instance
+ * per directory.
+ */
+public class LLMResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(LLMResponseCache.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Map<Path, LLMResponseCache> OPEN = new ConcurrentHashMap<>();
+
+    private final Path dir;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    /** Access-ordered: iteration starts at the least recently used entry. Guarded by {@code this}. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Held for every file write and delete; taken before {@code this}, never inside it. */
+    private final Object ioLock = new Object();
+
+    private final LongAdder hits      = new LongAdder();
+    private final LongAdder misses    = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private record Entry(long createdAt, String content) {}
+
+    /**
+     * @param dir        directory for the on-disk copy, or {@code null} for a
+     *                   cache that is never persisted
+     * @param maxEntries maximum number of stored completions
+     * @param ttl        how long a completion stays valid
+     */
+    public LLMResponseCache(Path dir, int maxEntries, Duration ttl) {
+        this(dir, maxEntries, ttl, System::currentTimeMillis);
+    }
+
+    LLMResponseCache(Path dir, int maxEntries, Duration ttl, LongSupplier clock) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be >= 1: " + maxEntries);
+        this.dir        = dir;
+        this.maxEntries = maxEntries;
+        this.ttlMillis  = ttl.toMillis();
+        this.clock      = clock;
+        if (dir != null) load();
+    }
+
+    /** Returns the JVM-wide cache for {@code dir}, loading it on first use. */
+    public static LLMResponseCache open(Path dir, int maxEntries, Duration ttl) {
+        return OPEN.computeIfAbsent(dir.toAbsolutePath().normalize(),
+                d -> new LLMResponseCache(d, maxEntries, ttl));
+    }
+
+    // ── Key ───────────────────────────────────────────────────────────────
+
+    /**
+     * Hash of everything that shapes the completion: model, temperature,
+     * token limit and every message in order.
+     */
+    public static String key(String model, double temperature, int maxTokens,
+                             List<LLMClient.ChatMessage> messages) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            update(sha, model);
+            update(sha, Double.toString(temperature));
+            update(sha, Integer.toString(maxTokens));
+            for (LLMClient.ChatMessage m : messages) {
+                update(sha, m.role());
+                update(sha, m.content());
+            }
+            return HexFormat.of().formatHex(sha.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Length-prefixed, so field boundaries cannot be shifted to forge a collision. */
+    private static void update(MessageDigest sha, String s) {
+        byte[] b = (s != null ? s : "").getBytes(StandardCharsets.UTF_8);
+        sha.update(Integer.toString(b.length).getBytes(StandardCharsets.US_ASCII));
+        sha.update((byte) ':');
+        sha.update(b);
+    }
+
+    // ── Lookup ────────────────────────────────────────────────────────────
+
+    /** Returns the cached completion for {@code key}, or {@code null} (counted as a miss). */
+    public String get(String key) {
+        Entry e;
+        boolean expired = false;
+        synchronized (this) {
+            e = entries.get(key);
+            if (e != null && isExpired(e)) {
+                entries.remove(key);
+                expired = true;
+                e = null;
+            }
+        }
+        if (expired) sync(key);
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.content();
+    }
+
+    /** Stores a completion, evicting the least recently used entries beyond the bound. */
+    public void put(String key, String content) {
+        if (content == null) return;
+        Entry e = new Entry(clock.getAsLong(), content);
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            entries.put(key, e);
+            Iterator<String> it = entries.keySet().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                evicted.add(it.next());
+                it.remove();
+            }
+        }
+        evictions.add(evicted.size());
+        sync(key);
+        evicted.forEach(this::sync);
+    }
+
+    /**
+     * Drops the completion stored for {@code key}, in memory and on disk, so
+     * an answer that turned out to be wrong is asked for again next time.
+     */
+    public void invalidate(String key) {
+        boolean removed;
+        synchronized (this) {
+            removed = entries.remove(key) != null;
+        }
+        if (removed) sync(key);
+    }
+
+    private boolean isExpired(Entry e) {
+        return clock.getAsLong() - e.createdAt() > ttlMillis;
+    }
+
+    // ── Statistics ────────────────────────────────────────────────────────
+
+    /** Lookups answered from the cache. */
+    public long getHits()      { return hits.sum(); }
+
+    /** Lookups with no valid entry. */
+    public long getMisses()    { return misses.sum(); }
+
+    /** Entries dropped to stay within {@code maxEntries}. */
+    public long getEvictions() { return evictions.sum(); }
+
+    /** Number of stored completions. */
+    public synchronized int size() { return entries.size(); }
+
+    /** Backing directory, or {@code null} for an in-memory cache. */
+    public Path getDir()       { return dir; }
+
+    // ── Persistence ───────────────────────────────────────────────────────
+
+    /** Loads the newest unexpired entries, deleting expired and surplus files. */
+    private void load() {
+        if (!Files.isDirectory(dir)) return;
+        List<Map.Entry<String, Entry>> loaded = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.json")) {
+            for (Path f : files) {
+                String key = f.getFileName().toString().replace(".json", "");
+                try {
+                    JsonNode n = MAPPER.readTree(f.toFile());
+                    Entry e = new Entry(n.path("createdAt").asLong(), n.path("content").asText(null));
+                    if (e.content() == null || isExpired(e)) {
+                        Files.deleteIfExists(f);
+                    } else {
+                        loaded.add(Map.entry(key, e));
+                    }
+                } catch (IOException ex) {
+                    log.debug("LLMResponseCache: skipping unreadable {}: {}", f, ex.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("LLMResponseCache: cannot list {}: {}", dir, e.getMessage());
+            return;
+        }
+        // Oldest first, so the newest end up most recently used and the surplus is evicted
+        loaded.sort(Comparator.comparingLong(me -> me.getValue().createdAt()));
+        for (Map.Entry<String, Entry> me : loaded) entries.put(me.getKey(), me.getValue());
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            String key = it.next();
+            it.remove();
+            delete(key);
+        }
+        log.info("LLMResponseCache: loaded {} entr(ies) from {}", entries.size(), dir);
+    }
+
+    /**
+     * Brings the file for {@code key} in line with the map: writes the current
+     * entry, or deletes the file if the key is gone.  Called after every
+     * change, so whichever call runs last leaves the right file behind.
+     */
+    private void sync(String key) {
+        if (dir == null) return;
+        synchronized (ioLock) {
+            Entry current;
+            synchronized (this) {
+                current = entries.get(key);
+            }
+            if (current != null) {
+                write(key, current);
+            } else {
+                delete(key);
+            }
+        }
+    }
+
+    private void write(String key, Entry e) {
+        Path tmp = null;
+        try {
+            Files.createDirectories(dir);
+            ObjectNode n = MAPPER.createObjectNode();
+            n.put("createdAt", e.createdAt());
+            n.put("content", e.content());
+            tmp = Files.createTempFile(dir, "llm-cache", ".tmp");
+            MAPPER.writeValue(tmp.toFile(), n);
+            Files.move(tmp, dir.resolve(key + ".json"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+        } catch (IOException ex) {
+            log.warn("LLMResponseCache: cannot write {}: {}", key, ex.getMessage());
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ex) {
+                    log.debug("LLMResponseCache: cannot delete {}: {}", tmp, ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void delete(String key) {
+        if (dir == null) return;
+        try {
+            Files.deleteIfExists(dir.resolve(key + ".json"));
+        } catch (IOException ex) {
+            log.debug("LLMResponseCache: cannot delete {}: {}", key, ex.getMessage());
+        }
+    }
+}
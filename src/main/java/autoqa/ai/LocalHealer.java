@@ -0,0 +1,134 @@
+package autoqa.ai;
+
+import autoqa.model.ElementInfo;
+import autoqa.model.ElementLocator;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Deterministic healing without a model call: one in-page script ranks every
+ * visible element against the recorded {@link ElementInfo} with
+ * {@link ElementScoring} and, when the best candidate is clearly ahead,
+ * returns a CSS selector for it.
+ *
+ * <p>A heal is accepted only when the top candidate's confidence reaches
+ * {@code minConfidence} and leads the runner-up by at least
+ * {@code minMargin}; otherwise the page is ambiguous and
+ * {@link HealingInterceptor} moves on to the LLM.  The selector prefers a
+ * unique {@code id}, then a unique test/name/label attribute, then a
+ * {@code nth-of-type} path anchored at the nearest ancestor with a unique id,
+ * and is checked to resolve back to the same element before it is returned.
+ */
+public class LocalHealer {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalHealer.class);
+
+    /** Arguments: target description.  Returns {@code [[confidence, selector], [confidence, null]]}. */
+    private static final String LOCAL_HEAL_JS = """
+            var t = arguments[0], maxCand = 2;
+            """ + ElementScoring.RANK_JS + """
+            function cssEscape(s) {
+              return window.CSS && CSS.escape ? CSS.escape(s) : String(s).replace(/([^a-zA-Z0-9_-])/g, '\\\\$1');
+            }
+            function unique(sel, el) {
+              try {
+                var m = document.querySelectorAll(sel);
+                return m.length === 1 && m[0] === el;
+              } catch (e) { return false; }
+            }
+            function selector(el) {
+              var tagName = el.tagName.toLowerCase();
+              if (el.id && unique('#' + cssEscape(el.id), el)) return '#' + cssEscape(el.id);
+              var stable = ['data-testid', 'data-test', 'data-qa', 'name', 'aria-label'];
+              for (var i = 0; i < stable.length; i++) {
+                var v = el.getAttribute(stable[i]);
+                if (!v) continue;
+                var sel = tagName + '[' + stable[i] + '="' + v.replace(/\\\\/g, '\\\\\\\\').replace(/"/g, '\\\\"') + '"]';
+                if (unique(sel, el)) return sel;
+              }
+              var parts = [];
+              for (var e = el; e && e.nodeType === 1 && e !== document.documentElement; e = e.parentElement) {
+                if (e !== el && e.id && unique('#' + cssEscape(e.id), e)) {
+                  parts.unshift('#' + cssEscape(e.id));
+                  break;
+                }
+                var name = e.tagName.toLowerCase(), n = 1, same = 0;
+                for (var s = e.parentElement ? e.parentElement.firstElementChild : null; s; s = s.nextElementSibling) {
+                  if (s.tagName !== e.tagName) continue;
+                  same++;
+                  if (s === e) n = same;
+                }
+                parts.unshift(same > 1 ? name + ':nth-of-type(' + n + ')' : name);
+              }
+              var path = parts.join(' > ');
+              return unique(path, el) ? path : null;
+            }
+            if (!ranked.length) return [];
+            var out = [[ranked[0][2], selector(ranked[0][1])]];
+            if (ranked.length > 1) out.push([ranked[1][2], null]);
+            return out;
+            """;
+
+    private final double minConfidence;
+    private final double minMargin;
+
+    /**
+     * @param minConfidence best candidate's score as a fraction of the best
+     *                      reachable score, from 0 to 1
+     * @param minMargin     required lead over the runner-up, in the same units
+     */
+    public LocalHealer(double minConfidence, double minMargin) {
+        this.minConfidence = minConfidence;
+        this.minMargin     = minMargin;
+    }
+
+    /**
+     * Ranks the page against {@code element} and returns a CSS locator for a
+     * clear winner, or a failed result when the page is ambiguous, nothing is
+     * similar, or the driver cannot run scripts.
+     */
+    public LocatorHealer.HealingResult heal(ElementInfo element, WebDriver driver) {
+        if (!(driver instanceof JavascriptExecutor js)) {
+            return LocatorHealer.HealingResult.failed("Driver cannot run scripts");
+        }
+        Object raw;
+        try {
+            raw = js.executeScript(LOCAL_HEAL_JS, ElementScoring.describe(element));
+        } catch (WebDriverException e) {
+            log.debug("Local heal script failed: {}", e.getMessage());
+            return LocatorHealer.HealingResult.failed("Local heal script failed: " + e.getMessage());
+        }
+        return decide(raw);
+    }
+
+    /** Applies the confidence and margin thresholds to the script's result. */
+    LocatorHealer.HealingResult decide(Object raw) {
+        if (!(raw instanceof List<?> ranked) || ranked.isEmpty()
+                || !(ranked.get(0) instanceof List<?> top) || top.size() < 2) {
+            return LocatorHealer.HealingResult.failed("No similar element on the page");
+        }
+        double best = top.get(0) instanceof Number n ? n.doubleValue() : 0;
+        double second = ranked.size() > 1 && ranked.get(1) instanceof List<?> r
+                && !r.isEmpty() && r.get(0) instanceof Number n2 ? n2.doubleValue() : 0;
+        String selector = top.get(1) instanceof String s && !s.isBlank() ? s : null;
+
+        if (best < minConfidence) {
+            return LocatorHealer.HealingResult.failed(String.format(
+                    "Best local candidate too weak (confidence %.2f < %.2f)", best, minConfidence));
+        }
+        if (best - second < minMargin) {
+            return LocatorHealer.HealingResult.failed(String.format(
+                    "Local candidates ambiguous (%.2f vs %.2f)", best, second));
+        }
+        if (selector == null) {
+            return LocatorHealer.HealingResult.failed("No unique selector for the best local candidate");
+        }
+        log.debug("Local heal: {} (confidence {}, runner-up {})", selector, best, second);
+        return LocatorHealer.HealingResult.success(selector, ElementLocator.Strategy.CSS);
+    }
+}
@@ -14,10 +14,16 @@ import java.util.List;
  * Also provides a DOM-tree-comparison fallback for offline / LLM-unavailable scenarios.
  *
  * <p>The primary path sends a structured prompt containing the failed element's
- * recorded metadata and a truncated snapshot of the live page HTML. The LLM is
+ * recorded metadata and an excerpt of the live page HTML: the regions around
+ * the best-matching candidates from {@link #pruneDom}, or the page source
+ * truncated to {@code domSnippetChars} when pruning is off or finds nothing. The LLM is
  * expected to return either a bare CSS selector / XPath string, or the sentinel
  * value {@code CANNOT_HEAL} when it cannot make a confident suggestion.
  *
+ * <p>In streaming mode the completion is read chunk by chunk and the request is
+ * abandoned as soon as the first locator line is complete; only that line is
+ * used, so any explanation the model appends is never waited for.
+ *
  * <p>The fallback path ({@link #healByDomComparison}) constructs an XPath
  * expression based on the element's visible text content and tag name, requiring
  * no network call.
@@ -34,14 +40,48 @@ public class LocatorHealer {
 
     private final LLMClient llm;
     private final int domSnippetChars;
+    private final boolean stream;
+    private final DomSnippetExtractor pruner;
 
     /**
      * @param llm            configured LLM client
      * @param domSnippetChars maximum characters of page HTML to include in the prompt
      */
     public LocatorHealer(LLMClient llm, int domSnippetChars) {
-        this.llm            = llm;
+        this(llm, domSnippetChars, false);
+    }
+
+    /**
+     * @param llm            configured LLM client
+     * @param domSnippetChars maximum characters of page HTML to include in the prompt
+     * @param stream         stream the completion and stop at the first complete locator line
+     */
+    public LocatorHealer(LLMClient llm, int domSnippetChars, boolean stream) {
+        this(llm, domSnippetChars, stream, false);
+    }
+
+    /**
+     * @param llm            configured LLM client
+     * @param domSnippetChars maximum characters of page HTML to include in the prompt
+     * @param stream         stream the completion and stop at the first complete locator line
+     * @param pruneDom       build the page excerpt in the browser with {@link DomSnippetExtractor}
+     */
+    public LocatorHealer(LLMClient llm, int domSnippetChars, boolean stream, boolean pruneDom) {
+        this.llm             = llm;
         this.domSnippetChars = domSnippetChars;
+        this.stream          = stream;
+        this.pruner          = pruneDom
+                ? new DomSnippetExtractor(domSnippetChars, DomSnippetExtractor.DEFAULT_CANDIDATES)
+                : null;
+    }
+
+    /**
+     * Returns a pruned excerpt of the live DOM around the likely new position
+     * of {@code failedElement}, to pass to {@link #heal} instead of the full
+     * page source, or {@code null} when pruning is off or finds no candidate.
+     */
+    public String pruneDom(ElementInfo failedElement, WebDriver driver) {
+        return pruner != null ? pruner.extract(driver, failedElement) : null;
     }
 
     // ── Primary: LLM healing ──────────────────────────────────────────────
@@ -50,11 +90,51 @@ public class LocatorHealer {
      * Asks the LLM to suggest an alternative locator for the failed element.
      *
      * @param failedElement the {@link ElementInfo} that failed all locator strategies
-     * @param pageSource    current page HTML (truncated to {@code domSnippetChars})
+     * @param pageSource    current page HTML or a {@link #pruneDom} excerpt (truncated to {@code domSnippetChars})
      * @param currentUrl    current page URL, included in the prompt for context
      * @return a {@link HealingResult} describing success or failure
      */
     public HealingResult heal(ElementInfo failedElement, String pageSource, String currentUrl) {
+        List<LLMClient.ChatMessage> messages = prompt(failedElement, pageSource, currentUrl);
+        log.debug("Sending healing prompt for element: {}", failedElement);
+
+        try {
+            String response = stream
+                    ? firstLocatorLine(llm.complete(messages, text -> text.indexOf('\n', locatorStart(text)) >= 0))
+                    : llm.complete(messages).trim();
+
+            log.info("Healer response: {}", response);
+
+            if (CANNOT_HEAL_SENTINEL.equals(response) || response.isBlank()) {
+                // Not worth replaying: the next attempt may see a page the model can heal
+                llm.invalidateCached(messages);
+                return HealingResult.failed("LLM returned CANNOT_HEAL");
+            }
+
+            ElementLocator.Strategy strategy = determineStrategy(response);
+            return HealingResult.success(response, strategy);
+
+        } catch (IOException e) {
+            log.warn("LLM healing request failed: {}", e.getMessage());
+            return HealingResult.failed("LLM error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reports that the locator {@link #heal} suggested for these arguments did
+     * not find the element, dropping the cached answer so the same prompt is
+     * sent to the model again instead of replaying the bad locator.
+     *
+     * @param failedElement the element passed to {@link #heal}
+     * @param pageSource    the page source passed to {@link #heal}
+     * @param currentUrl    the URL passed to {@link #heal}
+     */
+    public void rejectHeal(ElementInfo failedElement, String pageSource, String currentUrl) {
+        llm.invalidateCached(prompt(failedElement, pageSource, currentUrl));
+    }
+
+    /** System and user messages of the healing prompt. */
+    private List<LLMClient.ChatMessage> prompt(ElementInfo failedElement, String pageSource, String currentUrl) {
         String truncatedDom = pageSource != null && pageSource.length() > domSnippetChars
                 ? pageSource.substring(0, domSnippetChars) + "\n... [TRUNCATED]"
                 : (pageSource != null ? pageSource : "");
@@ -88,7 +168,7 @@ public class LocatorHealer {
 
                 Current URL: %s
 
-                Page HTML (truncated):
+                Page HTML (excerpt):
                 %s
 
                 Suggest an alternative CSS selector or XPath to find this element:
@@ -103,27 +183,9 @@ public class LocatorHealer {
                         currentUrl,
                         truncatedDom);
 
-        log.debug("Sending healing prompt for element: {}", failedElement);
-
-        try {
-            String response = llm.complete(List.of(
-                    LLMClient.ChatMessage.system(systemPrompt),
-                    LLMClient.ChatMessage.user(userPrompt)
-            )).trim();
-
-            log.info("Healer response: {}", response);
-
-            if (CANNOT_HEAL_SENTINEL.equals(response) || response.isBlank()) {
-                return HealingResult.failed("LLM returned CANNOT_HEAL");
-            }
-
-            ElementLocator.Strategy strategy = determineStrategy(response);
-            return HealingResult.success(response, strategy);
-
-        } catch (IOException e) {
-            log.warn("LLM healing request failed: {}", e.getMessage());
-            return HealingResult.failed("LLM error: " + e.getMessage());
-        }
+        return List.of(
+                LLMClient.ChatMessage.system(systemPrompt),
+                LLMClient.ChatMessage.user(userPrompt));
     }
 
     // ── Fallback: DOM comparison ──────────────────────────────────────────
@@ -158,6 +220,29 @@ public class LocatorHealer {
 
     // ── Internal helpers ──────────────────────────────────────────────────
 
+    /**
+     * Index where the locator line begins: after leading whitespace and any
+     * Markdown code-fence line, or {@code text.length()} if it has not started.
+     */
+    static int locatorStart(String text) {
+        int i = 0;
+        while (i < text.length()) {
+            while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+            if (!text.startsWith("```", i)) return i;
+            int nl = text.indexOf('\n', i);
+            if (nl < 0) return text.length();  // fence line still arriving
+            i = nl + 1;
+        }
+        return i;
+    }
+
+    /** The first non-blank, non-fence line of a response, trimmed. */
+    static String firstLocatorLine(String response) {
+        int start = locatorStart(response);
+        int end = response.indexOf('\n', start);
+        return response.substring(start, end >= 0 ? end : response.length()).trim();
+    }
+
     /**
      * Converts a plain Java string into an XPath 1.0 string literal.
      *
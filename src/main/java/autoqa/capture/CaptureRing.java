@@ -0,0 +1,117 @@
+package autoqa.capture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Fixed-capacity, lock-free ring of captures.  Writers claim a sequence
+ * number with one atomic increment and publish into its slot, so DevTools
+ * event threads never block each other or a reader; once full, the oldest
+ * entries are overwritten.
+ *
+ * <p>Readers walk sequence numbers and check each slot's stamp: a slot that
+ * has been lapped by a writer is skipped, and a slot whose writer has not
+ * published yet ends the walk, so an incremental reader can resume from
+ * {@link #forEachSince}'s return value without missing anything.
+ */
+final class CaptureRing<T> {
+
+    private record Slot<T>(long seq, T value) {}
+
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+    private volatile long clearedBefore;
+
+    /** @param capacity entries kept; rounded up to a power of two */
+    CaptureRing(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1: " + capacity);
+        int size = Integer.highestOneBit(Math.min(capacity, 1 << 30));
+        if (size < capacity) size <<= 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask  = size - 1;
+    }
+
+    /** Appends {@code value}, overwriting the oldest entry when full, and returns its sequence number. */
+    long add(T value) {
+        return add(value, null);
+    }
+
+    /**
+     * Appends {@code value} and passes the retained entry it overwrote, if
+     * any, to {@code onEvict}.  A writer that stalled for a whole lap finds a
+     * newer entry in its slot and evicts its own value instead of replacing it.
+     */
+    long add(T value, Consumer<? super T> onEvict) {
+        long seq = next.getAndIncrement();
+        int i = (int) (seq & mask);
+        Slot<T> mine = new Slot<>(seq, value);
+        Slot<T> old;
+        do {
+            old = slots.get(i);
+            if (old != null && old.seq() > seq) {
+                if (onEvict != null) onEvict.accept(value);
+                return seq;
+            }
+        } while (!slots.compareAndSet(i, old, mine));
+        if (old != null && onEvict != null && old.seq() >= clearedBefore) onEvict.accept(old.value());
+        return seq;
+    }
+
+    /**
+     * Passes each retained entry with sequence number {@code >= from} to
+     * {@code action}, oldest first.
+     *
+     * @return the sequence number to resume from next time
+     */
+    long forEachSince(long from, ObjLongConsumer<T> action) {
+        long end = next.get();
+        long seq = Math.max(from, oldest(end));
+        for (; seq < end; seq++) {
+            Slot<T> slot = slots.get((int) (seq & mask));
+            if (slot == null || slot.seq() < seq) break;   // claimed but not yet published
+            if (slot.seq() == seq) action.accept(slot.value(), seq);
+        }
+        return seq;
+    }
+
+    /** All retained entries, oldest first. */
+    List<T> snapshot() {
+        List<T> out = new ArrayList<>();
+        forEachSince(0, (v, seq) -> out.add(v));
+        return out;
+    }
+
+    /** Entries retained, counting any claimed but not yet published. */
+    int size() {
+        long end = next.get();
+        return (int) (end - oldest(end));
+    }
+
+    /** Sequence number of the oldest entry still retained. */
+    long oldest() {
+        return oldest(next.get());
+    }
+
+    private long oldest(long end) {
+        return Math.max(clearedBefore, end - slots.length());
+    }
+
+    /** Drops every entry added so far. */
+    void clear() {
+        clearedBefore = next.get();
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    /** Entries overwritten because the ring was full. */
+    long overwritten() {
+        return Math.max(0, next.get() - slots.length() - clearedBefore);
+    }
+}
@@ -0,0 +1,339 @@
+package autoqa.capture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded, indexed store for the captures a monitor collects during a run —
+ * used by {@code ApplicationSpy}, {@code NetworkMonitor} and {@code ConsoleMonitor}.
+ *
+ * <p>Captures go into a fixed-capacity {@link CaptureRing}: adding one is an
+ * atomic increment and a slot write, never a copy, and once the ring is full
+ * the oldest capture is evicted, so an hour-long soak session stays flat in
+ * memory.  After {@link #spillTo} evicted captures are appended to a
+ * JSON-lines file instead of being dropped.
+ *
+ * <p>Queries by type, URL host (and path prefix) and URL pattern are served
+ * from secondary indexes.  An index is built on first use and afterwards
+ * extended with only the captures added since the previous query and trimmed
+ * of those evicted, so adding stays lock-free and an index nobody queries
+ * costs nothing.  Relative URLs are indexed under the empty host {@code ""}.
+ */
+public final class CaptureStore<T> implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(CaptureStore.class);
+
+    /** Captures kept when no capacity is given. */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    /** URL patterns indexed at once; all pattern indexes are dropped when exceeded. */
+    private static final int MAX_INDEXED_PATTERNS = 256;
+
+    private static final ObjectWriter SPILL_WRITER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .writer();
+
+    private final CaptureRing<T> ring;
+    private final Function<? super T, String> urlOf;
+    private final Index byType;
+    private final Index byHost;
+    private final Map<String, Index> byPattern = new ConcurrentHashMap<>();
+
+    private final AtomicLong spilled = new AtomicLong();
+    private volatile BufferedWriter spillOut;
+    private Path spillFile;
+
+    /**
+     * @param capacity captures kept; rounded up to a power of two
+     * @param typeOf   the capture's type, for {@link #ofType}
+     * @param urlOf    the capture's URL, or {@code null} if it has none; a
+     *                 {@code null} function disables the URL indexes
+     */
+    public CaptureStore(int capacity, Function<? super T, ?> typeOf, Function<? super T, String> urlOf) {
+        this.ring   = new CaptureRing<>(capacity);
+        this.urlOf  = urlOf != null ? urlOf : c -> null;
+        this.byType = new Index(typeOf::apply);
+        this.byHost = new Index(c -> host(this.urlOf.apply(c)));
+    }
+
+    // ── Writing ───────────────────────────────────────────────────────────────
+
+    /** Adds a capture, evicting (or spilling) the oldest one when the store is full. */
+    public void add(T capture) {
+        ring.add(capture, spillOut != null ? this::spill : null);
+    }
+
+    /** Drops every capture added so far; dropped captures are not spilled. */
+    public void clear() {
+        ring.clear();
+    }
+
+    // ── Queries ───────────────────────────────────────────────────────────────
+
+    /** All retained captures, oldest first. */
+    public List<T> snapshot() {
+        return ring.snapshot();
+    }
+
+    /** Number of retained captures. */
+    public int size() {
+        return ring.size();
+    }
+
+    /** Retained captures of {@code type}, oldest first. */
+    public List<T> ofType(Object type) {
+        return byType.get(type);
+    }
+
+    /** Retained captures of any of {@code types}, oldest first. */
+    public List<T> ofTypes(Collection<?> types) {
+        return byType.get(types);
+    }
+
+    /** Retained captures whose URL has {@code host} (case-insensitive), oldest first. */
+    public List<T> forHost(String host) {
+        return byHost.get(host != null ? host.toLowerCase(Locale.ROOT) : "");
+    }
+
+    /** Retained captures whose URL has {@code host} and a path starting with {@code pathPrefix}. */
+    public List<T> forHost(String host, String pathPrefix) {
+        if (pathPrefix == null || pathPrefix.isEmpty()) return forHost(host);
+        return forHost(host).stream()
+                .filter(c -> {
+                    String path = path(urlOf.apply(c));
+                    return path != null && path.startsWith(pathPrefix);
+                })
+                .toList();
+    }
+
+    /**
+     * Retained captures whose URL matches {@code urlPattern} anywhere
+     * ({@code .*pattern.*}), oldest first.
+     */
+    public List<T> matching(String urlPattern) {
+        if (byPattern.size() >= MAX_INDEXED_PATTERNS && !byPattern.containsKey(urlPattern)) {
+            byPattern.clear();
+        }
+        return byPattern.computeIfAbsent(urlPattern, p -> {
+            Pattern pattern = Pattern.compile(".*" + p + ".*");
+            return new Index(c -> {
+                String url = urlOf.apply(c);
+                return url != null && pattern.matcher(url).matches() ? Boolean.TRUE : null;
+            });
+        }).get(Boolean.TRUE);
+    }
+
+    public int capacity() {
+        return ring.capacity();
+    }
+
+    /** Captures evicted because more than the capacity arrived, whether spilled or not. */
+    public long overwritten() {
+        return ring.overwritten();
+    }
+
+    // ── Spill ─────────────────────────────────────────────────────────────────
+
+    /**
+     * Appends captures evicted from now on to {@code file}, one JSON object
+     * per line, replacing any existing file.
+     */
+    public synchronized void spillTo(Path file) throws IOException {
+        closeSpill();
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        spillFile = file;
+        spillOut  = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        log.info("CaptureStore: spilling evicted captures to {}", file);
+    }
+
+    /** The spill file, or {@code null} if spilling was never enabled. */
+    public synchronized Path spillFile() {
+        return spillFile;
+    }
+
+    /** Captures written to the spill file. */
+    public long spilled() {
+        return spilled.get();
+    }
+
+    /** Writes buffered spill lines to disk. */
+    public synchronized void flush() {
+        if (spillOut == null) return;
+        try {
+            spillOut.flush();
+        } catch (IOException e) {
+            log.warn("CaptureStore: flushing {} failed: {}", spillFile, e.getMessage());
+        }
+    }
+
+    /** Flushes and closes the spill file; later evictions are dropped. */
+    @Override
+    public synchronized void close() {
+        closeSpill();
+    }
+
+    private synchronized void spill(T capture) {
+        BufferedWriter out = spillOut;
+        if (out == null) return;
+        try {
+            out.write(SPILL_WRITER.writeValueAsString(capture));
+            out.newLine();
+            spilled.incrementAndGet();
+        } catch (IOException e) {
+            log.warn("CaptureStore: spill to {} failed — evicted captures are dropped from now on: {}",
+                    spillFile, e.getMessage());
+            closeSpill();
+        }
+    }
+
+    private void closeSpill() {
+        if (spillOut == null) return;
+        try {
+            spillOut.close();
+        } catch (IOException e) {
+            log.debug("CaptureStore: closing spill file failed — {}", e.getMessage());
+        }
+        spillOut = null;
+    }
+
+    // ── Indexes ───────────────────────────────────────────────────────────────
+
+    /** Captures grouped by a key, caught up with the ring on each query. */
+    private final class Index {
+        final Function<T, Object> key;
+        final Map<Object, Posting<T>> postings = new HashMap<>();
+        long scanned;
+
+        Index(Function<T, Object> key) {
+            this.key = key;
+        }
+
+        synchronized List<T> get(Object k) {
+            catchUp();
+            Posting<T> p = postings.get(k);
+            return p != null ? p.toList() : List.of();
+        }
+
+        synchronized List<T> get(Collection<?> keys) {
+            catchUp();
+            List<Posting<T>> hits = keys.stream().map(postings::get).filter(Objects::nonNull).toList();
+            if (hits.size() == 1) return hits.get(0).toList();
+            List<Object[]> merged = new ArrayList<>();
+            for (Posting<T> p : hits) p.forEach((c, seq) -> merged.add(new Object[]{seq, c}));
+            merged.sort(Comparator.comparingLong(e -> (Long) e[0]));
+            List<T> out = new ArrayList<>(merged.size());
+            for (Object[] e : merged) out.add(cast(e[1]));
+            return List.copyOf(out);
+        }
+
+        private void catchUp() {
+            scanned = ring.forEachSince(scanned, (c, seq) -> {
+                Object k = key.apply(c);
+                if (k != null) postings.computeIfAbsent(k, x -> new Posting<>()).add(c, seq);
+            });
+            // Drop entries the ring has since evicted or cleared
+            long oldest = ring.oldest();
+            postings.values().removeIf(p -> p.evictBefore(oldest));
+        }
+    }
+
+    /** Captures for one index key with their sequence numbers, oldest first. */
+    private static final class Posting<T> {
+        private Object[] values = new Object[8];
+        private long[] seqs = new long[8];
+        private int head;
+        private int tail;
+
+        void add(T capture, long seq) {
+            if (tail == seqs.length) grow();
+            values[tail] = capture;
+            seqs[tail++] = seq;
+        }
+
+        /** Evicts entries older than {@code oldest}; {@code true} if none are left. */
+        boolean evictBefore(long oldest) {
+            while (head < tail && seqs[head] < oldest) values[head++] = null;
+            if (head == tail) head = tail = 0;
+            return tail == 0;
+        }
+
+        void forEach(ObjLongConsumer<T> action) {
+            for (int i = head; i < tail; i++) action.accept(cast(values[i]), seqs[i]);
+        }
+
+        List<T> toList() {
+            List<T> out = new ArrayList<>(tail - head);
+            for (int i = head; i < tail; i++) out.add(cast(values[i]));
+            return List.copyOf(out);
+        }
+
+        private void grow() {
+            int live = tail - head;
+            if (live * 2 > seqs.length) {
+                values = Arrays.copyOf(values, seqs.length * 2);
+                seqs   = Arrays.copyOf(seqs, seqs.length * 2);
+            }
+            // Compact evicted space at the front
+            System.arraycopy(values, head, values, 0, live);
+            System.arraycopy(seqs, head, seqs, 0, live);
+            Arrays.fill(values, live, tail, null);
+            head = 0;
+            tail = live;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object o) {
+        return (T) o;
+    }
+
+    // ── URL parts ─────────────────────────────────────────────────────────────
+    // A regex rather than java.net.URI: page URLs are often not valid URIs (unescaped spaces, '|').
+
+    /** Optional scheme, optional authority (group 1 = host), then the path (group 2). */
+    private static final Pattern URL_PARTS = Pattern.compile(
+            "^(?:[a-zA-Z][a-zA-Z0-9+.-]*:)?(?://(?:[^@/?#]*@)?(\\[[^\\]]*\\]|[^:/?#]*)[^/?#]*)?([^?#]*)");
+
+    /** Lower-case host of {@code url}, {@code ""} for a relative URL, {@code null} for none. */
+    static String host(String url) {
+        if (url == null || url.isEmpty()) return null;
+        Matcher m = URL_PARTS.matcher(url);
+        return m.lookingAt() && m.group(1) != null ? m.group(1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    /** Path of {@code url} without query or fragment, or {@code null} for none. */
+    static String path(String url) {
+        if (url == null) return null;
+        Matcher m = URL_PARTS.matcher(url);
+        return m.lookingAt() ? m.group(2) : "";
+    }
+}
@@ -10,17 +10,16 @@ import autoqa.model.ElementLocator;
 import autoqa.model.ObjectRepository;
 import autoqa.model.RecordedSession;
 import autoqa.model.RecordingIO;
+import autoqa.model.RecordingReader;
 import autoqa.model.TestObject;
+import autoqa.player.ParallelPlaybackRunner;
+import autoqa.player.PlayerConfig;
 import autoqa.player.PlayerEngine;
+import autoqa.player.WebDriverFactory;
+import autoqa.player.WebDriverPool;
 import autoqa.recorder.RecorderCLI;
 import autoqa.server.APIServer;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.edge.EdgeDriver;
-import org.openqa.selenium.edge.EdgeOptions;
-import org.openqa.selenium.firefox.FirefoxDriver;
-import org.openqa.selenium.firefox.FirefoxOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
@@ -93,6 +92,8 @@ public class WrapperCLI implements Callable<Integer> {
 
     /**
      * Replays a saved recording against the currently open Edge browser.
+     * When given a directory, replays every recording in it concurrently via
+     * {@link ParallelPlaybackRunner}.
      */
     @Command(
             name        = "play",
@@ -103,9 +104,16 @@ public class WrapperCLI implements Callable<Integer> {
 
         private static final Logger log = LoggerFactory.getLogger(PlayCommand.class);
 
-        @Parameters(index = "0", description = "Path to recording JSON file")
+        @Parameters(index = "0", description = "Path to recording JSON file, or a directory of recordings")
         Path recordingFile;
 
+        @Option(
+                names       = {"-w", "--workers"},
+                description = "Recordings to replay concurrently when playing a directory "
+                            + "(default: player.parallel.workers)"
+        )
+        Integer workers;
+
         @Option(
                 names       = {"-e", "--evidence-dir"},
                 description = "Directory for evidence on failure (default: evidence)",
@@ -133,63 +141,93 @@ public class WrapperCLI implements Callable<Integer> {
                 return 1;
             }
 
-            System.out.println("Loading recording: " + recordingFile.toAbsolutePath());
-            RecordedSession session = RecordingIO.read(recordingFile);
-            System.out.printf("  Session   : %s%n", session.getSessionId());
-            System.out.printf("  Events    : %d%n", session.getEventCount());
-            System.out.printf("  Evidence  : %s%n", Path.of(evidenceDir).toAbsolutePath());
-
-            System.out.printf("Starting %s WebDriver (Selenium Manager auto-downloads driver)...%n",
-                    browser.toLowerCase());
-            WebDriver driver = createDriver(browser);
-            PlayerEngine engine = new PlayerEngine(driver);
-
-            // Attach OR if supplied
+            ObjectRepository or = null;
             if (orFile != null) {
                 if (!Files.exists(orFile)) {
                     System.err.println("OR file not found: " + orFile.toAbsolutePath());
                     return 1;
                 }
-                ObjectRepository or = ObjectRepository.load(orFile);
-                engine.setObjectRepository(or);
-                System.out.printf("  OR loaded : %d objects from %s%n", or.size(), orFile.getFileName());
+                or = ObjectRepository.load(orFile);
             }
 
-            PlayerEngine.PlaybackResult result = engine.play(session);
+            if (Files.isDirectory(recordingFile)) {
+                return playDirectory(or);
+            }
 
-            System.out.printf("%nPlayback complete — %d/%d steps succeeded.%n",
-                    result.getStepsCompleted(), result.getTotalSteps());
+            System.out.println("Loading recording: " + recordingFile.toAbsolutePath());
+            // NDJSON recordings are streamed: playback starts before the file is parsed.
+            // The reader stays in scope until playback ends, so a failed driver start closes it.
+            try (RecordingReader reader = RecordingIO.isNdjson(recordingFile)
+                    ? RecordingIO.openReader(recordingFile) : null) {
+                RecordedSession session = reader != null ? reader.getHeader() : RecordingIO.read(recordingFile);
+                System.out.printf("  Session   : %s%n", session.getSessionId());
+                if (reader == null) {
+                    System.out.printf("  Events    : %d%n", session.getEventCount());
+                }
+                System.out.printf("  Evidence  : %s%n", Path.of(evidenceDir).toAbsolutePath());
 
-            if (!result.isSuccess()) {
-                System.err.printf("Playback FAILED at step %d: %s%n",
-                        result.getStepsCompleted(), result.getFailureReason());
-                return 2;
+                System.out.printf("Starting %s WebDriver (Selenium Manager auto-downloads driver)...%n",
+                        browser.toLowerCase());
+                WebDriver driver = createDriver(browser);
+                PlayerEngine engine = new PlayerEngine(driver);
+
+                // Attach OR if supplied
+                if (or != null) {
+                    engine.setObjectRepository(or, orFile);
+                    System.out.printf("  OR loaded : %d objects from %s%n", or.size(), orFile.getFileName());
+                }
+
+                PlayerEngine.PlaybackResult result = reader != null ? engine.play(reader) : engine.play(session);
+
+                System.out.printf("%nPlayback complete — %d/%d steps succeeded.%n",
+                        result.getStepsCompleted(), result.getTotalSteps());
+
+                if (!result.isSuccess()) {
+                    System.err.printf("Playback FAILED at step %d: %s%n",
+                            result.getStepsCompleted(), result.getFailureReason());
+                    return 2;
+                }
+                return 0;
             }
-            return 0;
         }
 
         /**
-         * Creates a WebDriver for the requested browser.
-         * Selenium Manager (built into Selenium 4.11+) automatically downloads
-         * the matching browser driver — no manual chromedriver/geckodriver needed.
+         * Replays every recording in {@code recordingFile} on a pool of
+         * {@code workers} browsers and prints a per-recording summary.
          */
+        private int playDirectory(ObjectRepository or) throws IOException {
+            int n = workers != null ? workers : new PlayerConfig().getParallelWorkers();
+            System.out.printf("Replaying recordings in %s on %d %s worker(s)...%n",
+                    recordingFile.toAbsolutePath(), n, browser.toLowerCase());
+
+            ParallelPlaybackRunner.SuiteResult suite;
+            try (WebDriverPool pool = new WebDriverPool(() -> createDriver(browser), n)) {
+                ParallelPlaybackRunner runner = new ParallelPlaybackRunner(pool, n, driver -> {
+                    PlayerEngine engine = new PlayerEngine(driver);
+                    if (or != null) engine.setObjectRepository(or, orFile);
+                    return engine;
+                });
+                suite = runner.runDirectory(recordingFile);
+            }
+
+            System.out.println();
+            for (ParallelPlaybackRunner.RecordingResult r : suite.getResults()) {
+                System.out.printf("  %-6s %-40s %d/%d steps  %6d ms%n",
+                        r.result().isSuccess() ? "PASS" : "FAIL",
+                        r.recording().getFileName(),
+                        r.result().getStepsCompleted(), r.result().getTotalSteps(),
+                        r.durationMs());
+            }
+            System.out.printf("%nParallel playback complete — %d passed, %d failed in %d ms "
+                            + "(%d ms of sequential playback).%n",
+                    suite.getPassed(), suite.getFailed(),
+                    suite.getWallClockMs(), suite.getTotalPlaybackMs());
+            return suite.isSuccess() ? 0 : 2;
+        }
+
+        /** Creates a WebDriver for the requested browser via {@link WebDriverFactory}. */
         private WebDriver createDriver(String browser) {
-            return switch (browser.toLowerCase().trim()) {
-                case "chrome" -> {
-                    ChromeOptions opts = new ChromeOptions();
-                    opts.addArguments("--start-maximized");
-                    yield new ChromeDriver(opts);
-                }
-                case "firefox" -> {
-                    FirefoxOptions opts = new FirefoxOptions();
-                    yield new FirefoxDriver(opts);
-                }
-                default -> {
-                    EdgeOptions opts = new EdgeOptions();
-                    opts.addArguments("--start-maximized");
-                    yield new EdgeDriver(opts);
-                }
-            };
+            return WebDriverFactory.create(browser);
         }
     }
 
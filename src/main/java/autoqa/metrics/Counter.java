@@ -0,0 +1,83 @@
+package autoqa.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter backed by a {@link LongAdder}, so concurrent increments
+ * from playback and recorder threads land on separate cells instead of
+ * contending on one atomic.
+ *
+ * <p>A counter created with label names is a family: call {@link #labels}
+ * to get (and cache, on hot paths) the child series for a set of label values.
+ * An unlabelled counter is its own single series.
+ */
+public final class Counter {
+
+    private final String name;
+    private final String help;
+    private final List<String> labelNames;
+    private final List<String> labelValues;
+    private final LongAdder value = new LongAdder();
+    private final Map<String, Counter> children;
+
+    Counter(String name, String help, List<String> labelNames) {
+        this(name, help, labelNames, List.of());
+    }
+
+    private Counter(String name, String help, List<String> labelNames, List<String> labelValues) {
+        this.name        = name;
+        this.help        = help;
+        this.labelNames  = labelNames;
+        this.labelValues = labelValues;
+        this.children    = labelNames.isEmpty() || !labelValues.isEmpty() ? null : new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Child series for the given label values, one per label name.
+     *
+     * @throws IllegalArgumentException if the number of values does not match the label names
+     */
+    public Counter labels(String... values) {
+        if (children == null) throw new IllegalStateException(name + " has no labels");
+        String key = MetricRegistry.key(labelNames, values);
+        Counter c = children.get(key);
+        return c != null ? c : children.computeIfAbsent(key,
+                k -> new Counter(name, help, labelNames, List.of(values)));
+    }
+
+    public void inc() {
+        if (children != null) throw unlabelled();
+        value.increment();
+    }
+
+    public void add(long n) {
+        if (children != null) throw unlabelled();
+        if (n < 0) throw new IllegalArgumentException("Counter " + name + " cannot decrease: " + n);
+        value.add(n);
+    }
+
+    /** Current value of this series (children are not included). */
+    public long get() {
+        return value.sum();
+    }
+
+    private IllegalStateException unlabelled() {
+        return new IllegalStateException(name + " has labels " + labelNames + " — use labels(...)");
+    }
+
+    // ── Exposition ────────────────────────────────────────────────────────
+
+    void write(StringBuilder out) {
+        MetricRegistry.header(out, name, help, "counter");
+        if (children == null) {
+            MetricRegistry.sample(out, name, labelNames, labelValues, null, null, value.sum());
+        } else {
+            for (Counter c : MetricRegistry.sorted(children)) {
+                MetricRegistry.sample(out, name, labelNames, c.labelValues, null, null, c.value.sum());
+            }
+        }
+    }
+}
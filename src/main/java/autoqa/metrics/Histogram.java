@@ -0,0 +1,126 @@
+package autoqa.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed bucket bounds, in the Prometheus layout
+ * ({@code _bucket{le=…}}, {@code _sum}, {@code _count}).
+ *
+ * <p>Each bucket is a {@link LongAdder} holding only its own observations;
+ * the cumulative counts Prometheus expects are summed at scrape time, so an
+ * observation costs one short bound scan and two striped adds.  The sum is
+ * kept in nanoseconds and reported in seconds.
+ *
+ * <p>Label handling is as for {@link Counter}.
+ */
+public final class Histogram {
+
+    /** Default bounds in seconds — from a fast locator lookup to a slow LLM call. */
+    public static final double[] LATENCY_BUCKETS =
+            {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private final String name;
+    private final String help;
+    private final double[] bounds;        // seconds, ascending
+    private final long[] boundNanos;
+    private final List<String> labelNames;
+    private final List<String> labelValues;
+    private final LongAdder[] buckets;    // bounds.length + 1, last is +Inf
+    private final LongAdder sumNanos = new LongAdder();
+    private final Map<String, Histogram> children;
+
+    Histogram(String name, String help, double[] bounds, List<String> labelNames) {
+        this(name, help, validate(name, bounds), labelNames, List.of());
+    }
+
+    private Histogram(String name, String help, double[] bounds,
+                      List<String> labelNames, List<String> labelValues) {
+        this.name        = name;
+        this.help        = help;
+        this.bounds      = bounds;
+        this.boundNanos  = new long[bounds.length];
+        for (int i = 0; i < bounds.length; i++) boundNanos[i] = Math.round(bounds[i] * 1e9);
+        this.labelNames  = labelNames;
+        this.labelValues = labelValues;
+        this.buckets     = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        this.children    = labelNames.isEmpty() || !labelValues.isEmpty() ? null : new ConcurrentHashMap<>();
+    }
+
+    /** Child series for the given label values; see {@link Counter#labels}. */
+    public Histogram labels(String... values) {
+        if (children == null) throw new IllegalStateException(name + " has no labels");
+        String key = MetricRegistry.key(labelNames, values);
+        Histogram h = children.get(key);
+        return h != null ? h : children.computeIfAbsent(key,
+                k -> new Histogram(name, help, bounds, labelNames, List.of(values)));
+    }
+
+    /** Records one observation, given in nanoseconds. */
+    public void observeNanos(long nanos) {
+        if (children != null) throw unlabelled();
+        if (nanos < 0) nanos = 0;
+        int i = 0;
+        while (i < boundNanos.length && nanos > boundNanos[i]) i++;
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    /** Records the time elapsed since {@code startNanos} (a {@link System#nanoTime()} value). */
+    public void observeSince(long startNanos) {
+        observeNanos(System.nanoTime() - startNanos);
+    }
+
+    /** Number of observations in this series. */
+    public long getCount() {
+        long n = 0;
+        for (LongAdder b : buckets) n += b.sum();
+        return n;
+    }
+
+    /** Sum of observations in this series, in seconds. */
+    public double getSumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+
+    private IllegalStateException unlabelled() {
+        return new IllegalStateException(name + " has labels " + labelNames + " — use labels(...)");
+    }
+
+    // ── Exposition ────────────────────────────────────────────────────────
+
+    void write(StringBuilder out) {
+        MetricRegistry.header(out, name, help, "histogram");
+        if (children == null) {
+            writeSeries(out);
+        } else {
+            for (Histogram h : MetricRegistry.sorted(children)) h.writeSeries(out);
+        }
+    }
+
+    private void writeSeries(StringBuilder out) {
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            String le = i < bounds.length ? MetricRegistry.number(bounds[i]) : "+Inf";
+            MetricRegistry.sample(out, name + "_bucket", labelNames, labelValues, "le", le, cumulative);
+        }
+        MetricRegistry.sample(out, name + "_sum", labelNames, labelValues, null, null, getSumSeconds());
+        MetricRegistry.sample(out, name + "_count", labelNames, labelValues, null, null, cumulative);
+    }
+
+    private static double[] validate(String name, double[] bounds) {
+        double[] b = bounds.clone();
+        for (int i = 1; i < b.length; i++) {
+            if (!(b[i] > b[i - 1])) {
+                throw new IllegalArgumentException("Histogram " + name + " bounds must be ascending: "
+                        + Arrays.toString(bounds));
+            }
+        }
+        return b;
+    }
+}
@@ -0,0 +1,194 @@
+package autoqa.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Set of named metrics rendered in the Prometheus text exposition format
+ * (version 0.0.4) by {@link #scrape()}.
+ *
+ * <p>Counters and histograms are registered once, usually as constants in
+ * {@link Metrics}; registering a name twice returns the existing metric when
+ * the type matches.  Gauges are sampled from a supplier at scrape time and may
+ * be re-registered, so a restarted component can point the gauge at its new
+ * instance.
+ */
+public final class MetricRegistry {
+
+    private static final Pattern NAME  = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    private static final Pattern LABEL = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    /** Gauge sampled at scrape time: one series, or one per label value when {@code labelName} is set. */
+    private record Gauge(String name, String help, DoubleSupplier value,
+                         String labelName, Supplier<? extends Map<String, ? extends Number>> series) {}
+
+    private final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+    // ── Registration ──────────────────────────────────────────────────────
+
+    public Counter counter(String name, String help, String... labelNames) {
+        return register(name, Counter.class, () -> new Counter(name, help, labels(labelNames)));
+    }
+
+    public Histogram histogram(String name, String help, double[] bounds, String... labelNames) {
+        return register(name, Histogram.class, () -> new Histogram(name, help, bounds, labels(labelNames)));
+    }
+
+    /** Registers, or replaces, a gauge whose value is read from {@code value} at scrape time. */
+    public void gauge(String name, String help, DoubleSupplier value) {
+        putGauge(new Gauge(name, help, value, null, null));
+    }
+
+    /**
+     * Registers, or replaces, a gauge with one label whose series are read from
+     * {@code series} at scrape time: one sample per map entry, keyed by label value.
+     */
+    public void gauge(String name, String help, String labelName,
+                      Supplier<? extends Map<String, ? extends Number>> series) {
+        labels(new String[]{labelName});
+        putGauge(new Gauge(name, help, null, labelName, series));
+    }
+
+    private void putGauge(Gauge g) {
+        checkName(g.name());
+        Object existing = metrics.get(g.name());
+        if (existing != null && !(existing instanceof Gauge)) {
+            throw new IllegalArgumentException("Metric " + g.name() + " is already registered as "
+                    + existing.getClass().getSimpleName());
+        }
+        metrics.put(g.name(), g);
+    }
+
+    private <T> T register(String name, Class<T> type, Supplier<T> factory) {
+        checkName(name);
+        Object m = metrics.computeIfAbsent(name, n -> factory.get());
+        if (!type.isInstance(m)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as "
+                    + m.getClass().getSimpleName());
+        }
+        return type.cast(m);
+    }
+
+    // ── Exposition ────────────────────────────────────────────────────────
+
+    /** All metrics in the Prometheus text format, sorted by name. */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Object m : metrics.values()) {
+            if (m instanceof Counter c) {
+                c.write(out);
+            } else if (m instanceof Histogram h) {
+                h.write(out);
+            } else if (m instanceof Gauge g) {
+                writeGauge(out, g);
+            }
+        }
+        return out.toString();
+    }
+
+    private static void writeGauge(StringBuilder out, Gauge g) {
+        header(out, g.name(), g.help(), "gauge");
+        if (g.labelName() == null) {
+            double v;
+            try {
+                v = g.value().getAsDouble();
+            } catch (RuntimeException e) {
+                v = Double.NaN;
+            }
+            sample(out, g.name(), List.of(), List.of(), null, null, v);
+            return;
+        }
+        Map<String, ? extends Number> series;
+        try {
+            series = new TreeMap<>(g.series().get());
+        } catch (RuntimeException e) {
+            return;  // no samples rather than a broken scrape
+        }
+        List<String> labelNames = List.of(g.labelName());
+        series.forEach((label, v) -> sample(out, g.name(), labelNames, List.of(label), null, null,
+                v != null ? v.doubleValue() : Double.NaN));
+    }
+
+    // ── Shared helpers for Counter / Histogram ────────────────────────────
+
+    static String key(List<String> labelNames, String[] values) {
+        if (values.length != labelNames.size()) {
+            throw new IllegalArgumentException("Expected " + labelNames.size() + " label value(s) "
+                    + labelNames + ", got " + Arrays.toString(values));
+        }
+        return values.length == 1 ? values[0] : String.join("\u0000", values);
+    }
+
+    /** Children ordered by label values, so scrapes are stable. */
+    static <T> List<T> sorted(Map<String, T> children) {
+        return new ArrayList<>(new TreeMap<>(children).values());
+    }
+
+    static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ')
+           .append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    static void sample(StringBuilder out, String name, List<String> labelNames, List<String> labelValues,
+                       String extraName, String extraValue, double value) {
+        out.append(name);
+        if (!labelNames.isEmpty() || extraName != null) {
+            out.append('{');
+            for (int i = 0; i < labelNames.size(); i++) {
+                if (i > 0) out.append(',');
+                label(out, labelNames.get(i), labelValues.get(i));
+            }
+            if (extraName != null) {
+                if (!labelNames.isEmpty()) out.append(',');
+                label(out, extraName, extraValue);
+            }
+            out.append('}');
+        }
+        out.append(' ').append(number(value)).append('\n');
+    }
+
+    static String number(double v) {
+        if (Double.isNaN(v)) return "NaN";
+        if (Double.isInfinite(v)) return v > 0 ? "+Inf" : "-Inf";
+        if (v == Math.rint(v) && Math.abs(v) < 1e15) return Long.toString((long) v);
+        return Double.toString(v);
+    }
+
+    private static void label(StringBuilder out, String name, String value) {
+        out.append(name).append("=\"");
+        String v = value != null ? value : "";
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"'  -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default   -> out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static List<String> labels(String[] names) {
+        for (String n : names) {
+            if (!LABEL.matcher(n).matches() || n.equals("le")) {
+                throw new IllegalArgumentException("Invalid label name: " + n);
+            }
+        }
+        return List.of(names);
+    }
+
+    private static void checkName(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        }
+    }
+}
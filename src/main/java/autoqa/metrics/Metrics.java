@@ -0,0 +1,108 @@
+package autoqa.metrics;
+
+/**
+ * Process-wide metrics for the player, healer, LLM client, recorder and
+ * API server jobs, served by {@code APIServer} at {@code GET /metrics}.
+ *
+ * <p>Instrumented code updates these constants directly; every update is a
+ * striped {@code LongAdder} add, so no lock or shared atomic sits on the hot
+ * path.  Label values are drawn from small fixed sets (event types, locator
+ * strategies, CDP domains) to keep the number of series bounded.
+ */
+public final class Metrics {
+
+    /** Registry holding every metric below; components may add gauges to it. */
+    public static final MetricRegistry REGISTRY = new MetricRegistry();
+
+    // ── Playback ──────────────────────────────────────────────────────────
+
+    public static final Histogram STEP_DURATION = REGISTRY.histogram(
+            "autoqa_playback_step_duration_seconds",
+            "Wall-clock time of one playback step, by event type.",
+            Histogram.LATENCY_BUCKETS, "type");
+
+    public static final Histogram STEP_PHASE_DURATION = REGISTRY.histogram(
+            "autoqa_playback_step_phase_duration_seconds",
+            "Exclusive time spent in each phase of a playback step.",
+            Histogram.LATENCY_BUCKETS, "phase");
+
+    public static final Counter STEPS = REGISTRY.counter(
+            "autoqa_playback_steps_total",
+            "Playback steps run, by outcome (ok or failed).",
+            "outcome");
+
+    public static final Counter LOCATOR_ATTEMPTS = REGISTRY.counter(
+            "autoqa_locator_attempts_total",
+            "Locator strategies tried by LocatorResolver.",
+            "strategy");
+
+    public static final Counter LOCATOR_HITS = REGISTRY.counter(
+            "autoqa_locator_hits_total",
+            "Locator strategies that found the element.",
+            "strategy");
+
+    public static final Histogram EVIDENCE_DURATION = REGISTRY.histogram(
+            "autoqa_evidence_collection_duration_seconds",
+            "Time the failing step spent capturing evidence and handing it to the writer.",
+            Histogram.LATENCY_BUCKETS);
+
+    public static final Histogram EVIDENCE_WRITE_DURATION = REGISTRY.histogram(
+            "autoqa_evidence_write_duration_seconds",
+            "Time to compress and write one step's evidence to disk.",
+            Histogram.LATENCY_BUCKETS);
+
+    public static final Counter EVIDENCE_DROPPED = REGISTRY.counter(
+            "autoqa_evidence_dropped_total",
+            "Evidence artifacts skipped because the run's evidence budget was exhausted, by file.",
+            "artifact");
+
+    // ── Healing ───────────────────────────────────────────────────────────
+
+    public static final Counter HEAL_ATTEMPTS = REGISTRY.counter(
+            "autoqa_heal_attempts_total",
+            "Self-healing attempts, by how they ended (cached, local, llm, dom or failed).",
+            "outcome");
+
+    // ── LLM ───────────────────────────────────────────────────────────────
+
+    public static final Histogram LLM_DURATION = REGISTRY.histogram(
+            "autoqa_llm_request_duration_seconds",
+            "LLM chat completion latency including retries, by outcome (ok or error).",
+            Histogram.LATENCY_BUCKETS, "outcome");
+
+    public static final Counter LLM_TOKENS = REGISTRY.counter(
+            "autoqa_llm_tokens_total",
+            "Tokens reported by the LLM endpoint, by kind (prompt or completion).",
+            "kind");
+
+    public static final Histogram LLM_QUEUE_WAIT = REGISTRY.histogram(
+            "autoqa_llm_queue_wait_seconds",
+            "Time LLM requests waited for a gateway permit, by priority lane.",
+            Histogram.LATENCY_BUCKETS, "lane");
+
+    public static final Counter LLM_CACHE = REGISTRY.counter(
+            "autoqa_llm_cache_lookups_total",
+            "LLM response cache lookups, by result (hit or miss).",
+            "result");
+
+    // ── Recorder ──────────────────────────────────────────────────────────
+
+    public static final Histogram CDP_COMMAND_DURATION = REGISTRY.histogram(
+            "autoqa_cdp_command_duration_seconds",
+            "Chrome DevTools Protocol command round trip, by domain.",
+            Histogram.LATENCY_BUCKETS, "domain");
+
+    public static final Counter CDP_COMMAND_ERRORS = REGISTRY.counter(
+            "autoqa_cdp_command_errors_total",
+            "CDP commands that failed or timed out, by domain.",
+            "domain");
+
+    // ── Server jobs ───────────────────────────────────────────────────────
+
+    public static final Counter JOBS = REGISTRY.counter(
+            "autoqa_jobs_total",
+            "Finished API server jobs, by type and final state.",
+            "type", "state");
+
+    private Metrics() {}
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Complete element identity captured by DOMEnricher at recording time.
@@ -89,6 +90,21 @@ public class ElementInfo {
             || (xpath != null && !xpath.isBlank());
     }
 
+    /**
+     * Stable identity built from the tag name and the four locator values.
+     * Two instances describing the same recorded element — e.g. deserialised
+     * from different steps of one recording — produce the same fingerprint,
+     * so it can key per-element caches.
+     */
+    public String fingerprint() {
+        return String.join("\u0000",
+                Objects.toString(tagName, ""),
+                Objects.toString(id, ""),
+                Objects.toString(name, ""),
+                Objects.toString(css, ""),
+                Objects.toString(xpath, ""));
+    }
+
     @Override
     public String toString() {
         return String.format("ElementInfo{tag='%s', id='%s', css='%s'}", tagName, id, css);
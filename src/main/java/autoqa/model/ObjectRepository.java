@@ -120,6 +120,19 @@ public class ObjectRepository {
         return objects.get(name);
     }
 
+    /**
+     * Returns the object whose locators produce {@code element} — i.e. the
+     * object a playback step was resolved from — or {@code null}.
+     */
+    public TestObject findByElement(ElementInfo element) {
+        if (element == null) return null;
+        String fp = element.fingerprint();
+        for (TestObject obj : objects.values()) {
+            if (obj.toElementInfo().fingerprint().equals(fp)) return obj;
+        }
+        return null;
+    }
+
     /** Adds or replaces a test object in the OR. */
     public void add(TestObject obj) {
         obj.setName(obj.getName()); // ensure name is set
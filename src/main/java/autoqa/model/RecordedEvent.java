@@ -60,10 +60,22 @@ public class RecordedEvent {
     @JsonProperty("windowHandle")
     private String windowHandle;
 
-    /** Optional base64-encoded PNG screenshot at the moment of the event. */
+    /**
+     * Legacy inline base64-encoded PNG screenshot.  New recordings use
+     * {@link #screenshotRef}; {@link RecordingIO#migrateScreenshots} converts
+     * old ones.
+     */
     @JsonProperty("screenshotBase64")
     private String screenshotBase64;
 
+    /**
+     * Reference ({@code sha256:<hex>}) to the screenshot at the moment of the
+     * event in the recording's {@link ScreenshotStore}.  Bytes are loaded on
+     * demand via {@link ScreenshotStore#load(RecordedEvent)}.
+     */
+    @JsonProperty("screenshotRef")
+    private String screenshotRef;
+
     /** Human-readable description for generated test step names. */
     @JsonProperty("comment")
     private String comment;
@@ -97,6 +109,7 @@ public class RecordedEvent {
     public List<String> getFrameChain()       { return frameChain; }
     public String       getWindowHandle()     { return windowHandle; }
     public String       getScreenshotBase64() { return screenshotBase64; }
+    public String       getScreenshotRef()    { return screenshotRef; }
     public String          getComment()          { return comment; }
     public CheckpointData  getCheckpointData()   { return checkpointData; }
     public String          getObjectName()        { return objectName; }
@@ -113,6 +126,7 @@ public class RecordedEvent {
     public void setFrameChain(List<String> frameChain)     { this.frameChain = frameChain; }
     public void setWindowHandle(String windowHandle)       { this.windowHandle = windowHandle; }
     public void setScreenshotBase64(String s)                    { this.screenshotBase64 = s; }
+    public void setScreenshotRef(String ref)                     { this.screenshotRef = ref; }
     public void setComment(String comment)                       { this.comment = comment; }
     public void setCheckpointData(CheckpointData checkpointData) { this.checkpointData = checkpointData; }
     public void setObjectName(String objectName)                 { this.objectName = objectName; }
@@ -124,6 +138,9 @@ public class RecordedEvent {
     @JsonIgnore public boolean isCheckpoint()     { return eventType == EventType.CHECKPOINT; }
     @JsonIgnore public boolean hasInputData() { return inputData != null; }
     @JsonIgnore public boolean isInFrame()    { return frameChain != null && !frameChain.isEmpty(); }
+    @JsonIgnore public boolean hasScreenshot() {
+        return screenshotRef != null || (screenshotBase64 != null && !screenshotBase64.isEmpty());
+    }
 
     @Override
     public String toString() {
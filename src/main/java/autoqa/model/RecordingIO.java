@@ -1,8 +1,13 @@
 package autoqa.model;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.networknt.schema.JsonSchema;
 import com.networknt.schema.JsonSchemaFactory;
@@ -14,8 +19,15 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -26,12 +38,26 @@ import java.util.Set;
  *
  * <p>On write: pretty-prints for human readability; schema version is
  * set to {@link RecordedSession#CURRENT_SCHEMA_VERSION}.
+ *
+ * <p>Recordings may also be stored as NDJSON ({@value #NDJSON_EXTENSION}): a
+ * header line followed by one event per line, appended while recording (see
+ * {@link RecordingWriter}) and readable as a stream ({@link RecordingReader}),
+ * which validates the header and each event line against the schema as it
+ * parses them.  {@link #read(Path)} accepts both formats; {@link #convert}
+ * translates between them.
+ *
+ * <p>Screenshots are kept out of the recording in a sidecar
+ * {@link ScreenshotStore}: both write paths move inline base64 there before
+ * serializing, and {@link #migrateScreenshots} rewrites legacy recordings.
  */
 public class RecordingIO {
 
     private static final Logger log = LoggerFactory.getLogger(RecordingIO.class);
     private static final String SCHEMA_RESOURCE = "/event-schema.json";
 
+    /** File extension of the line-delimited recording format. */
+    public static final String NDJSON_EXTENSION = ".ndjson";
+
     /** Singleton ObjectMapper — thread-safe after configuration. */
     private static final ObjectMapper MAPPER;
 
@@ -43,6 +69,9 @@ public class RecordingIO {
                 .enable(SerializationFeature.INDENT_OUTPUT);
     }
 
+    /** Compact single-line writer for NDJSON records. */
+    private static final ObjectWriter LINE_WRITER = MAPPER.writer().without(SerializationFeature.INDENT_OUTPUT);
+
     /** Loaded once from classpath; null if schema resource is missing. */
     private static volatile JsonSchema JSON_SCHEMA = null;
 
@@ -60,6 +89,7 @@ public class RecordingIO {
      */
     public static RecordedSession read(Path path) throws IOException {
         log.debug("Reading recording from: {}", path);
+        if (isNdjson(path)) return readNdjson(path);
         String json = Files.readString(path);
         validateSchema(json, path.toString());
         RecordedSession session = MAPPER.readValue(json, RecordedSession.class);
@@ -81,14 +111,27 @@ public class RecordingIO {
     }
 
     /**
-     * Writes a {@link RecordedSession} to a JSON file (pretty-printed).
+     * Writes a {@link RecordedSession} to a JSON file (pretty-printed), or to
+     * an NDJSON file when {@code path} ends in {@value #NDJSON_EXTENSION}.
+     * Inline screenshots are moved to the recording's {@link ScreenshotStore}
+     * first, so the events of {@code session} end up holding references.
      *
      * @param session the session to serialize
      * @param path    the destination file path (parent directories are created)
      * @throws IOException if the file cannot be written
      */
     public static void write(RecordedSession session, Path path) throws IOException {
+        if (isNdjson(path)) {
+            try (RecordingWriter w = openWriter(session, path)) {
+                for (RecordedEvent e : session.getEvents()) w.append(e);
+                w.finish(session.getEndTimestamp());
+            }
+            log.info("Wrote session '{}' ({} events) to {}", session.getSessionId(),
+                    session.getEventCount(), path);
+            return;
+        }
         Files.createDirectories(path.getParent());
+        ScreenshotStore.forRecording(path).externalize(session);
         MAPPER.writeValue(path.toFile(), session);
         log.info("Wrote session '{}' ({} events) to {}", session.getSessionId(),
                 session.getEventCount(), path);
@@ -112,23 +155,139 @@ public class RecordingIO {
     /** Returns the shared ObjectMapper (for use in tests and other modules). */
     public static ObjectMapper getMapper() { return MAPPER; }
 
+    // ── NDJSON ────────────────────────────────────────────────────────────
+
+    /** {@code true} if {@code path} names an NDJSON recording. */
+    public static boolean isNdjson(Path path) {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(NDJSON_EXTENSION);
+    }
+
+    /** {@code true} if {@code path} looks like a recording in either format. */
+    public static boolean isRecordingFile(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".json") || name.endsWith(NDJSON_EXTENSION);
+    }
+
+    /**
+     * Creates {@code path} (replacing any existing file) and writes the header
+     * line for {@code header}; its events are not written.
+     */
+    public static RecordingWriter openWriter(RecordedSession header, Path path) throws IOException {
+        return new RecordingWriter(header, path, LINE_WRITER);
+    }
+
+    /**
+     * Opens an NDJSON recording for streaming.  The header is read and its
+     * schema version checked immediately; events are parsed as iterated.
+     */
+    public static RecordingReader openReader(Path path) throws IOException {
+        return new RecordingReader(path, MAPPER);
+    }
+
+    /**
+     * Converts a recording between the JSON and NDJSON formats, chosen by
+     * file extension.  NDJSON → JSON streams events without holding the whole
+     * session in memory; JSON input is schema-validated as by {@link #read}.
+     */
+    public static void convert(Path from, Path to) throws IOException {
+        if (isNdjson(from) && !isNdjson(to)) {
+            ndjsonToJson(from, to);
+        } else {
+            write(read(from), to);
+        }
+        int blobs = ScreenshotStore.forRecording(from).copyTo(ScreenshotStore.forRecording(to));
+        log.info("Converted recording {} -> {}{}", from, to,
+                blobs > 0 ? " (" + blobs + " screenshot(s) copied)" : "");
+    }
+
+    /**
+     * Rewrites {@code path} in place with every inline {@code screenshotBase64}
+     * moved to the recording's {@link ScreenshotStore}.  Identical frames are
+     * stored once.  The file is left untouched when it has no inline
+     * screenshots.
+     *
+     * @return number of events whose screenshot was moved
+     */
+    public static int migrateScreenshots(Path path) throws IOException {
+        RecordedSession session = read(path);
+        int migrated = ScreenshotStore.forRecording(path).externalize(session);
+        if (migrated > 0) {
+            // Keep the extension so write() picks the same format
+            Path tmp = path.resolveSibling(".migrate-" + path.getFileName());
+            write(session, tmp);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Moved {} inline screenshot(s) out of {}", migrated, path);
+        }
+        return migrated;
+    }
+
+    private static RecordedSession readNdjson(Path path) throws IOException {
+        RecordedSession session;
+        try (RecordingReader reader = openReader(path)) {
+            session = reader.getHeader();
+            List<RecordedEvent> events = new ArrayList<>();
+            reader.forEachRemaining(events::add);
+            session.setEvents(events);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.info("Loaded session '{}' with {} events from {}", session.getSessionId(),
+                session.getEventCount(), path);
+        return session;
+    }
+
+    private static void ndjsonToJson(Path from, Path to) throws IOException {
+        Path parent = to.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (RecordingReader reader = openReader(from);
+             JsonGenerator gen = MAPPER.getFactory().createGenerator(to.toFile(), JsonEncoding.UTF8)) {
+            gen.useDefaultPrettyPrinter();
+            gen.writeStartObject();
+            ObjectNode header = MAPPER.valueToTree(reader.getHeader());
+            header.remove("events");
+            Iterator<Map.Entry<String, JsonNode>> fields = header.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> f = fields.next();
+                gen.writeFieldName(f.getKey());
+                gen.writeTree(f.getValue());
+            }
+            gen.writeArrayFieldStart("events");
+            while (reader.hasNext()) {
+                MAPPER.writeValue(gen, reader.next());
+            }
+            gen.writeEndArray();
+            // Known only once the footer has been read
+            if (reader.getHeader().getEndTimestamp() != null) {
+                gen.writeStringField("endTimestamp", reader.getHeader().getEndTimestamp().toString());
+            }
+            gen.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
     // ── Schema validation ─────────────────────────────────────────────────
 
     private static void validateSchema(String json, String source) {
+        try {
+            validateTree(MAPPER.readTree(json), source);
+        } catch (IOException e) {
+            log.warn("Could not parse JSON for schema validation: {}", e.getMessage());
+        }
+    }
+
+    /** Validates {@code tree} as a whole session; package-private for {@link RecordingReader}. */
+    static void validateTree(JsonNode tree, String source) {
         JsonSchema schema = getSchema();
         if (schema == null) {
             log.warn("event-schema.json not found on classpath — skipping schema validation");
             return;
         }
-        try {
-            Set<ValidationMessage> errors = schema.validate(MAPPER.readTree(json));
-            if (!errors.isEmpty()) {
-                StringBuilder sb = new StringBuilder("Schema validation failed for ").append(source).append(":\n");
-                errors.forEach(e -> sb.append("  ").append(e.getMessage()).append("\n"));
-                throw new SchemaValidationException(sb.toString());
-            }
-        } catch (IOException e) {
-            log.warn("Could not parse JSON for schema validation: {}", e.getMessage());
+        Set<ValidationMessage> errors = schema.validate(tree);
+        if (!errors.isEmpty()) {
+            StringBuilder sb = new StringBuilder("Schema validation failed for ").append(source).append(":\n");
+            errors.forEach(e -> sb.append("  ").append(e.getMessage()).append("\n"));
+            throw new SchemaValidationException(sb.toString());
         }
     }
 
@@ -0,0 +1,200 @@
+package autoqa.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams events from an NDJSON recording written by {@link RecordingWriter}.
+ *
+ * <p>The header is parsed on open; events are parsed one line at a time as
+ * the caller iterates, so playback can start before the file has been read.
+ * A torn last line (the recorder crashed mid-write) is skipped and reported
+ * by {@link #isTruncated()}; a malformed line anywhere else is an error.
+ * The header and each event line are validated against
+ * {@code event-schema.json} as they are parsed, so a streamed recording is
+ * held to the same schema as a JSON one.
+ * Obtain instances via {@link RecordingIO#openReader(Path)}.
+ */
+public final class RecordingReader implements Iterator<RecordedEvent>, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordingReader.class);
+
+    /** Bytes read from the end of the file to find the footer, which is far shorter. */
+    private static final int FOOTER_TAIL_BYTES = 512;
+
+    private final Path path;
+    private final BufferedReader in;
+    private final ObjectMapper mapper;
+    private final RecordedSession header;
+
+    /** Header fields plus a one-element {@code events} array, reused to validate each event line. */
+    private final ObjectNode envelope;
+
+    private RecordedEvent next;
+    private boolean done;
+    private boolean truncated;
+    private int lineNo;
+    private int eventsRead;
+    private int declaredEventCount = -1;
+
+    RecordingReader(Path path, ObjectMapper mapper) throws IOException {
+        this.path   = path;
+        this.mapper = mapper;
+        this.in     = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        try {
+            String first = nextNonBlankLine();
+            if (first == null) throw new IOException("Empty recording: " + path);
+            JsonNode headerNode = mapper.readTree(first);
+            if (!headerNode.isObject()) throw new IOException("Recording header is not a JSON object: " + path);
+            this.envelope = (ObjectNode) headerNode;
+            envelope.putArray("events");
+            RecordingIO.validateTree(envelope, path + " (header)");
+            this.header = mapper.treeToValue(envelope, RecordedSession.class);
+            header.setEvents(null);
+            this.declaredEventCount = readFooterEventCount();
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+        if (!header.isVersionSupported()) {
+            in.close();
+            throw new RecordingIO.SchemaVersionException(
+                    "Unsupported schema version: " + header.getSchemaVersion()
+                    + " (expected: " + RecordedSession.CURRENT_SCHEMA_VERSION + ")");
+        }
+    }
+
+    /**
+     * Session metadata from the header line.  Its event list is empty; the
+     * end timestamp is filled in once the footer has been read.
+     */
+    public RecordedSession getHeader() { return header; }
+
+    /** File being read. */
+    public Path getPath() { return path; }
+
+    /** Events returned so far. */
+    public int getEventsRead() { return eventsRead; }
+
+    /**
+     * Event count from the footer, or {@code -1} if the recording has none
+     * (still being written, or interrupted).  Known on open: the footer is
+     * read from the end of the file without parsing the events.
+     */
+    public int getDeclaredEventCount() { return declaredEventCount; }
+
+    /** {@code true} if a torn last line was skipped (recording was interrupted). */
+    public boolean isTruncated() { return truncated; }
+
+    // ── Iterator ──────────────────────────────────────────────────────────
+
+    /**
+     * @throws UncheckedIOException if the file cannot be read or a line other
+     *                              than the last is malformed
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) advance();
+        return next != null;
+    }
+
+    @Override
+    public RecordedEvent next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        RecordedEvent e = next;
+        next = null;
+        eventsRead++;
+        return e;
+    }
+
+    @Override
+    public void close() throws IOException {
+        done = true;
+        in.close();
+    }
+
+    // ── Private helpers ───────────────────────────────────────────────────
+
+    private void advance() {
+        try {
+            String line;
+            while ((line = nextNonBlankLine()) != null) {
+                JsonNode node;
+                try {
+                    node = mapper.readTree(line);
+                } catch (JsonProcessingException e) {
+                    int badLine = lineNo; // the peek below advances lineNo
+                    if (nextNonBlankLine() == null) {
+                        truncated = true;
+                        log.warn("Recording {} ends with an incomplete line {} — skipped", path, badLine);
+                        break;
+                    }
+                    throw new IOException("Malformed line " + badLine + " in " + path + ": " + e.getOriginalMessage(), e);
+                }
+
+                if (node.has("eventType")) {
+                    envelope.putArray("events").add(node);
+                    RecordingIO.validateTree(envelope, path + " line " + lineNo);
+                    next = mapper.treeToValue(node, RecordedEvent.class);
+                    return;
+                }
+                if (node.hasNonNull("endTimestamp")) {
+                    header.setEndTimestamp(Instant.parse(node.get("endTimestamp").asText()));
+                }
+                if (node.has("eventCount")) declaredEventCount = node.get("eventCount").asInt(-1);
+                // Footer or unknown record type — nothing to return
+            }
+            done = true;
+        } catch (IOException e) {
+            done = true;
+            throw new UncheckedIOException(e);
+        } catch (RecordingIO.SchemaValidationException e) {
+            done = true;
+            throw e;
+        }
+    }
+
+    /** Parses the footer from the last line of the file, or returns {@code -1}. */
+    private int readFooterEventCount() {
+        try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "r")) {
+            long len = raf.length();
+            int n = (int) Math.min(len, FOOTER_TAIL_BYTES);
+            byte[] tail = new byte[n];
+            raf.seek(len - n);
+            raf.readFully(tail);
+            String text = new String(tail, StandardCharsets.UTF_8).stripTrailing();
+            String last = text.substring(text.lastIndexOf('\n') + 1);
+            JsonNode node = mapper.readTree(last);
+            return node.isObject() && !node.has("eventType") && node.has("eventCount")
+                    ? node.get("eventCount").asInt(-1) : -1;
+        } catch (IOException e) {
+            // No complete footer (torn or still being written)
+            return -1;
+        }
+    }
+
+    private String nextNonBlankLine() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (!line.isBlank()) return line;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,99 @@
+package autoqa.model;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Appends a recording to an NDJSON file one event at a time.
+ *
+ * <p>Layout — one compact JSON object per line:
+ * <pre>
+ * {"schemaVersion":"1.0","sessionId":"…","startTimestamp":"…",…}   header (session fields, no events)
+ * {"eventType":"NAVIGATE",…}                                       one line per event
+ * {"eventType":"CLICK",…}
+ * {"endTimestamp":"…","eventCount":2}                               footer, written by {@link #finish}
+ * </pre>
+ *
+ * <p>Every line is flushed as soon as it is written, so a crash loses at
+ * most the event being written; {@link RecordingReader} skips a torn last
+ * line and a missing footer.  Obtain instances via
+ * {@link RecordingIO#openWriter(RecordedSession, Path)}.
+ */
+public final class RecordingWriter implements Closeable {
+
+    private final Path path;
+    private final BufferedWriter out;
+    private final ObjectWriter lineWriter;
+    private final ScreenshotStore screenshots;
+    private int eventCount;
+    private boolean closed;
+
+    RecordingWriter(RecordedSession header, Path path, ObjectWriter lineWriter) throws IOException {
+        this.path       = path;
+        this.lineWriter = lineWriter;
+        this.screenshots = ScreenshotStore.forRecording(path);
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        this.out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+
+        ObjectNode node = RecordingIO.getMapper().valueToTree(header);
+        node.remove("events");
+        node.remove("endTimestamp");
+        writeLine(lineWriter.writeValueAsString(node));
+    }
+
+    /**
+     * Appends one event and flushes it to the file.  An inline
+     * {@code screenshotBase64} is first moved to the recording's
+     * {@link ScreenshotStore} and replaced on {@code event} by its reference.
+     *
+     * @throws IOException if the writer is closed or the write fails
+     */
+    public synchronized void append(RecordedEvent event) throws IOException {
+        if (closed) throw new IOException("RecordingWriter for " + path + " is closed");
+        screenshots.externalize(event);
+        writeLine(lineWriter.writeValueAsString(event));
+        eventCount++;
+    }
+
+    /**
+     * Writes the footer with the end timestamp and event count, then closes
+     * the file.
+     */
+    public synchronized void finish(Instant endTimestamp) throws IOException {
+        if (closed) return;
+        ObjectNode footer = RecordingIO.getMapper().createObjectNode();
+        if (endTimestamp != null) footer.put("endTimestamp", endTimestamp.toString());
+        footer.put("eventCount", eventCount);
+        writeLine(lineWriter.writeValueAsString(footer));
+        close();
+    }
+
+    /** Closes the file without a footer (the reader treats it as an interrupted recording). */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        out.close();
+    }
+
+    /** Number of events written so far. */
+    public synchronized int getEventCount() { return eventCount; }
+
+    /** File being written. */
+    public Path getPath() { return path; }
+
+    private void writeLine(String json) throws IOException {
+        out.write(json);
+        out.newLine();
+        out.flush();
+    }
+}
@@ -0,0 +1,206 @@
+package autoqa.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed sidecar store for event screenshots.
+ *
+ * <p>Screenshots live next to the recording rather than inside it:
+ * <pre>
+ * recordings/login.json
+ * recordings/login.screenshots/3f5a…c1.png
+ * </pre>
+ * Each PNG is named by the SHA-256 of its bytes and referenced from the event
+ * as {@code screenshotRef = "sha256:3f5a…c1"}, so identical frames are stored
+ * once and the recording itself stays small enough to parse and
+ * schema-validate quickly.  Bytes are read only when {@link #load} is called.
+ *
+ * <p>{@link RecordingIO#write} and {@link RecordingWriter#append} move any
+ * inline {@code screenshotBase64} into the store before serializing.  Legacy
+ * recordings that carry it inline are still readable;
+ * {@link RecordingIO#migrateScreenshots} rewrites them.
+ */
+public final class ScreenshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ScreenshotStore.class);
+
+    /** Suffix of the sidecar directory that replaces the recording's extension. */
+    public static final String DIR_SUFFIX = ".screenshots";
+
+    private static final String REF_PREFIX = "sha256:";
+    private static final String BLOB_EXT   = ".png";
+    private static final Pattern DIGEST    = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path dir;
+
+    public ScreenshotStore(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Returns the sidecar store for a recording file:
+     * {@code foo.json} and {@code foo.ndjson} both map to {@code foo.screenshots/}.
+     */
+    public static ScreenshotStore forRecording(Path recording) {
+        String name = recording.getFileName().toString();
+        String lower = name.toLowerCase(Locale.ROOT);
+        String stem = lower.endsWith(RecordingIO.NDJSON_EXTENSION)
+                ? name.substring(0, name.length() - RecordingIO.NDJSON_EXTENSION.length())
+                : lower.endsWith(".json") ? name.substring(0, name.length() - 5) : name;
+        return new ScreenshotStore(recording.resolveSibling(stem + DIR_SUFFIX));
+    }
+
+    /** Directory holding the blobs (may not exist yet). */
+    public Path getDirectory() { return dir; }
+
+    // ── Write ─────────────────────────────────────────────────────────────
+
+    /**
+     * Stores {@code png} and returns its reference.  A blob with the same
+     * content is written only once.
+     */
+    public String put(byte[] png) throws IOException {
+        String digest = sha256(png);
+        Path blob = dir.resolve(digest + BLOB_EXT);
+        if (!Files.exists(blob)) {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, digest, ".tmp");
+            try {
+                Files.write(tmp, png);
+                try {
+                    Files.move(tmp, blob, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, blob, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            log.debug("Stored screenshot {} ({} bytes)", digest, png.length);
+        }
+        return REF_PREFIX + digest;
+    }
+
+    /**
+     * Moves every inline {@code screenshotBase64} in {@code session} into the
+     * store, replacing it with a {@code screenshotRef}.
+     *
+     * @return number of events migrated
+     */
+    public int externalize(RecordedSession session) throws IOException {
+        int migrated = 0;
+        for (RecordedEvent e : session.getEvents()) {
+            if (externalize(e)) migrated++;
+        }
+        return migrated;
+    }
+
+    /**
+     * Moves the inline {@code screenshotBase64} of {@code event}, if any, into
+     * the store and replaces it with a {@code screenshotRef}.
+     *
+     * @return {@code true} if the event carried an inline screenshot
+     */
+    public boolean externalize(RecordedEvent event) throws IOException {
+        String inline = event.getScreenshotBase64();
+        if (inline == null || inline.isEmpty()) return false;
+        event.setScreenshotRef(put(Base64.getDecoder().decode(inline)));
+        event.setScreenshotBase64(null);
+        return true;
+    }
+
+    /**
+     * Copies blobs this store has and {@code target} lacks — used when a
+     * recording is converted to a file with a different name.
+     *
+     * @return number of blobs copied
+     */
+    public int copyTo(ScreenshotStore target) throws IOException {
+        if (!Files.isDirectory(dir) || dir.toAbsolutePath().normalize()
+                .equals(target.dir.toAbsolutePath().normalize())) {
+            return 0;
+        }
+        int copied = 0;
+        try (DirectoryStream<Path> blobs = Files.newDirectoryStream(dir, "*" + BLOB_EXT)) {
+            for (Path blob : blobs) {
+                Path dest = target.dir.resolve(blob.getFileName());
+                if (Files.exists(dest)) continue;
+                Files.createDirectories(target.dir);
+                Files.copy(blob, dest);
+                copied++;
+            }
+        }
+        return copied;
+    }
+
+    // ── Read ──────────────────────────────────────────────────────────────
+
+    /**
+     * Loads the screenshot of {@code event}: from the store when it has a
+     * {@code screenshotRef}, otherwise from a legacy inline base64 string.
+     *
+     * @return PNG bytes, or {@code null} if the event has no screenshot
+     * @throws IOException if the referenced blob is missing or unreadable
+     */
+    public byte[] load(RecordedEvent event) throws IOException {
+        if (event.getScreenshotRef() != null) return get(event.getScreenshotRef());
+        String inline = event.getScreenshotBase64();
+        return inline != null && !inline.isEmpty() ? Base64.getDecoder().decode(inline) : null;
+    }
+
+    /** Reads the blob for {@code ref}. */
+    public byte[] get(String ref) throws IOException {
+        Path blob = resolve(ref);
+        if (!Files.isRegularFile(blob)) {
+            throw new IOException("Screenshot " + ref + " not found in " + dir);
+        }
+        return Files.readAllBytes(blob);
+    }
+
+    /** {@code true} if the blob for {@code ref} is present. */
+    public boolean contains(String ref) {
+        return Files.isRegularFile(resolve(ref));
+    }
+
+    /**
+     * Path of the blob for {@code ref}.
+     *
+     * @throws IllegalArgumentException if {@code ref} is not a {@code sha256:} reference
+     */
+    public Path resolve(String ref) {
+        String digest = ref != null && ref.startsWith(REF_PREFIX) ? ref.substring(REF_PREFIX.length()) : "";
+        if (!DIGEST.matcher(digest).matches()) {
+            throw new IllegalArgumentException("Not a screenshot reference: " + ref);
+        }
+        return dir.resolve(digest + BLOB_EXT);
+    }
+
+    @Override
+    public String toString() {
+        return "ScreenshotStore{" + dir + "}";
+    }
+
+    // ── Private helpers ───────────────────────────────────────────────────
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -91,6 +91,20 @@ public class TestObject {
         locators.add(new ElementLocator(strategy, value));
     }
 
+    /**
+     * Replaces the locator for {@code strategy} with {@code value}, or adds it
+     * when this object has no locator of that strategy yet.
+     */
+    public void setLocator(ElementLocator.Strategy strategy, String value) {
+        for (int i = 0; i < locators.size(); i++) {
+            if (locators.get(i).getStrategy() == strategy) {
+                locators.set(i, new ElementLocator(strategy, value));
+                return;
+            }
+        }
+        addLocator(strategy, value);
+    }
+
     /** Convert this TestObject's locators into an {@link ElementInfo} for LocatorResolver. */
     public ElementInfo toElementInfo() {
         ElementInfo ei = new ElementInfo();
@@ -1,16 +1,22 @@
 package autoqa.network;
 
+import autoqa.capture.CaptureStore;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * CDP-based network traffic monitor for Chromium-family browsers (Edge, Chrome).
@@ -18,9 +24,19 @@ import java.util.function.Consumer;
  * <p>Captures all network requests and responses during a test, enabling assertions
  * like "an API call was made to /api/search" or "no 5xx errors occurred".
  *
- * <p>This uses Selenium's {@link HasCdp} interface (available on ChromeDriver and
- * EdgeDriver in Selenium 4) to register CDP event listeners without requiring a
- * direct WebSocket connection.
+ * <p>When the driver offers Selenium's DevTools ({@link HasDevTools}), the monitor
+ * subscribes to {@code Network.requestWillBeSent}, {@code responseReceived},
+ * {@code loadingFinished} and {@code loadingFailed} and records one capture per
+ * request as it completes, with the real method, status, MIME type, encoded size
+ * and duration.  Redirect hops are recorded as their own responses.  Without
+ * DevTools it falls back to harvesting Resource Timing entries at {@link #stop()},
+ * which carry no method or status.
+ *
+ * <p>Captures live in a {@link CaptureStore} ({@value #DEFAULT_CAPACITY} by
+ * default), so a long session keeps only the most recent traffic unless
+ * {@link #spillTo} saves the evicted captures.  Type, host and URL-pattern
+ * queries are indexed incrementally: repeated assertions only look at captures
+ * added since the last one.
  *
  * <h3>Usage</h3>
  * <pre>{@code
@@ -41,11 +57,46 @@ public class NetworkMonitor {
 
     private static final Logger log = LoggerFactory.getLogger(NetworkMonitor.class);
 
+    /** Captures kept by default; older ones are overwritten. */
+    public static final int DEFAULT_CAPACITY = CaptureStore.DEFAULT_CAPACITY;
+
+    /** In-flight requests tracked at once; beyond this, new requests are not followed. */
+    private static final int MAX_PENDING = 5_000;
+
+    private static final Event<Map<String, Object>> REQUEST_WILL_BE_SENT = event("Network.requestWillBeSent");
+    private static final Event<Map<String, Object>> RESPONSE_RECEIVED    = event("Network.responseReceived");
+    private static final Event<Map<String, Object>> LOADING_FINISHED     = event("Network.loadingFinished");
+    private static final Event<Map<String, Object>> LOADING_FAILED       = event("Network.loadingFailed");
+
     private final HasCdp cdp;
     private final WebDriver driver;
-    private final List<NetworkCapture> captures = new CopyOnWriteArrayList<>();
-
-    private boolean active = false;
+    private final CaptureStore<NetworkCapture> captures;
+
+    /** Requests seen but not yet finished, by CDP request id. */
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    private volatile boolean active = false;
+    private boolean listening = false;
+
+    /** Session the listeners are on; the Network domain must be enabled on this same session. */
+    private DevTools devTools;
+
+    /** A request awaiting {@code loadingFinished} or {@code loadingFailed}. */
+    private static final class Pending {
+        final String url;
+        final String method;
+        final double startSec;      // CDP monotonic timestamp, seconds
+        final Instant wallTime;
+        volatile int status;
+        volatile String mimeType;
+
+        Pending(String url, String method, double startSec, Instant wallTime) {
+            this.url      = url;
+            this.method   = method;
+            this.startSec = startSec;
+            this.wallTime = wallTime;
+        }
+    }
 
     // ── Factory ───────────────────────────────────────────────────────────────
 
@@ -54,40 +105,64 @@ public class NetworkMonitor {
      * Throws {@link IllegalArgumentException} if the driver does not support CDP.
      */
     public static NetworkMonitor attach(WebDriver driver) {
+        return attach(driver, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Attaches a NetworkMonitor that keeps at most {@code capacity} captures
+     * (rounded up to a power of two).
+     */
+    public static NetworkMonitor attach(WebDriver driver, int capacity) {
         if (!(driver instanceof HasCdp cdp)) {
             throw new IllegalArgumentException(
                     "NetworkMonitor requires a Chromium-based WebDriver (Edge or Chrome). " +
                     "Got: " + driver.getClass().getSimpleName());
         }
-        return new NetworkMonitor(cdp, driver);
+        return new NetworkMonitor(cdp, driver, capacity);
     }
 
     /** Package-visible constructor for testing (allows null CDP). */
     NetworkMonitor(HasCdp cdp, WebDriver driver) {
-        this.cdp    = cdp;
-        this.driver = driver;
+        this(cdp, driver, DEFAULT_CAPACITY);
+    }
+
+    NetworkMonitor(HasCdp cdp, WebDriver driver, int capacity) {
+        this.cdp      = cdp;
+        this.driver   = driver;
+        this.captures = new CaptureStore<>(capacity, NetworkCapture::getType, NetworkCapture::getUrl);
     }
 
     // ── Lifecycle ──────────────────────────────────────────────────────────────
 
     /**
-     * Starts network capture. Enables the CDP Network domain and registers listeners.
+     * Starts network capture: subscribes to the Network domain events and
+     * enables the domain.  Requests are observed, never intercepted, so page
+     * loads are not held up.
      */
     public NetworkMonitor start() {
-        captures.clear();
-        // Enable Network domain
-        cdp.executeCdpCommand("Network.enable", Map.of());
-
-        // Listen for requestWillBeSent
-        cdp.executeCdpCommand("Network.setRequestInterception",
-                Map.of("patterns", List.of(Map.of("urlPattern", "*"))));
-
-        // Register listeners via CDP event subscription
-        // Note: Selenium's HasCdp.executeCdpCommand is fire-and-forget for commands;
-        // for event listening we register via the low-level CDP session.
-        // As a pragmatic approach we poll via JS performance entries as fallback.
+        clear();
+        if (!listening && driver instanceof HasDevTools hasDevTools) {
+            try {
+                devTools = hasDevTools.getDevTools();
+                devTools.createSessionIfThereIsNotOne();
+                devTools.addListener(REQUEST_WILL_BE_SENT, this::onRequestWillBeSent);
+                devTools.addListener(RESPONSE_RECEIVED,    this::onResponseReceived);
+                devTools.addListener(LOADING_FINISHED,     this::onLoadingFinished);
+                devTools.addListener(LOADING_FAILED,       this::onLoadingFailed);
+                listening = true;
+            } catch (Exception e) {
+                log.warn("NetworkMonitor: cannot subscribe to DevTools events — " +
+                         "falling back to Resource Timing at stop(): {}", e.getMessage());
+            }
+        }
+        // CDP enables domains per session: chromedriver's own session would not feed our listeners
+        if (listening) {
+            devTools.send(new Command<>("Network.enable", Map.of()));
+        } else {
+            cdp.executeCdpCommand("Network.enable", Map.of());
+        }
         active = true;
-        log.info("NetworkMonitor started");
+        log.info("NetworkMonitor started ({})", listening ? "DevTools events" : "Resource Timing fallback");
         return this;
     }
 
@@ -97,12 +172,20 @@ public class NetworkMonitor {
     public NetworkMonitor stop() {
         if (active) {
             try {
-                cdp.executeCdpCommand("Network.disable", Map.of());
+                if (listening) {
+                    devTools.send(new Command<>("Network.disable", Map.of()));
+                } else {
+                    cdp.executeCdpCommand("Network.disable", Map.of());
+                }
             } catch (Exception ignored) {}
             active = false;
         }
-        // Harvest performance entries from the browser as a supplement
-        harvestPerformanceEntries();
+        pending.clear();
+        if (!listening) {
+            // No event stream — the Performance API is all there is
+            harvestPerformanceEntries();
+        }
+        captures.flush();
         log.info("NetworkMonitor stopped — {} captures total", captures.size());
         return this;
     }
@@ -112,6 +195,16 @@ public class NetworkMonitor {
      */
     public NetworkMonitor clear() {
         captures.clear();
+        pending.clear();
+        return this;
+    }
+
+    /**
+     * Appends captures evicted once the capacity is reached to {@code file}
+     * (JSON lines) instead of dropping them.
+     */
+    public NetworkMonitor spillTo(Path file) throws IOException {
+        captures.spillTo(file);
         return this;
     }
 
@@ -122,12 +215,90 @@ public class NetworkMonitor {
         captures.add(capture);
     }
 
+    // ── DevTools events ───────────────────────────────────────────────────────
+    // Listeners cannot be removed from a DevTools session, so they check `active`.
+
+    @SuppressWarnings("unchecked")
+    void onRequestWillBeSent(Map<String, Object> params) {
+        if (!active) return;
+        String requestId = str(params.get("requestId"));
+        Map<String, Object> request = params.get("request") instanceof Map<?, ?> m
+                ? (Map<String, Object>) m : Map.of();
+        double timestamp = num(params.get("timestamp"));
+
+        // A redirect reuses the request id: the previous hop ends here with the redirect status
+        if (params.get("redirectResponse") instanceof Map<?, ?> redirect) {
+            Pending hop = pending.remove(requestId);
+            if (hop != null) {
+                hop.status   = (int) num(redirect.get("status"));
+                hop.mimeType = str(redirect.get("mimeType"));
+                complete(requestId, hop, timestamp, (long) num(redirect.get("encodedDataLength")));
+            }
+        }
+        if (pending.size() >= MAX_PENDING) {
+            log.debug("NetworkMonitor: {} requests in flight — not following {}", MAX_PENDING, requestId);
+            return;
+        }
+        double wall = num(params.get("wallTime"));
+        pending.put(requestId, new Pending(str(request.get("url")), str(request.get("method")), timestamp,
+                wall > 0 ? Instant.ofEpochMilli((long) (wall * 1000)) : Instant.now()));
+    }
+
+    @SuppressWarnings("unchecked")
+    void onResponseReceived(Map<String, Object> params) {
+        if (!active) return;
+        Pending p = pending.get(str(params.get("requestId")));
+        if (p == null || !(params.get("response") instanceof Map<?, ?> m)) return;
+        Map<String, Object> response = (Map<String, Object>) m;
+        p.status   = (int) num(response.get("status"));
+        p.mimeType = str(response.get("mimeType"));
+    }
+
+    void onLoadingFinished(Map<String, Object> params) {
+        if (!active) return;
+        String requestId = str(params.get("requestId"));
+        Pending p = pending.remove(requestId);
+        if (p == null) return;
+        complete(requestId, p, num(params.get("timestamp")), (long) num(params.get("encodedDataLength")));
+    }
+
+    void onLoadingFailed(Map<String, Object> params) {
+        if (!active) return;
+        String requestId = str(params.get("requestId"));
+        Pending p = pending.remove(requestId);
+        if (p == null) return;
+        String reason = Boolean.TRUE.equals(params.get("canceled"))
+                ? "canceled" : str(params.get("errorText"));
+        captures.add(new NetworkCapture(NetworkCapture.Type.FAILED, requestId, p.url, p.method,
+                p.status, p.mimeType, 0, durationMs(p, num(params.get("timestamp"))), p.wallTime, reason));
+    }
+
+    private void complete(String requestId, Pending p, double endSec, long sizeBytes) {
+        captures.add(new NetworkCapture(NetworkCapture.Type.RESPONSE, requestId, p.url, p.method,
+                p.status, p.mimeType, sizeBytes, durationMs(p, endSec), p.wallTime, null));
+    }
+
+    private static long durationMs(Pending p, double endSec) {
+        return endSec > 0 && p.startSec > 0 ? Math.max(0, Math.round((endSec - p.startSec) * 1000)) : 0;
+    }
+
+    private static Event<Map<String, Object>> event(String method) {
+        return new Event<>(method, input -> input.read(Json.MAP_TYPE));
+    }
+
+    private static String str(Object o) {
+        return o != null ? o.toString() : null;
+    }
+
+    private static double num(Object o) {
+        return o instanceof Number n ? n.doubleValue() : 0;
+    }
+
     /**
      * Harvests network entries from the browser's Performance API (Navigation Timing +
-     * Resource Timing). This gives us timing data for all resources loaded since
-     * page navigation without requiring CDP event subscriptions.
+     * Resource Timing).  Used only when DevTools events are unavailable: it gives
+     * timing data for resources loaded since navigation, but no method or status.
      */
-    @SuppressWarnings("unchecked")
     private void harvestPerformanceEntries() {
         if (!(driver instanceof org.openqa.selenium.JavascriptExecutor js)) return;
         try {
@@ -136,7 +307,8 @@ public class NetworkMonitor {
                         name:         e.name,
                         initiatorType:e.initiatorType,
                         duration:     e.duration,
-                        transferSize: e.transferSize
+                        transferSize: e.transferSize,
+                        status:       e.responseStatus || 0
                     }));
                     """;
             Object raw = js.executeScript(script);
@@ -150,11 +322,12 @@ public class NetworkMonitor {
                 Object sizeRaw  = map.get("transferSize");
                 long duration   = durRaw  instanceof Number n ? n.longValue() : 0;
                 long size       = sizeRaw instanceof Number n ? n.longValue() : 0;
+                // responseStatus is missing on older browsers and cross-origin entries; 0 = unknown
+                int status      = map.get("status") instanceof Number n ? n.intValue() : 0;
 
                 captures.add(NetworkCapture.response(
-                        url, url, "GET",
-                        200,  // status not available via PerformanceAPI
-                        type, size, duration));
+                        url, url, null,   // method is not exposed by Resource Timing
+                        status, type, size, duration));
             }
             log.debug("NetworkMonitor harvested {} performance entries", entries.size());
         } catch (Exception e) {
@@ -164,34 +337,50 @@ public class NetworkMonitor {
 
     // ── Accessors ──────────────────────────────────────────────────────────────
 
-    /** Returns an unmodifiable view of all captured network entries. */
+    /** Returns an unmodifiable snapshot of the retained network entries, oldest first. */
     public List<NetworkCapture> captures() {
-        return Collections.unmodifiableList(captures);
+        return List.copyOf(captures.snapshot());
     }
 
     /** Returns all response captures (status code present). */
     public List<NetworkCapture> responses() {
-        return captures.stream().filter(NetworkCapture::isResponse).toList();
+        return captures.ofType(NetworkCapture.Type.RESPONSE);
     }
 
-    /** Returns all captures whose URL matches the pattern (regex). */
+    /**
+     * Returns all captures whose URL matches the pattern (regex), using the
+     * pattern's index: only captures added since the last query are matched.
+     */
     public List<NetworkCapture> capturesMatching(String urlPattern) {
-        return captures.stream().filter(c -> c.urlMatches(urlPattern)).toList();
+        return captures.matching(urlPattern);
+    }
+
+    /**
+     * Returns all captures to {@code host} whose path starts with
+     * {@code pathPrefix} ({@code null} for any path), from the host index.
+     */
+    public List<NetworkCapture> capturesForHost(String host, String pathPrefix) {
+        return captures.forHost(host, pathPrefix);
     }
 
     /** Returns captures with HTTP 4xx or 5xx status codes. */
     public List<NetworkCapture> errors() {
-        return captures.stream().filter(NetworkCapture::isError).toList();
+        return responses().stream().filter(NetworkCapture::isError).toList();
     }
 
     /** Returns captures with HTTP 5xx status codes. */
     public List<NetworkCapture> serverErrors() {
-        return captures.stream().filter(c -> c.isResponse() && c.getStatusCode() >= 500).toList();
+        return responses().stream().filter(c -> c.getStatusCode() >= 500).toList();
     }
 
     /** Returns all failed (network-level) captures. */
     public List<NetworkCapture> failed() {
-        return captures.stream().filter(NetworkCapture::isFailed).toList();
+        return captures.ofType(NetworkCapture.Type.FAILED);
+    }
+
+    /** Captures overwritten because more than the store's capacity arrived. */
+    public long overwritten() {
+        return captures.overwritten();
     }
 
     // ── Assertions ─────────────────────────────────────────────────────────────
@@ -205,7 +394,7 @@ public class NetworkMonitor {
         if (capturesMatching(urlPattern).isEmpty()) {
             throw new AssertionError(
                     "NetworkMonitor: no request matched pattern '" + urlPattern + "'\n" +
-                    "Captured URLs: " + captures.stream().map(NetworkCapture::getUrl).toList());
+                    "Captured URLs: " + captures.snapshot().stream().map(NetworkCapture::getUrl).toList());
         }
         log.info("NetworkMonitor ✓ request matched: {}", urlPattern);
         return this;
@@ -286,10 +475,11 @@ public class NetworkMonitor {
 
     /** Returns a compact summary for logging or Allure attachment. */
     public String summary() {
-        long requests   = captures.stream().filter(c -> !c.isRequest()).count();
-        long errCount   = errors().size();
-        long failCount  = failed().size();
-        long avgDuration = captures.stream()
+        List<NetworkCapture> all = captures.snapshot();
+        long requests   = all.stream().filter(c -> !c.isRequest()).count();
+        long errCount   = all.stream().filter(NetworkCapture::isError).count();
+        long failCount  = all.stream().filter(NetworkCapture::isFailed).count();
+        long avgDuration = all.stream()
                 .filter(NetworkCapture::isResponse)
                 .mapToLong(NetworkCapture::getDurationMs)
                 .average()
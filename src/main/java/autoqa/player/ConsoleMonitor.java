@@ -1,17 +1,17 @@
 package autoqa.player;
 
+import autoqa.capture.CaptureStore;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chromium.HasCdp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.function.Consumer;
 
 /**
  * Browser console log monitor using Chrome DevTools Protocol (CDP).
@@ -21,6 +21,10 @@ import java.util.function.Consumer;
  *
  * <p>Requires a Chromium-based browser (Edge or Chrome).
  *
+ * <p>Messages are kept in a bounded {@link CaptureStore} indexed by level, so
+ * long sessions keep only the most recent {@value CaptureStore#DEFAULT_CAPACITY}
+ * messages by default (see {@link #spillTo} to keep the rest on disk).
+ *
  * <h3>Usage</h3>
  * <pre>{@code
  * ConsoleMonitor console = ConsoleMonitor.attach(driver);
@@ -69,7 +73,7 @@ public class ConsoleMonitor {
     }
 
     private final HasCdp cdp;
-    private final List<ConsoleMessage> messages = new CopyOnWriteArrayList<>();
+    private final CaptureStore<ConsoleMessage> messages;
     private boolean active = false;
 
     // ── Factory ───────────────────────────────────────────────────────────────
@@ -80,17 +84,32 @@ public class ConsoleMonitor {
      * @throws IllegalArgumentException if the driver does not support CDP
      */
     public static ConsoleMonitor attach(WebDriver driver) {
+        return attach(driver, CaptureStore.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Attaches a ConsoleMonitor that keeps at most {@code capacity} messages
+     * (rounded up to a power of two).
+     *
+     * @throws IllegalArgumentException if the driver does not support CDP
+     */
+    public static ConsoleMonitor attach(WebDriver driver, int capacity) {
         if (!(driver instanceof HasCdp cdp)) {
             throw new IllegalArgumentException(
                     "ConsoleMonitor requires a Chromium-based WebDriver (Edge or Chrome). " +
                     "Got: " + driver.getClass().getSimpleName());
         }
-        return new ConsoleMonitor(cdp);
+        return new ConsoleMonitor(cdp, capacity);
     }
 
     /** Package-visible constructor for testing (allows null CDP). */
     ConsoleMonitor(HasCdp cdp) {
-        this.cdp = cdp;
+        this(cdp, CaptureStore.DEFAULT_CAPACITY);
+    }
+
+    ConsoleMonitor(HasCdp cdp, int capacity) {
+        this.cdp      = cdp;
+        this.messages = new CaptureStore<>(capacity, ConsoleMessage::level, null);
     }
 
     // ── Lifecycle ──────────────────────────────────────────────────────────────
@@ -122,6 +141,7 @@ public class ConsoleMonitor {
             } catch (Exception ignored) {}
             active = false;
         }
+        messages.flush();
         log.info("ConsoleMonitor stopped — {} message(s) captured", messages.size());
         return this;
     }
@@ -132,6 +152,20 @@ public class ConsoleMonitor {
         return this;
     }
 
+    /**
+     * Appends messages evicted once the capacity is reached to {@code file}
+     * (JSON lines) instead of dropping them.
+     */
+    public ConsoleMonitor spillTo(Path file) throws IOException {
+        messages.spillTo(file);
+        return this;
+    }
+
+    /** Messages overwritten because more than the capacity arrived. */
+    public long overwritten() {
+        return messages.overwritten();
+    }
+
     // ── Manual recording ──────────────────────────────────────────────────────
 
     /** Manually records a console message (for testing or CDP listener callbacks). */
@@ -161,27 +195,29 @@ public class ConsoleMonitor {
 
     /** All captured messages. */
     public List<ConsoleMessage> messages() {
-        return Collections.unmodifiableList(messages);
+        return List.copyOf(messages.snapshot());
     }
 
     /** All captured error messages. */
     public List<ConsoleMessage> getErrors() {
-        return messages.stream().filter(ConsoleMessage::isError).toList();
+        return messages.ofType(Level.ERROR);
     }
 
     /** All captured warning messages. */
     public List<ConsoleMessage> getWarnings() {
-        return messages.stream().filter(ConsoleMessage::isWarning).toList();
+        return messages.ofType(Level.WARNING);
     }
 
     /** Messages at or above the specified severity level. */
     public List<ConsoleMessage> atLevel(Level minLevel) {
-        return messages.stream().filter(m -> m.level().ordinal() >= minLevel.ordinal()).toList();
+        return messages.ofTypes(Arrays.stream(Level.values())
+                .filter(l -> l.ordinal() >= minLevel.ordinal())
+                .toList());
     }
 
     /** Messages whose text contains the given substring. */
     public List<ConsoleMessage> containing(String text) {
-        return messages.stream().filter(m -> m.text().contains(text)).toList();
+        return messages.snapshot().stream().filter(m -> m.text().contains(text)).toList();
     }
 
     // ── Assertions ─────────────────────────────────────────────────────────────
@@ -229,7 +265,7 @@ public class ConsoleMonitor {
         if (matches.isEmpty()) {
             throw new AssertionError(
                     "ConsoleMonitor: no console message containing '" + expectedText + "' found. " +
-                    "Captured: " + messages.stream().map(ConsoleMessage::text).toList());
+                    "Captured: " + messages.snapshot().stream().map(ConsoleMessage::text).toList());
         }
         return this;
     }
@@ -250,8 +286,8 @@ public class ConsoleMonitor {
 
     /** Returns a compact summary for logging or Allure attachment. */
     public String summary() {
-        long errors   = messages.stream().filter(ConsoleMessage::isError).count();
-        long warnings = messages.stream().filter(ConsoleMessage::isWarning).count();
+        long errors   = getErrors().size();
+        long warnings = getWarnings().size();
         return String.format("ConsoleMonitor{total=%d, errors=%d, warnings=%d}",
                 messages.size(), errors, warnings);
     }
@@ -0,0 +1,117 @@
+package autoqa.player;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Pixels excluded from a visual comparison — clocks, carousels, ads and
+ * other regions that legitimately change between runs.
+ *
+ * <p>Built from rectangles and/or a mask image the size of the baseline, in
+ * which every non-black pixel (or, for images with alpha, every pixel that is
+ * not fully transparent) is ignored.  Stored as one bit per pixel, row-major.
+ */
+public final class DiffMask {
+
+    private final int width;
+    private final int height;
+    private final int stride;   // longs per row
+    private final long[] bits;
+    private final boolean[] rowHasIgnored;
+    private int ignored;
+
+    private DiffMask(int width, int height) {
+        this.width  = width;
+        this.height = height;
+        this.stride = (width + 63) >>> 6;
+        this.bits   = new long[stride * height];
+        this.rowHasIgnored = new boolean[height];
+    }
+
+    /**
+     * Builds a mask covering a {@code width × height} comparison area.
+     * Regions and mask pixels outside the area are clipped.
+     *
+     * @param regions   rectangles to ignore (may be empty)
+     * @param maskImage mask image, or {@code null}
+     * @return the mask, or {@code null} if nothing is ignored
+     */
+    public static DiffMask of(int width, int height, List<Rectangle> regions, BufferedImage maskImage) {
+        DiffMask m = new DiffMask(width, height);
+        if (regions != null) {
+            for (Rectangle r : regions) m.add(r);
+        }
+        if (maskImage != null) m.add(maskImage);
+        return m.ignored == 0 ? null : m;
+    }
+
+    /** {@code true} if pixel {@code (x, y)} is excluded. */
+    public boolean isIgnored(int x, int y) {
+        return (bits[y * stride + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /** {@code true} if any pixel in row {@code y} is excluded. */
+    public boolean rowHasIgnored(int y) {
+        return rowHasIgnored[y];
+    }
+
+    /** {@code true} if any pixel of the rectangle is excluded. */
+    public boolean anyIgnored(int x0, int y0, int w, int h) {
+        int x1 = Math.min(x0 + w, width), y1 = Math.min(y0 + h, height);
+        if (x0 >= x1) return false;
+        int firstWord = x0 >>> 6, lastWord = (x1 - 1) >>> 6;
+        long firstMask = -1L << x0;
+        long lastMask  = -1L >>> (63 - ((x1 - 1) & 63));
+        for (int y = Math.max(y0, 0); y < y1; y++) {
+            if (!rowHasIgnored[y]) continue;
+            int base = y * stride;
+            for (int wi = firstWord; wi <= lastWord; wi++) {
+                long word = bits[base + wi];
+                if (wi == firstWord) word &= firstMask;
+                if (wi == lastWord)  word &= lastMask;
+                if (word != 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Number of excluded pixels. */
+    public int getIgnoredCount() { return ignored; }
+
+    public int getWidth()  { return width; }
+    public int getHeight() { return height; }
+
+    // ── Private helpers ───────────────────────────────────────────────────
+
+    private void add(Rectangle r) {
+        int x0 = Math.max(r.x, 0), y0 = Math.max(r.y, 0);
+        int x1 = Math.min(r.x + r.width, width), y1 = Math.min(r.y + r.height, height);
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) set(x, y);
+        }
+    }
+
+    private void add(BufferedImage mask) {
+        int w = Math.min(mask.getWidth(), width), h = Math.min(mask.getHeight(), height);
+        boolean alpha = mask.getColorModel().hasAlpha();
+        int[] row = new int[w];
+        for (int y = 0; y < h; y++) {
+            mask.getRGB(0, y, w, 1, row, 0, w);
+            for (int x = 0; x < w; x++) {
+                int p = row[x];
+                if (alpha ? (p >>> 24) != 0 : (p & 0xFFFFFF) != 0) set(x, y);
+            }
+        }
+    }
+
+    private void set(int x, int y) {
+        int i = y * stride + (x >>> 6);
+        long bit = 1L << x;
+        if ((bits[i] & bit) == 0) {
+            bits[i] |= bit;
+            rowHasIgnored[y] = true;
+            ignored++;
+        }
+    }
+}
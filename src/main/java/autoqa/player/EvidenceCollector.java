@@ -1,5 +1,6 @@
 package autoqa.player;
 
+import autoqa.metrics.Metrics;
 import autoqa.model.RecordedEvent;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
@@ -11,7 +12,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -34,6 +34,11 @@ import java.util.List;
  *   <li>{@code context.txt}     — URL, timestamp, event type, step index</li>
  * </ul>
  * Individual artifact failures are logged as warnings and do not abort collection.
+ *
+ * <p>Only the browser round trips happen on the calling thread; the files are
+ * written by an {@link EvidenceWriter}, inline unless {@link #setWriter} attaches
+ * an asynchronous one.  In that case the artifacts may still be in flight when
+ * {@link #collect} returns — flush the writer before reading them.
  */
 public class EvidenceCollector {
 
@@ -44,11 +49,25 @@ public class EvidenceCollector {
                     .withZone(ZoneId.of("UTC"));
 
     private final String evidenceBaseDir;
+    private volatile EvidenceWriter writer = EvidenceWriter.inline();
 
     public EvidenceCollector(String evidenceBaseDir) {
         this.evidenceBaseDir = evidenceBaseDir;
     }
 
+    /** Sets the writer that puts captured evidence on disk; {@code null} restores inline writing. */
+    public void setWriter(EvidenceWriter writer) {
+        this.writer = writer != null ? writer : EvidenceWriter.inline();
+    }
+
+    /**
+     * Marks the start of a playback of {@code sessionId}, so its evidence
+     * budget does not carry over from earlier playbacks of the same session.
+     */
+    public void beginRun(String sessionId) {
+        writer.beginRun(buildRunDir(sessionId));
+    }
+
     /**
      * Collects all available evidence for a failed step.
      *
@@ -59,68 +78,72 @@ public class EvidenceCollector {
      * @return the {@link Path} of the evidence directory created
      */
     public Path collect(WebDriver driver, String sessionId, int stepIndex, RecordedEvent event) {
+        long start = System.nanoTime();
         Path evidenceDir = buildEvidenceDir(sessionId, stepIndex);
 
         try {
             Files.createDirectories(evidenceDir);
-            log.info("EvidenceCollector: writing artifacts to {}", evidenceDir);
+            log.info("EvidenceCollector: capturing artifacts for {}", evidenceDir);
         } catch (IOException e) {
             log.error("EvidenceCollector: cannot create evidence directory {}: {}", evidenceDir, e.getMessage());
             return evidenceDir;
         }
 
-        captureScreenshot(driver, evidenceDir);
-        capturePageSource(driver, evidenceDir);
-        captureConsoleLogs(driver, evidenceDir);
-        captureContext(driver, evidenceDir, stepIndex, event);
+        EvidenceWriter.Snapshot snapshot = new EvidenceWriter.Snapshot(
+                captureScreenshot(driver),
+                capturePageSource(driver),
+                captureConsoleLogs(driver),
+                captureContext(driver, stepIndex, event));
+        writer.submit(evidenceDir, snapshot);
 
+        Metrics.EVIDENCE_DURATION.observeSince(start);
         return evidenceDir;
     }
 
     // ── Private helpers ──────────────────────────────────────────────────
 
     private Path buildEvidenceDir(String sessionId, int stepIndex) {
+        return buildRunDir(sessionId).resolve(String.valueOf(stepIndex));
+    }
+
+    private Path buildRunDir(String sessionId) {
         // Sanitise sessionId so it is safe as a directory name
         String safeName = sessionId.replaceAll("[^a-zA-Z0-9_\\-]", "_");
-        return Paths.get(evidenceBaseDir, safeName, String.valueOf(stepIndex));
+        return Paths.get(evidenceBaseDir, safeName);
     }
 
-    private void captureScreenshot(WebDriver driver, Path dir) {
+    private byte[] captureScreenshot(WebDriver driver) {
         try {
             if (!(driver instanceof TakesScreenshot)) {
                 log.warn("EvidenceCollector: driver does not support TakesScreenshot — skipping screenshot");
-                return;
+                return null;
             }
-            byte[] png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
-            Path target = dir.resolve("screenshot.png");
-            Files.write(target, png);
-            log.info("EvidenceCollector: screenshot saved to {}", target);
+            return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
         } catch (Exception e) {
             log.warn("EvidenceCollector: failed to capture screenshot: {}", e.getMessage());
+            return null;
         }
     }
 
-    private void capturePageSource(WebDriver driver, Path dir) {
+    private String capturePageSource(WebDriver driver) {
         try {
             String source = driver.getPageSource();
             if (source == null) {
                 log.warn("EvidenceCollector: getPageSource() returned null — skipping page-source");
-                return;
             }
-            Path target = dir.resolve("page-source.html");
-            Files.writeString(target, source, StandardCharsets.UTF_8);
-            log.info("EvidenceCollector: page source saved to {} ({} chars)", target, source.length());
+            return source;
         } catch (Exception e) {
             log.warn("EvidenceCollector: failed to capture page source: {}", e.getMessage());
+            return null;
         }
     }
 
-    private void captureConsoleLogs(WebDriver driver, Path dir) {
+    private List<String> captureConsoleLogs(WebDriver driver) {
         try {
             LogEntries entries = driver.manage().logs().get(LogType.BROWSER);
             if (entries == null) {
                 log.warn("EvidenceCollector: browser log returned null — skipping console.log");
-                return;
+                return null;
             }
 
             List<String> lines = new ArrayList<>();
@@ -130,18 +153,16 @@ public class EvidenceCollector {
                         entry.getLevel(),
                         entry.getMessage()));
             }
-
-            Path target = dir.resolve("console.log");
-            Files.write(target, lines, StandardCharsets.UTF_8);
-            log.info("EvidenceCollector: {} console log line(s) saved to {}", lines.size(), target);
+            return lines;
         } catch (Exception e) {
             // Not all drivers expose browser logs (e.g. Firefox GeckoDriver); treat as non-fatal
             log.warn("EvidenceCollector: failed to capture console logs (driver may not support this): {}",
                     e.getMessage());
+            return null;
         }
     }
 
-    private void captureContext(WebDriver driver, Path dir, int stepIndex, RecordedEvent event) {
+    private List<String> captureContext(WebDriver driver, int stepIndex, RecordedEvent event) {
         try {
             String url = "(unknown)";
             try {
@@ -153,7 +174,7 @@ public class EvidenceCollector {
             String eventUrl = event.getUrl() != null ? event.getUrl() : "(null)";
             String element = event.getElement() != null ? event.getElement().toString() : "(no element)";
 
-            List<String> lines = List.of(
+            return List.of(
                     "=== AutoQA Failure Evidence Context ===",
                     "Captured at   : " + now,
                     "Step index    : " + stepIndex,
@@ -162,12 +183,9 @@ public class EvidenceCollector {
                     "Current URL   : " + url,
                     "Element       : " + element
             );
-
-            Path target = dir.resolve("context.txt");
-            Files.write(target, lines, StandardCharsets.UTF_8);
-            log.info("EvidenceCollector: context saved to {}", target);
         } catch (Exception e) {
-            log.warn("EvidenceCollector: failed to write context.txt: {}", e.getMessage());
+            log.warn("EvidenceCollector: failed to build context.txt: {}", e.getMessage());
+            return null;
         }
     }
 }
@@ -0,0 +1,381 @@
+package autoqa.player;
+
+import autoqa.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the evidence captured by {@link EvidenceCollector} to disk, off the
+ * playback thread.
+ *
+ * <p>The collector only pulls the volatile browser state (screenshot bytes,
+ * page source, console entries) and hands it over as a {@link Snapshot}; this
+ * writer does the compression and file I/O on a small pool of daemon threads
+ * behind a bounded queue.  When the queue is full the submitting thread writes
+ * the snapshot itself, so a burst of failures slows playback down instead of
+ * losing evidence.  A writer built with zero threads writes inline.
+ *
+ * <p>Each run (one session directory) has a byte budget, started afresh by
+ * {@link #beginRun} when a playback of that session begins.  Artifacts are
+ * written console log first, then screenshot, then page source; one that
+ * would exceed the budget is skipped, counted in
+ * {@code autoqa_evidence_dropped_total} and listed in {@code context.txt},
+ * which is always written.
+ *
+ * <p>Call {@link #flush} before reading evidence back — at suite end, or for
+ * just the step directory about to be attached to a report.  The
+ * {@link #shared} writer also flushes from a shutdown hook.
+ */
+public final class EvidenceWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EvidenceWriter.class);
+
+    /** Runs whose byte usage is remembered; older runs start over if they fail again. */
+    private static final int MAX_TRACKED_RUNS = 1024;
+
+    /** How long the shutdown hook waits for queued evidence. */
+    private static final Duration SHUTDOWN_FLUSH = Duration.ofSeconds(30);
+
+    private static EvidenceWriter shared;
+    private static Settings sharedSettings;
+
+    static {
+        Metrics.REGISTRY.gauge("autoqa_evidence_pending",
+                "Evidence snapshots queued or being written.",
+                () -> {
+                    EvidenceWriter w = sharedIfOpen();
+                    return w != null ? w.pending() : 0;
+                });
+    }
+
+    /** Browser state captured for one failed step; {@code null} fields were not captured. */
+    record Snapshot(byte[] screenshot, String pageSource, List<String> consoleLines, List<String> context) {}
+
+    private record Settings(int threads, int queueCapacity, long budgetBytes, boolean compress) {}
+
+    private final ThreadPoolExecutor executor;
+    private final long budgetBytes;
+    private final boolean compress;
+
+    /** Bytes written per run directory; guarded by itself. */
+    private final Map<Path, Long> usage = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Long> eldest) {
+            return size() > MAX_TRACKED_RUNS;
+        }
+    };
+
+    /** Guarded by {@code this}. */
+    private int pending;
+
+    /** Snapshots queued or being written, per step directory; guarded by {@code this}. */
+    private final Map<Path, Integer> pendingByDir = new HashMap<>();
+
+    /**
+     * @param threads       writer threads; {@code 0} writes inline on the caller
+     * @param queueCapacity snapshots waiting for a writer before callers write themselves
+     * @param budgetBytes   bytes of evidence per run; {@code 0} or less for no limit
+     * @param compress      gzip page source and console log ({@code .gz} suffix)
+     */
+    public EvidenceWriter(int threads, int queueCapacity, long budgetBytes, boolean compress) {
+        this.budgetBytes = budgetBytes;
+        this.compress    = compress;
+        if (threads <= 0) {
+            this.executor = null;
+            return;
+        }
+        AtomicInteger threadIdx = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "evidence-writer-" + threadIdx.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                // Unlike CallerRunsPolicy, also runs the task after shutdown so nothing is dropped
+                (r, ex) -> {
+                    log.debug("EvidenceWriter: queue full — writing on the calling thread");
+                    r.run();
+                });
+    }
+
+    /** A writer that writes inline with no budget and no compression. */
+    public static EvidenceWriter inline() {
+        return new EvidenceWriter(0, 0, 0, false);
+    }
+
+    /**
+     * Returns the writer configured by {@code player.evidence.*}: the
+     * JVM-wide {@link #shared} writer when async writing is enabled, an
+     * inline one otherwise.
+     */
+    public static EvidenceWriter fromConfig(PlayerConfig config) {
+        if (!config.isEvidenceAsync()) {
+            return new EvidenceWriter(0, 0, config.getEvidenceBudgetBytes(), config.isEvidenceCompress());
+        }
+        return shared(config.getEvidenceWriterThreads(), config.getEvidenceWriterQueue(),
+                config.getEvidenceBudgetBytes(), config.isEvidenceCompress());
+    }
+
+    /**
+     * Returns the JVM-wide writer, creating it on first use with these
+     * settings; later calls return the same instance, with a warning when
+     * they ask for different settings.
+     */
+    public static synchronized EvidenceWriter shared(int threads, int queueCapacity,
+                                                     long budgetBytes, boolean compress) {
+        Settings settings = new Settings(threads, queueCapacity, budgetBytes, compress);
+        if (shared == null) {
+            EvidenceWriter w = new EvidenceWriter(threads, queueCapacity, budgetBytes, compress);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> w.flush(SHUTDOWN_FLUSH),
+                    "evidence-writer-flush"));
+            log.info("EvidenceWriter: {} thread(s), queue {}, budget {} bytes per run, compress={}",
+                    threads, queueCapacity, budgetBytes > 0 ? budgetBytes : "unlimited", compress);
+            shared = w;
+            sharedSettings = settings;
+        } else if (!settings.equals(sharedSettings)) {
+            log.warn("EvidenceWriter: shared writer already created with {} — ignoring {}",
+                    sharedSettings, settings);
+        }
+        return shared;
+    }
+
+    private static synchronized EvidenceWriter sharedIfOpen() {
+        return shared;
+    }
+
+    /**
+     * Waits for the shared writer, if one was created, to finish everything
+     * queued so far.
+     *
+     * @return {@code true} if nothing is left pending
+     */
+    public static boolean flushShared(Duration timeout) {
+        EvidenceWriter w = sharedIfOpen();
+        return w == null || w.flush(timeout);
+    }
+
+    /**
+     * Waits for the shared writer, if one was created, to finish the
+     * snapshots queued so far for {@code dir}; other directories are not
+     * waited for.
+     *
+     * @return {@code true} if nothing is left pending for {@code dir}
+     */
+    public static boolean flushShared(Path dir, Duration timeout) {
+        EvidenceWriter w = sharedIfOpen();
+        return w == null || w.flush(dir, timeout);
+    }
+
+    // ── Runs ──────────────────────────────────────────────────────────────
+
+    /**
+     * Starts a fresh budget for the run directory {@code runDir}
+     * ({@code <evidenceDir>/<sessionId>}), forgetting the bytes earlier
+     * playbacks of the same session wrote there.
+     */
+    public void beginRun(Path runDir) {
+        synchronized (usage) {
+            usage.remove(runDir);
+        }
+    }
+
+    // ── Submission ────────────────────────────────────────────────────────
+
+    /** Writes {@code snapshot} into {@code dir}, asynchronously when this writer has threads. */
+    void submit(Path dir, Snapshot snapshot) {
+        if (executor == null) {
+            write(dir, snapshot);
+            return;
+        }
+        Path key = key(dir);
+        synchronized (this) {
+            pending++;
+            pendingByDir.merge(key, 1, Integer::sum);
+        }
+        executor.execute(() -> {
+            try {
+                write(dir, snapshot);
+            } finally {
+                synchronized (this) {
+                    pending--;
+                    // Wake waiters whenever a directory (and so possibly everything) is done
+                    if (pendingByDir.merge(key, -1, Integer::sum) == 0) {
+                        pendingByDir.remove(key);
+                        notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Blocks until every snapshot submitted before this call is on disk, or
+     * {@code timeout} passes.
+     *
+     * @return {@code true} if nothing is left pending
+     */
+    public synchronized boolean flush(Duration timeout) {
+        awaitUntil(() -> pending == 0, timeout);
+        if (pending > 0) {
+            log.warn("EvidenceWriter: {} snapshot(s) still pending after {} ms", pending, timeout.toMillis());
+        }
+        return pending == 0;
+    }
+
+    /**
+     * Blocks until every snapshot submitted for {@code dir} before this call
+     * is on disk, or {@code timeout} passes.
+     *
+     * @return {@code true} if nothing is left pending for {@code dir}
+     */
+    public synchronized boolean flush(Path dir, Duration timeout) {
+        Path key = key(dir);
+        awaitUntil(() -> !pendingByDir.containsKey(key), timeout);
+        Integer left = pendingByDir.get(key);
+        if (left != null) {
+            log.warn("EvidenceWriter: {} snapshot(s) for {} still pending after {} ms",
+                    left, dir, timeout.toMillis());
+        }
+        return left == null;
+    }
+
+    /** Waits on {@code this} until {@code done} holds or {@code timeout} passes; caller holds {@code this}. */
+    private void awaitUntil(BooleanSupplier done, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (!done.getAsBoolean()) {
+                long waitMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (waitMs <= 0) break;
+                wait(waitMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Path key(Path dir) {
+        return dir.toAbsolutePath().normalize();
+    }
+
+    /** Snapshots queued or being written. */
+    public synchronized int pending() {
+        return pending;
+    }
+
+    /** Flushes for up to {@link #SHUTDOWN_FLUSH} and stops the writer threads. */
+    @Override
+    public void close() {
+        flush(SHUTDOWN_FLUSH);
+        if (executor != null) executor.shutdown();
+    }
+
+    // ── Writing ───────────────────────────────────────────────────────────
+
+    private void write(Path dir, Snapshot s) {
+        long start = System.nanoTime();
+        Path run = dir.getParent() != null ? dir.getParent() : dir;
+        List<String> skipped = new ArrayList<>();
+
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            log.error("EvidenceWriter: cannot create evidence directory {}: {}", dir, e.getMessage());
+            return;
+        }
+
+        if (s.consoleLines() != null) {
+            StringBuilder text = new StringBuilder();
+            for (String line : s.consoleLines()) text.append(line).append(System.lineSeparator());
+            writeArtifact(run, dir, "console.log", text.toString().getBytes(StandardCharsets.UTF_8),
+                    compress, skipped);
+        }
+        if (s.screenshot() != null) {
+            writeArtifact(run, dir, "screenshot.png", s.screenshot(), false, skipped);
+        }
+        if (s.pageSource() != null) {
+            writeArtifact(run, dir, "page-source.html", s.pageSource().getBytes(StandardCharsets.UTF_8),
+                    compress, skipped);
+        }
+
+        if (s.context() != null) {
+            List<String> lines = new ArrayList<>(s.context());
+            if (!skipped.isEmpty()) {
+                lines.add("Skipped       : " + String.join(", ", skipped) + " (evidence budget exhausted)");
+            }
+            try {
+                Path target = dir.resolve("context.txt");
+                Files.write(target, lines, StandardCharsets.UTF_8);
+                addUsage(run, Files.size(target));
+                log.info("EvidenceWriter: context saved to {}", target);
+            } catch (IOException e) {
+                log.warn("EvidenceWriter: failed to write context.txt: {}", e.getMessage());
+            }
+        }
+        Metrics.EVIDENCE_WRITE_DURATION.observeSince(start);
+    }
+
+    private void writeArtifact(Path run, Path dir, String name, byte[] data, boolean gzip, List<String> skipped) {
+        try {
+            if (gzip) {
+                data = gzip(data);
+                name = name + ".gz";
+            }
+            if (!reserve(run, data.length)) {
+                log.warn("EvidenceWriter: skipping {} ({} bytes) — evidence budget of {} bytes for {} exhausted",
+                        name, data.length, budgetBytes, run);
+                Metrics.EVIDENCE_DROPPED.labels(name).inc();
+                skipped.add(name);
+                return;
+            }
+            Path target = dir.resolve(name);
+            Files.write(target, data);
+            log.info("EvidenceWriter: {} saved to {} ({} bytes)", name, target, data.length);
+        } catch (IOException e) {
+            log.warn("EvidenceWriter: failed to write {}: {}", name, e.getMessage());
+        }
+    }
+
+    /** Counts {@code bytes} against the run's budget, unless that would exceed it. */
+    private boolean reserve(Path run, long bytes) {
+        synchronized (usage) {
+            long used = usage.getOrDefault(run, 0L);
+            if (budgetBytes > 0 && used + bytes > budgetBytes) return false;
+            usage.put(run, used + bytes);
+            return true;
+        }
+    }
+
+    private void addUsage(Path run, long bytes) {
+        synchronized (usage) {
+            usage.merge(run, bytes, Long::sum);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+}
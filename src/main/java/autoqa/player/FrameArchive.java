@@ -0,0 +1,213 @@
+package autoqa.player;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single-file video of a playback run: JPEG frames appended back to back
+ * (a plain MJPEG stream — {@code ffplay -f mjpeg run.mjpeg} plays it) with a
+ * JSON sidecar index of frame offsets, capture times and step marks.
+ *
+ * <pre>
+ * screencast.mjpeg             JPEG | JPEG | JPEG | …
+ * screencast.mjpeg.index.json  {"frames":[{"timestampMs":…,"offset":…,"length":…}, …],
+ *                               "steps":[{"stepIndex":3,"label":"Click login","timestampMs":…,"frame":41}, …]}
+ * </pre>
+ *
+ * <p>A {@link Writer} drops a frame whose bytes hash the same as the previous
+ * one, so an idle page costs nothing.  A frame therefore stays on screen
+ * until the next one's timestamp, and {@link #frameAt} returns the frame that
+ * was showing at a given moment.
+ */
+public final class FrameArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(FrameArchive.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Suffix appended to the archive file name for its index. */
+    public static final String INDEX_SUFFIX = ".index.json";
+
+    /** One stored frame: wall-clock capture time and its byte range in the archive. */
+    public record Frame(long timestampMs, long offset, int length) {}
+
+    /** A step boundary: the step's label, when it was marked and the frame then on screen (-1 if none yet). */
+    public record StepMark(int stepIndex, String label, long timestampMs, int frame) {}
+
+    /** On-disk index layout. */
+    record Index(List<Frame> frames, List<StepMark> steps, int duplicatesDropped) {}
+
+    private final Path file;
+    private final List<Frame> frames;
+    private final List<StepMark> steps;
+
+    private FrameArchive(Path file, Index index) {
+        this.file   = file;
+        this.frames = Collections.unmodifiableList(index.frames());
+        this.steps  = Collections.unmodifiableList(index.steps());
+    }
+
+    /** Starts a new archive at {@code file}, replacing any existing one. */
+    public static Writer create(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        return new Writer(file);
+    }
+
+    /** Opens a finished archive by reading its index. */
+    public static FrameArchive open(Path file) throws IOException {
+        Index index = MAPPER.readValue(indexPath(file).toFile(), Index.class);
+        return new FrameArchive(file, index);
+    }
+
+    /** The index file that belongs to {@code archive}. */
+    public static Path indexPath(Path archive) {
+        return archive.resolveSibling(archive.getFileName() + INDEX_SUFFIX);
+    }
+
+    public Path getFile()            { return file; }
+
+    public List<Frame> frames()      { return frames; }
+
+    public List<StepMark> steps()    { return steps; }
+
+    // ── Extraction ────────────────────────────────────────────────────────
+
+    /**
+     * Index of the frame on screen at {@code timestampMs}: the last one
+     * captured at or before it, or the first frame for earlier times.
+     *
+     * @return the frame index, or -1 if the archive has no frames
+     */
+    public int frameIndexAt(long timestampMs) {
+        if (frames.isEmpty()) return -1;
+        int lo = 0, hi = frames.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (frames.get(mid).timestampMs() <= timestampMs) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    /** JPEG bytes of the frame on screen at {@code timestampMs}, or {@code null} if there are no frames. */
+    public byte[] frameAt(long timestampMs) throws IOException {
+        int i = frameIndexAt(timestampMs);
+        return i < 0 ? null : readFrame(i);
+    }
+
+    /**
+     * JPEG bytes of the frame on screen when step {@code stepIndex} was
+     * marked, or {@code null} if the step was not marked or there are no frames.
+     */
+    public byte[] frameForStep(int stepIndex) throws IOException {
+        for (StepMark s : steps) {
+            if (s.stepIndex() == stepIndex) return frameAt(s.timestampMs());
+        }
+        return null;
+    }
+
+    /** JPEG bytes of frame {@code i}. */
+    public byte[] readFrame(int i) throws IOException {
+        Frame f = frames.get(i);
+        ByteBuffer buf = ByteBuffer.allocate(f.length());
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, f.offset() + buf.position()) < 0) {
+                    throw new IOException("Frame " + i + " is truncated in " + file);
+                }
+            }
+        }
+        return buf.array();
+    }
+
+    // ═════════════════════════════════════════════════════════════════════
+    // Writer
+
+    /**
+     * Appends frames and step marks; {@link #close} writes the index.
+     * Thread-safe — frames usually arrive on a DevTools thread while steps
+     * are marked by the player.
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path file;
+        private final OutputStream out;
+        private final MessageDigest digest;
+        private final List<Frame> frames = new ArrayList<>();
+        private final List<StepMark> steps = new ArrayList<>();
+        private long offset;
+        private byte[] lastHash;
+        private int duplicates;
+        private boolean closed;
+
+        private Writer(Path file) throws IOException {
+            this.file = file;
+            this.out  = new BufferedOutputStream(Files.newOutputStream(file));
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        /**
+         * Appends a JPEG frame unless it is identical to the previous one.
+         *
+         * @return {@code true} if the frame was stored
+         */
+        public synchronized boolean append(byte[] jpeg, long timestampMs) throws IOException {
+            if (closed) return false;
+            byte[] hash = digest.digest(jpeg);
+            if (Arrays.equals(hash, lastHash)) {
+                duplicates++;
+                return false;
+            }
+            out.write(jpeg);
+            frames.add(new Frame(timestampMs, offset, jpeg.length));
+            offset  += jpeg.length;
+            lastHash = hash;
+            return true;
+        }
+
+        /** Records that step {@code stepIndex} finished at {@code timestampMs}. */
+        public synchronized void markStep(int stepIndex, String label, long timestampMs) {
+            if (closed) return;
+            steps.add(new StepMark(stepIndex, label, timestampMs, frames.size() - 1));
+        }
+
+        public synchronized int frameCount()        { return frames.size(); }
+
+        public synchronized int duplicatesDropped() { return duplicates; }
+
+        public Path getFile()                       { return file; }
+
+        /** Flushes the frames and writes the index; later frames and marks are ignored. */
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            out.close();
+            MAPPER.writeValue(indexPath(file).toFile(), new Index(frames, steps, duplicates));
+            log.info("FrameArchive: {} frame(s), {} duplicate(s) dropped, {} step mark(s) → {}",
+                    frames.size(), duplicates, steps.size(), file);
+        }
+    }
+}
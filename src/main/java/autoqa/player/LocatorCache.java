@@ -0,0 +1,147 @@
+package autoqa.player;
+
+import autoqa.model.ElementInfo;
+import autoqa.model.ElementLocator.Strategy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-session memo of which {@link Strategy} last located a given element.
+ *
+ * <p>Entries are keyed by {@link ElementInfo#fingerprint()} plus the page URL
+ * the element was found on.  {@link LocatorResolver} consults the cache before
+ * each lookup and tries the remembered strategy first, so a toolbar button
+ * whose ID is stale but whose CSS works is found on the first attempt every
+ * time after the first.
+ *
+ * <p>The cache only reorders the candidates.  The resolver accepts a hit from
+ * the remembered strategy only after the higher-priority strategies agree —
+ * none of them matches, or the first that does returns the same element — so
+ * a locator that has drifted onto a different element is replaced rather than
+ * kept.  Entries are dropped when the remembered strategy misses or is
+ * outranked ({@link #record}), and when the browser navigates to a page
+ * ({@link #setPage} with a new URL, or {@link #onNavigate}), since a freshly
+ * loaded DOM may no longer match.
+ */
+public class LocatorCache {
+
+    private final Map<Key, Strategy> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits          = new LongAdder();
+    private final LongAdder misses        = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private volatile String page = "";
+
+    /** Cache key: element fingerprint scoped to a page URL. */
+    private record Key(String page, String fingerprint) {}
+
+    // ── Page tracking ─────────────────────────────────────────────────────
+
+    /**
+     * Sets the URL subsequent lookups are scoped to.  A change of URL is
+     * treated as a navigation and drops any entries previously cached for the
+     * new page.
+     *
+     * @param url page URL of the step about to run; {@code null} keeps the current page
+     */
+    public void setPage(String url) {
+        if (url == null || url.equals(page)) return;
+        page = url;
+        onNavigate(url);
+    }
+
+    /** URL lookups are currently scoped to. */
+    public String getPage() {
+        return page;
+    }
+
+    /**
+     * Drops every entry cached for {@code url} — call after an explicit
+     * navigation or reload, even to the same URL.
+     */
+    public void onNavigate(String url) {
+        if (url == null) return;
+        entries.keySet().removeIf(k -> k.page().equals(url));
+    }
+
+    // ── Lookup ────────────────────────────────────────────────────────────
+
+    /**
+     * Returns the strategy that last located {@code element} on the current
+     * page, or {@code null} when nothing is cached (counted as a miss).
+     */
+    public Strategy lookup(ElementInfo element) {
+        Strategy s = entries.get(key(element));
+        if (s == null) misses.increment();
+        return s;
+    }
+
+    /**
+     * Records the outcome of a lookup that started from a cached strategy.
+     *
+     * @param element the element looked up
+     * @param cached  strategy returned by {@link #lookup}
+     * @param winner  strategy that actually located the element, or {@code null}
+     *                if nothing did
+     */
+    public void record(ElementInfo element, Strategy cached, Strategy winner) {
+        if (cached != null && cached == winner) {
+            hits.increment();
+            return;
+        }
+        if (cached != null) {
+            invalidate(element);
+        }
+        if (winner != null) {
+            entries.put(key(element), winner);
+        }
+    }
+
+    /** Removes the entry for {@code element} on the current page. */
+    public void invalidate(ElementInfo element) {
+        if (entries.remove(key(element)) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /** Removes every entry and resets the current page (counters are kept). */
+    public void clear() {
+        entries.clear();
+        page = "";
+    }
+
+    // ── Statistics ────────────────────────────────────────────────────────
+
+    /** Lookups where the cached strategy located the element. */
+    public long getHits()          { return hits.sum(); }
+
+    /** Lookups with no cached strategy. */
+    public long getMisses()        { return misses.sum(); }
+
+    /** Entries dropped because the cached strategy missed or was outranked. */
+    public long getInvalidations() { return invalidations.sum(); }
+
+    /** Number of entries currently cached. */
+    public int size()              { return entries.size(); }
+
+    /** Fraction of lookups answered by the cache, or 0 when none were made. */
+    public double hitRate() {
+        long total = getHits() + getMisses() + getInvalidations();
+        return total == 0 ? 0.0 : (double) getHits() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LocatorCache{%d hit(s), %d miss(es), %d invalidated, %d entries}",
+                getHits(), getMisses(), getInvalidations(), size());
+    }
+
+    // ── Private helpers ───────────────────────────────────────────────────
+
+    private Key key(ElementInfo element) {
+        return new Key(page, element.fingerprint());
+    }
+}
@@ -1,16 +1,25 @@
 package autoqa.player;
 
+import autoqa.metrics.Metrics;
 import autoqa.model.ElementInfo;
 import autoqa.model.ElementLocator;
 import autoqa.model.ElementLocator.Strategy;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Resolves the best working locator for a recorded {@link ElementInfo} by
  * trying strategies in priority order: ID → Name → CSS → XPath.
@@ -21,16 +30,70 @@ import org.slf4j.LoggerFactory;
  * <p>Both {@link #resolve} and {@link #findElement} share one internal lookup
  * path ({@link #locateFirst}) so the DOM is queried exactly once per call —
  * there is no second {@code driver.findElement} call.
+ *
+ * <p><b>Batched mode</b> (default when the driver is a {@link JavascriptExecutor}):
+ * all candidate locators are sent to the browser in a single
+ * {@code executeScript} call that returns the first match and its index, so a
+ * step whose ID and Name are stale costs one WebDriver round trip instead of
+ * three failed {@code findElement} calls.  If the script itself fails the
+ * resolver falls back to the sequential path for that lookup.
+ *
+ * <p>Per-strategy attempt and hit counts are kept for the lifetime of the
+ * resolver; see {@link #getStrategyStats()}.
+ *
+ * <p>When a {@link LocatorCache} is attached, the strategy that last located an
+ * element on the current page is tried first in sequential mode and the cache
+ * is updated with the outcome of every lookup.  A cached hit is only accepted
+ * once the strategies that outrank it have been re-checked: if the first of
+ * them that matches returns a different element, the cached locator has
+ * drifted and the higher-priority match wins.  Batched lookups keep priority
+ * order, since one round trip already yields the authoritative match.
  */
 public class LocatorResolver {
 
     private static final Logger log = LoggerFactory.getLogger(LocatorResolver.class);
 
+    /** Strategies this resolver tries, in priority order. */
+    private static final List<Strategy> LOCATOR_ORDER =
+            List.of(Strategy.ID, Strategy.NAME, Strategy.CSS, Strategy.XPATH);
+
+    /**
+     * In-page resolver for batched mode.  {@code arguments[0]} is an array of
+     * {@code [strategy, value]} pairs in priority order; returns
+     * {@code [index, element]} for the first pair that matches, or {@code null}.
+     * Invalid CSS/XPath expressions count as a miss rather than aborting the batch.
+     */
+    private static final String BATCH_LOCATE_JS = """
+            var c = arguments[0];
+            for (var i = 0; i < c.length; i++) {
+              var s = c[i][0], v = c[i][1], el = null;
+              try {
+                if (s === 'ID')         el = document.getElementById(v);
+                else if (s === 'NAME')  el = document.getElementsByName(v)[0] || null;
+                else if (s === 'CSS')   el = document.querySelector(v);
+                else if (s === 'XPATH') el = document.evaluate(v, document, null,
+                                               XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;
+              } catch (e) { el = null; }
+              if (el && el.nodeType === 1) return [i, el];
+            }
+            return null;
+            """;
+
     private final WebDriver driver;
     private final WaitStrategy wait;
     private final int maxAttempts;
+    private final boolean batched;
+
+    private final Map<Strategy, LongAdder> attempts = new EnumMap<>(Strategy.class);
+    private final Map<Strategy, LongAdder> hits     = new EnumMap<>(Strategy.class);
+    private final LongAdder roundTrips = new LongAdder();
+
+    private volatile LocatorCache cache;
 
     /**
+     * Creates a resolver that uses batched mode when the driver supports
+     * JavaScript execution.
+     *
      * @param driver      active WebDriver session
      * @param wait        configured wait strategy (accepted for API symmetry; not
      *                    currently used at this level — callers use WaitStrategy directly)
@@ -38,9 +101,25 @@ public class LocatorResolver {
      *                    before raising an exception (must cover all 4 strategies)
      */
     public LocatorResolver(WebDriver driver, WaitStrategy wait, int maxAttempts) {
-        this.driver = driver;
-        this.wait = wait;
+        this(driver, wait, maxAttempts, true);
+    }
+
+    /**
+     * @param driver      active WebDriver session
+     * @param wait        configured wait strategy
+     * @param maxAttempts maximum number of locator strategies to attempt
+     * @param batched     {@code true} to resolve all candidates in one
+     *                    {@code executeScript} round trip when the driver allows it
+     */
+    public LocatorResolver(WebDriver driver, WaitStrategy wait, int maxAttempts, boolean batched) {
+        this.driver      = driver;
+        this.wait        = wait;
         this.maxAttempts = maxAttempts;
+        this.batched     = batched && driver instanceof JavascriptExecutor;
+        for (Strategy s : LOCATOR_ORDER) {
+            attempts.put(s, new LongAdder());
+            hits.put(s, new LongAdder());
+        }
     }
 
     // ── Internal pair type ────────────────────────────────────────────────
@@ -52,6 +131,31 @@ public class LocatorResolver {
      */
     private record LocateMatch(ElementLocator locator, WebElement element) {}
 
+    /** One usable locator taken from an {@link ElementInfo}. */
+    private record Candidate(Strategy strategy, String value) {
+        By by() {
+            return switch (strategy) {
+                case ID    -> By.id(value);
+                case NAME  -> By.name(value);
+                case CSS   -> By.cssSelector(value);
+                default    -> By.xpath(value);
+            };
+        }
+    }
+
+    /**
+     * Attempt/hit counters for one strategy.
+     *
+     * @param attempts number of times the strategy was tried
+     * @param hits     number of times it located the element
+     */
+    public record StrategyStats(long attempts, long hits) {
+        /** Fraction of attempts that matched, or 0 when never tried. */
+        public double hitRate() {
+            return attempts == 0 ? 0.0 : (double) hits / attempts;
+        }
+    }
+
     // ── Public API ────────────────────────────────────────────────────────
 
     /**
@@ -80,48 +184,78 @@ public class LocatorResolver {
         return m.element();
     }
 
+    /**
+     * Attaches a per-session strategy cache, or detaches it when {@code null}.
+     */
+    public void setCache(LocatorCache cache) {
+        this.cache = cache;
+    }
+
+    /** The attached strategy cache, or {@code null}. */
+    public LocatorCache getCache() {
+        return cache;
+    }
+
+    /** True when candidates are resolved in a single {@code executeScript} call. */
+    public boolean isBatched() {
+        return batched;
+    }
+
+    /**
+     * Returns per-strategy attempt and hit counts accumulated since this
+     * resolver was created, in priority order.
+     */
+    public Map<Strategy, StrategyStats> getStrategyStats() {
+        Map<Strategy, StrategyStats> out = new EnumMap<>(Strategy.class);
+        for (Strategy s : LOCATOR_ORDER) {
+            out.put(s, new StrategyStats(attempts.get(s).sum(), hits.get(s).sum()));
+        }
+        return out;
+    }
+
+    /** Number of WebDriver lookups issued (one per batch, one per sequential try). */
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    /** One-line human-readable summary of {@link #getStrategyStats()}. */
+    public String statsSummary() {
+        StringBuilder sb = new StringBuilder();
+        getStrategyStats().forEach((s, st) -> {
+            if (st.attempts() == 0) return;
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(String.format("%s %d/%d (%.0f%%)", s, st.hits(), st.attempts(), st.hitRate() * 100));
+        });
+        return String.format("%s; %d round trip(s)%s",
+                sb.length() > 0 ? sb : "no lookups", getRoundTrips(), batched ? " [batched]" : "");
+    }
+
     // ── Internal helpers ─────────────────────────────────────────────────
 
     /**
      * Shared resolution path used by both {@link #resolve} and {@link #findElement}.
      * Tries ID → Name → CSS → XPath in order, each counted against
-     * {@code maxAttempts}.  Uses {@code <} so that when {@code maxAttempts == 4}
-     * all four strategies are reachable.
+     * {@code maxAttempts} — in one browser round trip when batched, otherwise
+     * one {@code findElement} per candidate.  In sequential mode a strategy
+     * remembered by the {@link LocatorCache} is moved to the front of the list
+     * and a hit is confirmed by {@link #confirmCachedHit}.
      */
     private LocateMatch locateFirst(ElementInfo element) {
-        int attempts = 0;
+        LocatorCache c = cache;
+        Strategy cached = c != null ? c.lookup(element) : null;
+        List<Candidate> candidates = candidates(element, batched ? null : cached);
 
-        // ── 1. ID ──────────────────────────────────────────────────────
-        if (isUsable(element.getId()) && attempts < maxAttempts) {
-            attempts++;
-            log.debug("Trying [ID]: {}", element.getId());
-            LocateMatch m = tryLocator(Strategy.ID, By.id(element.getId()));
-            if (m != null) return m;
-        }
-
-        // ── 2. Name ────────────────────────────────────────────────────
-        if (isUsable(element.getName()) && attempts < maxAttempts) {
-            attempts++;
-            log.debug("Trying [NAME]: {}", element.getName());
-            LocateMatch m = tryLocator(Strategy.NAME, By.name(element.getName()));
-            if (m != null) return m;
+        LocateMatch m = null;
+        if (!candidates.isEmpty()) {
+            m = batched ? locateBatched(candidates) : locateSequential(candidates);
         }
-
-        // ── 3. CSS ─────────────────────────────────────────────────────
-        if (isUsable(element.getCss()) && attempts < maxAttempts) {
-            attempts++;
-            log.debug("Trying [CSS]: {}", element.getCss());
-            LocateMatch m = tryLocator(Strategy.CSS, By.cssSelector(element.getCss()));
-            if (m != null) return m;
+        if (m != null && !batched && cached != null && m.locator().getStrategy() == cached) {
+            m = confirmCachedHit(candidates, m);
         }
-
-        // ── 4. XPath ───────────────────────────────────────────────────
-        if (isUsable(element.getXpath()) && attempts < maxAttempts) {
-            attempts++;
-            log.debug("Trying [XPATH]: {}", element.getXpath());
-            LocateMatch m = tryLocator(Strategy.XPATH, By.xpath(element.getXpath()));
-            if (m != null) return m;
+        if (c != null) {
+            c.record(element, cached, m != null ? m.locator().getStrategy() : null);
         }
+        if (m != null) return m;
 
         // All strategies exhausted
         throw new AutoQAException(String.format(
@@ -131,6 +265,98 @@ public class LocatorResolver {
                 element.getId(), element.getName(), element.getCss(), element.getXpath()));
     }
 
+    /**
+     * Builds the usable candidates in priority order, capped at {@code maxAttempts}.
+     * Uses {@code <} so that when {@code maxAttempts == 4} all four strategies are reachable.
+     *
+     * @param preferred strategy to move to the front when present, or {@code null}
+     */
+    private List<Candidate> candidates(ElementInfo element, Strategy preferred) {
+        List<Candidate> out = new ArrayList<>(LOCATOR_ORDER.size());
+        for (Strategy s : LOCATOR_ORDER) {
+            if (out.size() >= maxAttempts) break;
+            String value = valueOf(element, s);
+            if (isUsable(value)) {
+                if (s == preferred) out.add(0, new Candidate(s, value));
+                else out.add(new Candidate(s, value));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Re-checks, in priority order, the candidates that outrank a hit from the
+     * cached strategy.  The hit stands when none of them matches or the first
+     * that does returns the same element; otherwise that match is returned so
+     * the cache entry is replaced.
+     */
+    private LocateMatch confirmCachedHit(List<Candidate> candidates, LocateMatch hit) {
+        int rank = LOCATOR_ORDER.indexOf(hit.locator().getStrategy());
+        List<Candidate> higher = new ArrayList<>();
+        for (Candidate c : candidates) {
+            if (LOCATOR_ORDER.indexOf(c.strategy()) < rank) higher.add(c);
+        }
+        if (higher.isEmpty()) return hit;
+
+        LocateMatch first = locateSequential(higher);
+        if (first == null || first.element().equals(hit.element())) return hit;
+        log.debug("Cached [{}] matched a different element than [{}] — discarding it",
+                hit.locator().getStrategy(), first.locator().getStrategy());
+        return first;
+    }
+
+    private LocateMatch locateSequential(List<Candidate> candidates) {
+        for (Candidate c : candidates) {
+            log.debug("Trying [{}]: {}", c.strategy(), c.value());
+            LocateMatch m = tryLocator(c.strategy(), c.by());
+            if (m != null) return m;
+        }
+        return null;
+    }
+
+    /**
+     * Resolves all candidates with one {@code executeScript} call.  Falls back
+     * to {@link #locateSequential} if the script cannot run (e.g. a page CSP or
+     * a driver that rejects scripts).
+     */
+    private LocateMatch locateBatched(List<Candidate> candidates) {
+        List<List<String>> payload = new ArrayList<>(candidates.size());
+        for (Candidate c : candidates) {
+            payload.add(List.of(c.strategy().name(), c.value()));
+        }
+
+        Object raw;
+        try {
+            roundTrips.increment();
+            raw = ((JavascriptExecutor) driver).executeScript(BATCH_LOCATE_JS, payload);
+        } catch (WebDriverException e) {
+            log.debug("Batched locate failed — falling back to sequential: {}", e.getMessage());
+            return locateSequential(candidates);
+        }
+
+        int winner = -1;
+        WebElement el = null;
+        if (raw instanceof List<?> pair && pair.size() == 2
+                && pair.get(0) instanceof Number idx && pair.get(1) instanceof WebElement found) {
+            winner = idx.intValue();
+            el = found;
+        }
+
+        int tried = winner >= 0 ? winner + 1 : candidates.size();
+        for (int i = 0; i < tried; i++) {
+            countAttempt(candidates.get(i).strategy());
+        }
+        if (el == null) {
+            log.debug("Batched locate: no match among {} candidate(s)", candidates.size());
+            return null;
+        }
+
+        Candidate c = candidates.get(winner);
+        countHit(c.strategy());
+        log.debug("Batched locate: [{}] matched after {} miss(es)", c.strategy(), winner);
+        return new LocateMatch(new ElementLocator(c.strategy(), c.value()), el);
+    }
+
     /**
      * Attempts to locate an element using the supplied {@link By} strategy.
      * Returns a {@link LocateMatch} containing both the locator metadata and
@@ -140,8 +366,11 @@ public class LocatorResolver {
      *         if the element was not found
      */
     private LocateMatch tryLocator(Strategy strategy, By by) {
+        countAttempt(strategy);
+        roundTrips.increment();
         try {
             WebElement el = driver.findElement(by);
+            countHit(strategy);
             return new LocateMatch(new ElementLocator(strategy, byValue(strategy, by)), el);
         } catch (NoSuchElementException e) {
             log.debug("[{}] not found: {}", strategy, by);
@@ -149,6 +378,17 @@ public class LocatorResolver {
         }
     }
 
+    /** Counts an attempt for this resolver and in the process-wide {@link Metrics}. */
+    private void countAttempt(Strategy s) {
+        attempts.get(s).increment();
+        Metrics.LOCATOR_ATTEMPTS.labels(s.name()).inc();
+    }
+
+    private void countHit(Strategy s) {
+        hits.get(s).increment();
+        Metrics.LOCATOR_HITS.labels(s.name()).inc();
+    }
+
     /** Extracts the raw string value from a {@link By} for storage. */
     private String byValue(Strategy strategy, By by) {
         // By.toString() returns e.g. "By.id: foo" — split after the first ": "
@@ -157,6 +397,16 @@ public class LocatorResolver {
         return colonSpace >= 0 ? raw.substring(colonSpace + 2) : raw;
     }
 
+    private static String valueOf(ElementInfo element, Strategy strategy) {
+        return switch (strategy) {
+            case ID    -> element.getId();
+            case NAME  -> element.getName();
+            case CSS   -> element.getCss();
+            case XPATH -> element.getXpath();
+            default    -> null;
+        };
+    }
+
     /** Returns true only when the strategy value is non-null and non-blank. */
     private static boolean isUsable(String value) {
         return value != null && !value.isBlank();
@@ -0,0 +1,263 @@
+package autoqa.player;
+
+import autoqa.model.RecordedSession;
+import autoqa.model.RecordingIO;
+import autoqa.player.PlayerEngine.PlaybackResult;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Replays many recordings concurrently, one {@link PlayerEngine} per worker,
+ * with browsers leased from a shared {@link WebDriverPool}.
+ *
+ * <p>Each worker thread reads one recording, leases a driver, plays it, and
+ * returns the driver to the pool — so a suite of N recordings pays browser
+ * start-up only {@code workers} times rather than N times.  Results are
+ * returned in input order regardless of completion order.
+ *
+ * <h3>Usage</h3>
+ * <pre>{@code
+ * try (WebDriverPool pool = new WebDriverPool(EdgeDriver::new, 8)) {
+ *     ParallelPlaybackRunner runner = new ParallelPlaybackRunner(pool, 8);
+ *     ParallelPlaybackRunner.SuiteResult suite = runner.runDirectory(Path.of("recordings"));
+ *     System.out.println(suite);
+ * }
+ * }</pre>
+ */
+public class ParallelPlaybackRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelPlaybackRunner.class);
+
+    /** How long the end of a suite waits for queued evidence to reach disk. */
+    private static final Duration EVIDENCE_FLUSH_TIMEOUT = Duration.ofSeconds(60);
+
+    private final WebDriverPool                     pool;
+    private final int                               workers;
+    private final Function<WebDriver, PlayerEngine> engineFactory;
+
+    /**
+     * Creates a runner that builds a default {@link PlayerEngine} per recording.
+     *
+     * @param pool    shared driver pool (its size should be &ge; {@code workers})
+     * @param workers number of recordings replayed concurrently
+     */
+    public ParallelPlaybackRunner(WebDriverPool pool, int workers) {
+        this(pool, workers, PlayerEngine::new);
+    }
+
+    /**
+     * Creates a runner with a custom engine factory — used to attach an Object
+     * Repository, AI healing or a screen recorder to every engine.
+     *
+     * @param pool          shared driver pool
+     * @param workers       number of recordings replayed concurrently
+     * @param engineFactory builds a fresh engine around a leased driver
+     */
+    public ParallelPlaybackRunner(WebDriverPool pool, int workers,
+                                  Function<WebDriver, PlayerEngine> engineFactory) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be >= 1, got " + workers);
+        }
+        this.pool          = pool;
+        this.workers       = Math.min(workers, pool.getMaxSize());
+        this.engineFactory = engineFactory;
+    }
+
+    // ── Public API ────────────────────────────────────────────────────────
+
+    /**
+     * Replays every {@code *.json} recording in {@code dir} (non-recursive,
+     * sorted by file name).
+     *
+     * @throws IOException if the directory cannot be listed
+     */
+    public SuiteResult runDirectory(Path dir) throws IOException {
+        List<Path> recordings;
+        try (Stream<Path> files = Files.list(dir)) {
+            recordings = files
+                    .filter(p -> Files.isRegularFile(p) && RecordingIO.isRecordingFile(p))
+                    .sorted()
+                    .toList();
+        }
+        log.info("ParallelPlaybackRunner: found {} recording(s) in {}", recordings.size(), dir);
+        return run(recordings);
+    }
+
+    /**
+     * Replays the given recordings with up to {@code workers} running at once.
+     *
+     * @param recordings recording files to replay
+     * @return aggregated results in the same order as {@code recordings}
+     */
+    public SuiteResult run(List<Path> recordings) {
+        long start = System.nanoTime();
+        int threads = Math.max(1, Math.min(workers, recordings.size()));
+        log.info("ParallelPlaybackRunner: replaying {} recording(s) on {} worker(s)",
+                recordings.size(), threads);
+
+        AtomicInteger threadIdx = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "playback-worker-" + threadIdx.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        List<Future<RecordingResult>> futures = new ArrayList<>(recordings.size());
+        try {
+            for (Path recording : recordings) {
+                futures.add(executor.submit(() -> playOne(recording)));
+            }
+
+            List<RecordingResult> results = new ArrayList<>(recordings.size());
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(await(futures.get(i), recordings.get(i)));
+            }
+
+            // Suite end is the barrier for evidence still being written in the background
+            EvidenceWriter.flushShared(EVIDENCE_FLUSH_TIMEOUT);
+
+            long wallMs = (System.nanoTime() - start) / 1_000_000;
+            SuiteResult suite = new SuiteResult(results, wallMs);
+            log.info("ParallelPlaybackRunner: {}", suite);
+            return suite;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // ── Worker ────────────────────────────────────────────────────────────
+
+    private RecordingResult playOne(Path recording) {
+        long start = System.nanoTime();
+
+        RecordedSession session;
+        try {
+            session = RecordingIO.read(recording);
+        } catch (Exception e) {
+            log.error("Cannot read recording {}: {}", recording, e.getMessage());
+            return new RecordingResult(recording, new PlaybackResult(false, 0, 0,
+                    "Cannot read recording: " + e.getMessage()), elapsedMs(start));
+        }
+
+        WebDriver driver;
+        try {
+            driver = pool.lease();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new RecordingResult(recording, new PlaybackResult(false, 0,
+                    session.getEventCount(), "Interrupted waiting for a browser"), elapsedMs(start));
+        } catch (AutoQAException e) {
+            return new RecordingResult(recording, new PlaybackResult(false, 0,
+                    session.getEventCount(), e.getMessage()), elapsedMs(start));
+        }
+
+        boolean healthy = false;
+        try {
+            PlaybackResult result = engineFactory.apply(driver).play(session);
+            healthy = true;
+            return new RecordingResult(recording, result, elapsedMs(start));
+        } catch (Exception e) {
+            log.error("Playback of {} aborted: {}", recording, e.getMessage(), e);
+            return new RecordingResult(recording, new PlaybackResult(false, 0,
+                    session.getEventCount(), "Playback aborted: " + e.getMessage()), elapsedMs(start));
+        } finally {
+            if (healthy) {
+                pool.release(driver);
+            } else {
+                pool.discard(driver);
+            }
+        }
+    }
+
+    private RecordingResult await(Future<RecordingResult> future, Path recording) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new RecordingResult(recording,
+                    new PlaybackResult(false, 0, 0, "Interrupted"), 0L);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return new RecordingResult(recording,
+                    new PlaybackResult(false, 0, 0, "Worker failed: " + cause.getMessage()), 0L);
+        }
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    // ═════════════════════════════════════════════════════════════════════
+    // Result types
+    // ═════════════════════════════════════════════════════════════════════
+
+    /** Outcome of one recording within a parallel run. */
+    public record RecordingResult(Path recording, PlaybackResult result, long durationMs) {}
+
+    /**
+     * Aggregated outcome of a parallel run.
+     */
+    public static final class SuiteResult {
+
+        private final List<RecordingResult> results;
+        private final long wallClockMs;
+
+        public SuiteResult(List<RecordingResult> results, long wallClockMs) {
+            this.results     = Collections.unmodifiableList(new ArrayList<>(results));
+            this.wallClockMs = wallClockMs;
+        }
+
+        /** Per-recording results, in input order. */
+        public List<RecordingResult> getResults() { return results; }
+
+        /** Elapsed wall-clock time for the whole run. */
+        public long getWallClockMs()              { return wallClockMs; }
+
+        /** Number of recordings that played successfully. */
+        public int getPassed() {
+            return (int) results.stream().filter(r -> r.result().isSuccess()).count();
+        }
+
+        /** Number of recordings that failed. */
+        public int getFailed() {
+            return results.size() - getPassed();
+        }
+
+        /** Sum of per-recording durations — compare to {@link #getWallClockMs()} for speed-up. */
+        public long getTotalPlaybackMs() {
+            return results.stream().mapToLong(RecordingResult::durationMs).sum();
+        }
+
+        /** True when every recording passed. */
+        public boolean isSuccess() {
+            return getFailed() == 0;
+        }
+
+        /** Results for recordings that failed. */
+        public List<RecordingResult> getFailures() {
+            return results.stream().filter(r -> !r.result().isSuccess()).toList();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("SuiteResult{%d passed, %d failed, wall=%d ms, playback=%d ms}",
+                    getPassed(), getFailed(), wallClockMs, getTotalPlaybackMs());
+        }
+    }
+}
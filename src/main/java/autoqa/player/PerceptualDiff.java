@@ -0,0 +1,286 @@
+package autoqa.player;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+/**
+ * Perceptual comparison modes for {@link VisualRegression}: windowed SSIM and
+ * per-block average hash.
+ *
+ * <p>Both work on a two-level luminance pyramid rather than on full-resolution
+ * RGB.  The fine level is the image box-filtered down so its long side is at
+ * most {@value #MAX_PLANE_SIDE} pixels (factor 2 for full HD); the coarse
+ * level halves that again.  Box filtering also absorbs most sub-pixel
+ * anti-aliasing and font-hinting noise before any comparison happens.
+ *
+ * <ul>
+ *   <li><b>SSIM</b> — structural similarity over non-overlapping 8×8 windows of
+ *       the fine level.  Each coarse window is scored first; where it is
+ *       near-identical the four fine windows beneath it inherit the score, and
+ *       only the rest are computed at the fine level.  The diff ratio is
+ *       {@code 1 − mean SSIM}.</li>
+ *   <li><b>Block hash</b> — 64-bit average hash of every 8×8 block of the
+ *       coarse level; a block differs when more than
+ *       {@value #HASH_BIT_TOLERANCE} bits flip or its mean luminance moves by
+ *       more than the tolerance.  The diff ratio is the fraction of differing
+ *       blocks.</li>
+ * </ul>
+ *
+ * <p>Windows or blocks touching an excluded pixel of the {@link DiffMask} are
+ * skipped.  Pixels beyond the last whole window at the right and bottom edges
+ * are not compared; an image too small for a single window or block has no
+ * grid at all, and {@link VisualRegression} compares it pixel by pixel
+ * instead (see {@link #hasCells}).
+ */
+final class PerceptualDiff {
+
+    /** Long side of the fine pyramid level. */
+    static final int MAX_PLANE_SIDE = 1024;
+
+    /** Window / block side, in pyramid pixels. */
+    static final int WINDOW = 8;
+
+    /** Windows scoring below this are marked in the diff image. */
+    static final double SSIM_CELL_FLOOR = 0.90;
+
+    /** Coarse windows scoring at least this are not refined. */
+    static final double SSIM_REFINE_ABOVE = 0.995;
+
+    /** Hash bits that may flip before a block counts as different. */
+    static final int HASH_BIT_TOLERANCE = 6;
+
+    // SSIM stabilisers for 8-bit data: (0.01·255)², (0.03·255)²
+    private static final double C1 = 6.5025;
+    private static final double C2 = 58.5225;
+
+    private PerceptualDiff() {}
+
+    /**
+     * Outcome of a perceptual comparison over a grid of cells.
+     *
+     * @param cellSize cell side in full-resolution pixels
+     * @param failed   cells (row-major, {@code cols} per row) that differ
+     */
+    record Outcome(double diffRatio, int diffCells, int totalCells,
+                   int cellSize, int cols, int rows, BitSet failed) {}
+
+    /**
+     * Whether a {@code width}×{@code height} comparison holds at least one
+     * whole SSIM window (or, with {@code coarse}, one hash block) — the same
+     * grid {@link #ssim} and {@link #blockHash} would build.
+     */
+    static boolean hasCells(int width, int height, boolean coarse) {
+        int scale = planeScale(width, height);
+        int pw = width / scale, ph = height / scale;
+        if (coarse) {
+            pw /= 2;
+            ph /= 2;
+        }
+        return pw >= WINDOW && ph >= WINDOW;
+    }
+
+    // ── SSIM ──────────────────────────────────────────────────────────────
+
+    static Outcome ssim(BufferedImage baseline, BufferedImage current, DiffMask mask) {
+        int width  = Math.min(baseline.getWidth(),  current.getWidth());
+        int height = Math.min(baseline.getHeight(), current.getHeight());
+        int scale  = planeScale(width, height);
+
+        Luma fa = Luma.of(baseline, width, height, scale), fb = Luma.of(current, width, height, scale);
+        Luma ca = fa.half(), cb = fb.half();
+
+        int cols = fa.w / WINDOW, rows = fa.h / WINDOW, cell = WINDOW * scale;
+        double[] score = new double[cols * rows];
+        Arrays.fill(score, Double.NaN);
+
+        // Coarse pass: one coarse window covers 2×2 fine windows
+        for (int cy = 0; cy < ca.h / WINDOW; cy++) {
+            for (int cx = 0; cx < ca.w / WINDOW; cx++) {
+                if (mask != null && mask.anyIgnored(cx * 2 * cell, cy * 2 * cell, 2 * cell, 2 * cell)) continue;
+                double s = windowSsim(ca, cb, cx * WINDOW, cy * WINDOW);
+                if (s < SSIM_REFINE_ABOVE) continue;
+                for (int dy = 0; dy < 2; dy++) {
+                    for (int dx = 0; dx < 2; dx++) score[(cy * 2 + dy) * cols + cx * 2 + dx] = s;
+                }
+            }
+        }
+
+        // Fine pass for everything not settled above
+        BitSet failed = new BitSet(cols * rows);
+        double sum = 0;
+        int counted = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int i = r * cols + c;
+                double s = score[i];
+                if (Double.isNaN(s)) {
+                    if (mask != null && mask.anyIgnored(c * cell, r * cell, cell, cell)) continue;
+                    s = windowSsim(fa, fb, c * WINDOW, r * WINDOW);
+                }
+                sum += s;
+                counted++;
+                if (s < SSIM_CELL_FLOOR) failed.set(i);
+            }
+        }
+        double ratio = counted == 0 ? 0.0 : Math.min(1.0, Math.max(0.0, 1.0 - sum / counted));
+        return new Outcome(ratio, failed.cardinality(), counted, cell, cols, rows, failed);
+    }
+
+    private static double windowSsim(Luma a, Luma b, int x0, int y0) {
+        long sa = 0, sb = 0, saa = 0, sbb = 0, sab = 0;
+        for (int y = y0; y < y0 + WINDOW; y++) {
+            int i = y * a.w + x0, j = y * b.w + x0;
+            for (int x = 0; x < WINDOW; x++) {
+                int va = a.v[i + x], vb = b.v[j + x];
+                sa += va;  sb += vb;
+                saa += va * va;  sbb += vb * vb;  sab += va * vb;
+            }
+        }
+        double n = WINDOW * WINDOW;
+        double ma = sa / n, mb = sb / n;
+        double va = saa / n - ma * ma, vb = sbb / n - mb * mb, cov = sab / n - ma * mb;
+        return ((2 * ma * mb + C1) * (2 * cov + C2)) / ((ma * ma + mb * mb + C1) * (va + vb + C2));
+    }
+
+    // ── Block hash ────────────────────────────────────────────────────────
+
+    static Outcome blockHash(BufferedImage baseline, BufferedImage current, DiffMask mask, int meanTolerance) {
+        int width  = Math.min(baseline.getWidth(),  current.getWidth());
+        int height = Math.min(baseline.getHeight(), current.getHeight());
+        int scale  = planeScale(width, height);
+
+        Luma a = Luma.of(baseline, width, height, scale).half();
+        Luma b = Luma.of(current,  width, height, scale).half();
+
+        int cols = a.w / WINDOW, rows = a.h / WINDOW, cell = WINDOW * scale * 2;
+        BitSet failed = new BitSet(cols * rows);
+        int counted = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (mask != null && mask.anyIgnored(c * cell, r * cell, cell, cell)) continue;
+                counted++;
+                int meanA = a.mean(c * WINDOW, r * WINDOW), meanB = b.mean(c * WINDOW, r * WINDOW);
+                long flipped = a.hash(c * WINDOW, r * WINDOW, meanA) ^ b.hash(c * WINDOW, r * WINDOW, meanB);
+                if (Long.bitCount(flipped) > HASH_BIT_TOLERANCE || Math.abs(meanA - meanB) > meanTolerance) {
+                    failed.set(r * cols + c);
+                }
+            }
+        }
+        int diff = failed.cardinality();
+        return new Outcome(counted == 0 ? 0.0 : (double) diff / counted, diff, counted, cell, cols, rows, failed);
+    }
+
+    // ── Diff image ────────────────────────────────────────────────────────
+
+    /** Dimmed baseline with differing cells tinted red and excluded pixels dark grey. */
+    static BufferedImage render(BufferedImage baseline, BufferedImage current, Outcome o, DiffMask mask) {
+        int width  = Math.min(baseline.getWidth(),  current.getWidth());
+        int height = Math.min(baseline.getHeight(), current.getHeight());
+        BufferedImage out = new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_RGB);
+        int[] dst = ((DataBufferInt) out.getRaster().getDataBuffer()).getData();
+        PixelDiff.Source src = PixelDiff.Source.of(baseline);
+        int[] buf = new int[width];
+        for (int y = 0; y < height; y++) {
+            int[] row = src.row(y, buf);
+            int off = src.offset(y), r = y / o.cellSize(), di = y * width;
+            for (int x = 0; x < width; x++) {
+                int dim = (row[off + x] & 0xFEFEFE) >> 1;
+                int c = x / o.cellSize();
+                boolean hit = r < o.rows() && c < o.cols() && o.failed().get(r * o.cols() + c);
+                dst[di + x] = mask != null && mask.isIgnored(x, y) ? PixelDiff.IGNORED_RGB
+                        : hit ? 0xFF0000 | (dim & 0x00FFFF) : dim;
+            }
+        }
+        return out;
+    }
+
+    // ── Luminance pyramid ─────────────────────────────────────────────────
+
+    static int planeScale(int width, int height) {
+        int longSide = Math.max(width, height);
+        return Math.max(1, (longSide + MAX_PLANE_SIDE - 1) / MAX_PLANE_SIDE);
+    }
+
+    /** 8-bit luminance plane, box-filtered by {@code scale} from the source image. */
+    static final class Luma {
+        private static final int ROWS_PER_BAND = 32;
+
+        final int w, h;
+        final int[] v;
+
+        private Luma(int w, int h, int[] v) {
+            this.w = w;
+            this.h = h;
+            this.v = v;
+        }
+
+        static Luma of(BufferedImage img, int width, int height, int scale) {
+            int pw = width / scale, ph = height / scale;
+            int[] v = new int[pw * ph];
+            PixelDiff.Source src = PixelDiff.Source.of(img);
+            if ((long) width * height < PixelDiff.PARALLEL_THRESHOLD) {
+                fill(src, v, pw, width, scale, 0, ph);
+            } else {
+                int bands = (ph + ROWS_PER_BAND - 1) / ROWS_PER_BAND;
+                IntStream.range(0, bands).parallel().forEach(b ->
+                        fill(src, v, pw, width, scale, b * ROWS_PER_BAND, Math.min(ph, (b + 1) * ROWS_PER_BAND)));
+            }
+            return new Luma(pw, ph, v);
+        }
+
+        /** Box-filters source rows into plane rows {@code [from, to)}. */
+        private static void fill(PixelDiff.Source src, int[] v, int pw, int width, int scale, int from, int to) {
+            int area = scale * scale;
+            // Channel sums per output pixel; luminance is taken once per box
+            int[] accR = new int[pw], accG = new int[pw], accB = new int[pw];
+            int[] buf = new int[width];
+            for (int py = from; py < to; py++) {
+                Arrays.fill(accR, 0);
+                Arrays.fill(accG, 0);
+                Arrays.fill(accB, 0);
+                for (int dy = 0; dy < scale; dy++) {
+                    src.accumulate(py * scale + dy, scale, pw, accR, accG, accB, buf);
+                }
+                int o = py * pw;
+                for (int px = 0; px < pw; px++) {
+                    // Rec. 601 weights, scaled by 256
+                    v[o + px] = ((accR[px] * 77 + accG[px] * 150 + accB[px] * 29) >> 8) / area;
+                }
+            }
+        }
+
+        Luma half() {
+            int hw = w / 2, hh = h / 2;
+            int[] out = new int[hw * hh];
+            for (int y = 0; y < hh; y++) {
+                int i = 2 * y * w, j = i + w, o = y * hw;
+                for (int x = 0; x < hw; x++, i += 2, j += 2) {
+                    out[o + x] = (v[i] + v[i + 1] + v[j] + v[j + 1] + 2) >> 2;
+                }
+            }
+            return new Luma(hw, hh, out);
+        }
+
+        int mean(int x0, int y0) {
+            int s = 0;
+            for (int y = y0; y < y0 + WINDOW; y++) {
+                for (int x = x0; x < x0 + WINDOW; x++) s += v[y * w + x];
+            }
+            return s / (WINDOW * WINDOW);
+        }
+
+        long hash(int x0, int y0, int mean) {
+            long bits = 0;
+            int bit = 0;
+            for (int y = y0; y < y0 + WINDOW; y++) {
+                for (int x = x0; x < x0 + WINDOW; x++, bit++) {
+                    if (v[y * w + x] > mean) bits |= 1L << bit;
+                }
+            }
+            return bits;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package autoqa.player;
+
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pixel comparison engine shared by {@link VisualRegression} and the
+ * {@code SCREENSHOT} checkpoint in {@link PlayerEngine}.
+ *
+ * <p>Pixels are read straight from the images' raster arrays ({@code int[]}
+ * for packed RGB, {@code byte[]} for interleaved 8-bit RGB/RGBA — the layouts
+ * ImageIO produces for PNG) in row-major order, one row at a time; any other
+ * layout falls back to a bulk {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}
+ * per row.  Large images are split into row bands on the common
+ * {@link ForkJoinPool}.  Once the number of differing pixels passes the
+ * threshold, every band stops at its next row, so a failing comparison does
+ * not scan the rest of the image.
+ *
+ * <p>Comparison covers the common area when the sizes differ.  The diff
+ * image is not part of the result; callers render it with {@link #render}
+ * only when they need it (typically on failure).
+ */
+public final class PixelDiff {
+
+    /** Images with fewer pixels than this are compared on the calling thread. */
+    static final int PARALLEL_THRESHOLD = 256 * 1024;
+
+    private static final int MIN_ROWS_PER_TASK = 16;
+
+    /** Colour of excluded pixels in rendered diff images. */
+    static final int IGNORED_RGB = 0x404040;
+
+    private PixelDiff() {}
+
+    // ── Comparison ────────────────────────────────────────────────────────
+
+    /**
+     * Counts pixels whose red, green or blue channel differs by more than
+     * {@code channelTolerance}.
+     *
+     * @param channelTolerance per-channel difference (0–255) still treated as equal
+     * @param threshold        fraction of differing pixels (0.0–1.0) above which the
+     *                         scan may stop early; {@code >= 1.0} always scans fully
+     */
+    public static Result compare(BufferedImage baseline, BufferedImage current,
+                                 int channelTolerance, double threshold) {
+        return compare(baseline, current, channelTolerance, threshold, null);
+    }
+
+    /**
+     * Like {@link #compare(BufferedImage, BufferedImage, int, double)}, skipping
+     * pixels excluded by {@code mask}; they count towards neither the
+     * differing nor the total pixels.
+     *
+     * @param mask excluded pixels over the common area, or {@code null}
+     */
+    public static Result compare(BufferedImage baseline, BufferedImage current,
+                                 int channelTolerance, double threshold, DiffMask mask) {
+        int width  = Math.min(baseline.getWidth(),  current.getWidth());
+        int height = Math.min(baseline.getHeight(), current.getHeight());
+        long total = (long) width * height - (mask != null ? mask.getIgnoredCount() : 0);
+        if (total <= 0) return new Result(0, 0, false);
+
+        long limit = threshold >= 1.0 ? Long.MAX_VALUE : (long) Math.floor(Math.max(threshold, 0.0) * total);
+        Scan scan = new Scan(Source.of(baseline), Source.of(current), width, channelTolerance, limit, mask);
+
+        if (total < PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            scan.rows(0, height);
+        } else {
+            int rowsPerTask = Math.max(MIN_ROWS_PER_TASK,
+                    height / (ForkJoinPool.getCommonPoolParallelism() * 4));
+            ForkJoinPool.commonPool().invoke(new Band(scan, 0, height, rowsPerTask));
+        }
+        return new Result(scan.diff.get(), total, scan.stopped);
+    }
+
+    /**
+     * Renders a diff image over the common area: differing pixels in red,
+     * matching pixels as the baseline dimmed to half brightness.
+     */
+    public static BufferedImage render(BufferedImage baseline, BufferedImage current, int channelTolerance) {
+        return render(baseline, current, channelTolerance, null);
+    }
+
+    /** As {@link #render(BufferedImage, BufferedImage, int)}; excluded pixels are drawn dark grey. */
+    public static BufferedImage render(BufferedImage baseline, BufferedImage current,
+                                       int channelTolerance, DiffMask mask) {
+        int width  = Math.min(baseline.getWidth(),  current.getWidth());
+        int height = Math.min(baseline.getHeight(), current.getHeight());
+        BufferedImage out = new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_RGB);
+        if (width == 0 || height == 0) return out;
+
+        int[] dst = ((DataBufferInt) out.getRaster().getDataBuffer()).getData();
+        Source b = Source.of(baseline);
+        Source c = Source.of(current);
+        int[] bBuf = new int[width];
+        int[] cBuf = new int[width];
+        for (int y = 0; y < height; y++) {
+            int[] bRow = b.row(y, bBuf);
+            int[] cRow = c.row(y, cBuf);
+            int bi = b.offset(y), ci = c.offset(y), di = y * width;
+            for (int x = 0; x < width; x++) {
+                int bp = bRow[bi + x], cp = cRow[ci + x];
+                dst[di + x] = mask != null && mask.isIgnored(x, y) ? IGNORED_RGB
+                        : differs(bp, cp, channelTolerance) ? 0xFF0000 : (bp & 0xFEFEFE) >> 1;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Outcome of {@link #compare}.
+     *
+     * @param diffPixels  differing pixels found; a lower bound when {@code partial}
+     * @param totalPixels pixels in the compared (common) area
+     * @param partial     the scan stopped early because the threshold was exceeded
+     */
+    public record Result(long diffPixels, long totalPixels, boolean partial) {
+        /** Fraction of pixels that differ (0.0 = identical). */
+        public double diffRatio() {
+            return totalPixels == 0 ? 0.0 : (double) diffPixels / totalPixels;
+        }
+    }
+
+    // ── Scan ──────────────────────────────────────────────────────────────
+
+    private static boolean differs(int a, int b, int tolerance) {
+        if (((a ^ b) & 0xFFFFFF) == 0) return false;
+        return Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF)) > tolerance
+            || Math.abs(((a >>  8) & 0xFF) - ((b >>  8) & 0xFF)) > tolerance
+            || Math.abs(( a        & 0xFF) - ( b        & 0xFF)) > tolerance;
+    }
+
+    /** State shared by all bands of one comparison. */
+    private static final class Scan {
+        final Source baseline, current;
+        final int width, tolerance;
+        final long limit;
+        final DiffMask mask;
+        final AtomicLong diff = new AtomicLong();
+        volatile boolean stopped;
+
+        Scan(Source baseline, Source current, int width, int tolerance, long limit, DiffMask mask) {
+            this.baseline  = baseline;
+            this.current   = current;
+            this.width     = width;
+            this.tolerance = tolerance;
+            this.limit     = limit;
+            this.mask      = mask;
+        }
+
+        void rows(int from, int to) {
+            int[] bBuf = baseline.needsBuffer() ? new int[width] : null;
+            int[] cBuf = current.needsBuffer()  ? new int[width] : null;
+            for (int y = from; y < to && !stopped; y++) {
+                int[] bRow = baseline.row(y, bBuf);
+                int[] cRow = current.row(y, cBuf);
+                int bi = baseline.offset(y), ci = current.offset(y);
+                int rowDiff = 0;
+                if (mask != null && mask.rowHasIgnored(y)) {
+                    for (int x = 0; x < width; x++) {
+                        if (!mask.isIgnored(x, y) && differs(bRow[bi + x], cRow[ci + x], tolerance)) rowDiff++;
+                    }
+                } else {
+                    for (int x = 0; x < width; x++) {
+                        if (differs(bRow[bi + x], cRow[ci + x], tolerance)) rowDiff++;
+                    }
+                }
+                if (rowDiff > 0 && diff.addAndGet(rowDiff) > limit) {
+                    stopped = true;
+                }
+            }
+        }
+    }
+
+    private static final class Band extends RecursiveAction {
+        private final Scan scan;
+        private final int from, to, rowsPerTask;
+
+        Band(Scan scan, int from, int to, int rowsPerTask) {
+            this.scan        = scan;
+            this.from        = from;
+            this.to          = to;
+            this.rowsPerTask = rowsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (scan.stopped) return;
+            if (to - from <= rowsPerTask) {
+                scan.rows(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Band(scan, from, mid, rowsPerTask), new Band(scan, mid, to, rowsPerTask));
+        }
+    }
+
+    // ── Raster access ─────────────────────────────────────────────────────
+
+    /**
+     * Row-wise view of an image as {@code 0x??RRGGBB} ints.  {@link #row}
+     * returns either the backing array (packed int images) or {@code buf}
+     * filled with the row; pixel {@code x} of row {@code y} is at
+     * {@code offset(y) + x} in the returned array.
+     */
+    abstract static class Source {
+        abstract int[] row(int y, int[] buf);
+        int offset(int y) { return 0; }
+        boolean needsBuffer() { return true; }
+
+        /**
+         * Adds the channels of row {@code y} into per-box sums: pixels
+         * {@code [px·scale, (px+1)·scale)} go to index {@code px}.
+         */
+        void accumulate(int y, int scale, int boxes, int[] r, int[] g, int[] b, int[] buf) {
+            int[] row = row(y, buf);
+            int i = offset(y);
+            for (int px = 0; px < boxes; px++) {
+                for (int dx = 0; dx < scale; dx++, i++) {
+                    int p = row[i];
+                    r[px] += (p >> 16) & 0xFF;
+                    g[px] += (p >> 8) & 0xFF;
+                    b[px] += p & 0xFF;
+                }
+            }
+        }
+
+        static Source of(BufferedImage img) {
+            Raster r = img.getRaster();
+            if (r.getSampleModelTranslateX() == 0 && r.getSampleModelTranslateY() == 0
+                    && r.getDataBuffer().getNumBanks() == 1) {
+                if (r.getDataBuffer() instanceof DataBufferInt db
+                        && r.getSampleModel() instanceof SinglePixelPackedSampleModel sm
+                        && img.getColorModel() instanceof DirectColorModel cm
+                        && !cm.isAlphaPremultiplied()
+                        && cm.getRedMask() == 0xFF0000 && cm.getGreenMask() == 0xFF00 && cm.getBlueMask() == 0xFF) {
+                    return new IntSource(db.getData(), db.getOffset(), sm.getScanlineStride());
+                }
+                if (r.getDataBuffer() instanceof DataBufferByte db
+                        && r.getSampleModel() instanceof ComponentSampleModel sm
+                        && img.getColorModel() instanceof ComponentColorModel cm
+                        && cm.getColorSpace().getType() == ColorSpace.TYPE_RGB
+                        && cm.getColorSpace().isCS_sRGB()
+                        && !cm.isAlphaPremultiplied()
+                        && sm.getNumBands() >= 3
+                        && sm.getSampleSize(0) == 8 && sm.getSampleSize(1) == 8 && sm.getSampleSize(2) == 8) {
+                    int[] bands = sm.getBandOffsets();
+                    return new ByteSource(db.getData(), db.getOffset(), sm.getScanlineStride(),
+                            sm.getPixelStride(), bands[0], bands[1], bands[2]);
+                }
+            }
+            return new GenericSource(img);
+        }
+    }
+
+    private static final class IntSource extends Source {
+        private final int[] data;
+        private final int base, stride;
+
+        IntSource(int[] data, int base, int stride) {
+            this.data   = data;
+            this.base   = base;
+            this.stride = stride;
+        }
+
+        @Override int[] row(int y, int[] buf) { return data; }
+        @Override int offset(int y)           { return base + y * stride; }
+        @Override boolean needsBuffer()       { return false; }
+    }
+
+    private static final class ByteSource extends Source {
+        private final byte[] data;
+        private final int base, stride, pixelStride, r, g, b;
+
+        ByteSource(byte[] data, int base, int stride, int pixelStride, int r, int g, int b) {
+            this.data        = data;
+            this.base        = base;
+            this.stride      = stride;
+            this.pixelStride = pixelStride;
+            this.r = r;
+            this.g = g;
+            this.b = b;
+        }
+
+        @Override
+        int[] row(int y, int[] buf) {
+            int i = base + y * stride;
+            for (int x = 0; x < buf.length; x++, i += pixelStride) {
+                buf[x] = (data[i + r] & 0xFF) << 16 | (data[i + g] & 0xFF) << 8 | (data[i + b] & 0xFF);
+            }
+            return buf;
+        }
+
+        @Override
+        void accumulate(int y, int scale, int boxes, int[] rs, int[] gs, int[] bs, int[] buf) {
+            // Straight from the bytes — skips packing into ints and back
+            int i = base + y * stride;
+            for (int px = 0; px < boxes; px++) {
+                int sr = 0, sg = 0, sb = 0;
+                for (int dx = 0; dx < scale; dx++, i += pixelStride) {
+                    sr += data[i + r] & 0xFF;
+                    sg += data[i + g] & 0xFF;
+                    sb += data[i + b] & 0xFF;
+                }
+                rs[px] += sr;
+                gs[px] += sg;
+                bs[px] += sb;
+            }
+        }
+    }
+
+    /** Any other layout (indexed, grey, 16-bit …) — colour-converted by AWT one row at a time. */
+    private static final class GenericSource extends Source {
+        private final BufferedImage img;
+
+        GenericSource(BufferedImage img) { this.img = img; }
+
+        @Override
+        int[] row(int y, int[] buf) {
+            return img.getRGB(0, y, buf.length, 1, buf, 0, buf.length);
+        }
+    }
+}
@@ -25,23 +25,48 @@ public class PlayerConfig {
     private static final String KEY_EXPLICIT_WAIT      = "player.explicit.wait.sec";
     private static final String KEY_PAGE_LOAD_TIMEOUT  = "player.page.load.timeout.sec";
     private static final String KEY_STEP_DELAY         = "player.step.delay.ms";
+    private static final String KEY_PACING_MODE        = "player.pacing.mode";
+    private static final String KEY_PACING_QUIET       = "player.pacing.quiet.ms";
+    private static final String KEY_PACING_MAX         = "player.pacing.max.ms";
     private static final String KEY_EVIDENCE_DIR       = "player.evidence.dir";
+    private static final String KEY_EVIDENCE_ASYNC     = "player.evidence.async.enabled";
+    private static final String KEY_EVIDENCE_THREADS   = "player.evidence.writer.threads";
+    private static final String KEY_EVIDENCE_QUEUE     = "player.evidence.writer.queue";
+    private static final String KEY_EVIDENCE_BUDGET    = "player.evidence.budget.mb";
+    private static final String KEY_EVIDENCE_COMPRESS  = "player.evidence.compress";
     private static final String KEY_FALLBACK_ATTEMPTS  = "player.locator.fallback.attempts";
     private static final String KEY_SCREENSHOT_FAIL    = "player.screenshot.on.failure";
     private static final String KEY_PAGE_SOURCE_FAIL   = "player.page.source.on.failure";
     private static final String KEY_CONSOLE_LOGS_FAIL  = "player.console.logs.on.failure";
     private static final String KEY_HEALING_ENABLED    = "player.healing.enabled";
+    private static final String KEY_PARALLEL_WORKERS   = "player.parallel.workers";
+    private static final String KEY_LOCATOR_BATCH      = "player.locator.batch.enabled";
+    private static final String KEY_LOCATOR_CACHE      = "player.locator.cache.enabled";
+    private static final String KEY_TIMELINE_ENABLED   = "player.timeline.enabled";
 
     // Defaults
     private static final int     DEFAULT_EXPLICIT_WAIT     = 15;
     private static final int     DEFAULT_PAGE_LOAD_TIMEOUT = 30;
     private static final long    DEFAULT_STEP_DELAY        = 300L;
+    private static final String  DEFAULT_PACING_MODE       = "fixed";
+    private static final long    DEFAULT_PACING_QUIET      = 100L;
+    private static final long    DEFAULT_PACING_MAX        = 3000L;
     private static final String  DEFAULT_EVIDENCE_DIR      = "evidence";
+    private static final boolean DEFAULT_EVIDENCE_ASYNC    = true;
+    private static final int     DEFAULT_EVIDENCE_THREADS  = 2;
+    private static final int     DEFAULT_EVIDENCE_QUEUE    = 64;
+    private static final long    DEFAULT_EVIDENCE_BUDGET   = 200L;
+    private static final boolean DEFAULT_EVIDENCE_COMPRESS = false;
     private static final int     DEFAULT_FALLBACK_ATTEMPTS = 3;
     private static final boolean DEFAULT_SCREENSHOT_FAIL   = true;
     private static final boolean DEFAULT_PAGE_SOURCE_FAIL  = true;
     private static final boolean DEFAULT_CONSOLE_LOGS_FAIL = true;
     private static final boolean DEFAULT_HEALING_ENABLED   = false;
+    private static final int     DEFAULT_PARALLEL_WORKERS  =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final boolean DEFAULT_LOCATOR_BATCH     = true;
+    private static final boolean DEFAULT_LOCATOR_CACHE     = true;
+    private static final boolean DEFAULT_TIMELINE_ENABLED  = true;
 
     private final Properties props;
 
@@ -103,11 +128,64 @@ public class PlayerConfig {
         return getLong(KEY_STEP_DELAY, DEFAULT_STEP_DELAY);
     }
 
+    /**
+     * Step pacing mode: {@code fixed} sleeps {@link #getStepDelayMs()} after
+     * every step; {@code adaptive} waits only until the page is quiescent
+     * (default: fixed).  See {@link StepPacer}.
+     */
+    public String getPacingMode() {
+        return props.getProperty(KEY_PACING_MODE, DEFAULT_PACING_MODE).trim();
+    }
+
+    /** Network/DOM silence required by adaptive pacing, in ms (default: 100). */
+    public long getPacingQuietMs() {
+        return getLong(KEY_PACING_QUIET, DEFAULT_PACING_QUIET);
+    }
+
+    /** Upper bound on one adaptive pacing wait, in ms (default: 3000). */
+    public long getPacingMaxMs() {
+        return getLong(KEY_PACING_MAX, DEFAULT_PACING_MAX);
+    }
+
     /** Directory where evidence artifacts are written (default: "evidence"). */
     public String getEvidenceDir() {
         return props.getProperty(KEY_EVIDENCE_DIR, DEFAULT_EVIDENCE_DIR).trim();
     }
 
+    /**
+     * Whether evidence files are written by a background {@link EvidenceWriter}
+     * instead of on the playback thread (default: true).
+     */
+    public boolean isEvidenceAsync() {
+        return getBool(KEY_EVIDENCE_ASYNC, DEFAULT_EVIDENCE_ASYNC);
+    }
+
+    /** Background evidence writer threads (default: 2). */
+    public int getEvidenceWriterThreads() {
+        return Math.max(1, getInt(KEY_EVIDENCE_THREADS, DEFAULT_EVIDENCE_THREADS));
+    }
+
+    /**
+     * Evidence snapshots that may wait for a writer thread before the failing
+     * step writes its own (default: 64).
+     */
+    public int getEvidenceWriterQueue() {
+        return Math.max(1, getInt(KEY_EVIDENCE_QUEUE, DEFAULT_EVIDENCE_QUEUE));
+    }
+
+    /**
+     * Evidence bytes kept per run, from {@code player.evidence.budget.mb}
+     * (default: 200 MB; 0 for no limit).
+     */
+    public long getEvidenceBudgetBytes() {
+        return Math.max(0, getLong(KEY_EVIDENCE_BUDGET, DEFAULT_EVIDENCE_BUDGET)) * 1024 * 1024;
+    }
+
+    /** Whether page source and console logs are gzip-compressed on disk (default: false). */
+    public boolean isEvidenceCompress() {
+        return getBool(KEY_EVIDENCE_COMPRESS, DEFAULT_EVIDENCE_COMPRESS);
+    }
+
     /**
      * Number of locator strategies to try before invoking AI healing
      * (default: 3).
@@ -136,6 +214,39 @@ public class PlayerConfig {
         return getBool(KEY_HEALING_ENABLED, DEFAULT_HEALING_ENABLED);
     }
 
+    /**
+     * Number of recordings {@link ParallelPlaybackRunner} replays concurrently,
+     * which is also the size of its browser pool (default: min(4, CPU cores)).
+     */
+    public int getParallelWorkers() {
+        return Math.max(1, getInt(KEY_PARALLEL_WORKERS, DEFAULT_PARALLEL_WORKERS));
+    }
+
+    /**
+     * Whether {@link LocatorResolver} sends all candidate locators to the
+     * browser in a single script call instead of one {@code findElement} per
+     * strategy (default: true).
+     */
+    public boolean isLocatorBatchEnabled() {
+        return getBool(KEY_LOCATOR_BATCH, DEFAULT_LOCATOR_BATCH);
+    }
+
+    /**
+     * Whether {@link LocatorResolver} remembers the winning strategy per
+     * element and page and tries it first next time (default: true).
+     */
+    public boolean isLocatorCacheEnabled() {
+        return getBool(KEY_LOCATOR_CACHE, DEFAULT_LOCATOR_CACHE);
+    }
+
+    /**
+     * Whether {@link PlayerEngine} writes each run's step timings as a Chrome
+     * trace file under the evidence directory (default: true).
+     */
+    public boolean isTimelineEnabled() {
+        return getBool(KEY_TIMELINE_ENABLED, DEFAULT_TIMELINE_ENABLED);
+    }
+
     // ── Helpers ───────────────────────────────────────────────────────────
 
     private int getInt(String key, int defaultValue) {
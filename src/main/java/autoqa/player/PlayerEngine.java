@@ -9,11 +9,15 @@ import autoqa.model.ObjectRepository;
 import autoqa.model.RecordedEvent;
 import autoqa.model.RecordedEvent.EventType;
 import autoqa.model.RecordedSession;
+import autoqa.model.RecordingReader;
 import autoqa.model.SelectedOption;
 import autoqa.model.TestObject;
 
 import autoqa.ai.AIConfig;
+import autoqa.ai.HealCache;
 import autoqa.ai.HealingInterceptor;
+import autoqa.metrics.Metrics;
+import autoqa.player.StepTiming.Phase;
 import org.openqa.selenium.Alert;
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
@@ -25,7 +29,15 @@ import org.openqa.selenium.support.ui.Select;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -38,9 +50,15 @@ import java.util.Set;
  *   <li>Enters the required frame chain if the element is inside a frame.</li>
  *   <li>Dispatches to the appropriate handler based on {@link EventType}.</li>
  *   <li>Exits frames after the interaction.</li>
- *   <li>Sleeps {@code config.getStepDelayMs()} for pacing.</li>
+ *   <li>Paces the next step via {@link StepPacer} — a fixed delay, or an
+ *       adaptive wait for page quiescence.</li>
  * </ol>
  *
+ * <p>Every phase of every step is timed by a {@link RunTimeline}; the
+ * per-step {@link StepTiming}s are attached to the {@link PlaybackResult}
+ * and, when {@code player.timeline.enabled=true}, the run is written as a
+ * Chrome trace next to the evidence for the session.
+ *
  * <p>On any unrecoverable exception the engine collects evidence via
  * {@link EvidenceCollector} and re-throws an {@link AutoQAException}.
  */
@@ -48,6 +66,9 @@ public class PlayerEngine {
 
     private static final Logger log = LoggerFactory.getLogger(PlayerEngine.class);
 
+    private static final DateTimeFormatter TRACE_STAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
     private final WebDriver driver;
     private final PlayerConfig config;
     private final WaitStrategy wait;
@@ -55,6 +76,7 @@ public class PlayerEngine {
     private final FrameNavigator frameNav;
     private final PopupSentinel sentinel;
     private final EvidenceCollector evidenceCollector;
+    private final StepPacer pacer;
 
     /**
      * Optional shared Object Repository.  When non-null, events with
@@ -69,6 +91,9 @@ public class PlayerEngine {
      */
     private final HealingInterceptor healingInterceptor;
 
+    /** Whether confirmed heals are written back into the attached Object Repository. */
+    private final boolean healWriteBack;
+
     /**
      * Optional screen recorder.  When non-null, a screenshot is taken after
      * each step — equivalent to UFT One's "Screen Recorder" run setting.
@@ -82,6 +107,9 @@ public class PlayerEngine {
      */
     private final Set<String> allKnownHandles;
 
+    /** Phase timer for the current (or most recent) run. */
+    private RunTimeline timeline = new RunTimeline("");
+
     // ── Constructor ───────────────────────────────────────────────────────
 
     /**
@@ -111,19 +139,29 @@ public class PlayerEngine {
         this.driver            = driver;
         this.config            = new PlayerConfig();
         this.wait              = new WaitStrategy(driver, config.getExplicitWaitSec());
-        this.resolver          = new LocatorResolver(driver, wait, config.getLocatorFallbackAttempts());
+        this.resolver          = new LocatorResolver(driver, wait, config.getLocatorFallbackAttempts(),
+                                                     config.isLocatorBatchEnabled());
+        if (config.isLocatorCacheEnabled()) {
+            resolver.setCache(new LocatorCache());
+        }
         this.frameNav          = new FrameNavigator(driver);
         this.sentinel          = new PopupSentinel(driver);
         this.evidenceCollector = new EvidenceCollector(config.getEvidenceDir());
+        evidenceCollector.setWriter(EvidenceWriter.fromConfig(config));
+        this.pacer             = StepPacer.fromConfig(driver, config);
         this.allKnownHandles   = new HashSet<>(driver.getWindowHandles());
 
         // Wire AI healing chain when both config and AIConfig allow it
         if (aiConfig != null && aiConfig.isAiEnabled() && config.isHealingEnabled()) {
             autoqa.ai.LocatorHealer healer = aiConfig.createLocatorHealer();
-            this.healingInterceptor = new HealingInterceptor(resolver, healer, driver);
+            this.healingInterceptor = new HealingInterceptor(resolver, healer, driver,
+                                                             aiConfig.createHealCache());
+            healingInterceptor.setLocalHealer(aiConfig.createLocalHealer());
+            this.healWriteBack      = aiConfig.isHealWriteBackEnabled();
             log.info("AI self-healing enabled for this playback session");
         } else {
             this.healingInterceptor = null;
+            this.healWriteBack      = false;
         }
     }
 
@@ -144,13 +182,27 @@ public class PlayerEngine {
         this.frameNav          = frameNav;
         this.sentinel          = sentinel;
         this.evidenceCollector = evidenceCollector;
+        this.pacer             = StepPacer.fromConfig(driver, config);
         this.allKnownHandles   = new HashSet<>(driver.getWindowHandles());
         this.healingInterceptor = null;
+        this.healWriteBack      = false;
     }
 
     /** Attaches a shared Object Repository used to resolve named test objects. */
     public void setObjectRepository(ObjectRepository or) {
+        setObjectRepository(or, null);
+    }
+
+    /**
+     * Attaches a shared Object Repository loaded from {@code orFile}.  When
+     * {@code ai.heal.writeback.or=true}, confirmed heals are written into the
+     * matching OR entry and the repository is saved back to {@code orFile}.
+     */
+    public void setObjectRepository(ObjectRepository or, Path orFile) {
         this.objectRepository = or;
+        if (healingInterceptor != null && healWriteBack) {
+            healingInterceptor.setObjectRepository(or, orFile);
+        }
     }
 
     /**
@@ -162,6 +214,16 @@ public class PlayerEngine {
         this.screenRecorder = recorder;
     }
 
+    /** Step pacer for this engine — its totals describe the most recent {@link #play} run. */
+    public StepPacer getStepPacer() {
+        return pacer;
+    }
+
+    /** Phase timings of the most recent {@link #play} run. */
+    public RunTimeline getTimeline() {
+        return timeline;
+    }
+
     // ── Playback ──────────────────────────────────────────────────────────
 
     /**
@@ -172,10 +234,7 @@ public class PlayerEngine {
      */
     public PlaybackResult play(RecordedSession session) {
         List<RecordedEvent> events = session.getEvents();
-        String sessionId = session.getSessionId();
-        int total = events.size();
-
-        log.info("Starting playback of session '{}' — {} step(s)", sessionId, total);
+        log.info("Starting playback of session '{}' — {} step(s)", session.getSessionId(), events.size());
 
         // Ensure we're on the right page before step 1 runs.
         // If the recording has no leading NAVIGATE event (the common case when the
@@ -183,32 +242,122 @@ public class PlayerEngine {
         // the URL of the first event so elements can actually be found.
         autoNavigateIfNeeded(events);
 
-        for (int i = 0; i < total; i++) {
-            RecordedEvent event = events.get(i);
-            log.info("Step {}/{}: {} — {}", i + 1, total, event.getEventType(),
-                    event.getComment() != null ? event.getComment() : event.getUrl());
+        return playEvents(session.getSessionId(), events.iterator(), events.size());
+    }
+
+    /**
+     * Replays an NDJSON recording while it is being read: each event is parsed
+     * just before it runs, so the first step starts without waiting for the
+     * whole file.  The reader is not closed.
+     *
+     * @param reader an open {@link RecordingReader}
+     * @return a {@link PlaybackResult} summarising success/failure
+     */
+    public PlaybackResult play(RecordingReader reader) {
+        String sessionId = reader.getHeader().getSessionId();
+        log.info("Starting streaming playback of session '{}' from {}", sessionId, reader.getPath());
+
+        // Read ahead only as far as the first event that tells us where to start
+        List<RecordedEvent> head = new ArrayList<>();
+        try {
+            while (reader.hasNext()) {
+                RecordedEvent e = reader.next();
+                head.add(e);
+                if (e.getEventType() == EventType.NAVIGATE || isStartUrl(e.getUrl())) break;
+            }
+        } catch (UncheckedIOException e) {
+            return new PlaybackResult(false, 0, 0, "Cannot read recording: " + e.getCause().getMessage());
+        }
+        autoNavigateIfNeeded(head);
+
+        Iterator<RecordedEvent> events = new Iterator<>() {
+            private final Iterator<RecordedEvent> buffered = head.iterator();
+            @Override public boolean hasNext() { return buffered.hasNext() || reader.hasNext(); }
+            @Override public RecordedEvent next() { return buffered.hasNext() ? buffered.next() : reader.next(); }
+        };
+        return playEvents(sessionId, events, reader.getDeclaredEventCount());
+    }
+
+    /**
+     * Runs events in order.
+     *
+     * @param total number of events, or {@code -1} when streaming a recording
+     *              without a footer; never found by reading ahead
+     */
+    private PlaybackResult playEvents(String sessionId, Iterator<RecordedEvent> events, int total) {
+        LocatorCache cache = locatorCache();
+        if (cache != null) cache.clear();
+        pacer.reset();
+        if (healingInterceptor != null) healingInterceptor.setRecording(sessionId);
+        evidenceCollector.beginRun(sessionId);
+        RunTimeline timeline = new RunTimeline(sessionId);
+        this.timeline = timeline;
+        String of = total >= 0 ? String.valueOf(total) : "?";
+
+        int i = 0;
+        for (;; i++) {
+            RecordedEvent event;
+            try {
+                if (!events.hasNext()) break;
+                event = events.next();
+            } catch (UncheckedIOException e) {
+                // Streamed recording is unreadable past this point
+                String reason = "Cannot read recording after step " + i + ": " + e.getCause().getMessage();
+                log.error(reason);
+                return new PlaybackResult(false, i, i, reason, finishRun(timeline));
+            }
+            if (cache != null) cache.setPage(event.getUrl());
+            String description = event.getComment() != null ? event.getComment() : event.getUrl();
+            log.info("Step {}/{}: {} — {}", i + 1, of, event.getEventType(), description);
+            timeline.beginStep(i, event.getEventType(), description);
 
             boolean enteredFrame = false;
+            long t;
             try {
                 // 1. Popup guard
-                sentinel.check();
+                t = timeline.start();
+                try {
+                    sentinel.check();
+                } finally {
+                    timeline.end(Phase.SENTINEL, t);
+                }
 
                 // 2. Frame context
                 if (event.isInFrame()) {
-                    frameNav.enterFrames(event.getFrameChain());
-                    enteredFrame = true;
+                    t = timeline.start();
+                    try {
+                        frameNav.enterFrames(event.getFrameChain());
+                        enteredFrame = true;
+                    } finally {
+                        timeline.end(Phase.FRAME, t);
+                    }
                 }
 
                 // 3. Resolve named OR object if present
-                resolveObjectName(event);
+                t = timeline.start();
+                try {
+                    resolveObjectName(event);
+                } finally {
+                    timeline.end(Phase.OR_RESOLVE, t);
+                }
 
-                // 4. Dispatch
-                dispatch(event);
+                // 4. Dispatch — element lookups inside are timed as LOCATE
+                t = timeline.start();
+                try {
+                    dispatch(event);
+                } finally {
+                    timeline.end(Phase.ACTION, t);
+                }
 
                 // 5. Exit frame
                 if (enteredFrame) {
-                    frameNav.exitFrames();
-                    enteredFrame = false;
+                    t = timeline.start();
+                    try {
+                        frameNav.exitFrames();
+                        enteredFrame = false;
+                    } finally {
+                        timeline.end(Phase.FRAME, t);
+                    }
                 }
 
                 // 5b. Screen recording — one frame per step
@@ -216,41 +365,103 @@ public class PlayerEngine {
                     String label = event.getComment() != null
                             ? event.getComment()
                             : event.getEventType().toString();
-                    screenRecorder.captureStep(i, label);
+                    t = timeline.start();
+                    try {
+                        screenRecorder.captureStep(i, label);
+                    } finally {
+                        timeline.end(Phase.SCREENSHOT, t);
+                    }
                 }
 
                 // 6. Step pacing
-                long delay = config.getStepDelayMs();
-                if (delay > 0) {
-                    Thread.sleep(delay);
+                t = timeline.start();
+                try {
+                    pacer.pace();
+                } finally {
+                    timeline.end(Phase.PACING, t);
                 }
+                recordMetrics(timeline.endStep(false));
 
             } catch (InterruptedException ie) {
                 Thread.currentThread().interrupt();
+                recordMetrics(timeline.endStep(true));
                 String reason = "Playback interrupted at step " + (i + 1);
                 log.error(reason, ie);
                 if (enteredFrame) frameNav.exitFrames();
                 evidenceCollector.collect(driver, sessionId, i, event);
-                return new PlaybackResult(false, i, total, reason);
+                return new PlaybackResult(false, i, total, reason,
+                                          finishRun(timeline));
 
             } catch (AutoQAException aqe) {
+                recordMetrics(timeline.endStep(true));
                 String reason = "AutoQA failure at step " + (i + 1) + ": " + aqe.getMessage();
                 log.error(reason, aqe);
                 if (enteredFrame) frameNav.exitFrames();
                 evidenceCollector.collect(driver, sessionId, i, event);
-                return new PlaybackResult(false, i, total, reason);
+                return new PlaybackResult(false, i, total, reason,
+                                          finishRun(timeline));
 
             } catch (Exception e) {
+                recordMetrics(timeline.endStep(true));
                 String reason = "Unexpected error at step " + (i + 1) + ": " + e.getMessage();
                 log.error(reason, e);
                 if (enteredFrame) frameNav.exitFrames();
                 evidenceCollector.collect(driver, sessionId, i, event);
-                return new PlaybackResult(false, i, total, reason);
+                return new PlaybackResult(false, i, total, reason,
+                                          finishRun(timeline));
             }
         }
 
-        log.info("Playback of session '{}' completed successfully ({} steps)", sessionId, total);
-        return new PlaybackResult(true, total, total, null);
+        log.info("Playback of session '{}' completed successfully ({} steps)", sessionId, i);
+        if (resolver != null) {
+            log.info("Locator stats: {}", resolver.statsSummary());
+        }
+        if (cache != null) {
+            log.info("Locator cache: {} — hit rate {}%", cache, Math.round(cache.hitRate() * 100));
+        }
+        log.info("Step pacing: {}", pacer.summary());
+        return new PlaybackResult(true, i, i, null, finishRun(timeline));
+    }
+
+    /** Adds a finished step to the process-wide {@link Metrics} served at {@code /metrics}. */
+    private static void recordMetrics(StepTiming t) {
+        if (t == null) return;
+        Metrics.STEP_DURATION.labels(String.valueOf(t.getEventType())).observeNanos(t.getDurationNanos());
+        for (Phase p : Phase.values()) {
+            long n = t.getPhaseNanos(p);
+            if (n > 0) Metrics.STEP_PHASE_DURATION.labels(p.name().toLowerCase()).observeNanos(n);
+        }
+        Metrics.STEPS.labels(t.isFailed() ? "failed" : "ok").inc();
+    }
+
+    /**
+     * Persists heals cached during the run, logs the phase breakdown, writes
+     * the Chrome trace when enabled, and returns the step timings for the
+     * {@link PlaybackResult}.  A trace that cannot be written is logged and
+     * otherwise ignored.
+     */
+    private List<StepTiming> finishRun(RunTimeline timeline) {
+        HealCache healCache = healingInterceptor != null ? healingInterceptor.getCache() : null;
+        if (healCache != null) healCache.flush();
+        log.info("Step timing: {}", timeline.summary());
+        if (config.isTimelineEnabled() && !timeline.getSteps().isEmpty()) {
+            String id = timeline.getSessionId() != null ? timeline.getSessionId() : "session";
+            String safeName = id.replaceAll("[^a-zA-Z0-9_\\-]", "_");
+            Path file = Paths.get(config.getEvidenceDir(), safeName,
+                    "timeline-" + TRACE_STAMP.format(timeline.getStartedAt()) + ".trace.json");
+            try {
+                timeline.writeChromeTrace(file);
+                log.info("Run timeline written to {}", file);
+            } catch (IOException e) {
+                log.warn("Cannot write run timeline {}: {}", file, e.getMessage());
+            }
+        }
+        return timeline.getSteps();
+    }
+
+    /** The resolver's strategy cache, or {@code null} when caching is off. */
+    private LocatorCache locatorCache() {
+        return resolver != null ? resolver.getCache() : null;
     }
 
     // ── Event dispatch ────────────────────────────────────────────────────
@@ -291,6 +502,10 @@ public class PlayerEngine {
         log.debug("Navigating to: {}", url);
         driver.get(url);
         wait.waitForPageLoad();
+
+        // A (re)loaded page gets a fresh DOM — forget strategies cached for it
+        LocatorCache cache = locatorCache();
+        if (cache != null) cache.onNavigate(url);
     }
 
     private void handleClick(RecordedEvent event) {
@@ -298,8 +513,13 @@ public class PlayerEngine {
             ElementInfo ei = event.getElement();
             try {
                 // Primary: DOM locator (reliable, cross-browser)
-                By by = toBy(resolver.resolve(ei));
-                WebElement el = wait.waitForClickable(by);
+                WebElement el;
+                long t = timeline.start();
+                try {
+                    el = wait.waitForClickable(toBy(resolver.resolve(ei)));
+                } finally {
+                    timeline.end(Phase.LOCATE, t);
+                }
                 log.debug("Clicking element: {}", ei);
                 el.click();
                 return;
@@ -588,7 +808,8 @@ public class PlayerEngine {
     /**
      * Pixel-diff screenshot checkpoint — equivalent to UFT One's bitmap/image
      * checkpoint.  Captures the current viewport, compares it to the baseline
-     * PNG pixel-by-pixel, and fails if the diff ratio exceeds the threshold.
+     * PNG pixel-by-pixel ({@link PixelDiff}, exact match per pixel), and fails
+     * as soon as the diff ratio exceeds the threshold.
      */
     private void cpScreenshot(CheckpointData cp) {
         String baselinePath = cp.getBaselineImagePath();
@@ -606,24 +827,14 @@ public class PlayerEngine {
                 throw new AutoQAException("SCREENSHOT checkpoint: could not read one or both images");
             }
 
-            int  w          = Math.min(actual.getWidth(),  baseline.getWidth());
-            int  h          = Math.min(actual.getHeight(), baseline.getHeight());
-            long diffPixels = 0;
-            long total      = (long) w * h;
-
-            for (int x = 0; x < w; x++) {
-                for (int y = 0; y < h; y++) {
-                    if (actual.getRGB(x, y) != baseline.getRGB(x, y)) diffPixels++;
-                }
-            }
-
-            double ratio     = total > 0 ? (double) diffPixels / total : 0.0;
             double threshold = cp.getScreenshotThreshold();
+            PixelDiff.Result diff = PixelDiff.compare(baseline, actual, 0, threshold);
+            double ratio = diff.diffRatio();
 
             if (ratio > threshold) {
                 throw new AutoQAException(String.format(
-                        "Checkpoint SCREENSHOT failed: %.2f%% pixels differ (threshold %.2f%%)",
-                        ratio * 100, threshold * 100));
+                        "Checkpoint SCREENSHOT failed: %s%.2f%% pixels differ (threshold %.2f%%)",
+                        diff.partial() ? "at least " : "", ratio * 100, threshold * 100));
             }
             log.info("Checkpoint SCREENSHOT: {}% pixel diff ≤ threshold {}% ✓",
                     String.format("%.2f", ratio * 100),
@@ -687,9 +898,7 @@ public class PlayerEngine {
         // Find the URL carried by the earliest event.
         String startUrl = events.stream()
                 .map(RecordedEvent::getUrl)
-                .filter(u -> u != null && !u.isBlank()
-                             && !u.equalsIgnoreCase("about:blank")
-                             && !u.equalsIgnoreCase("about:newtab"))
+                .filter(PlayerEngine::isStartUrl)
                 .findFirst()
                 .orElse(null);
 
@@ -700,6 +909,13 @@ public class PlayerEngine {
         }
     }
 
+    /** {@code true} for a URL playback can be started from. */
+    private static boolean isStartUrl(String u) {
+        return u != null && !u.isBlank()
+                && !u.equalsIgnoreCase("about:blank")
+                && !u.equalsIgnoreCase("about:newtab");
+    }
+
     // ── Convenience helpers ───────────────────────────────────────────────
 
     private ElementInfo requireElement(RecordedEvent event, EventType type) {
@@ -722,12 +938,18 @@ public class PlayerEngine {
      * back to the bare {@link LocatorResolver} otherwise.
      *
      * <p>All handler methods that need an element should use this helper
-     * rather than calling {@code resolver.findElement()} directly.
+     * rather than calling {@code resolver.findElement()} directly; the lookup
+     * is timed as {@link Phase#LOCATE}.
      */
     private WebElement findElement(ElementInfo ei) {
-        return healingInterceptor != null
-                ? healingInterceptor.findElement(ei)
-                : resolver.findElement(ei);
+        long t = timeline.start();
+        try {
+            return healingInterceptor != null
+                    ? healingInterceptor.findElement(ei)
+                    : resolver.findElement(ei);
+        } finally {
+            timeline.end(Phase.LOCATE, t);
+        }
     }
 
     /**
@@ -757,13 +979,20 @@ public class PlayerEngine {
         private final int stepsCompleted;
         private final int totalSteps;
         private final String failureReason;
+        private final List<StepTiming> stepTimings;
 
         public PlaybackResult(boolean success, int stepsCompleted,
                               int totalSteps, String failureReason) {
+            this(success, stepsCompleted, totalSteps, failureReason, List.of());
+        }
+
+        public PlaybackResult(boolean success, int stepsCompleted, int totalSteps,
+                              String failureReason, List<StepTiming> stepTimings) {
             this.success        = success;
             this.stepsCompleted = stepsCompleted;
             this.totalSteps     = totalSteps;
             this.failureReason  = failureReason;
+            this.stepTimings    = List.copyOf(stepTimings);
         }
 
         /** True when all steps completed without error. */
@@ -772,18 +1001,28 @@ public class PlayerEngine {
         /** Number of steps that finished before the run ended (or all on success). */
         public int getStepsCompleted()     { return stepsCompleted; }
 
-        /** Total number of steps in the session. */
+        /**
+         * Total number of steps in the session, or {@code -1} if unknown (a
+         * streamed recording without a footer that failed before its end).
+         */
         public int getTotalSteps()         { return totalSteps; }
 
         /** Human-readable failure reason, or {@code null} on success. */
         public String getFailureReason()   { return failureReason; }
 
+        /** Phase timings of every step that ran, including the failed one. */
+        public List<StepTiming> getStepTimings() { return stepTimings; }
+
         @Override
         public String toString() {
             return success
-                    ? String.format("PlaybackResult{SUCCESS, %d/%d steps}", stepsCompleted, totalSteps)
-                    : String.format("PlaybackResult{FAILED at step %d/%d: %s}",
-                                    stepsCompleted, totalSteps, failureReason);
+                    ? String.format("PlaybackResult{SUCCESS, %d/%s steps}", stepsCompleted, total())
+                    : String.format("PlaybackResult{FAILED at step %d/%s: %s}",
+                                    stepsCompleted, total(), failureReason);
+        }
+
+        private String total() {
+            return totalSteps >= 0 ? String.valueOf(totalSteps) : "?";
         }
     }
 }
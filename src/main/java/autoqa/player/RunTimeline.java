@@ -0,0 +1,215 @@
+package autoqa.player;
+
+import autoqa.model.RecordedEvent.EventType;
+import autoqa.player.StepTiming.Phase;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-step phase timer for one {@link PlayerEngine} run.
+ *
+ * <p>Phases are timed with {@link System#nanoTime()} around each unit of work:
+ * <pre>{@code
+ * long t = timeline.start();
+ * try { sentinel.check(); } finally { timeline.end(Phase.SENTINEL, t); }
+ * }</pre>
+ * Spans may nest — a {@link Phase#LOCATE} inside an {@link Phase#ACTION} — and
+ * each phase is charged only its exclusive (self) time, so the per-step phase
+ * times add up to at most the step's duration.
+ *
+ * <p>The finished run can be exported with {@link #writeChromeTrace} in the
+ * Trace Event format read by {@code chrome://tracing}, Perfetto and
+ * speedscope: one span per step, with its phases nested beneath it.
+ *
+ * <p>Not thread-safe; one instance times one run on one thread.
+ */
+public class RunTimeline {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /** One timed interval, kept for the trace export. */
+    private record Span(int step, Phase phase, long startNanos, long durationNanos) {}
+
+    private final String sessionId;
+    private final Instant startedAt;
+    private final long originNanos;
+    private final List<StepTiming> steps = new ArrayList<>();
+    private final List<String> stepLabels = new ArrayList<>();
+    private final List<Span> spans = new ArrayList<>();
+    private final long[] totals = new long[Phase.values().length];
+
+    // Current step
+    private int stepIndex = -1;
+    private EventType stepType;
+    private String stepLabel;
+    private long stepStart;
+    private final long[] stepPhases = new long[Phase.values().length];
+
+    // Child time of each open span, innermost last
+    private long[] childNanos = new long[8];
+    private int depth;
+
+    public RunTimeline(String sessionId) {
+        this.sessionId   = sessionId;
+        this.startedAt   = Instant.now();
+        this.originNanos = System.nanoTime();
+    }
+
+    // ── Recording ─────────────────────────────────────────────────────────
+
+    /**
+     * Starts timing step {@code index}.
+     *
+     * @param label short description for the trace, e.g. the event comment or URL
+     */
+    public void beginStep(int index, EventType type, String label) {
+        stepIndex = index;
+        stepType  = type;
+        stepLabel = label;
+        Arrays.fill(stepPhases, 0);
+        depth = 0;
+        stepStart = System.nanoTime();
+    }
+
+    /** Ends the current step and records its {@link StepTiming}. */
+    public StepTiming endStep(boolean failed) {
+        if (stepIndex < 0) return null;
+        long end = System.nanoTime();
+        StepTiming t = new StepTiming(stepIndex, stepType, stepStart - originNanos,
+                end - stepStart, stepPhases, failed);
+        steps.add(t);
+        spans.add(new Span(stepIndex, null, stepStart - originNanos, end - stepStart));
+        stepLabels.add(stepLabel);
+        stepIndex = -1;
+        return t;
+    }
+
+    /** Opens a span and returns its start token for {@link #end}. */
+    public long start() {
+        if (depth == childNanos.length) childNanos = Arrays.copyOf(childNanos, depth * 2);
+        childNanos[depth++] = 0;
+        return System.nanoTime();
+    }
+
+    /** Closes the innermost span opened by {@link #start}, charging its self time to {@code phase}. */
+    public void end(Phase phase, long startToken) {
+        long dur = System.nanoTime() - startToken;
+        if (depth == 0) return;
+        long self = dur - childNanos[--depth];
+        if (depth > 0) childNanos[depth - 1] += dur;
+        if (stepIndex < 0) return;
+        stepPhases[phase.ordinal()] += Math.max(0, self);
+        totals[phase.ordinal()]     += Math.max(0, self);
+        spans.add(new Span(stepIndex, phase, startToken - originNanos, dur));
+    }
+
+    // ── Results ───────────────────────────────────────────────────────────
+
+    public String getSessionId()          { return sessionId; }
+
+    /** Wall-clock time the run started. */
+    public Instant getStartedAt()         { return startedAt; }
+
+    /** Timings of every finished step, in order. */
+    public List<StepTiming> getSteps()    { return Collections.unmodifiableList(steps); }
+
+    /** Exclusive time spent in {@code phase} across all steps. */
+    public long getTotalNanos(Phase phase) { return totals[phase.ordinal()]; }
+
+    /** One-line breakdown of where the run's step time went, for the end-of-run log. */
+    public String summary() {
+        long all = 0;
+        for (StepTiming s : steps) all += s.getDurationNanos();
+        if (all == 0) return "no steps timed";
+        StringBuilder sb = new StringBuilder(String.format("%d step(s) in %d ms —", steps.size(), all / 1_000_000));
+        String sep = " ";
+        for (Phase p : Phase.values()) {
+            long n = totals[p.ordinal()];
+            if (n == 0) continue;
+            sb.append(sep).append(String.format("%s %d ms (%.0f%%)",
+                    p.name().toLowerCase(), n / 1_000_000, 100.0 * n / all));
+            sep = ", ";
+        }
+        return sb.toString();
+    }
+
+    // ── Trace export ──────────────────────────────────────────────────────
+
+    /**
+     * Writes the run as a Chrome Trace Event JSON file.  Timestamps are
+     * microseconds from the start of the run; the absolute start time is in
+     * {@code otherData.startedAt}.
+     */
+    public void writeChromeTrace(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+             JsonGenerator g = JSON.createGenerator(w)) {
+            g.writeStartObject();
+            g.writeStringField("displayTimeUnit", "ms");
+            g.writeObjectFieldStart("otherData");
+            g.writeStringField("sessionId", sessionId);
+            g.writeStringField("startedAt", startedAt.toString());
+            g.writeEndObject();
+
+            g.writeArrayFieldStart("traceEvents");
+            writeMetadata(g, "process_name", "autoqa playback");
+            writeMetadata(g, "thread_name", sessionId);
+            int stepSpan = 0;
+            for (Span s : spans) {
+                g.writeStartObject();
+                if (s.phase() == null) {
+                    StepTiming t = steps.get(stepSpan);
+                    String label = stepLabels.get(stepSpan++);
+                    g.writeStringField("name", "step " + (s.step() + 1) + " " + t.getEventType());
+                    g.writeStringField("cat", "step");
+                    writeTimes(g, s);
+                    g.writeObjectFieldStart("args");
+                    g.writeNumberField("index", s.step());
+                    if (label != null) g.writeStringField("label", label);
+                    g.writeBooleanField("failed", t.isFailed());
+                    g.writeNumberField("unattributedMs", t.getUnattributedNanos() / 1e6);
+                    g.writeEndObject();
+                } else {
+                    g.writeStringField("name", s.phase().name().toLowerCase());
+                    g.writeStringField("cat", "phase");
+                    writeTimes(g, s);
+                }
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+    }
+
+    private static void writeMetadata(JsonGenerator g, String name, String value) throws IOException {
+        g.writeStartObject();
+        g.writeStringField("name", name);
+        g.writeStringField("ph", "M");
+        g.writeNumberField("pid", 1);
+        g.writeNumberField("tid", 1);
+        g.writeObjectFieldStart("args");
+        g.writeStringField("name", value);
+        g.writeEndObject();
+        g.writeEndObject();
+    }
+
+    private static void writeTimes(JsonGenerator g, Span s) throws IOException {
+        g.writeStringField("ph", "X");
+        g.writeNumberField("ts", s.startNanos() / 1e3);
+        g.writeNumberField("dur", s.durationNanos() / 1e3);
+        g.writeNumberField("pid", 1);
+        g.writeNumberField("tid", 1);
+    }
+}
@@ -3,6 +3,11 @@ package autoqa.player;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,8 +18,10 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -31,6 +38,14 @@ import java.util.concurrent.atomic.AtomicInteger;
  * (ffmpeg, gifski, etc.).  Each step can also trigger a manual capture via
  * {@link #captureStep(int, String)}.
  *
+ * <p>In {@link Mode#SCREENCAST} mode the browser pushes JPEG frames through
+ * CDP {@code Page.startScreencast} whenever the page repaints — no polling —
+ * and they are appended to a single {@link FrameArchive}
+ * ({@code screencast.mjpeg} plus its index).  Identical consecutive frames
+ * are dropped, and {@link #captureStep} only marks the step in the index, so
+ * {@link FrameArchive#frameForStep} can later extract the frame that was on
+ * screen when it finished.  Drivers without DevTools fall back to PNG frames.
+ *
  * <h3>Usage</h3>
  * <pre>{@code
  * ScreenRecorder rec = new ScreenRecorder(driver, outputDir, 500); // 2fps
@@ -39,6 +54,13 @@ import java.util.concurrent.atomic.AtomicInteger;
  * rec.captureStep(3, "Click login button");
  * // ... more steps ...
  * List<Path> frames = rec.stop();
+ *
+ * ScreenRecorder cast = new ScreenRecorder(driver, outputDir);
+ * cast.setMode(ScreenRecorder.Mode.SCREENCAST);
+ * cast.start("session-001");
+ * // ... run playback ...
+ * Path video = cast.stop().get(0);   // screencast.mjpeg
+ * byte[] jpeg = FrameArchive.open(video).frameForStep(3);
  * }</pre>
  */
 public class ScreenRecorder {
@@ -48,9 +70,27 @@ public class ScreenRecorder {
     private static final DateTimeFormatter TS_FMT =
             DateTimeFormatter.ofPattern("HHmmss_SSS").withZone(ZoneId.systemDefault());
 
+    /** Archive file written in {@link Mode#SCREENCAST} mode. */
+    public static final String SCREENCAST_FILE = "screencast.mjpeg";
+
+    /** JPEG quality (0–100) requested from the browser. */
+    private static final int SCREENCAST_QUALITY = 70;
+
+    private static final Event<Map<String, Object>> SCREENCAST_FRAME =
+            new Event<>("Page.screencastFrame", input -> input.read(Json.MAP_TYPE));
+
+    /** How frames are captured. */
+    public enum Mode {
+        /** A PNG screenshot per interval and per step, one file each. */
+        PNG_FRAMES,
+        /** Browser-pushed JPEG frames, deduplicated into one {@link FrameArchive}. */
+        SCREENCAST
+    }
+
     private final WebDriver driver;
     private final Path      outputDir;
     private final long      intervalMs;
+    private Mode            mode = Mode.PNG_FRAMES;
 
     private ScheduledExecutorService executor;
     private ScheduledFuture<?>       task;
@@ -58,6 +98,11 @@ public class ScreenRecorder {
     private final AtomicInteger      frameCounter = new AtomicInteger(0);
     private final List<Path>         capturedFiles = new ArrayList<>();
 
+    // Screencast mode
+    private DevTools                          devTools;
+    private volatile FrameArchive.Writer      archive;
+    private boolean                           listening;
+
     /**
      * Creates a ScreenRecorder.
      *
@@ -76,6 +121,15 @@ public class ScreenRecorder {
         this(driver, outputDir, 500L);
     }
 
+    /** Selects the capture mode; call before {@link #start}. */
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
     // ── Lifecycle ─────────────────────────────────────────────────────────────
 
     /**
@@ -85,7 +139,7 @@ public class ScreenRecorder {
      * @param sessionId used as the sub-directory name
      */
     public synchronized void start(String sessionId) {
-        if (task != null) {
+        if (task != null || archive != null) {
             log.warn("ScreenRecorder already started — ignoring duplicate start()");
             return;
         }
@@ -102,6 +156,8 @@ public class ScreenRecorder {
         capturedFiles.clear();
         log.info("ScreenRecorder started → {}", sessionDir);
 
+        if (mode == Mode.SCREENCAST && startScreencast()) return;
+
         if (intervalMs > 0) {
             executor = Executors.newSingleThreadScheduledExecutor(r -> {
                 Thread t = new Thread(r, "screen-recorder");
@@ -115,9 +171,11 @@ public class ScreenRecorder {
 
     /**
      * Stops recording, shuts down the periodic capture, and returns the
-     * ordered list of all captured PNG files.
+     * ordered list of all captured PNG files — or, in screencast mode, the
+     * finished archive.
      */
     public synchronized List<Path> stop() {
+        if (archive != null) stopScreencast();
         if (task != null) {
             task.cancel(false);
             task = null;
@@ -139,19 +197,94 @@ public class ScreenRecorder {
      *
      * @param stepIndex  0-based step number
      * @param stepLabel  human-readable description (used in filename)
-     * @return the saved file path, or {@code null} if capture failed
+     * @return the saved file path (the archive in screencast mode), or {@code null} if capture failed
      */
     public Path captureStep(int stepIndex, String stepLabel) {
         if (sessionDir == null) {
             log.warn("ScreenRecorder not started — skipping step capture");
             return null;
         }
+        FrameArchive.Writer w = archive;
+        if (w != null) {
+            // The browser is already streaming frames; just mark where the step ended
+            w.markStep(stepIndex, stepLabel, System.currentTimeMillis());
+            return w.getFile();
+        }
         String safe  = stepLabel == null ? "" : stepLabel.replaceAll("[^A-Za-z0-9_\\-]", "_");
         String name  = String.format("step_%04d_%s_%s.png", stepIndex, safe,
                 TS_FMT.format(Instant.now()));
         return saveFrame(name);
     }
 
+    // ── Screencast ────────────────────────────────────────────────────────────
+
+    /** Opens the archive and asks the browser to stream frames; {@code false} to fall back to PNG frames. */
+    private boolean startScreencast() {
+        if (!(driver instanceof HasDevTools hasDevTools)) {
+            log.warn("ScreenRecorder: driver has no DevTools — falling back to PNG frames");
+            return false;
+        }
+        try {
+            archive  = FrameArchive.create(sessionDir.resolve(SCREENCAST_FILE));
+            devTools = hasDevTools.getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            if (!listening) {
+                // Once per recorder: a restart reuses it, as listeners cannot be removed one by one
+                devTools.addListener(SCREENCAST_FRAME, this::onScreencastFrame);
+                listening = true;
+            }
+            devTools.send(new Command<>("Page.startScreencast",
+                    Map.of("format", "jpeg", "quality", SCREENCAST_QUALITY, "everyNthFrame", 1)));
+            log.info("ScreenRecorder: screencast → {}", archive.getFile());
+            return true;
+        } catch (Exception e) {
+            log.warn("ScreenRecorder: cannot start screencast — falling back to PNG frames: {}", e.getMessage());
+            closeArchive();
+            return false;
+        }
+    }
+
+    /** Runs on the DevTools thread for every frame the browser paints. */
+    private void onScreencastFrame(Map<String, Object> params) {
+        FrameArchive.Writer w = archive;
+        if (w == null) return;   // listener outlives stop(); DevTools has no per-listener removal
+        long receivedAt = System.currentTimeMillis();
+        try {
+            // The browser sends the next frame only after this one is acknowledged
+            devTools.send(new Command<>("Page.screencastFrameAck", Map.of("sessionId", params.get("sessionId"))));
+        } catch (Exception e) {
+            log.debug("ScreenRecorder: screencast ack failed — {}", e.getMessage());
+        }
+        try {
+            // Receipt time, on the same clock as captureStep's step marks
+            w.append(Base64.getDecoder().decode((String) params.get("data")), receivedAt);
+        } catch (Exception e) {
+            log.debug("ScreenRecorder: screencast frame dropped — {}", e.getMessage());
+        }
+    }
+
+    private void stopScreencast() {
+        try {
+            devTools.send(new Command<>("Page.stopScreencast", Map.of()));
+        } catch (Exception e) {
+            log.debug("ScreenRecorder: stopScreencast failed — {}", e.getMessage());
+        }
+        Path file = archive.getFile();
+        closeArchive();
+        capturedFiles.add(file);
+    }
+
+    private void closeArchive() {
+        FrameArchive.Writer w = archive;
+        archive = null;
+        if (w == null) return;
+        try {
+            w.close();
+        } catch (IOException e) {
+            log.warn("ScreenRecorder: cannot finish {}: {}", w.getFile(), e.getMessage());
+        }
+    }
+
     // ── Private helpers ───────────────────────────────────────────────────────
 
     private void captureAuto() {
@@ -51,6 +51,88 @@ public final class SmartWait {
     /** Default polling interval (milliseconds). */
     public static final int DEFAULT_POLL_MS = 200;
 
+    /**
+     * Installs XHR/fetch counters ({@code window.__iqaNetPending},
+     * {@code window.__iqaLastActivity}) once per document.  Shared by
+     * {@link #forNetworkIdle} and {@link #forQuiescence}.
+     */
+    private static final String NET_PROBE_JS = """
+            if (window.__iqaNetPending === undefined) {
+                window.__iqaNetPending = 0;
+                window.__iqaLastActivity = Date.now();
+                var origOpen = XMLHttpRequest.prototype.open;
+                XMLHttpRequest.prototype.open = function() {
+                    window.__iqaNetPending++;
+                    window.__iqaLastActivity = Date.now();
+                    this.addEventListener('loadend', function() {
+                        window.__iqaNetPending = Math.max(0, window.__iqaNetPending - 1);
+                        window.__iqaLastActivity = Date.now();
+                    });
+                    origOpen.apply(this, arguments);
+                };
+                var origFetch = window.fetch;
+                if (origFetch) {
+                    window.fetch = function() {
+                        window.__iqaNetPending++;
+                        window.__iqaLastActivity = Date.now();
+                        return origFetch.apply(this, arguments).finally(function() {
+                            window.__iqaNetPending = Math.max(0, window.__iqaNetPending - 1);
+                            window.__iqaLastActivity = Date.now();
+                        });
+                    };
+                }
+            }
+            """;
+
+    /**
+     * Combined quiescence probe, run with {@code executeAsyncScript}.  Installs
+     * the network counters and a {@code MutationObserver}, then polls inside
+     * the page until there is no pending XHR/fetch, no running animation and
+     * no network or DOM activity for {@code arguments[0]} ms — or until
+     * {@code arguments[1]} ms have passed.  Calls back with
+     * {@code [quiet, elapsedMs]}.
+     */
+    private static final String QUIESCENCE_JS = NET_PROBE_JS + """
+            var quietMs = arguments[0], maxMs = arguments[1];
+            var done = arguments[arguments.length - 1];
+            if (!window.__iqaMutationObserver && window.MutationObserver && document.documentElement) {
+                window.__iqaLastMutation = Date.now();
+                window.__iqaMutationObserver = new MutationObserver(function() {
+                    window.__iqaLastMutation = Date.now();
+                });
+                window.__iqaMutationObserver.observe(document.documentElement,
+                        { childList: true, subtree: true, attributes: true, characterData: true });
+            }
+            var start = Date.now();
+            // A ticking clock or live widget mutates forever: DOM churn only holds the step this long
+            var domCapMs = Math.min(maxMs, Math.max(quietMs * 5, 500));
+            (function poll() {
+                var now = Date.now();
+                // Infinite animations (spinners, pulsing badges) never finish, so they cannot gate a step
+                var animating = document.getAnimations
+                        ? document.getAnimations().some(function(a) {
+                            if (a.playState !== 'running') return false;
+                            var t = a.effect && a.effect.getTiming ? a.effect.getTiming() : null;
+                            return !t || t.iterations !== Infinity;
+                          })
+                        : false;
+                var domQuiet = now - (window.__iqaLastMutation || 0) >= quietMs || now - start >= domCapMs;
+                var quiet = (window.__iqaNetPending || 0) === 0 && !animating && domQuiet
+                        && document.readyState === 'complete'
+                        && now - (window.__iqaLastActivity || 0) >= quietMs;
+                if (quiet || now - start >= maxMs) { done([quiet, now - start]); return; }
+                setTimeout(poll, 25);
+            })();
+            """;
+
+    /**
+     * Outcome of {@link #forQuiescence}.
+     *
+     * @param quiet    {@code true} if the page went quiet, {@code false} if {@code maxMs} elapsed first
+     * @param waitedMs time spent waiting, as measured in the page
+     */
+    public record Quiescence(boolean quiet, long waitedMs) {}
+
     private SmartWait() {}
 
     // ── Framework-specific waits ──────────────────────────────────────────────
@@ -193,33 +275,7 @@ public final class SmartWait {
         JavascriptExecutor js = (JavascriptExecutor) driver;
 
         // Install counters if not already present
-        js.executeScript("""
-                if (!window.__iqaNetPending) {
-                    window.__iqaNetPending = 0;
-                    window.__iqaLastActivity = Date.now();
-                    var origOpen = XMLHttpRequest.prototype.open;
-                    XMLHttpRequest.prototype.open = function() {
-                        window.__iqaNetPending++;
-                        window.__iqaLastActivity = Date.now();
-                        this.addEventListener('loadend', function() {
-                            window.__iqaNetPending = Math.max(0, window.__iqaNetPending - 1);
-                            window.__iqaLastActivity = Date.now();
-                        });
-                        origOpen.apply(this, arguments);
-                    };
-                    var origFetch = window.fetch;
-                    if (origFetch) {
-                        window.fetch = function() {
-                            window.__iqaNetPending++;
-                            window.__iqaLastActivity = Date.now();
-                            return origFetch.apply(this, arguments).finally(function() {
-                                window.__iqaNetPending = Math.max(0, window.__iqaNetPending - 1);
-                                window.__iqaLastActivity = Date.now();
-                            });
-                        };
-                    }
-                }
-                """);
+        js.executeScript(NET_PROBE_JS);
 
         new WebDriverWait(driver, Duration.ofSeconds(timeoutSec), Duration.ofMillis(DEFAULT_POLL_MS))
                 .until(d -> {
@@ -237,6 +293,30 @@ public final class SmartWait {
         log.debug("SmartWait: network idle confirmed");
     }
 
+    /**
+     * Waits until the page is quiescent: no pending XHR/fetch, no running
+     * animations and no network or DOM-mutation activity for {@code quietMs}.
+     * Infinite animations are ignored, and DOM mutations only count during the
+     * first {@code max(5 × quietMs, 500 ms)} (never beyond {@code maxMs}), so a
+     * spinner or a ticking clock does not hold every step for the full {@code maxMs}.
+     *
+     * <p>Unlike calling {@link #forNetworkIdle} and {@link #forAnimationsComplete}
+     * in turn, the whole check runs as one asynchronous script that polls
+     * inside the page, so it costs a single WebDriver round trip.  The caller's
+     * script timeout must exceed {@code maxMs}.
+     *
+     * @param quietMs milliseconds of silence required
+     * @param maxMs   upper bound on the wait; returns with {@code quiet=false} when reached
+     * @throws org.openqa.selenium.WebDriverException if the script cannot run
+     */
+    public static Quiescence forQuiescence(WebDriver driver, long quietMs, long maxMs) {
+        Object raw = ((JavascriptExecutor) driver).executeAsyncScript(QUIESCENCE_JS, quietMs, maxMs);
+        if (raw instanceof List<?> r && r.size() == 2 && r.get(1) instanceof Number waited) {
+            return new Quiescence(Boolean.TRUE.equals(r.get(0)), waited.longValue());
+        }
+        return new Quiescence(false, 0L);
+    }
+
     /**
      * Waits for the document to be fully loaded (readyState === 'complete').
      */
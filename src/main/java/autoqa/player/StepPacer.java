@@ -0,0 +1,152 @@
+package autoqa.player;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Paces playback between steps.
+ *
+ * <p>In {@link Mode#FIXED} mode every step is followed by a fixed
+ * {@code player.step.delay.ms} sleep.  In {@link Mode#ADAPTIVE} mode the
+ * pacer instead waits only until the page is quiescent — no pending
+ * XHR/fetch, no running animations and no DOM mutations for
+ * {@code player.pacing.quiet.ms} — using {@link SmartWait#forQuiescence},
+ * which runs the whole check in one in-page script.  Infinite animations are
+ * ignored and DOM churn only counts for a short window, and the wait is
+ * capped at {@code player.pacing.max.ms}, so a page that never goes quiet
+ * cannot stall playback.  Fixed pacing is the default.
+ *
+ * <p>The pacer keeps totals so the run can report how much time adaptive
+ * pacing saved compared to the fixed delay; see {@link #getSavedMs()}.
+ * If the quiescence script cannot run (non-JS driver, CSP, closed window)
+ * the step falls back to the fixed delay.
+ */
+public class StepPacer {
+
+    private static final Logger log = LoggerFactory.getLogger(StepPacer.class);
+
+    /** Pacing strategy. */
+    public enum Mode {
+        FIXED, ADAPTIVE;
+
+        /** Parses a config value case-insensitively; anything unrecognised is {@link #FIXED}. */
+        public static Mode parse(String raw) {
+            return raw != null && raw.trim().equalsIgnoreCase("adaptive") ? ADAPTIVE : FIXED;
+        }
+    }
+
+    private final WebDriver driver;
+    private final Mode mode;
+    private final long fixedDelayMs;
+    private final long quietMs;
+    private final long maxMs;
+
+    private int  steps;
+    private int  timeouts;
+    private int  fallbacks;
+    private long waitedMs;
+
+    /**
+     * @param driver       active WebDriver session
+     * @param mode         requested mode; {@link Mode#ADAPTIVE} degrades to fixed
+     *                     when the driver cannot execute scripts
+     * @param fixedDelayMs delay used in fixed mode and as the baseline for savings
+     * @param quietMs      silence required before a page counts as quiescent
+     * @param maxMs        maximum adaptive wait per step
+     */
+    public StepPacer(WebDriver driver, Mode mode, long fixedDelayMs, long quietMs, long maxMs) {
+        this.driver       = driver;
+        this.mode         = mode == Mode.ADAPTIVE && driver instanceof JavascriptExecutor
+                            ? Mode.ADAPTIVE : Mode.FIXED;
+        this.fixedDelayMs = Math.max(0, fixedDelayMs);
+        this.quietMs      = Math.max(0, quietMs);
+        this.maxMs        = Math.max(this.quietMs, maxMs);
+    }
+
+    /** Builds a pacer from the {@code player.step.delay.ms} and {@code player.pacing.*} keys. */
+    public static StepPacer fromConfig(WebDriver driver, PlayerConfig config) {
+        return new StepPacer(driver, Mode.parse(config.getPacingMode()), config.getStepDelayMs(),
+                config.getPacingQuietMs(), config.getPacingMaxMs());
+    }
+
+    /**
+     * Waits after a step according to the configured mode.
+     *
+     * @throws InterruptedException if interrupted while sleeping
+     */
+    public void pace() throws InterruptedException {
+        steps++;
+        if (mode == Mode.FIXED) {
+            sleepFixed();
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            SmartWait.Quiescence q = SmartWait.forQuiescence(driver, quietMs, maxMs);
+            if (!q.quiet()) {
+                timeouts++;
+                log.debug("StepPacer: page not quiet after {} ms — continuing", q.waitedMs());
+            }
+            waitedMs += (System.nanoTime() - start) / 1_000_000;
+        } catch (WebDriverException e) {
+            fallbacks++;
+            log.debug("StepPacer: quiescence check failed — using fixed delay: {}", e.getMessage());
+            waitedMs += (System.nanoTime() - start) / 1_000_000;
+            sleepFixed();
+        }
+    }
+
+    /** Clears the per-run totals. */
+    public void reset() {
+        steps     = 0;
+        timeouts  = 0;
+        fallbacks = 0;
+        waitedMs  = 0;
+    }
+
+    // ── Statistics ────────────────────────────────────────────────────────
+
+    /** Effective mode after considering driver capabilities. */
+    public Mode getMode()          { return mode; }
+
+    /** Number of steps paced since the last {@link #reset()}. */
+    public int getSteps()          { return steps; }
+
+    /** Adaptive waits that hit {@code maxMs} before the page went quiet. */
+    public int getTimeouts()       { return timeouts; }
+
+    /** Adaptive waits that fell back to the fixed delay. */
+    public int getFallbacks()      { return fallbacks; }
+
+    /** Total time spent pacing. */
+    public long getWaitedMs()      { return waitedMs; }
+
+    /** Time fixed pacing would have spent for the same number of steps. */
+    public long getBaselineMs()    { return steps * fixedDelayMs; }
+
+    /** {@link #getBaselineMs()} minus {@link #getWaitedMs()}; negative if adaptive was slower. */
+    public long getSavedMs()       { return getBaselineMs() - waitedMs; }
+
+    /** One-line summary for the end-of-run log. */
+    public String summary() {
+        if (mode == Mode.FIXED) {
+            return String.format("fixed %d ms × %d step(s) = %d ms", fixedDelayMs, steps, waitedMs);
+        }
+        return String.format("adaptive: waited %d ms over %d step(s) vs %d ms fixed — saved %d ms"
+                        + " (%d timeout(s), %d fallback(s))",
+                waitedMs, steps, getBaselineMs(), getSavedMs(), timeouts, fallbacks);
+    }
+
+    // ── Private helpers ───────────────────────────────────────────────────
+
+    private void sleepFixed() throws InterruptedException {
+        if (fixedDelayMs > 0) {
+            Thread.sleep(fixedDelayMs);
+            waitedMs += fixedDelayMs;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package autoqa.player;
+
+import autoqa.model.RecordedEvent.EventType;
+
+import java.util.Arrays;
+
+/**
+ * Wall-clock breakdown of one playback step, produced by {@link RunTimeline}.
+ *
+ * <p>Phase times are exclusive: a locator lookup made while a handler runs is
+ * counted under {@link Phase#LOCATE}, not also under {@link Phase#ACTION}.
+ * Time spent in the step but outside any phase (logging, cache bookkeeping,
+ * failure handling) is reported by {@link #getUnattributedNanos()}.
+ */
+public final class StepTiming {
+
+    /** Step phases, in the order the engine runs them. */
+    public enum Phase {
+        /** {@link PopupSentinel} check for unexpected windows. */
+        SENTINEL,
+        /** Entering and leaving the event's frame chain. */
+        FRAME,
+        /** Object Repository name resolution. */
+        OR_RESOLVE,
+        /** Locator resolution, explicit waits for the element and AI healing. */
+        LOCATE,
+        /** The handler itself, minus any locate time within it. */
+        ACTION,
+        /** {@link ScreenRecorder} capture. */
+        SCREENSHOT,
+        /** {@link StepPacer} delay after the step. */
+        PACING
+    }
+
+    private final int stepIndex;
+    private final EventType eventType;
+    private final long startNanos;
+    private final long durationNanos;
+    private final long[] phaseNanos;
+    private final boolean failed;
+
+    StepTiming(int stepIndex, EventType eventType, long startNanos, long durationNanos,
+               long[] phaseNanos, boolean failed) {
+        this.stepIndex     = stepIndex;
+        this.eventType     = eventType;
+        this.startNanos    = startNanos;
+        this.durationNanos = durationNanos;
+        this.phaseNanos    = phaseNanos.clone();
+        this.failed        = failed;
+    }
+
+    /** Zero-based step index. */
+    public int getStepIndex()          { return stepIndex; }
+
+    /** Event type of the step, or {@code null} if the event had none. */
+    public EventType getEventType()    { return eventType; }
+
+    /** Start of the step, relative to the start of the run. */
+    public long getStartNanos()        { return startNanos; }
+
+    /** Total wall-clock time of the step. */
+    public long getDurationNanos()     { return durationNanos; }
+
+    /** Exclusive time spent in {@code phase}. */
+    public long getPhaseNanos(Phase phase) { return phaseNanos[phase.ordinal()]; }
+
+    /** Step time not covered by any phase. */
+    public long getUnattributedNanos() {
+        return Math.max(0, durationNanos - Arrays.stream(phaseNanos).sum());
+    }
+
+    /** True when the run stopped at this step. */
+    public boolean isFailed()          { return failed; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("step %d %s %.1f ms", stepIndex + 1, eventType, durationNanos / 1e6));
+        String sep = " [";
+        for (Phase p : Phase.values()) {
+            long n = phaseNanos[p.ordinal()];
+            if (n == 0) continue;
+            sb.append(sep).append(p.name().toLowerCase()).append(String.format(" %.1f", n / 1e6));
+            sep = ", ";
+        }
+        if (!sep.equals(" [")) sb.append(']');
+        if (failed) sb.append(" FAILED");
+        return sb.toString();
+    }
+}
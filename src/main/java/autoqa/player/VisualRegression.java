@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.imageio.ImageIO;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -14,19 +15,28 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 /**
  * Pixel-diff visual regression testing — captures, stores, and compares page screenshots.
  *
- * <p>Provides two comparison modes:
+ * <p>Provides these comparison modes:
  * <ol>
- *   <li><b>Pixel diff</b> — exact pixel-by-pixel comparison with a configurable
- *       tolerance percentage. Fast, no external service required.</li>
+ *   <li><b>Pixel diff</b> — pixel-by-pixel comparison with a per-channel
+ *       tolerance and a configurable tolerance percentage. Fast, no external
+ *       service required.</li>
+ *   <li><b>SSIM / block hash</b> — perceptual comparisons over a downscaled
+ *       luminance pyramid ({@link Mode#SSIM}, {@link Mode#BLOCK_HASH}) that
+ *       tolerate anti-aliasing and font-hinting noise; see {@link CompareOptions}.</li>
  *   <li><b>Semantic diff</b> — delegates to {@link autoqa.vision.NvClipClient}
  *       when available, for AI-powered comparison that ignores cosmetic noise
  *       (anti-aliasing, font hinting) while catching real layout regressions.</li>
  * </ol>
  *
+ * <p>Regions that change legitimately can be excluded per call
+ * ({@link CompareOptions#withIgnoreRegions}) or per baseline, with a mask
+ * image saved next to it as {@code <name>.mask.png}.
+ *
  * <h3>Baseline workflow</h3>
  * <pre>{@code
  * VisualRegression vr = new VisualRegression(driver, Path.of("baselines"));
@@ -36,6 +46,10 @@ import java.time.format.DateTimeFormatter;
  *
  * // Subsequent runs: compare against baseline
  * vr.assertMatchesBaseline("homepage", 0.01); // max 1% pixel difference
+ *
+ * // Perceptual comparison, ignoring the clock in the header
+ * vr.assertMatchesBaseline("homepage",
+ *         CompareOptions.ssim(0.02).withIgnoreRegions(new Rectangle(1700, 0, 220, 60)));
  * }</pre>
  *
  * <p>Diffs are saved to {@code target/visual-diffs/} with timestamps for CI
@@ -48,6 +62,12 @@ public class VisualRegression {
     /** Default maximum allowed pixel difference ratio (1%). */
     public static final double DEFAULT_THRESHOLD = 0.01;
 
+    /** Per-channel difference treated as noise (sub-pixel anti-aliasing). */
+    static final int CHANNEL_TOLERANCE = 10;
+
+    /** Suffix of the optional per-baseline mask image. */
+    public static final String MASK_SUFFIX = ".mask.png";
+
     private final WebDriver driver;
     private final Path baselinesDir;
     private final Path diffsDir;
@@ -110,6 +130,19 @@ public class VisualRegression {
      * @throws IOException    if the baseline file doesn't exist or cannot be read
      */
     public void assertMatchesBaseline(String name, double threshold) throws IOException {
+        assertMatchesBaseline(name, CompareOptions.pixel(threshold));
+    }
+
+    /**
+     * Compares the current screenshot against the stored baseline using the
+     * mode, tolerance and ignore regions in {@code options}.  A mask image
+     * stored next to the baseline as {@code <name>.mask.png} is applied as
+     * well (see {@link DiffMask}).
+     *
+     * @throws AssertionError if the diff ratio exceeds {@code options.threshold()}
+     * @throws IOException    if the baseline file doesn't exist or cannot be read
+     */
+    public void assertMatchesBaseline(String name, CompareOptions options) throws IOException {
         Path baseline = baselinePath(name);
         if (!Files.exists(baseline)) {
             throw new AssertionError(
@@ -120,20 +153,22 @@ public class VisualRegression {
 
         byte[] currentPng  = screenshot();
         byte[] baselinePng = Files.readAllBytes(baseline);
+        double threshold   = options.threshold();
 
-        DiffResult result = pixelDiff(baselinePng, currentPng);
-        log.info("VisualRegression: '{}' diff ratio = {} (threshold: {}, pixels: {}/{})",
-                name, String.format("%.4f", result.diffRatio()), String.format("%.4f", threshold),
-                result.diffPixels(), result.totalPixels());
+        DiffResult result = compare(baselinePng, currentPng, options, readMask(name));
+        log.info("VisualRegression: '{}' {} diff ratio {} {} (threshold: {}, {}: {}/{})",
+                name, result.mode(), result.partial() ? ">=" : "=", String.format("%.4f", result.diffRatio()),
+                String.format("%.4f", threshold), unit(result.mode()), result.diffPixels(), result.totalPixels());
 
         if (result.diffRatio() > threshold) {
             // Save diff image for inspection
             Path diffPath = saveDiff(name, currentPng, result);
             throw new AssertionError(String.format(
-                    "VisualRegression: '%s' FAILED — diff ratio %.4f > threshold %.4f " +
-                    "(%d/%d pixels differ). Diff saved: %s",
-                    name, result.diffRatio(), threshold,
-                    result.diffPixels(), result.totalPixels(), diffPath));
+                    "VisualRegression: '%s' FAILED — %s diff ratio %s%.4f > threshold %.4f " +
+                    "(%s%d/%d %s differ). Diff saved: %s",
+                    name, result.mode(), result.partial() ? "at least " : "", result.diffRatio(), threshold,
+                    result.partial() ? "at least " : "", result.diffPixels(), result.totalPixels(),
+                    unit(result.mode()), diffPath));
         }
         log.info("VisualRegression: '{}' PASSED (diff: {})", name, String.format("%.4f", result.diffRatio()));
     }
@@ -151,59 +186,78 @@ public class VisualRegression {
         return pixelDiff(baselinePng, currentPng).diffRatio();
     }
 
-    // ── Pixel diff engine ─────────────────────────────────────────────────────
+    // ── Diff engines ──────────────────────────────────────────────────────────
 
     /**
-     * Performs a pixel-by-pixel comparison of two PNG byte arrays.
+     * Performs a full pixel-by-pixel comparison of two PNG byte arrays.
      *
      * <p>If dimensions differ, the images are compared at the smaller common area.
-     * Each pixel is compared in RGB; the diff threshold per channel is 10/255.
+     * Each pixel is compared in RGB; differences up to {@value #CHANNEL_TOLERANCE}/255
+     * per channel are treated as anti-aliasing noise.  The diff image is
+     * rendered only when some pixels differ.
      */
     public static DiffResult pixelDiff(byte[] baselinePng, byte[] currentPng) throws IOException {
+        return pixelDiff(baselinePng, currentPng, 1.0);
+    }
+
+    /**
+     * Like {@link #pixelDiff(byte[], byte[])}, but stops counting once the diff
+     * ratio exceeds {@code threshold} (the result is then
+     * {@linkplain DiffResult#partial() partial}).  The diff image is rendered
+     * only when the comparison fails.
+     */
+    public static DiffResult pixelDiff(byte[] baselinePng, byte[] currentPng, double threshold) throws IOException {
+        return compare(baselinePng, currentPng, CompareOptions.pixel(threshold), null);
+    }
+
+    /**
+     * Compares two PNG byte arrays with the given options.
+     *
+     * @param maskImage additional mask (non-black / non-transparent pixels are
+     *                  ignored), or {@code null}
+     */
+    public static DiffResult compare(byte[] baselinePng, byte[] currentPng,
+                                     CompareOptions options, BufferedImage maskImage) throws IOException {
         BufferedImage baseline = ImageIO.read(new ByteArrayInputStream(baselinePng));
         BufferedImage current  = ImageIO.read(new ByteArrayInputStream(currentPng));
 
         if (baseline == null || current == null) {
             throw new IOException("Could not decode one or both PNG images");
         }
+        return compare(baseline, current, options, maskImage);
+    }
 
+    /** Compares two decoded images with the given options. */
+    public static DiffResult compare(BufferedImage baseline, BufferedImage current,
+                                     CompareOptions options, BufferedImage maskImage) {
         int width  = Math.min(baseline.getWidth(),  current.getWidth());
         int height = Math.min(baseline.getHeight(), current.getHeight());
-        int total  = width * height;
-        int diff   = 0;
-
-        // Create diff image (highlight changed pixels in red)
-        BufferedImage diffImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int bRgb = baseline.getRGB(x, y);
-                int cRgb = current.getRGB(x, y);
-
-                if (bRgb != cRgb && isSignificantDiff(bRgb, cRgb)) {
-                    diff++;
-                    diffImage.setRGB(x, y, 0xFF0000); // red highlight
-                } else {
-                    // Dim the matching pixel for contrast
-                    int dimmed = ((bRgb & 0xFEFEFE) >> 1);
-                    diffImage.setRGB(x, y, dimmed);
-                }
-            }
+        DiffMask mask = DiffMask.of(width, height, options.ignoreRegions(), maskImage);
+        double threshold = options.threshold();
+
+        // Too small for one SSIM window / hash block: an empty grid would always pass
+        boolean tooSmall = options.mode() != Mode.PIXEL
+                && !PerceptualDiff.hasCells(width, height, options.mode() == Mode.BLOCK_HASH);
+        if (tooSmall) {
+            log.debug("VisualRegression: {}x{} is below one {} cell — comparing pixel by pixel",
+                    width, height, options.mode());
         }
 
-        return new DiffResult(diff, total, diffImage);
-    }
+        if (options.mode() == Mode.PIXEL || tooSmall) {
+            PixelDiff.Result r = PixelDiff.compare(baseline, current, options.channelTolerance(), threshold, mask);
+            boolean failed = threshold >= 1.0 ? r.diffPixels() > 0 : r.diffRatio() > threshold;
+            BufferedImage diffImage = failed
+                    ? PixelDiff.render(baseline, current, options.channelTolerance(), mask) : null;
+            return new DiffResult(Mode.PIXEL, r.diffRatio(), (int) r.diffPixels(), (int) r.totalPixels(),
+                    diffImage, r.partial());
+        }
 
-    /**
-     * Returns {@code true} if the two RGB values differ by more than the noise threshold
-     * on any channel (avoids false positives from sub-pixel anti-aliasing).
-     */
-    private static boolean isSignificantDiff(int rgb1, int rgb2) {
-        int threshold = 10;
-        int dr = Math.abs(((rgb1 >> 16) & 0xFF) - ((rgb2 >> 16) & 0xFF));
-        int dg = Math.abs(((rgb1 >>  8) & 0xFF) - ((rgb2 >>  8) & 0xFF));
-        int db = Math.abs(( rgb1        & 0xFF) - ( rgb2        & 0xFF));
-        return dr > threshold || dg > threshold || db > threshold;
+        PerceptualDiff.Outcome o = options.mode() == Mode.SSIM
+                ? PerceptualDiff.ssim(baseline, current, mask)
+                : PerceptualDiff.blockHash(baseline, current, mask, options.channelTolerance());
+        boolean failed = threshold >= 1.0 ? o.diffCells() > 0 : o.diffRatio() > threshold;
+        BufferedImage diffImage = failed ? PerceptualDiff.render(baseline, current, o, mask) : null;
+        return new DiffResult(options.mode(), o.diffRatio(), o.diffCells(), o.totalCells(), diffImage, false);
     }
 
     // ── Helpers ───────────────────────────────────────────────────────────────
@@ -216,6 +270,23 @@ public class VisualRegression {
         return baselinesDir.resolve(sanitize(name) + ".png");
     }
 
+    private BufferedImage readMask(String name) throws IOException {
+        Path mask = baselinesDir.resolve(sanitize(name) + MASK_SUFFIX);
+        if (!Files.exists(mask)) return null;
+        BufferedImage img = ImageIO.read(mask.toFile());
+        if (img == null) throw new IOException("Could not decode mask image " + mask);
+        log.debug("VisualRegression: applying mask {}", mask);
+        return img;
+    }
+
+    private static String unit(Mode mode) {
+        return switch (mode) {
+            case PIXEL      -> "pixels";
+            case SSIM       -> "windows";
+            case BLOCK_HASH -> "blocks";
+        };
+    }
+
     private Path saveDiff(String name, byte[] currentPng, DiffResult result) {
         try {
             Files.createDirectories(diffsDir);
@@ -237,16 +308,72 @@ public class VisualRegression {
         return name.replaceAll("[^a-zA-Z0-9_\\-]", "_");
     }
 
-    // ── Result record ──────────────────────────────────────────────────────────
+    // ── Options and result ─────────────────────────────────────────────────────
+
+    /** How two screenshots are compared. */
+    public enum Mode {
+        /** Per-pixel RGB comparison with a per-channel tolerance; ratio = differing pixels / pixels. */
+        PIXEL,
+        /** Structural similarity over 8×8 windows of a downscaled luminance pyramid; ratio = 1 − mean SSIM. */
+        SSIM,
+        /** Average hash of downscaled blocks; ratio = differing blocks / blocks. */
+        BLOCK_HASH
+    }
 
     /**
-     * Result of a pixel diff comparison.
+     * Comparison settings.
+     *
+     * @param mode             comparison algorithm
+     * @param threshold        maximum allowed diff ratio (0.0–1.0)
+     * @param channelTolerance per-channel difference treated as noise ({@code PIXEL}),
+     *                         or allowed change in block mean luminance ({@code BLOCK_HASH});
+     *                         unused by {@code SSIM}
+     * @param ignoreRegions    baseline-space rectangles excluded from the comparison
      */
-    public record DiffResult(int diffPixels, int totalPixels, BufferedImage diffImage) {
-        /** Returns the fraction of pixels that differ (0.0 = identical, 1.0 = all different). */
-        public double diffRatio() {
-            return totalPixels == 0 ? 0.0 : (double) diffPixels / totalPixels;
+    public record CompareOptions(Mode mode, double threshold, int channelTolerance, List<Rectangle> ignoreRegions) {
+
+        public CompareOptions {
+            ignoreRegions = ignoreRegions == null ? List.of() : List.copyOf(ignoreRegions);
+        }
+
+        /** Per-pixel comparison with the default 10/255 channel tolerance. */
+        public static CompareOptions pixel(double threshold) {
+            return new CompareOptions(Mode.PIXEL, threshold, CHANNEL_TOLERANCE, List.of());
+        }
+
+        /** SSIM comparison; {@code threshold} is the allowed {@code 1 − mean SSIM} (e.g. 0.02). */
+        public static CompareOptions ssim(double threshold) {
+            return new CompareOptions(Mode.SSIM, threshold, CHANNEL_TOLERANCE, List.of());
         }
-        public boolean isPassed(double threshold) { return diffRatio() <= threshold; }
+
+        /** Block-hash comparison; {@code threshold} is the allowed fraction of differing blocks. */
+        public static CompareOptions blockHash(double threshold) {
+            return new CompareOptions(Mode.BLOCK_HASH, threshold, CHANNEL_TOLERANCE, List.of());
+        }
+
+        public CompareOptions withChannelTolerance(int tolerance) {
+            return new CompareOptions(mode, threshold, tolerance, ignoreRegions);
+        }
+
+        public CompareOptions withIgnoreRegions(Rectangle... regions) {
+            return new CompareOptions(mode, threshold, channelTolerance, List.of(regions));
+        }
+    }
+
+    /**
+     * Result of a visual comparison.
+     *
+     * @param diffRatio   0.0 = identical, 1.0 = completely different (see {@link Mode})
+     * @param diffPixels  differing pixels ({@code PIXEL}), windows ({@code SSIM}) or
+     *                    blocks ({@code BLOCK_HASH})
+     * @param totalPixels compared pixels / windows / blocks, excluding ignored ones
+     * @param diffImage   differences in red over the dimmed baseline;
+     *                    {@code null} when the comparison passed
+     * @param partial     counting stopped early once the threshold was exceeded,
+     *                    so {@code diffPixels} is a lower bound
+     */
+    public record DiffResult(Mode mode, double diffRatio, int diffPixels, int totalPixels,
+                             BufferedImage diffImage, boolean partial) {
+        public boolean isPassed(double threshold) { return diffRatio <= threshold; }
     }
 }
@@ -0,0 +1,46 @@
+package autoqa.player;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeOptions;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+
+/**
+ * Creates playback browsers by name.  Shared by the CLI and the embedded API
+ * server so both launch browsers with identical options.
+ */
+public final class WebDriverFactory {
+
+    private WebDriverFactory() {}
+
+    /**
+     * Creates a WebDriver for the requested browser.
+     * Selenium Manager (built into Selenium 4.11+) automatically downloads
+     * the matching browser driver — no manual chromedriver/geckodriver needed.
+     *
+     * @param browser {@code edge}, {@code chrome} or {@code firefox}; anything
+     *                else falls back to Edge
+     */
+    public static WebDriver create(String browser) {
+        String name = browser == null ? "edge" : browser.toLowerCase().trim();
+        return switch (name) {
+            case "chrome" -> {
+                ChromeOptions opts = new ChromeOptions();
+                opts.addArguments("--start-maximized");
+                yield new ChromeDriver(opts);
+            }
+            case "firefox" -> {
+                FirefoxOptions opts = new FirefoxOptions();
+                yield new FirefoxDriver(opts);
+            }
+            default -> {
+                EdgeOptions opts = new EdgeOptions();
+                opts.addArguments("--start-maximized");
+                yield new EdgeDriver(opts);
+            }
+        };
+    }
+}
@@ -0,0 +1,196 @@
+package autoqa.player;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, reusable pool of {@link WebDriver} sessions for parallel playback.
+ *
+ * <p>Browsers are created lazily through the supplied factory, up to
+ * {@code maxSize} concurrent sessions.  A released driver is reset (extra
+ * windows closed, cookies deleted, navigated to {@code about:blank}) and handed
+ * to the next caller instead of paying browser start-up again.  A driver that
+ * cannot be reset is treated as crashed: it is quit and its slot is freed so
+ * the next {@link #lease()} creates a fresh one.
+ *
+ * <h3>Usage</h3>
+ * <pre>{@code
+ * try (WebDriverPool pool = new WebDriverPool(() -> new EdgeDriver(), 8)) {
+ *     WebDriver d = pool.lease();
+ *     try {
+ *         new PlayerEngine(d).play(session);
+ *     } finally {
+ *         pool.release(d);
+ *     }
+ * }
+ * }</pre>
+ */
+public class WebDriverPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WebDriverPool.class);
+
+    private final Supplier<WebDriver> factory;
+    private final int                 maxSize;
+    private final Semaphore           permits;
+
+    /** Drivers that are alive and not currently leased (most recently used first). */
+    private final BlockingDeque<WebDriver> idle = new LinkedBlockingDeque<>();
+
+    /** Every live driver owned by the pool, leased or idle. */
+    private final Set<WebDriver> owned = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean closed;
+
+    /**
+     * @param factory creates a new, ready-to-use browser session
+     * @param maxSize maximum number of concurrent sessions (must be &ge; 1)
+     */
+    public WebDriverPool(Supplier<WebDriver> factory, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("WebDriverPool maxSize must be >= 1, got " + maxSize);
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    // ── Leasing ───────────────────────────────────────────────────────────
+
+    /**
+     * Borrows a driver, blocking until a slot is free.  Reuses an idle driver
+     * when one is available, otherwise creates a new session.
+     *
+     * @return a driver the caller owns until {@link #release} or {@link #discard}
+     * @throws InterruptedException if interrupted while waiting for a slot
+     * @throws AutoQAException      if the pool is closed or the factory fails
+     */
+    public WebDriver lease() throws InterruptedException {
+        ensureOpen();
+        permits.acquire();
+        try {
+            ensureOpen();
+            WebDriver driver = idle.pollFirst();
+            if (driver != null) {
+                log.debug("WebDriverPool: reusing idle driver ({} owned)", owned.size());
+                return driver;
+            }
+            driver = factory.get();
+            owned.add(driver);
+            log.info("WebDriverPool: created driver {}/{}", owned.size(), maxSize);
+            return driver;
+        } catch (RuntimeException e) {
+            permits.release();
+            if (e instanceof AutoQAException aqe) throw aqe;
+            throw new AutoQAException("WebDriverPool: failed to create driver: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a healthy driver to the pool.  The driver is reset first; if the
+     * reset fails the driver is discarded instead.
+     */
+    public void release(WebDriver driver) {
+        if (driver == null || !owned.contains(driver)) return;
+        try {
+            if (closed) {
+                quit(driver);
+                return;
+            }
+            if (reset(driver)) {
+                idle.offerFirst(driver);
+            } else {
+                quit(driver);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Quits a driver that is known to be broken and frees its slot; the next
+     * {@link #lease()} will create a replacement.
+     */
+    public void discard(WebDriver driver) {
+        if (driver == null || !owned.contains(driver)) return;
+        try {
+            quit(driver);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // ── Introspection ─────────────────────────────────────────────────────
+
+    /** Maximum number of concurrent sessions. */
+    public int getMaxSize()   { return maxSize; }
+
+    /** Number of live sessions currently owned by the pool (leased + idle). */
+    public int getOwnedCount() { return owned.size(); }
+
+    /** Number of live sessions waiting to be leased. */
+    public int getIdleCount()  { return idle.size(); }
+
+    // ── Lifecycle ─────────────────────────────────────────────────────────
+
+    /**
+     * Quits all idle drivers and marks the pool closed.  Drivers still on lease
+     * are quit when they are released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        List<WebDriver> drain = new ArrayList<>();
+        idle.drainTo(drain);
+        drain.forEach(this::quit);
+        log.info("WebDriverPool closed — {} driver(s) still on lease", owned.size());
+    }
+
+    // ── Private helpers ───────────────────────────────────────────────────
+
+    /**
+     * Brings a used driver back to a neutral state so the next recording does
+     * not inherit windows, cookies or page state.
+     *
+     * @return {@code true} if the driver responded and is reusable
+     */
+    private boolean reset(WebDriver driver) {
+        try {
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            for (int i = 1; i < handles.size(); i++) {
+                driver.switchTo().window(handles.get(i)).close();
+            }
+            if (!handles.isEmpty()) {
+                driver.switchTo().window(handles.get(0));
+            }
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            log.warn("WebDriverPool: driver reset failed — discarding: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void quit(WebDriver driver) {
+        owned.remove(driver);
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            log.debug("WebDriverPool: quit failed — {}", e.getMessage());
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) throw new AutoQAException("WebDriverPool is closed");
+    }
+}
@@ -1,5 +1,6 @@
 package autoqa.recorder;
 
+import autoqa.metrics.Metrics;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -121,7 +122,8 @@ public class CDPConnector implements AutoCloseable {
 
     /**
      * Sends a CDP command and blocks until the response arrives or the
-     * {@value #COMMAND_TIMEOUT_SEC}-second timeout expires.
+     * {@value #COMMAND_TIMEOUT_SEC}-second timeout expires.  The round trip
+     * is recorded in {@link Metrics#CDP_COMMAND_DURATION} by domain.
      *
      * @param method CDP method name, e.g. {@code "Runtime.evaluate"}
      * @param params method parameters (may be an empty ObjectNode)
@@ -130,6 +132,21 @@ public class CDPConnector implements AutoCloseable {
      *                     an {@code error} field, or the wait times out
      */
     public JsonNode sendCommand(String method, ObjectNode params) throws IOException {
+        int dot = method.indexOf('.');
+        String domain = dot > 0 ? method.substring(0, dot) : method;
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            JsonNode result = send(method, params);
+            ok = true;
+            return result;
+        } finally {
+            Metrics.CDP_COMMAND_DURATION.labels(domain).observeSince(start);
+            if (!ok) Metrics.CDP_COMMAND_ERRORS.labels(domain).inc();
+        }
+    }
+
+    private JsonNode send(String method, ObjectNode params) throws IOException {
         int id = commandId.getAndIncrement();
 
         ObjectNode envelope = MAPPER.createObjectNode();
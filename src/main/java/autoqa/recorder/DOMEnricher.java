@@ -4,6 +4,8 @@ import autoqa.model.BoundingBox;
 import autoqa.model.ElementInfo;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +19,11 @@ import java.util.*;
  *
  * <p>All DOM inspection is performed via a single JavaScript expression evaluated
  * in the browser context, so no Selenium WebDriver is required.
+ *
+ * <p>For recording, prefer the combined mode: {@link #installHelper()} registers
+ * a snapshot function in every document once, and {@link #snapshot} then
+ * returns element info, frame chain, URL and title from one
+ * {@code Runtime.callFunctionOn} round trip instead of four evaluations.
  */
 public class DOMEnricher {
 
@@ -30,20 +37,17 @@ public class DOMEnricher {
     private static final String TOP_FRAME_SENTINEL = "__top__";
 
     /**
-     * JavaScript template that extracts element metadata at coordinates (x, y).
-     * The placeholders {@code COORD_X} and {@code COORD_Y} are replaced at
-     * runtime with actual double values.
+     * JavaScript function that describes one element.  Shared by the legacy
+     * per-call expression and the installed snapshot helper.
      */
-    private static final String ELEMENT_INFO_JS = """
-            (function(x, y) {
-              var el = document.elementFromPoint(x, y);
-              if (!el) return null;
+    private static final String DESCRIBE_FN = """
+            function(el) {
               function getCss(el) {
                 if (el.id) return '#' + el.id;
                 var parts = [el.tagName.toLowerCase()];
                 if (el.className) parts.push('.' + el.className.trim().split(/\\s+/).join('.'));
                 var parent = el.parentElement;
-                if (parent && parent !== document.body) {
+                if (parent && parent !== el.ownerDocument.body) {
                   var siblings = Array.from(parent.children).filter(c => c.tagName === el.tagName);
                   if (siblings.length > 1) parts.push(':nth-child(' + (Array.from(parent.children).indexOf(el)+1) + ')');
                 }
@@ -76,8 +80,142 @@ public class DOMEnricher {
                 attributes: attrs,
                 boundingBox: { x: rect.left, y: rect.top, width: rect.width, height: rect.height }
               };
+            }""";
+
+    /**
+     * JavaScript template that extracts element metadata at coordinates (x, y).
+     * The placeholders {@code COORD_X} and {@code COORD_Y} are replaced at
+     * runtime with actual double values.
+     */
+    private static final String ELEMENT_INFO_JS = """
+            (function(x, y) {
+              var el = document.elementFromPoint(x, y);
+              if (!el) return null;
+              return (DESCRIBE_FN)(el);
             })(COORD_X, COORD_Y)
-            """;
+            """.replace("DESCRIBE_FN", DESCRIBE_FN);
+
+    /** JavaScript expression that describes the focused element, or returns null. */
+    private static final String FOCUSED_INFO_JS = """
+            (function() {
+              var el = document.activeElement;
+              if (!el || el === document.body) return null;
+              return (DESCRIBE_FN)(el);
+            })()
+            """.replace("DESCRIBE_FN", DESCRIBE_FN);
+
+    /** Name of the helper installed on {@code window} by {@link #HELPER_JS}. */
+    private static final String HELPER_NAME = "__autoqaSnapshot";
+
+    /** Name of the focus log kept on the top-level {@code window} by {@link #HELPER_JS}. */
+    private static final String FOCUS_LOG_NAME = "__autoqaFocusLog";
+
+    /** Focus changes kept in the log; older entries are discarded. */
+    private static final int FOCUS_LOG_MAX = 256;
+
+    /**
+     * Installs {@code window.__autoqaSnapshot(x, y, keyTimes)}, which returns
+     * element info, the frame chain, URL and title in one object.  The element
+     * is the one under the point, if one is given.  Same-origin frames are
+     * descended into, translating coordinates into each frame's viewport;
+     * frames are identified the way {@code FrameNavigator} switches to them
+     * ({@code #id}, {@code [name="…"]} or index).  A cross-origin frame stops
+     * the descent and is itself the element.
+     *
+     * <p>The script also logs every focus change, with {@code Date.now()}, to
+     * a bounded list on the top-level window — from every same-origin frame
+     * it runs in.  When {@code keyTimes} is an array of epoch-millisecond key
+     * times, the helper answers from that log instead of the live focus and
+     * adds {@code focus}: one {@code {from, frames, element}} entry per run of
+     * keys that went to the same focus target.  Keys typed before the log has
+     * an entry fall back to the live focus.  Re-running the script replaces
+     * the helper but does not add a second set of listeners.
+     */
+    static final String HELPER_JS = """
+            (function() {
+              var describe = DESCRIBE_FN;
+              function frameLocator(f, doc) {
+                if (f.id) return '#' + f.id;
+                if (f.name) return '[name="' + f.name + '"]';
+                return String(Array.prototype.indexOf.call(doc.querySelectorAll('iframe,frame'), f));
+              }
+              function focusTarget(doc) {
+                var out = { frames: [], element: null }, el = doc.activeElement;
+                while (el && (el.tagName === 'IFRAME' || el.tagName === 'FRAME')) {
+                  var inner = null;
+                  try { inner = el.contentDocument; } catch (e) { /* cross-origin */ }
+                  if (!inner) break;
+                  out.frames.push(frameLocator(el, doc));
+                  doc = inner;
+                  el = doc.activeElement;
+                }
+                if (el === doc.body) el = null;
+                out.element = el ? describe(el) : null;
+                return out;
+              }
+              var root = window;
+              try { if (window.top.document) root = window.top; } catch (e) { /* cross-origin parent */ }
+              if (!root.FOCUS_LOG) Object.defineProperty(root, 'FOCUS_LOG', { configurable: true, value: [] });
+              function logFocus(t) {
+                var log = root.FOCUS_LOG, entry = focusTarget(root.document);
+                entry.t = t;
+                log.push(entry);
+                if (log.length > FOCUS_LOG_MAX) log.splice(0, log.length - FOCUS_LOG_MAX);
+              }
+              if (!window.FOCUS_LOG_hooked) {
+                Object.defineProperty(window, 'FOCUS_LOG_hooked', { configurable: true, value: true });
+                document.addEventListener('focusin', function() { logFocus(Date.now()); }, true);
+                document.addEventListener('focusout', function(e) {
+                  // Focus left for nothing focusable: keys now go to the body
+                  if (!e.relatedTarget) { var t = Date.now(); setTimeout(function() { logFocus(t); }, 0); }
+                }, true);
+                if (root === window && root.FOCUS_LOG.length === 0) logFocus(Date.now());
+              }
+              Object.defineProperty(window, 'HELPER_NAME', { configurable: true, value: function(x, y, keyTimes) {
+                var out = { url: location.href, title: document.title, frames: [], element: null };
+                if (Array.isArray(keyTimes)) {
+                  var log = root.FOCUS_LOG || [], live = null, prev, segs = [];
+                  for (var k = 0; k < keyTimes.length; k++) {
+                    var hit = null;
+                    for (var i = log.length - 1; i >= 0; i--) if (log[i].t <= keyTimes[k]) { hit = log[i]; break; }
+                    if (!hit) hit = live || (live = focusTarget(document));
+                    if (hit !== prev) segs.push({ from: k, frames: hit.frames, element: hit.element });
+                    prev = hit;
+                  }
+                  out.focus = segs;
+                  if (segs.length) { out.frames = segs[0].frames; out.element = segs[0].element; }
+                  return out;
+                }
+                if (x == null || y == null) return out;
+                var doc = document, el = doc.elementFromPoint(x, y);
+                while (el && (el.tagName === 'IFRAME' || el.tagName === 'FRAME')) {
+                  var inner = null;
+                  try { inner = el.contentDocument; } catch (e) { /* cross-origin */ }
+                  if (!inner) break;
+                  out.frames.push(frameLocator(el, doc));
+                  var r = el.getBoundingClientRect();
+                  x -= r.left + el.clientLeft;
+                  y -= r.top + el.clientTop;
+                  doc = inner;
+                  el = doc.elementFromPoint(x, y);
+                }
+                out.element = el ? describe(el) : null;
+                return out;
+              }});
+            })();
+            """.replace("DESCRIBE_FN", DESCRIBE_FN)
+               .replace("HELPER_NAME", HELPER_NAME)
+               .replace("FOCUS_LOG_MAX", String.valueOf(FOCUS_LOG_MAX))
+               .replace("FOCUS_LOG", FOCUS_LOG_NAME);
+
+    /**
+     * Function declaration passed to {@code Runtime.callFunctionOn} with the
+     * page's {@code window} as {@code this}.  Reports a missing helper (e.g. a
+     * document that was loaded before installation) instead of failing.
+     */
+    private static final String CALL_HELPER_FN =
+            "function(x, y, f) { return this.HELPER_NAME ? this.HELPER_NAME(x, y, f) : { missing: true }; }"
+                    .replace("HELPER_NAME", HELPER_NAME);
 
     /**
      * JavaScript that detects whether the current context has a frame ancestor.
@@ -89,6 +227,9 @@ public class DOMEnricher {
 
     private final CDPConnector cdp;
 
+    /** Remote object ID of the page's {@code window}; reset on navigation. */
+    private volatile String windowObjectId;
+
     // ── Construction ──────────────────────────────────────────────────────
 
     /**
@@ -115,16 +256,9 @@ public class DOMEnricher {
                 .replace("COORD_Y", formatCoord(y));
 
         try {
-            JsonNode result = evaluateExpression(js);
-
-            if (result == null || result.isNull() || result.isMissingNode()) {
-                log.debug("DOMEnricher: no element found at ({}, {})", x, y);
-                return null;
-            }
-
             // CDP Runtime.evaluate wraps the JS return value under result.value
-            JsonNode value = result.get("value");
-            if (value == null || value.isNull()) {
+            JsonNode value = remoteValue(evaluateExpression(js));
+            if (value == null) {
                 log.debug("DOMEnricher: CDP returned null value at ({}, {})", x, y);
                 return null;
             }
@@ -140,6 +274,21 @@ public class DOMEnricher {
         }
     }
 
+    /**
+     * Returns {@link ElementInfo} for the element that has keyboard focus in
+     * the top-level document, or {@code null} if nothing is focused or the
+     * CDP call fails.
+     */
+    public ElementInfo enrichFocused() {
+        try {
+            JsonNode value = remoteValue(evaluateExpression(FOCUSED_INFO_JS));
+            return value == null ? null : parseElementInfo(value);
+        } catch (Exception e) {
+            log.warn("DOMEnricher: failed to read focused element: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Detects the frame chain needed to reach the element at {@code (x, y)}.
      *
@@ -157,12 +306,8 @@ public class DOMEnricher {
      */
     public List<String> detectFrameChain(double x, double y) {
         try {
-            JsonNode result = evaluateExpression(FRAME_DETECT_JS);
-            if (result == null || result.isNull()) {
-                return Collections.emptyList();
-            }
-
-            String frameValue = result.has("value") ? result.get("value").asText("") : "";
+            JsonNode value = remoteValue(evaluateExpression(FRAME_DETECT_JS));
+            String frameValue = value != null ? value.asText("") : "";
 
             if (TOP_FRAME_SENTINEL.equals(frameValue) || frameValue.isEmpty()) {
                 return Collections.emptyList();
@@ -177,8 +322,211 @@ public class DOMEnricher {
         }
     }
 
+    // ── Combined mode ─────────────────────────────────────────────────────
+
+    /**
+     * Everything the recorder needs about one event, from a single CDP call.
+     *
+     * @param element    element under the point, or {@code null}
+     * @param frameChain frame locators from the top document to the element (outermost first)
+     * @param url        top-level page URL
+     * @param title      top-level page title
+     */
+    public record Snapshot(ElementInfo element, List<String> frameChain, String url, String title) {}
+
+    /**
+     * Keys of a typed run that went to one focus target, from {@link #snapshotTyped}.
+     *
+     * @param from       index of the first key in the run
+     * @param element    focused element, or {@code null} if nothing was focused
+     * @param frameChain frame locators from the top document to the element (outermost first)
+     */
+    public record FocusSegment(int from, ElementInfo element, List<String> frameChain) {}
+
+    /**
+     * A {@link Snapshot} for typed input plus the focus target of each key.
+     *
+     * @param page  URL and title; element and frames of the first segment
+     * @param focus segments in key order, adjacent segments naming the same
+     *              element merged; never empty
+     */
+    public record TypedSnapshot(Snapshot page, List<FocusSegment> focus) {}
+
+    /**
+     * Installs the snapshot helper in every future document
+     * ({@code Page.addScriptToEvaluateOnNewDocument}) and in the current one.
+     *
+     * @throws IOException if the browser rejects the script
+     */
+    public void installHelper() throws IOException {
+        ObjectNode params = MAPPER.createObjectNode();
+        params.put("source", HELPER_JS);
+        cdp.sendCommand("Page.addScriptToEvaluateOnNewDocument", params);
+        evaluateExpression(HELPER_JS);
+        log.debug("DOMEnricher: snapshot helper installed");
+    }
+
+    /**
+     * Returns element info (when coordinates are given), frame chain, URL and
+     * title in one {@code Runtime.callFunctionOn} call, or {@code null} if the
+     * call fails.  Requires {@link #installHelper()}; a document without the
+     * helper gets it injected on the spot.
+     *
+     * @param x horizontal coordinate, or {@code null} for URL/title only
+     * @param y vertical coordinate, or {@code null} for URL/title only
+     */
+    public Snapshot snapshot(Double x, Double y) {
+        try {
+            JsonNode value = callHelperOnce(x, y, NullNode.getInstance());
+            if (value == null) {
+                log.debug("DOMEnricher: snapshot helper returned no data at ({}, {})", x, y);
+                return null;
+            }
+            return parseSnapshot(value);
+        } catch (Exception e) {
+            log.warn("DOMEnricher: snapshot failed at ({}, {}): {}", x, y, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Resolves the target of typed keys from the focus log kept by
+     * {@link #HELPER_JS}: each key goes to the element that had focus at its
+     * timestamp, not when this call runs.  One {@code Runtime.callFunctionOn}
+     * round trip covers the whole run.
+     *
+     * @param keyTimes epoch milliseconds at which each key was typed
+     * @return the snapshot, or {@code null} if the call fails
+     */
+    public TypedSnapshot snapshotTyped(long[] keyTimes) {
+        try {
+            ArrayNode times = MAPPER.createArrayNode();
+            for (long t : keyTimes) times.add(t);
+            JsonNode value = callHelperOnce(null, null, times);
+            if (value == null) {
+                log.debug("DOMEnricher: snapshot helper returned no focus data");
+                return null;
+            }
+
+            List<FocusSegment> focus = new ArrayList<>();
+            for (JsonNode seg : value.path("focus")) {
+                JsonNode el = seg.get("element");
+                ElementInfo info = (el == null || el.isNull()) ? null : parseElementInfo(el);
+                FocusSegment last = focus.isEmpty() ? null : focus.get(focus.size() - 1);
+                if (last != null && sameTarget(last.element(), info)) continue;
+                focus.add(new FocusSegment(seg.path("from").asInt(), info, frames(seg)));
+            }
+            Snapshot page = parseSnapshot(value);
+            if (focus.isEmpty()) focus.add(new FocusSegment(0, page.element(), page.frameChain()));
+            return new TypedSnapshot(page, focus);
+        } catch (Exception e) {
+            log.warn("DOMEnricher: typed snapshot failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Forgets the cached {@code window} reference.  Call when the page
+     * navigates; a stale reference is also detected and refreshed on use.
+     */
+    public void onNavigate() {
+        windowObjectId = null;
+    }
+
+    /**
+     * Calls the helper, injecting it first into a document that lacks it.
+     *
+     * @return the helper's result object, or {@code null} if it returned none
+     */
+    private JsonNode callHelperOnce(Double x, Double y, JsonNode keyTimes) throws IOException {
+        JsonNode value = callHelper(x, y, keyTimes);
+        if (value != null && value.path("missing").asBoolean(false)) {
+            evaluateExpression(HELPER_JS);
+            value = callHelper(x, y, keyTimes);
+        }
+        return value == null || !value.isObject() || value.has("missing") ? null : value;
+    }
+
+    private Snapshot parseSnapshot(JsonNode value) {
+        JsonNode el = value.get("element");
+        ElementInfo info = (el == null || el.isNull()) ? null : parseElementInfo(el);
+        return new Snapshot(info, frames(value), textOrNull(value, "url"), textOrNull(value, "title"));
+    }
+
+    private static List<String> frames(JsonNode node) {
+        List<String> frames = new ArrayList<>();
+        node.path("frames").forEach(f -> frames.add(f.asText()));
+        return frames;
+    }
+
+    /** Two focus targets are the same if both are empty or their fingerprints match. */
+    private static boolean sameTarget(ElementInfo a, ElementInfo b) {
+        if (a == null || b == null) return a == b;
+        return a.fingerprint().equals(b.fingerprint());
+    }
+
+    /**
+     * Calls the helper on the page's {@code window}, re-resolving the window
+     * once if the cached reference belongs to a previous document.
+     */
+    private JsonNode callHelper(Double x, Double y, JsonNode keyTimes) throws IOException {
+        String objectId = windowObjectId();
+        try {
+            return callFunctionOn(objectId, x, y, keyTimes);
+        } catch (IOException stale) {
+            log.debug("DOMEnricher: re-resolving window after: {}", stale.getMessage());
+            windowObjectId = null;
+            return callFunctionOn(windowObjectId(), x, y, keyTimes);
+        }
+    }
+
+    private JsonNode callFunctionOn(String objectId, Double x, Double y, JsonNode keyTimes) throws IOException {
+        ObjectNode params = MAPPER.createObjectNode();
+        params.put("objectId", objectId);
+        params.put("functionDeclaration", CALL_HELPER_FN);
+        params.put("returnByValue", true);
+        ArrayNode args = params.putArray("arguments");
+        args.addObject().put("value", x);
+        args.addObject().put("value", y);
+        args.addObject().set("value", keyTimes);
+
+        return remoteValue(cdp.sendCommand("Runtime.callFunctionOn", params));
+    }
+
+    private String windowObjectId() throws IOException {
+        String id = windowObjectId;
+        if (id == null) {
+            ObjectNode params = MAPPER.createObjectNode();
+            params.put("expression", "window");
+            JsonNode result = cdp.sendCommand("Runtime.evaluate", params);
+            JsonNode remote = result != null && result.has("result") ? result.get("result") : result;
+            id = remote != null ? textOrNull(remote, "objectId") : null;
+            if (id == null) throw new IOException("Runtime.evaluate('window') returned no objectId");
+            windowObjectId = id;
+        }
+        return id;
+    }
+
     // ── Internal helpers ──────────────────────────────────────────────────
 
+    /**
+     * Extracts the JavaScript value from a {@code Runtime.evaluate} /
+     * {@code Runtime.callFunctionOn} response, which nests it under
+     * {@code result.value}.  A bare {@code {value: …}} node is accepted too.
+     *
+     * @throws IOException if the script threw
+     */
+    static JsonNode remoteValue(JsonNode response) throws IOException {
+        if (response == null || response.isNull()) return null;
+        JsonNode exception = response.get("exceptionDetails");
+        if (exception != null && !exception.isNull()) {
+            throw new IOException("Script threw: " + exception.path("text").asText("unknown error"));
+        }
+        JsonNode remote = response.has("result") ? response.get("result") : response;
+        JsonNode value = remote.get("value");
+        return (value == null || value.isNull()) ? null : value;
+    }
+
     /**
      * Sends a {@code Runtime.evaluate} command and returns the raw CDP result node.
      */
@@ -0,0 +1,285 @@
+package autoqa.recorder;
+
+import autoqa.model.RecordedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, ordered capture pipeline between the OS input hook and the
+ * recorded session.
+ *
+ * <p>The hook thread calls {@link #submit} which only stamps the event with a
+ * sequence number (and a timestamp if it has none) and enqueues it — no CDP
+ * traffic happens on that thread.  A small pool of worker threads takes
+ * events off the queue and runs the {@link Stage} (DOM enrichment, URL/title
+ * lookup, filtering).  Finished events pass through a reorder buffer and are
+ * handed to the sink strictly in submission order, so the saved
+ * {@code RecordedSession} keeps the original sequence even when enrichment
+ * of a later keystroke finishes before an earlier click.
+ *
+ * <p>When the queue is full the hook thread blocks until a slot frees up —
+ * events are never dropped for capacity.  Each such stall is counted (see
+ * {@link #getStats()}) so a recording that outpaces enrichment is visible.
+ */
+public class EnrichmentPipeline implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrichmentPipeline.class);
+
+    /**
+     * Per-event work done off the hook thread.
+     */
+    @FunctionalInterface
+    public interface Stage {
+        /**
+         * Enriches {@code event} in place.
+         *
+         * @return {@code true} to keep the event, {@code false} to drop it (e.g. URL filter)
+         */
+        boolean process(RecordedEvent event) throws Exception;
+    }
+
+    /** Queued event with its submission sequence number. */
+    private record Item(long seq, RecordedEvent event, long enqueuedNanos) {}
+
+    /** Marker that tells a worker to exit. */
+    private static final Item POISON = new Item(-1, null, 0);
+
+    private final BlockingQueue<Item> queue;
+    private final int capacity;
+    private final Stage stage;
+    private final Consumer<RecordedEvent> sink;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicLong nextSeq = new AtomicLong();
+
+    /** Completed items waiting for earlier sequence numbers; guarded by {@code this}. */
+    private final Map<Long, RecordedEvent> reorder = new TreeMap<>();
+    private long nextCommit;
+    private long committed;
+
+    private final LongAdder submitted    = new LongAdder();
+    private final LongAdder dropped      = new LongAdder();
+    private final LongAdder failed       = new LongAdder();
+    private final LongAdder stalls       = new LongAdder();
+    private final LongAdder stallNanos   = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * Creates and starts the pipeline.
+     *
+     * @param capacity    maximum events waiting for enrichment
+     * @param workerCount number of enrichment threads
+     * @param stage       enrichment / filtering work, run on a worker thread
+     * @param sink        receives kept events in submission order
+     */
+    public EnrichmentPipeline(int capacity, int workerCount, Stage stage, Consumer<RecordedEvent> sink) {
+        if (capacity < 1 || workerCount < 1) {
+            throw new IllegalArgumentException(
+                    "capacity and workerCount must be >= 1, got " + capacity + "/" + workerCount);
+        }
+        this.capacity = capacity;
+        this.queue    = new ArrayBlockingQueue<>(capacity);
+        this.stage    = stage;
+        this.sink     = sink;
+        for (int i = 1; i <= workerCount; i++) {
+            Thread t = new Thread(this::workLoop, "recorder-enrich-" + i);
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+    }
+
+    // ── Producer side (hook thread) ───────────────────────────────────────
+
+    /**
+     * Stamps and enqueues a raw event.  Blocks only while the queue is full.
+     *
+     * @return {@code false} if the pipeline is closed or the caller was interrupted
+     */
+    public boolean submit(RecordedEvent event) {
+        if (closed) return false;
+        if (event.getTimestamp() == null) {
+            event.setTimestamp(Instant.now());
+        }
+        Item item;
+        synchronized (nextSeq) {
+            // Sequence numbers must match queue order, so assign and enqueue together
+            item = new Item(nextSeq.getAndIncrement(), event, System.nanoTime());
+            if (!queue.offer(item)) {
+                stalls.increment();
+                long start = System.nanoTime();
+                try {
+                    queue.put(item);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    // Keep the sequence contiguous so later events are not held back
+                    commit(item.seq(), null);
+                    return false;
+                } finally {
+                    stallNanos.add(System.nanoTime() - start);
+                }
+            }
+        }
+        submitted.increment();
+        maxDepth.accumulateAndGet(queue.size(), Math::max);
+        return true;
+    }
+
+    // ── Consumer side (workers) ───────────────────────────────────────────
+
+    private void workLoop() {
+        while (true) {
+            Item item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (item == POISON) return;
+
+            RecordedEvent keep = item.event();
+            try {
+                if (!stage.process(item.event())) {
+                    dropped.increment();
+                    keep = null;
+                }
+            } catch (Exception e) {
+                // Enrichment failure must not lose the event — commit it as captured
+                failed.increment();
+                log.debug("Enrichment failed for event #{}: {}", item.seq(), e.getMessage());
+            }
+
+            long latency = System.nanoTime() - item.enqueuedNanos();
+            latencyNanos.add(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            commit(item.seq(), keep);
+        }
+    }
+
+    /**
+     * Records a finished item and releases every contiguous finished item to
+     * the sink.  {@code event == null} marks a dropped item.
+     */
+    private synchronized void commit(long seq, RecordedEvent event) {
+        reorder.put(seq, event);
+        while (reorder.containsKey(nextCommit)) {
+            RecordedEvent e = reorder.remove(nextCommit);
+            nextCommit++;
+            committed++;
+            if (e != null) {
+                try {
+                    sink.accept(e);
+                } catch (RuntimeException ex) {
+                    log.warn("Recorder sink rejected event: {}", ex.getMessage());
+                }
+            }
+        }
+        notifyAll();
+    }
+
+    // ── Lifecycle ─────────────────────────────────────────────────────────
+
+    /**
+     * Stops accepting events and waits until everything already submitted
+     * has been enriched and handed to the sink.
+     *
+     * @return {@code true} if the pipeline drained within the timeout
+     */
+    public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+        closed = true;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long target = nextSeq.get();
+        synchronized (this) {
+            while (committed < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    log.warn("EnrichmentPipeline: {} event(s) still pending after drain timeout",
+                            target - committed);
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return true;
+    }
+
+    /** Stops the workers.  Call {@link #drain} first to avoid losing queued events. */
+    @Override
+    public void close() {
+        closed = true;
+        for (int i = 0; i < workers.size(); i++) {
+            if (!queue.offer(POISON)) {
+                workers.forEach(Thread::interrupt);
+                break;
+            }
+        }
+    }
+
+    // ── Metrics ───────────────────────────────────────────────────────────
+
+    /** Snapshot of pipeline counters. */
+    public Stats getStats() {
+        long done = committed();
+        return new Stats(
+                submitted.sum(),
+                done,
+                dropped.sum(),
+                failed.sum(),
+                queue.size(),
+                maxDepth.get(),
+                capacity,
+                stalls.sum(),
+                stallNanos.sum() / 1_000_000,
+                done == 0 ? 0 : latencyNanos.sum() / done / 1_000_000,
+                maxLatencyNanos.get() / 1_000_000);
+    }
+
+    private synchronized long committed() {
+        return committed;
+    }
+
+    /**
+     * Pipeline counters.
+     *
+     * @param submitted      events accepted from the hook thread
+     * @param committed      events that finished the pipeline (kept or dropped)
+     * @param dropped        events removed by the stage (e.g. URL filter)
+     * @param failed         events whose enrichment threw; they are kept un-enriched
+     * @param queueDepth     events currently waiting for a worker
+     * @param maxQueueDepth  high-water mark of {@code queueDepth}
+     * @param capacity       queue capacity
+     * @param stalls         times the hook thread blocked on a full queue
+     * @param stallMs        total time the hook thread spent blocked
+     * @param avgLatencyMs   mean enqueue-to-done time
+     * @param maxLatencyMs   worst enqueue-to-done time
+     */
+    public record Stats(long submitted, long committed, long dropped, long failed,
+                        int queueDepth, int maxQueueDepth, int capacity,
+                        long stalls, long stallMs, long avgLatencyMs, long maxLatencyMs) {
+
+        @Override
+        public String toString() {
+            return String.format("%d event(s), %d dropped, %d enrichment failure(s); "
+                            + "queue max %d/%d, %d stall(s) (%d ms); latency avg %d ms, max %d ms",
+                    submitted, dropped, failed, maxQueueDepth, capacity,
+                    stalls, stallMs, avgLatencyMs, maxLatencyMs);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package autoqa.recorder;
+
+import autoqa.model.InputData;
+import autoqa.model.RecordedEvent;
+import autoqa.model.RecordedEvent.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Merges a run of typed characters into a single {@code INPUT} event before
+ * it reaches the {@link EnrichmentPipeline}.
+ *
+ * <p>{@link OSInputCapture} reports one {@code INPUT} event per character.
+ * Replayed as-is, every character costs an element lookup plus
+ * {@code clear()}/{@code sendKeys()}, and each clear wipes the previous
+ * character; enriched one by one, every character also costs a CDP round
+ * trip.  The coalescer sits on the hook thread in front of the pipeline and
+ * hands it one {@link TypedRun} per run, which carries the time each
+ * character was typed.  Enrichment resolves the target of every character
+ * from the page's focus log at that time (see
+ * {@link DOMEnricher#snapshotTyped}), so a run is enriched once, and
+ * {@link TypedRun#applyFocus} splits it where focus moved on its own
+ * (auto-advancing fields, scripts).
+ *
+ * <p>The run is sealed and passed on when:
+ * <ul>
+ *   <li>any other event arrives — clicks, Tab, Shift+Tab, Enter and every
+ *       other key press move or may move focus, so the run is sealed before
+ *       that event is passed on and order is preserved;</li>
+ *   <li>no character has arrived for the idle-flush interval;</li>
+ *   <li>{@link #flush()} or {@link #close()} is called.</li>
+ * </ul>
+ *
+ * <p>A plain Backspace while a run is open deletes the last buffered
+ * character instead of being recorded as a separate key press; a run erased
+ * completely is dropped rather than recorded as empty input.
+ */
+public class KeystrokeCoalescer implements Consumer<RecordedEvent>, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(KeystrokeCoalescer.class);
+
+    private static final String BACK_SPACE = "BACK_SPACE";
+
+    private final Consumer<RecordedEvent> sink;
+    private final long idleFlushMs;
+    private final ScheduledExecutorService timer;
+
+    // Open run — guarded by this
+    private TypedRun run;
+    private final StringBuilder runKeys = new StringBuilder();
+    private long[] runTimes = new long[16];
+    private ScheduledFuture<?> idleFlush;
+
+    private long characters;
+    private long emitted;
+
+    /**
+     * @param sink        receives coalesced and pass-through events, in order
+     * @param idleFlushMs seal a run after this long without a new character;
+     *                    {@code <= 0} disables the idle flush
+     */
+    public KeystrokeCoalescer(Consumer<RecordedEvent> sink, long idleFlushMs) {
+        this.sink        = sink;
+        this.idleFlushMs = idleFlushMs;
+        this.timer = idleFlushMs > 0
+                ? Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "recorder-coalesce");
+                    t.setDaemon(true);
+                    return t;
+                })
+                : null;
+    }
+
+    // ── Input ─────────────────────────────────────────────────────────────
+
+    /** Accepts a raw event from the input hook. */
+    @Override
+    public synchronized void accept(RecordedEvent event) {
+        if (isTypedText(event)) {
+            appendTyped(event);
+            return;
+        }
+        if (run != null && isPlainBackspace(event) && runKeys.length() > 0) {
+            runKeys.setLength(runKeys.length() - 1);
+            scheduleIdleFlush();
+            return;
+        }
+        flush();
+        emit(event);
+    }
+
+    /** Seals the open run, if any, passing it on to the sink. */
+    public synchronized void flush() {
+        if (idleFlush != null) {
+            idleFlush.cancel(false);
+            idleFlush = null;
+        }
+        if (run == null) return;
+        if (runKeys.length() == 0) {
+            // Backspace erased everything typed — nothing to replay
+            log.debug("Dropped a typed run erased by Backspace");
+            run = null;
+            return;
+        }
+
+        TypedRun sealed = run;
+        sealed.getInputData().setKeys(runKeys.toString());
+        sealed.keyTimes = Arrays.copyOf(runTimes, runKeys.length());
+        log.debug("Coalesced {} character(s) into one INPUT event", runKeys.length());
+        run = null;
+        runKeys.setLength(0);
+        emit(sealed);
+    }
+
+    /** Seals the open run and stops the idle timer. */
+    @Override
+    public void close() {
+        flush();
+        if (timer != null) timer.shutdownNow();
+    }
+
+    // ── Statistics ────────────────────────────────────────────────────────
+
+    /** Typed characters received. */
+    public synchronized long getCharacters() { return characters; }
+
+    /** Events passed on to the sink (coalesced runs plus other events). */
+    public synchronized long getEmitted()    { return emitted; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("KeystrokeCoalescer{%d character(s), %d event(s) emitted}",
+                characters, emitted);
+    }
+
+    // ── Typed run ─────────────────────────────────────────────────────────
+
+    /**
+     * A coalesced {@code INPUT} event that remembers when each of its
+     * characters was typed.  Serializes like any other {@link RecordedEvent}.
+     */
+    public static final class TypedRun extends RecordedEvent {
+
+        private long[] keyTimes = new long[0];
+        private List<RecordedEvent> continuations = List.of();
+
+        TypedRun(Instant start) {
+            setEventType(EventType.INPUT);
+            setTimestamp(start);
+            setInputData(new InputData());
+        }
+
+        /** Epoch milliseconds at which each character of the keys was typed. */
+        public long[] keyTimes() { return keyTimes.clone(); }
+
+        /**
+         * Events for the keys that went to a later focus target, in order;
+         * empty unless {@link #applyFocus} split the run.
+         */
+        public List<RecordedEvent> continuations() { return continuations; }
+
+        /**
+         * Sets the element and frame chain of this run from the first focus
+         * segment and moves the keys of every later segment into a
+         * {@linkplain #continuations() continuation} event.  URL and title
+         * must already be set; continuations copy them.
+         */
+        public void applyFocus(List<DOMEnricher.FocusSegment> focus) {
+            String keys = getInputData().getKeys();
+            List<RecordedEvent> next = new ArrayList<>();
+            for (int i = 0; i < focus.size(); i++) {
+                DOMEnricher.FocusSegment seg = focus.get(i);
+                int end = i + 1 < focus.size() ? focus.get(i + 1).from() : keys.length();
+                if (seg.from() >= end) continue;
+                RecordedEvent target = i == 0 ? this : new RecordedEvent();
+                if (i > 0) {
+                    target.setEventType(EventType.INPUT);
+                    target.setTimestamp(Instant.ofEpochMilli(keyTimes[seg.from()]));
+                    target.setInputData(InputData.ofKeys(keys.substring(seg.from(), end)));
+                    target.setUrl(getUrl());
+                    target.setPageTitle(getPageTitle());
+                    next.add(target);
+                } else {
+                    getInputData().setKeys(keys.substring(0, end));
+                }
+                target.setElement(seg.element());
+                if (!seg.frameChain().isEmpty()) target.setFrameChain(seg.frameChain());
+            }
+            continuations = List.copyOf(next);
+        }
+    }
+
+    // ── Private helpers ───────────────────────────────────────────────────
+
+    private void appendTyped(RecordedEvent event) {
+        characters++;
+        Instant at = event.getTimestamp() != null ? event.getTimestamp() : Instant.now();
+        if (run == null) run = new TypedRun(at);
+        String keys = event.getInputData().getKeys();
+        int needed = runKeys.length() + keys.length();
+        if (needed > runTimes.length) runTimes = Arrays.copyOf(runTimes, Math.max(needed, runTimes.length * 2));
+        Arrays.fill(runTimes, runKeys.length(), needed, at.toEpochMilli());
+        runKeys.append(keys);
+        scheduleIdleFlush();
+    }
+
+    private void emit(RecordedEvent event) {
+        emitted++;
+        try {
+            sink.accept(event);
+        } catch (RuntimeException e) {
+            log.warn("Recorder sink rejected event: {}", e.getMessage());
+        }
+    }
+
+    private void scheduleIdleFlush() {
+        if (timer == null) return;
+        if (idleFlush != null) idleFlush.cancel(false);
+        idleFlush = timer.schedule(this::flush, idleFlushMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Keyboard text without coordinates or element — the shape {@link OSInputCapture} emits. */
+    private static boolean isTypedText(RecordedEvent event) {
+        return event.getEventType() == EventType.INPUT
+                && event.getCoordinates() == null
+                && event.getElement() == null
+                && event.getInputData() != null
+                && event.getInputData().getKeys() != null;
+    }
+
+    private static boolean isPlainBackspace(RecordedEvent event) {
+        InputData in = event.getInputData();
+        return event.getEventType() == EventType.KEY_PRESS
+                && in != null
+                && BACK_SPACE.equals(in.getKeyCode())
+                && (in.getModifiers() == null || in.getModifiers().isEmpty());
+    }
+}
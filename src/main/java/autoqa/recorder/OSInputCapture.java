@@ -192,8 +192,8 @@ public class OSInputCapture implements InputCaptureAdapter,
 
     /**
      * Records each printable character as an INPUT event.
-     * The player coalesces consecutive INPUT events on the same element
-     * into a single {@code sendKeys()} call.
+     * {@link KeystrokeCoalescer} merges consecutive characters into a single
+     * INPUT event per field before enrichment.
      */
     @Override
     public void nativeKeyTyped(NativeKeyEvent e) {
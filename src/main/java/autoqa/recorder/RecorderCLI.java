@@ -10,8 +10,11 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 /**
  * PicoCLI entry-point for the recorder subsystem.
@@ -23,6 +26,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *   <li>{@code record stop}  — informational; instructs the user to Ctrl+C
  *       the running process (no IPC is implemented in phase 3B).</li>
  *   <li>{@code record list}  — lists recordings in a directory with event counts.</li>
+ *   <li>{@code record convert} — converts a recording between JSON and NDJSON.</li>
+ *   <li>{@code record migrate-screenshots} — moves inline base64 screenshots
+ *       into the recording's sidecar screenshot store.</li>
  * </ul>
  *
  * <p>This class is wired into {@code autoqa.cli.WrapperCLI} as a sub-command.
@@ -34,7 +40,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
         subcommands = {
                 RecorderCLI.StartCommand.class,
                 RecorderCLI.StopCommand.class,
-                RecorderCLI.ListCommand.class
+                RecorderCLI.ListCommand.class,
+                RecorderCLI.ConvertCommand.class,
+                RecorderCLI.MigrateScreenshotsCommand.class
         }
 )
 public class RecorderCLI implements Callable<Integer> {
@@ -263,7 +271,7 @@ public class RecorderCLI implements Callable<Integer> {
     }
 
     /**
-     * Lists all {@code .json} recording files in a directory, showing
+     * Lists all {@code .json} / {@code .ndjson} recording files in a directory, showing
      * each file name and its event count.
      */
     @Command(
@@ -297,7 +305,7 @@ public class RecorderCLI implements Callable<Integer> {
             long[] totals = {0L, 0L}; // [fileCount, eventCount]
 
             Files.list(recordingsDir)
-                    .filter(p -> p.toString().endsWith(".json"))
+                    .filter(RecordingIO::isRecordingFile)
                     .sorted()
                     .forEach(p -> {
                         try {
@@ -324,4 +332,78 @@ public class RecorderCLI implements Callable<Integer> {
             return 0;
         }
     }
+
+    /**
+     * Converts a recording between the JSON and NDJSON formats; the target
+     * format follows the output file extension.
+     */
+    @Command(
+            name        = "convert",
+            description = "Convert a recording between .json and .ndjson",
+            mixinStandardHelpOptions = true
+    )
+    static class ConvertCommand implements Callable<Integer> {
+
+        @CommandLine.Parameters(index = "0", description = "Source recording (.json or .ndjson)")
+        Path source;
+
+        @CommandLine.Parameters(index = "1", description = "Target recording (.json or .ndjson)")
+        Path target;
+
+        @Override
+        public Integer call() throws Exception {
+            if (!Files.isRegularFile(source)) {
+                System.err.println("Recording not found: " + source.toAbsolutePath());
+                return 1;
+            }
+            RecordingIO.convert(source, target);
+            System.out.println("Converted " + source + " -> " + target.toAbsolutePath());
+            return 0;
+        }
+    }
+
+    /**
+     * Moves inline {@code screenshotBase64} data out of existing recordings
+     * into their content-addressed {@code <name>.screenshots/} directory.
+     */
+    @Command(
+            name        = "migrate-screenshots",
+            description = "Move inline base64 screenshots into a sidecar screenshot store",
+            mixinStandardHelpOptions = true
+    )
+    static class MigrateScreenshotsCommand implements Callable<Integer> {
+
+        @CommandLine.Parameters(arity = "1..*", description = "Recording files or directories of recordings")
+        List<Path> paths;
+
+        @Override
+        public Integer call() throws Exception {
+            List<Path> files = new ArrayList<>();
+            for (Path p : paths) {
+                if (Files.isDirectory(p)) {
+                    try (Stream<Path> s = Files.list(p)) {
+                        s.filter(Files::isRegularFile).filter(RecordingIO::isRecordingFile)
+                                .sorted().forEach(files::add);
+                    }
+                } else if (Files.isRegularFile(p)) {
+                    files.add(p);
+                } else {
+                    System.err.println("Recording not found: " + p.toAbsolutePath());
+                    return 1;
+                }
+            }
+
+            int failures = 0;
+            for (Path f : files) {
+                try {
+                    int moved = RecordingIO.migrateScreenshots(f);
+                    System.out.printf("%-50s %5d screenshot(s) moved%n", f.getFileName(), moved);
+                } catch (Exception e) {
+                    System.err.printf("%-50s failed: %s%n", f.getFileName(), e.getMessage());
+                    failures++;
+                }
+            }
+            return failures == 0 ? 0 : 1;
+        }
+    }
 }
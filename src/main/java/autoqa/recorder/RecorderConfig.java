@@ -20,11 +20,18 @@ import java.util.stream.Collectors;
  *   <tr><th>Key</th><th>Default</th><th>Description</th></tr>
  *   <tr><td>recorder.output.dir</td><td>recordings</td><td>Output directory</td></tr>
  *   <tr><td>recorder.session.prefix</td><td>recording</td><td>File-name prefix</td></tr>
+ *   <tr><td>recorder.output.format</td><td>json</td><td>Saved format: json, or ndjson (one event per line)</td></tr>
  *   <tr><td>recorder.redact.types</td><td>password</td><td>Comma-separated element types to redact</td></tr>
  *   <tr><td>recorder.redact.selectors</td><td>(empty)</td><td>Comma-separated CSS selector substrings to redact</td></tr>
  *   <tr><td>recorder.cdp.port</td><td>9222</td><td>Edge remote-debugging port</td></tr>
  *   <tr><td>recorder.cdp.ws.timeout.sec</td><td>10</td><td>CDP WebSocket connect/command timeout</td></tr>
  *   <tr><td>recorder.url.whitelist</td><td>(empty)</td><td>Comma-separated URL prefixes to allow (empty = all)</td></tr>
+ *   <tr><td>recorder.pipeline.capacity</td><td>1024</td><td>Events queued for enrichment before the input hook blocks</td></tr>
+ *   <tr><td>recorder.pipeline.workers</td><td>2</td><td>Enrichment threads</td></tr>
+ *   <tr><td>recorder.pipeline.drain.timeout.sec</td><td>10</td><td>How long stop() waits for queued events</td></tr>
+ *   <tr><td>recorder.enrich.combined</td><td>true</td><td>Fetch element, frames, URL and title in one CDP call</td></tr>
+ *   <tr><td>recorder.coalesce.enabled</td><td>true</td><td>Merge typed characters into one INPUT event per field</td></tr>
+ *   <tr><td>recorder.coalesce.idle.ms</td><td>1000</td><td>Close a typing run after this long without a keystroke</td></tr>
  * </table>
  */
 public class RecorderConfig {
@@ -37,20 +44,34 @@ public class RecorderConfig {
     // Property keys
     private static final String KEY_OUTPUT_DIR        = "recorder.output.dir";
     private static final String KEY_SESSION_PREFIX    = "recorder.session.prefix";
+    private static final String KEY_OUTPUT_FORMAT     = "recorder.output.format";
     private static final String KEY_REDACT_TYPES      = "recorder.redact.types";
     private static final String KEY_REDACT_SELECTORS  = "recorder.redact.selectors";
     private static final String KEY_CDP_PORT          = "recorder.cdp.port";
     private static final String KEY_CDP_WS_TIMEOUT    = "recorder.cdp.ws.timeout.sec";
     private static final String KEY_URL_WHITELIST     = "recorder.url.whitelist";
+    private static final String KEY_PIPELINE_CAPACITY = "recorder.pipeline.capacity";
+    private static final String KEY_PIPELINE_WORKERS  = "recorder.pipeline.workers";
+    private static final String KEY_PIPELINE_DRAIN    = "recorder.pipeline.drain.timeout.sec";
+    private static final String KEY_ENRICH_COMBINED   = "recorder.enrich.combined";
+    private static final String KEY_COALESCE_ENABLED  = "recorder.coalesce.enabled";
+    private static final String KEY_COALESCE_IDLE_MS  = "recorder.coalesce.idle.ms";
 
     // Defaults
     private static final String  DEFAULT_OUTPUT_DIR      = "recordings";
     private static final String  DEFAULT_SESSION_PREFIX  = "recording";
+    private static final String  DEFAULT_OUTPUT_FORMAT   = "json";
     private static final String  DEFAULT_REDACT_TYPES    = "password";
     private static final String  DEFAULT_REDACT_SELECTORS = "";
     private static final int     DEFAULT_CDP_PORT        = 9222;
     private static final int     DEFAULT_CDP_WS_TIMEOUT  = 10;
     private static final String  DEFAULT_URL_WHITELIST   = "";
+    private static final int     DEFAULT_PIPELINE_CAPACITY = 1024;
+    private static final int     DEFAULT_PIPELINE_WORKERS  = 2;
+    private static final int     DEFAULT_PIPELINE_DRAIN    = 10;
+    private static final boolean DEFAULT_ENRICH_COMBINED   = true;
+    private static final boolean DEFAULT_COALESCE_ENABLED  = true;
+    private static final int     DEFAULT_COALESCE_IDLE_MS  = 1000;
 
     private final Properties props;
 
@@ -98,6 +119,21 @@ public class RecorderConfig {
         return props.getProperty(KEY_SESSION_PREFIX, DEFAULT_SESSION_PREFIX).trim();
     }
 
+    /**
+     * Format of the saved recording: {@code json} (single document, default)
+     * or {@code ndjson} (header line plus one event per line).  Events are
+     * journalled as NDJSON while recording either way; {@code json} converts
+     * the journal on stop.  Unknown values fall back to {@code json}.
+     */
+    public String getOutputFormat() {
+        String raw = props.getProperty(KEY_OUTPUT_FORMAT, DEFAULT_OUTPUT_FORMAT).trim().toLowerCase(Locale.ROOT);
+        if (!raw.equals("json") && !raw.equals("ndjson")) {
+            log.warn("Invalid value for '{}': '{}' — using {}", KEY_OUTPUT_FORMAT, raw, DEFAULT_OUTPUT_FORMAT);
+            return DEFAULT_OUTPUT_FORMAT;
+        }
+        return raw;
+    }
+
     /**
      * Set of HTML input {@code type} attribute values whose text content
      * should be redacted before persisting (e.g., {@code "password"}).
@@ -176,6 +212,55 @@ public class RecorderConfig {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Maximum number of captured events waiting for DOM enrichment before the
+     * input hook blocks.  Default: {@code 1024}.
+     */
+    public int getPipelineCapacity() {
+        return Math.max(1, getInt(KEY_PIPELINE_CAPACITY, DEFAULT_PIPELINE_CAPACITY));
+    }
+
+    /**
+     * Number of threads enriching captured events in parallel; events are
+     * still saved in capture order.  Default: {@code 2}.
+     */
+    public int getPipelineWorkers() {
+        return Math.max(1, getInt(KEY_PIPELINE_WORKERS, DEFAULT_PIPELINE_WORKERS));
+    }
+
+    /**
+     * How long {@code stop()} waits for queued events to finish enrichment,
+     * in seconds.  Default: {@code 10}.
+     */
+    public int getPipelineDrainTimeoutSec() {
+        return getInt(KEY_PIPELINE_DRAIN, DEFAULT_PIPELINE_DRAIN);
+    }
+
+    /**
+     * Whether each event is enriched with one {@code Runtime.callFunctionOn}
+     * to a helper installed per document, rather than separate evaluations for
+     * element, frame, URL and title.  Default: {@code true}.
+     */
+    public boolean isEnrichCombined() {
+        return getBool(KEY_ENRICH_COMBINED, DEFAULT_ENRICH_COMBINED);
+    }
+
+    /**
+     * Whether consecutive typed characters are merged into one INPUT event
+     * per field.  Default: {@code true}.
+     */
+    public boolean isCoalesceEnabled() {
+        return getBool(KEY_COALESCE_ENABLED, DEFAULT_COALESCE_ENABLED);
+    }
+
+    /**
+     * Milliseconds without a keystroke after which a typing run is closed
+     * and recorded.  Default: {@code 1000}.
+     */
+    public int getCoalesceIdleMs() {
+        return getInt(KEY_COALESCE_IDLE_MS, DEFAULT_COALESCE_IDLE_MS);
+    }
+
     // ── Internal helpers ──────────────────────────────────────────────────
 
     private void loadBase() {
@@ -219,6 +304,11 @@ public class RecorderConfig {
         }
     }
 
+    private boolean getBool(String key, boolean defaultValue) {
+        String raw = props.getProperty(key);
+        return (raw == null || raw.isBlank()) ? defaultValue : Boolean.parseBoolean(raw.trim());
+    }
+
     /**
      * Splits a comma-separated string into a trimmed, lower-cased Set.
      * Empty tokens are discarded.
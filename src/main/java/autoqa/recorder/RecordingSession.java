@@ -3,6 +3,7 @@ package autoqa.recorder;
 import autoqa.model.RecordedEvent;
 import autoqa.model.RecordedSession;
 import autoqa.model.RecordingIO;
+import autoqa.model.RecordingWriter;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -16,7 +17,9 @@ import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A single recording session that wires together {@link CDPConnector},
@@ -32,11 +35,22 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * System.out.println("Recording saved to: " + saved);
  * }</pre>
  *
- * <p>Events are delivered from the {@link InputCaptureAdapter} on a
- * background thread. DOM enrichment and redaction happen synchronously
- * inside {@link #onOsEvent(RecordedEvent)} on that same thread, so no
- * additional synchronisation is needed beyond the {@link AtomicBoolean}
- * guard on {@code running}.
+ * <p>Events are delivered from the {@link InputCaptureAdapter} on its hook
+ * thread.  {@link #onOsEvent(RecordedEvent)} only hands them to a
+ * {@link KeystrokeCoalescer}, which merges a run of typed characters into one
+ * INPUT event, and on to an {@link EnrichmentPipeline}; DOM enrichment, the
+ * URL/title lookup, filtering and redaction run on the pipeline's worker
+ * threads, and events are appended to the session in the order they were
+ * captured.  The target of typed text is resolved from the page's focus log
+ * at the time each key was typed, not from the focus when a worker gets to
+ * the run.  {@link #stop()} drains the pipeline before the recording is
+ * written.
+ *
+ * <p>Each event is appended to an NDJSON journal ({@link RecordingWriter}) as
+ * soon as it leaves the pipeline rather than held in memory, so a crash
+ * loses at most the last event.  {@link #stop()} keeps the journal as the
+ * recording ({@code recorder.output.format=ndjson}) or converts it to the
+ * JSON format.
  */
 public class RecordingSession {
 
@@ -61,8 +75,26 @@ public class RecordingSession {
      */
     private final String urlFilter;
 
+    /** Session metadata; holds events only if the journal cannot be written. */
     private final RecordedSession data;
     private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicInteger eventCount = new AtomicInteger();
+
+    /** Append-as-you-go journal; {@code null} before start or after a write failure. */
+    private volatile RecordingWriter journal;
+    private Path journalPath;
+
+    /** Off-hook-thread enrichment; created by {@link #start()}. */
+    private volatile EnrichmentPipeline pipeline;
+
+    /** Merges typed characters before {@link #pipeline}; {@code null} when disabled. */
+    private volatile KeystrokeCoalescer coalescer;
+
+    /**
+     * Whether events are enriched with one {@link DOMEnricher#snapshot} call;
+     * cleared by {@link #start()} if the helper cannot be installed.
+     */
+    private volatile boolean combinedEnrichment;
 
     // ── Construction ──────────────────────────────────────────────────────
 
@@ -115,6 +147,7 @@ public class RecordingSession {
         this.cdp          = new CDPConnector(config.getCdpPort(), config.getCdpWsTimeoutSec());
         this.domEnricher  = new DOMEnricher(cdp);
         this.redactor     = new FieldRedactor(config.getRedactTypes(), config.getRedactSelectors());
+        this.combinedEnrichment = config.isEnrichCombined();
 
         // Populate session metadata
         this.data = new RecordedSession();
@@ -166,17 +199,39 @@ public class RecordingSession {
         // Register CDP event listener for page navigation events
         cdp.addEventListeners(this::onCdpEvent);
 
+        // One snapshot helper per document replaces four evaluations per event
+        if (combinedEnrichment) {
+            try {
+                domEnricher.installHelper();
+            } catch (IOException e) {
+                log.warn("Cannot install DOM snapshot helper — using per-field enrichment: {}",
+                        e.getMessage());
+                combinedEnrichment = false;
+            }
+        }
+
         // Mark session start time
         data.setStartTimestamp(Instant.now());
 
         // Read Edge version from the browser
         captureBrowserVersion();
 
+        // Journal events to disk as they are recorded (header carries the metadata above)
+        openJournal();
+
         // Inject a NAVIGATE event for the page that is open right now.
         // This ensures playback always has a starting URL even when the user
         // began recording on a page that was already loaded (the common case).
         injectInitialNavigate();
 
+        // Enrichment runs off the hook thread so fast input is not delayed or reordered
+        EnrichmentPipeline p = new EnrichmentPipeline(config.getPipelineCapacity(),
+                config.getPipelineWorkers(), this::enrich, this::append);
+        pipeline = p;
+        coalescer = config.isCoalesceEnabled()
+                ? new KeystrokeCoalescer(p::submit, config.getCoalesceIdleMs())
+                : null;
+
         // Start OS-level input capture
         inputCapture.start(this::onOsEvent);
 
@@ -184,8 +239,8 @@ public class RecordingSession {
     }
 
     /**
-     * Stops the recording session, serialises all captured events to a JSON
-     * file, and returns the path to that file.
+     * Stops the recording session, finishes the event journal, saves it in
+     * the configured format and returns the path to the recording.
      *
      * <p>It is safe to call {@code stop()} more than once; subsequent calls
      * return immediately with {@code null}.
@@ -200,23 +255,40 @@ public class RecordingSession {
         }
 
         log.info("Stopping recording session {} ({} events captured)",
-                data.getSessionId(), data.getEventCount());
+                data.getSessionId(), eventCount.get());
 
         // Stop OS hooks first so no new events arrive while we're writing
         inputCapture.stop();
 
+        // Close any open typing run so it reaches the pipeline
+        KeystrokeCoalescer c = coalescer;
+        if (c != null) {
+            c.close();
+            log.info("Keystroke coalescing: {}", c);
+        }
+
+        // Let in-flight events finish enrichment (needs CDP, so before cdp.close())
+        EnrichmentPipeline p = pipeline;
+        if (p != null) {
+            try {
+                p.drain(config.getPipelineDrainTimeoutSec(), TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                p.close();
+            }
+            log.info("Recorder pipeline: {}", p.getStats());
+        }
+
         // Record end time
         data.setEndTimestamp(Instant.now());
 
         // Close CDP connection
         cdp.close();
 
-        // Build output path and write JSON
-        Path outputPath = buildOutputPath();
-        Files.createDirectories(outputPath.getParent());
-        RecordingIO.write(data, outputPath);
-
-        log.info("Recording session {} saved to {}", data.getSessionId(), outputPath);
+        Path outputPath = saveRecording();
+        log.info("Recording session {} saved to {} ({} events)",
+                data.getSessionId(), outputPath, eventCount.get());
         return outputPath;
     }
 
@@ -225,7 +297,7 @@ public class RecordingSession {
      * Safe to call while the session is running.
      */
     public int getEventCount() {
-        return data.getEventCount();
+        return eventCount.get();
     }
 
     /**
@@ -238,18 +310,123 @@ public class RecordingSession {
     // ── Package-visible callback: OS input events ─────────────────────────
 
     /**
-     * Receives a raw {@link RecordedEvent} from the {@link InputCaptureAdapter},
-     * enriches it with DOM metadata and the current URL, applies redaction,
-     * and appends it to the session.
+     * Receives a raw {@link RecordedEvent} from the {@link InputCaptureAdapter}
+     * and queues it for enrichment.
      *
-     * <p>Called on the input-capture thread. Guard is lightweight ({@link AtomicBoolean});
-     * no blocking is performed on the happy path.
+     * <p>Called on the input-capture thread, which must stay responsive: no
+     * CDP call is made here.  Typed characters join the coalescer's open run;
+     * other events seal it and are enqueued behind it.  It blocks only if the
+     * pipeline queue is full.
      *
      * @param event raw event from OS hooks
      */
     void onOsEvent(RecordedEvent event) {
         if (!running.get()) return;
+        KeystrokeCoalescer c = coalescer;
+        if (c != null) {
+            c.accept(event);
+            return;
+        }
+        EnrichmentPipeline p = pipeline;
+        if (p != null) p.submit(event);
+    }
+
+    /**
+     * Returns enrichment pipeline counters (queue depth, stalls, latency), or
+     * {@code null} before {@link #start()}.
+     */
+    public EnrichmentPipeline.Stats getPipelineStats() {
+        EnrichmentPipeline p = pipeline;
+        return p != null ? p.getStats() : null;
+    }
+
+    // ── Pipeline stages ───────────────────────────────────────────────────
+
+    /**
+     * Enriches an event with DOM metadata and the current URL/title.  Runs on
+     * a pipeline worker thread.
+     *
+     * @return {@code false} when the event is dropped by the URL filter
+     */
+    boolean enrich(RecordedEvent event) {
+        String href = combinedEnrichment ? enrichCombined(event) : enrichSeparately(event);
+
+        // URL filter: drop events that don't match the configured focus URL
+        if (urlFilter != null) {
+            if (href == null || !href.contains(urlFilter)) {
+                log.debug("Event dropped — URL '{}' does not match filter '{}'", href, urlFilter);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fills element, frame chain, URL and title from one
+     * {@link DOMEnricher#snapshot} call, falling back to
+     * {@link #enrichSeparately} if it fails.  Typed text is resolved with
+     * {@link DOMEnricher#snapshotTyped} from the times its keys were typed.
+     *
+     * @return the page URL, or {@code null} if unknown
+     */
+    private String enrichCombined(RecordedEvent event) {
+        if (isTypedInput(event)) return enrichTyped(event);
+
+        Double x = event.getCoordinates() != null ? event.getCoordinates().getX() : null;
+        Double y = event.getCoordinates() != null ? event.getCoordinates().getY() : null;
+
+        DOMEnricher.Snapshot snap = domEnricher.snapshot(x, y);
+        if (snap == null) return enrichSeparately(event);
+
+        if (x != null) {
+            event.setElement(snap.element());
+            if (!snap.frameChain().isEmpty()) {
+                event.setFrameChain(snap.frameChain());
+            }
+        }
+        event.setUrl(snap.url());
+        event.setPageTitle(snap.title());
+        return snap.url();
+    }
+
+    /**
+     * Resolves the focus target of each typed key in one call.  A
+     * {@link KeystrokeCoalescer.TypedRun} whose keys went to several elements
+     * is split into continuation events, appended right after it.
+     *
+     * @return the page URL, or {@code null} if unknown
+     */
+    private String enrichTyped(RecordedEvent event) {
+        long[] times;
+        if (event instanceof KeystrokeCoalescer.TypedRun run) {
+            times = run.keyTimes();
+        } else {
+            times = new long[event.getInputData().getKeys().length()];
+            java.util.Arrays.fill(times, event.getTimestamp().toEpochMilli());
+        }
+
+        DOMEnricher.TypedSnapshot snap = domEnricher.snapshotTyped(times);
+        if (snap == null) return enrichSeparately(event);
 
+        event.setUrl(snap.page().url());
+        event.setPageTitle(snap.page().title());
+        if (event instanceof KeystrokeCoalescer.TypedRun run) {
+            run.applyFocus(snap.focus());
+        } else {
+            event.setElement(snap.page().element());
+            if (!snap.page().frameChain().isEmpty()) event.setFrameChain(snap.page().frameChain());
+        }
+        return snap.page().url();
+    }
+
+    /**
+     * Fills element, frame chain, URL and title with one CDP evaluation each.
+     * Without the snapshot helper there is no focus log, so typed text goes
+     * to the element focused when this runs.
+     *
+     * @return the page URL, or {@code null} if unknown
+     */
+    private String enrichSeparately(RecordedEvent event) {
         // DOM enrichment — only for mouse events that have coordinates
         if (event.getCoordinates() != null) {
             double x = event.getCoordinates().getX();
@@ -267,6 +444,9 @@ public class RecordingSession {
                 // DOM enrichment failure must not drop the event — log and continue
                 log.debug("DOM enrichment failed for event at ({}, {}): {}", x, y, e.getMessage());
             }
+        } else if (isTypedInput(event)) {
+            // Keyboard input has no coordinates — the target is the focused field
+            event.setElement(domEnricher.enrichFocused());
         }
 
         // Capture current URL and page title via CDP
@@ -279,21 +459,114 @@ public class RecordingSession {
         } catch (Exception e) {
             log.debug("Failed to read current URL/title: {}", e.getMessage());
         }
+        return href;
+    }
 
-        // URL filter: drop events that don't match the configured focus URL
-        if (urlFilter != null) {
-            if (href == null || !href.contains(urlFilter)) {
-                log.debug("Event dropped — URL '{}' does not match filter '{}'", href, urlFilter);
-                return;
-            }
-        }
+    /** Keyboard text from the input hook, whose target is the focused element. */
+    private static boolean isTypedInput(RecordedEvent event) {
+        return event.getEventType() == RecordedEvent.EventType.INPUT
+                && event.getCoordinates() == null
+                && event.getElement() == null;
+    }
 
+    /**
+     * Redacts and appends an enriched event, followed by the continuations of
+     * a split typing run.  Called by the pipeline in capture order.
+     */
+    private void append(RecordedEvent event) {
         // Redact sensitive input
         redactor.redact(event);
 
         // Append to session
-        data.addEvent(event);
+        record(event);
         log.debug("Event recorded: type={}, url='{}'", event.getEventType(), event.getUrl());
+
+        if (event instanceof KeystrokeCoalescer.TypedRun run) {
+            for (RecordedEvent next : run.continuations()) append(next);
+        }
+    }
+
+    // ── Persistence ───────────────────────────────────────────────────────
+
+    /** Opens the NDJSON journal; on failure events are kept in memory instead. */
+    private void openJournal() {
+        Path path = buildOutputPath(RecordingIO.NDJSON_EXTENSION);
+        try {
+            journal = RecordingIO.openWriter(data, path);
+            journalPath = path;
+            log.info("Journalling events to {}", path);
+        } catch (IOException e) {
+            log.warn("Cannot open recording journal {} — keeping events in memory: {}", path, e.getMessage());
+        }
+    }
+
+    /** Appends one finished event to the journal, or to memory if there is none. */
+    private void record(RecordedEvent event) {
+        RecordingWriter w = journal;
+        if (w != null) {
+            try {
+                w.append(event);
+                eventCount.incrementAndGet();
+                return;
+            } catch (IOException e) {
+                log.error("Cannot append to recording journal {} — keeping further events in memory: {}",
+                        journalPath, e.getMessage());
+                journal = null;
+                closeQuietly(w);
+            }
+        }
+        data.addEvent(event);
+        eventCount.incrementAndGet();
+    }
+
+    /**
+     * Finishes the journal and produces the recording in the configured
+     * format.
+     *
+     * @return path of the saved recording
+     */
+    private Path saveRecording() throws IOException {
+        boolean ndjson = "ndjson".equals(config.getOutputFormat());
+        RecordingWriter w = journal;
+        journal = null;
+
+        if (journalPath == null) {
+            // No journal — everything is in memory
+            Path out = buildOutputPath(ndjson ? RecordingIO.NDJSON_EXTENSION : ".json");
+            RecordingIO.write(data, out);
+            return out;
+        }
+
+        Path out = ndjson ? journalPath : withExtension(journalPath, ".json");
+        if (w != null) {
+            w.finish(data.getEndTimestamp());
+            if (!ndjson) {
+                RecordingIO.convert(journalPath, out);
+                Files.deleteIfExists(journalPath);
+            }
+            return out;
+        }
+
+        // Journal broke mid-recording: journalled events followed by in-memory ones
+        RecordedSession merged = RecordingIO.read(journalPath);
+        merged.getEvents().addAll(data.getEvents());
+        merged.setEndTimestamp(data.getEndTimestamp());
+        RecordingIO.write(merged, out);
+        return out;
+    }
+
+    private static Path withExtension(Path path, String extension) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return path.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + extension);
+    }
+
+    private static void closeQuietly(RecordingWriter w) {
+        try {
+            w.close();
+        } catch (IOException ignored) {
+            // already failing
+        }
     }
 
     // ── Private helpers ───────────────────────────────────────────────────
@@ -309,8 +582,9 @@ public class RecordingSession {
      */
     private void injectInitialNavigate() {
         try {
-            String href  = evaluateStringExpression(JS_HREF);
-            String title = evaluateStringExpression(JS_TITLE);
+            DOMEnricher.Snapshot snap = combinedEnrichment ? domEnricher.snapshot(null, null) : null;
+            String href  = snap != null ? snap.url()   : evaluateStringExpression(JS_HREF);
+            String title = snap != null ? snap.title() : evaluateStringExpression(JS_TITLE);
             if (href == null || href.isBlank() || href.equalsIgnoreCase("about:blank")) {
                 return; // nothing useful to navigate to
             }
@@ -321,7 +595,7 @@ public class RecordingSession {
             nav.setUrl(href);
             nav.setPageTitle(title);
             nav.setComment("Auto-injected by recorder at session start");
-            data.addEvent(nav);
+            record(nav);
             log.info("Injected initial NAVIGATE event: {}", href);
         } catch (Exception e) {
             log.debug("Could not inject initial NAVIGATE event: {}", e.getMessage());
@@ -329,8 +603,9 @@ public class RecordingSession {
     }
 
     /**
-     * Handles CDP events pushed by the browser. Currently listens for
-     * {@code Page.loadEventFired} to log URL transitions.
+     * Handles CDP events pushed by the browser. Listens for
+     * {@code Page.frameNavigated} to drop the enricher's cached window
+     * reference and {@code Page.loadEventFired} to log URL transitions.
      */
     private void onCdpEvent(JsonNode eventNode) {
         if (!running.get()) return;
@@ -339,6 +614,11 @@ public class RecordingSession {
         if (methodNode == null) return;
 
         String method = methodNode.asText();
+        if ("Page.frameNavigated".equals(method)
+                && eventNode.path("params").path("frame").path("parentId").isMissingNode()) {
+            // New top-level document — the cached window reference is gone
+            domEnricher.onNavigate();
+        }
         if ("Page.loadEventFired".equals(method)) {
             try {
                 String newUrl = evaluateStringExpression(JS_HREF);
@@ -360,11 +640,8 @@ public class RecordingSession {
         params.put("expression", expression);
         params.put("returnByValue", true);
 
-        JsonNode result = cdp.sendCommand("Runtime.evaluate", params);
-        if (result == null || result.isNull()) return null;
-
-        JsonNode value = result.get("value");
-        return (value == null || value.isNull()) ? null : value.asText();
+        JsonNode value = DOMEnricher.remoteValue(cdp.sendCommand("Runtime.evaluate", params));
+        return value == null ? null : value.asText();
     }
 
     /**
@@ -387,10 +664,10 @@ public class RecordingSession {
     }
 
     /**
-     * Builds the output file path: {@code {outputDir}/{prefix}-{epochMillis}.json}.
+     * Builds the output file path: {@code {outputDir}/{prefix}-{epochMillis}{extension}}.
      */
-    private Path buildOutputPath() {
-        String filename = config.getSessionPrefix() + "-" + System.currentTimeMillis() + ".json";
+    private Path buildOutputPath(String extension) {
+        String filename = config.getSessionPrefix() + "-" + System.currentTimeMillis() + extension;
         return Paths.get(config.getOutputDir()).resolve(filename);
     }
 }
@@ -1,5 +1,6 @@
 package autoqa.reporting;
 
+import autoqa.player.EvidenceWriter;
 import io.qameta.allure.Allure;
 import io.qameta.allure.model.Label;
 import io.qameta.allure.model.Status;
@@ -10,12 +11,16 @@ import org.testng.ITestListener;
 import org.testng.ITestResult;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
 
 /**
  * TestNG {@link ITestListener} that bridges test lifecycle events into Allure.
@@ -54,6 +59,9 @@ public class AllureListener implements ITestListener {
         return System.getProperty("player.evidence.dir", "evidence");
     }
 
+    /** How long to wait for a test's queued evidence before attaching whatever is on disk. */
+    private static final Duration EVIDENCE_FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
     // ── ITestListener callbacks ───────────────────────────────────────────
 
     @Override
@@ -157,7 +165,13 @@ public class AllureListener implements ITestListener {
     private void attachEvidenceArtifacts(ITestResult result) {
         try {
             Path evidenceDir = resolveEvidenceDir(result);
-            if (evidenceDir == null || !Files.isDirectory(evidenceDir)) {
+            if (evidenceDir == null) {
+                log.debug("AllureListener: no evidence directory found for {}", testName(result));
+                return;
+            }
+            // This test's evidence may still be queued in the background writer
+            EvidenceWriter.flushShared(evidenceDir, EVIDENCE_FLUSH_TIMEOUT);
+            if (!Files.isDirectory(evidenceDir)) {
                 log.debug("AllureListener: no evidence directory found for {}", testName(result));
                 return;
             }
@@ -210,9 +224,8 @@ public class AllureListener implements ITestListener {
 
     private void attachPageSource(Path dir) {
         try {
-            Path file = dir.resolve("page-source.html");
-            if (!Files.exists(file)) return;
-            String html = Files.readString(file, StandardCharsets.UTF_8);
+            String html = readText(dir, "page-source.html");
+            if (html == null) return;
             Allure.addAttachment("Page Source", "text/html",
                     new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)), "html");
             log.debug("AllureListener: attached page source ({} chars)", html.length());
@@ -223,9 +236,8 @@ public class AllureListener implements ITestListener {
 
     private void attachConsoleLog(Path dir) {
         try {
-            Path file = dir.resolve("console.log");
-            if (!Files.exists(file)) return;
-            String text = Files.readString(file, StandardCharsets.UTF_8);
+            String text = readText(dir, "console.log");
+            if (text == null) return;
             Allure.addAttachment("Console Log", "text/plain",
                     new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), "log");
             log.debug("AllureListener: attached console log ({} chars)", text.length());
@@ -234,6 +246,17 @@ public class AllureListener implements ITestListener {
         }
     }
 
+    /** Reads a text artifact, or its gzip-compressed {@code .gz} variant; {@code null} if neither exists. */
+    private static String readText(Path dir, String name) throws IOException {
+        Path file = dir.resolve(name);
+        if (Files.exists(file)) return Files.readString(file, StandardCharsets.UTF_8);
+        Path gz = dir.resolve(name + ".gz");
+        if (!Files.exists(gz)) return null;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gz))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
     // ── Browser environment labels ────────────────────────────────────────
 
     /**
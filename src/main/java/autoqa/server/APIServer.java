@@ -1,10 +1,22 @@
 package autoqa.server;
 
+import autoqa.ai.AIConfig;
+import autoqa.ai.LocatorHealer;
+import autoqa.metrics.Metrics;
+import autoqa.model.RecordedEvent;
+import autoqa.model.RecordedSession;
+import autoqa.model.RecordingIO;
+import autoqa.player.PlayerEngine;
+import autoqa.player.WebDriverFactory;
+import autoqa.player.WebDriverPool;
+import autoqa.server.JobScheduler.Job;
+import autoqa.server.JobScheduler.JobType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.WebDriver;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -23,10 +35,14 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Embedded HTTP API server for IMDS AutoQA IDE integration.
@@ -35,6 +51,14 @@ import java.util.concurrent.Executors;
  * for recording, playback, test generation, and healing operations.
  * Uses JDK's built-in {@code com.sun.net.httpserver.HttpServer} — zero extra dependencies.
  *
+ * <p>Play, generate and heal requests run in-process on a {@link JobScheduler}
+ * rather than in a spawned JVM: each returns a {@code jobId} immediately, and
+ * progress and results are available from {@code /api/jobs/{id}}.  Only
+ * recording still runs as a child process, because it owns the OS input hook.
+ *
+ * <p>{@code GET /metrics} serves {@link Metrics} in the Prometheus text format
+ * for scraping; the job queue depth and running-job count are exported as gauges.
+ *
  * <p>All responses include CORS headers so the HTML IDE at file:// can call it.
  */
 @SuppressWarnings("restriction")
@@ -73,6 +97,18 @@ public class APIServer {
 
     private static volatile Process bgProcess = null;
 
+    // ── In-process jobs ──────────────────────────────────────────────────────
+
+    /** Concurrent play/generate/heal jobs; also the browser-pool size per browser type. */
+    private static final int JOB_WORKERS        = 4;
+    private static final int JOB_QUEUE_CAPACITY = 64;
+    private static final int JOB_MAX_RETAINED   = 200;
+
+    private final JobScheduler jobs;
+
+    /** One reusable browser pool per browser name, created on first play job. */
+    private final Map<String, WebDriverPool> driverPools = new ConcurrentHashMap<>();
+
     // ── Core fields ──────────────────────────────────────────────────────────
 
     private final int port;
@@ -87,6 +123,27 @@ public class APIServer {
 
     public APIServer(int port) {
         this.port = port;
+        this.jobs = new JobScheduler(JOB_WORKERS, JOB_QUEUE_CAPACITY, JOB_MAX_RETAINED);
+        jobs.setOnStart(job -> {
+            appendLog("[job " + job.getId() + "] started " + job.getType() + " " + job.getTarget());
+            if (currentState != ServerState.recording) {
+                currentState = stateFor(job.getType());
+            }
+        });
+        jobs.setOnFinish(job -> {
+            appendLog("[job " + job.getId() + "] " + job.getState()
+                    + (job.getError() != null ? ": " + job.getError() : "")
+                    + " (" + job.getDurationMs() + " ms)");
+            lastResult = jobNode(job);
+            Metrics.JOBS.labels(job.getType().name(), job.getState().name()).inc();
+            if (jobs.runningCount() == 0 && currentState != ServerState.recording) {
+                currentState = ServerState.idle;
+            }
+        });
+        Metrics.REGISTRY.gauge("autoqa_jobs_queued",
+                "Jobs waiting for a worker (capacity " + JOB_QUEUE_CAPACITY + ").", jobs::queuedCount);
+        Metrics.REGISTRY.gauge("autoqa_jobs_running",
+                "Jobs currently running (at most " + JOB_WORKERS + ").", jobs::runningCount);
     }
 
     // ── Lifecycle ────────────────────────────────────────────────────────────
@@ -106,8 +163,11 @@ public class APIServer {
             httpServer.createContext("/api/heal",           this::handleHeal);
             httpServer.createContext("/api/stop",           this::handleStop);
             httpServer.createContext("/api/log",            this::handleLog);
+            // job status: /api/jobs, /api/jobs/{id}, /api/jobs/{id}/result, /api/jobs/{id}/cancel
+            httpServer.createContext("/api/jobs",           this::handleJobs);
             // recording content: /api/recordings/{name}/content
             httpServer.createContext("/api/recordings/",    this::handleRecordingContent);
+            httpServer.createContext("/metrics",            this::handleMetrics);
 
             httpServer.start();
         } catch (IOException e) {
@@ -120,6 +180,10 @@ public class APIServer {
             httpServer.stop(1);
         }
         killBgProcess();
+        jobs.cancelAll();
+        jobs.close();
+        driverPools.values().forEach(WebDriverPool::close);
+        driverPools.clear();
     }
 
     // ── Handlers ─────────────────────────────────────────────────────────────
@@ -270,16 +334,9 @@ public class APIServer {
             return;
         }
 
-        String jarPath = resolveJarPath();
-        currentState = ServerState.playing;
-
-        runBackground(resolveJavaExe(), "-jar", jarPath, "play", recording);
-
-        ObjectNode resp = mapper.createObjectNode();
-        resp.put("ok", true);
-        resp.put("state", "playing");
-        resp.put("message", "Playback started");
-        sendJson(exchange, 200, resp);
+        String browser = body.get("browser") != null ? (String) body.get("browser") : "edge";
+        submitJob(exchange, JobType.play, recording, "Playback started",
+                () -> runPlay(recording, browser));
     }
 
     /** POST /api/generate — body: {"recording":"..."} */
@@ -296,19 +353,11 @@ public class APIServer {
             return;
         }
 
-        String jarPath = resolveJarPath();
-        currentState = ServerState.generating;
-
-        runBackground(resolveJavaExe(), "-jar", jarPath, "generate", recording);
-
-        ObjectNode resp = mapper.createObjectNode();
-        resp.put("ok", true);
-        resp.put("state", "generating");
-        resp.put("message", "Test generation started");
-        sendJson(exchange, 200, resp);
+        submitJob(exchange, JobType.generate, recording, "Test generation started",
+                () -> runGenerate(recording));
     }
 
-    /** POST /api/heal — body: {"recording":"..."} */
+    /** POST /api/heal — body: {"recording":"...","step":0,"browser":"edge"} */
     private void handleHeal(HttpExchange exchange) throws IOException {
         if (handleCors(exchange)) return;
         if (!assertMethod(exchange, "POST")) return;
@@ -322,24 +371,20 @@ public class APIServer {
             return;
         }
 
-        String jarPath = resolveJarPath();
-        currentState = ServerState.healing;
-
-        runBackground(resolveJavaExe(), "-jar", jarPath, "heal", recording);
-
-        ObjectNode resp = mapper.createObjectNode();
-        resp.put("ok", true);
-        resp.put("state", "healing");
-        resp.put("message", "Healing started");
-        sendJson(exchange, 200, resp);
+        int step = body.get("step") instanceof Number n ? n.intValue() : 0;
+        String browser = body.get("browser") != null ? (String) body.get("browser") : "edge";
+        submitJob(exchange, JobType.heal, recording, "Healing started",
+                () -> runHeal(recording, step, browser));
     }
 
-    /** POST /api/stop — kills any running background process */
+    /** POST /api/stop — kills any running background process and cancels all jobs */
     private void handleStop(HttpExchange exchange) throws IOException {
         if (handleCors(exchange)) return;
         if (!assertMethod(exchange, "POST")) return;
 
         killBgProcess();
+        int cancelled = jobs.cancelAll();
+        if (cancelled > 0) appendLog("[stop] cancelled " + cancelled + " job(s)");
         currentState = ServerState.idle;
 
         ObjectNode resp = mapper.createObjectNode();
@@ -357,6 +402,79 @@ public class APIServer {
         sendJson(exchange, 200, lines);
     }
 
+    /** GET /metrics — Prometheus text exposition format */
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        if (handleCors(exchange)) return;
+        if (!assertMethod(exchange, "GET")) return;
+
+        byte[] body = Metrics.REGISTRY.scrape().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /**
+     * Job endpoints:
+     * <ul>
+     *   <li>GET  /api/jobs               — all retained jobs, newest first</li>
+     *   <li>GET  /api/jobs/{id}          — status of one job</li>
+     *   <li>GET  /api/jobs/{id}/result   — result of a finished job (409 while pending)</li>
+     *   <li>POST /api/jobs/{id}/cancel   — cancel a queued or running job</li>
+     * </ul>
+     */
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        if (handleCors(exchange)) return;
+
+        String path = exchange.getRequestURI().getPath();
+        String[] parts = path.replaceFirst("^/api/jobs/?", "").split("/");
+        String id = parts[0];
+        String action = parts.length > 1 ? parts[1] : "";
+
+        if (id.isBlank()) {
+            if (!assertMethod(exchange, "GET")) return;
+            ArrayNode arr = mapper.createArrayNode();
+            jobs.list().forEach(j -> arr.add(jobNode(j)));
+            sendJson(exchange, 200, arr);
+            return;
+        }
+
+        Job job = jobs.get(id);
+        if (job == null) {
+            sendError(exchange, 404, "Job not found: " + id);
+            return;
+        }
+
+        switch (action) {
+            case "" -> {
+                if (!assertMethod(exchange, "GET")) return;
+                sendJson(exchange, 200, jobNode(job));
+            }
+            case "result" -> {
+                if (!assertMethod(exchange, "GET")) return;
+                if (!job.getState().isTerminal()) {
+                    sendError(exchange, 409, "Job " + id + " is still " + job.getState());
+                    return;
+                }
+                ObjectNode resp = mapper.createObjectNode();
+                resp.put("jobId", job.getId());
+                resp.put("state", job.getState().name());
+                resp.putPOJO("result", job.getResult());
+                if (job.getError() != null) resp.put("error", job.getError());
+                sendJson(exchange, 200, resp);
+            }
+            case "cancel" -> {
+                if (!assertMethod(exchange, "POST")) return;
+                boolean cancelled = jobs.cancel(id);
+                ObjectNode resp = jobNode(job);
+                resp.put("ok", cancelled);
+                sendJson(exchange, 200, resp);
+            }
+            default -> sendError(exchange, 404, "Not found: " + path);
+        }
+    }
+
     /** GET /api/recordings/{name}/content — returns raw JSON of a recording file */
     private void handleRecordingContent(HttpExchange exchange) throws IOException {
         if (handleCors(exchange)) return;
@@ -393,6 +511,149 @@ public class APIServer {
         }
     }
 
+    // ── Job bodies ────────────────────────────────────────────────────────────
+
+    /**
+     * Queues a job and answers immediately with its ID, or 503 when the job
+     * queue is full.  The response keeps the legacy {@code ok/state/message}
+     * fields so existing IDE builds continue to work.
+     */
+    private void submitJob(HttpExchange exchange, JobType type, String recording,
+                           String message, Callable<Object> work) throws IOException {
+        Job job;
+        try {
+            job = jobs.submit(type, recording, work);
+        } catch (RejectedExecutionException e) {
+            sendError(exchange, 503, "Job queue full — " + jobs.queuedCount()
+                    + " job(s) waiting; retry later");
+            return;
+        }
+        if (currentState == ServerState.idle) {
+            currentState = stateFor(type);
+        }
+
+        ObjectNode resp = mapper.createObjectNode();
+        resp.put("ok", true);
+        resp.put("state", stateFor(type).name());
+        resp.put("message", message);
+        resp.put("jobId", job.getId());
+        resp.put("statusUrl", "/api/jobs/" + job.getId());
+        sendJson(exchange, 200, resp);
+    }
+
+    /** Replays a recording on a pooled browser and returns the playback summary. */
+    private Object runPlay(String recording, String browser) throws Exception {
+        RecordedSession session = RecordingIO.read(resolveRecording(recording));
+        WebDriverPool pool = poolFor(browser);
+
+        WebDriver driver = pool.lease();
+        boolean healthy = false;
+        try {
+            PlayerEngine.PlaybackResult r = new PlayerEngine(driver).play(session);
+            healthy = true;
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("success", r.isSuccess());
+            out.put("stepsCompleted", r.getStepsCompleted());
+            out.put("totalSteps", r.getTotalSteps());
+            out.put("failureReason", r.getFailureReason());
+            return out;
+        } finally {
+            if (healthy) pool.release(driver); else pool.discard(driver);
+        }
+    }
+
+    /** Generates a TestNG test from a recording and returns the output file path. */
+    private Object runGenerate(String recording) throws Exception {
+        RecordedSession session = RecordingIO.read(resolveRecording(recording));
+        Path generated = new AIConfig().createTestGenerator().generate(session);
+        return Map.of("generatedFile", generated.toAbsolutePath().toString().replace('\\', '/'));
+    }
+
+    /**
+     * Asks the LLM healer for a replacement locator for one recorded step's
+     * element, against the page source captured by loading the step's URL on
+     * a pooled browser.
+     */
+    private Object runHeal(String recording, int step, String browser) throws Exception {
+        RecordedSession session = RecordingIO.read(resolveRecording(recording));
+        if (step < 0 || step >= session.getEventCount()) {
+            throw new IllegalArgumentException(String.format(
+                    "Step index %d out of range (0-%d)", step, session.getEventCount() - 1));
+        }
+        RecordedEvent event = session.getEvents().get(step);
+        if (!event.hasElement()) {
+            throw new IllegalArgumentException("Step " + step + " (" + event.getEventType()
+                    + ") has no element to heal");
+        }
+
+        if (event.getUrl() == null || event.getUrl().isBlank()) {
+            throw new IllegalArgumentException("Step " + step + " has no URL to capture the page from");
+        }
+
+        LocatorHealer healer = new AIConfig().createLocatorHealer();
+        WebDriverPool pool = poolFor(browser);
+        WebDriver driver = pool.lease();
+        boolean healthy = false;
+        String pageSource;
+        try {
+            driver.get(event.getUrl());
+            pageSource = healer.pruneDom(event.getElement(), driver);
+            if (pageSource == null) pageSource = driver.getPageSource();
+            healthy = true;
+        } finally {
+            if (healthy) pool.release(driver); else pool.discard(driver);
+        }
+
+        LocatorHealer.HealingResult r = healer.heal(event.getElement(), pageSource, event.getUrl());
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("step", step);
+        out.put("healed", r.healed());
+        out.put("locator", r.locatorValue());
+        out.put("strategy", r.strategy() != null ? r.strategy().name() : null);
+        out.put("failureReason", r.failureReason());
+        return out;
+    }
+
+    /** The browser pool for {@code browser}, created on first use. */
+    private WebDriverPool poolFor(String browser) {
+        return driverPools.computeIfAbsent(browser.toLowerCase().trim(),
+                b -> new WebDriverPool(() -> WebDriverFactory.create(b), JOB_WORKERS));
+    }
+
+    /**
+     * Resolves a recording argument: absolute or working-directory-relative
+     * paths are used as-is, bare names are looked up in the recordings directory.
+     */
+    private static Path resolveRecording(String recording) {
+        Path p = Paths.get(recording);
+        if (Files.exists(p) || p.isAbsolute()) return p;
+        return Paths.get(RECORDINGS_DIR, recording);
+    }
+
+    private static ServerState stateFor(JobType type) {
+        return switch (type) {
+            case play     -> ServerState.playing;
+            case generate -> ServerState.generating;
+            case heal     -> ServerState.healing;
+        };
+    }
+
+    /** JSON view of a job for the status endpoints. */
+    private ObjectNode jobNode(Job job) {
+        ObjectNode n = mapper.createObjectNode();
+        n.put("jobId", job.getId());
+        n.put("type", job.getType().name());
+        n.put("target", job.getTarget());
+        n.put("state", job.getState().name());
+        n.put("submitted", job.getSubmittedAt().toString());
+        if (job.getStartedAt()  != null) n.put("started",  job.getStartedAt().toString());
+        if (job.getFinishedAt() != null) n.put("finished", job.getFinishedAt().toString());
+        n.put("durationMs", job.getDurationMs());
+        if (job.getError() != null) n.put("error", job.getError());
+        if (job.getResult() != null) n.putPOJO("result", job.getResult());
+        return n;
+    }
+
     // ── Helpers ───────────────────────────────────────────────────────────────
 
     /**
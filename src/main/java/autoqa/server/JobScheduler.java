@@ -0,0 +1,273 @@
+package autoqa.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * In-process executor for API server jobs (play, generate, heal).
+ *
+ * <p>Replaces the previous one-JVM-per-request model: jobs run on a fixed pool
+ * of worker threads inside the server process, so Selenium classes, drivers
+ * and LLM clients are loaded once.  Submissions beyond the worker count wait
+ * in a bounded FIFO queue; when that queue is full {@link #submit} throws
+ * {@link RejectedExecutionException} so the caller can answer 503.
+ *
+ * <p>Finished jobs are retained (newest {@code maxRetained}) so the IDE can
+ * poll {@code /api/jobs/{id}} for status and results after completion.
+ */
+public class JobScheduler implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JobScheduler.class);
+
+    /** Kind of work a job performs — lowercase to match {@code APIServer.ServerState}. */
+    public enum JobType { play, generate, heal }
+
+    /** Lifecycle of a job. */
+    public enum JobState {
+        queued, running, succeeded, failed, cancelled;
+
+        /** True once the job can no longer change state. */
+        public boolean isTerminal() {
+            return this == succeeded || this == failed || this == cancelled;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final int maxRetained;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+
+    private volatile Consumer<Job> onStart  = j -> {};
+    private volatile Consumer<Job> onFinish = j -> {};
+
+    /**
+     * @param workers       number of jobs executed concurrently
+     * @param queueCapacity maximum number of jobs waiting for a worker
+     * @param maxRetained   maximum number of jobs (any state) kept for status queries
+     */
+    public JobScheduler(int workers, int queueCapacity, int maxRetained) {
+        AtomicInteger threadIdx = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "api-job-" + threadIdx.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxRetained = maxRetained;
+    }
+
+    /** Registers a callback invoked on the worker thread when a job starts running. */
+    public void setOnStart(Consumer<Job> onStart)   { this.onStart = onStart; }
+
+    /** Registers a callback invoked on the worker thread when a job reaches a terminal state. */
+    public void setOnFinish(Consumer<Job> onFinish) { this.onFinish = onFinish; }
+
+    // ── Submission ────────────────────────────────────────────────────────
+
+    /**
+     * Queues a job for execution.
+     *
+     * @param type   job kind (used for status reporting)
+     * @param target what the job operates on, e.g. the recording path
+     * @param work   the job body; its return value becomes the job result
+     * @return the queued job
+     * @throws RejectedExecutionException if the queue is full or the scheduler is closed
+     */
+    public Job submit(JobType type, String target, Callable<Object> work) {
+        Job job = new Job(UUID.randomUUID().toString(), type, target);
+        jobs.put(job.id, job);
+        try {
+            job.future = executor.submit(() -> execute(job, work));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw e;
+        }
+        evictFinished();
+        log.info("Job {} queued: {} {}", job.id, type, target);
+        return job;
+    }
+
+    // ── Queries ───────────────────────────────────────────────────────────
+
+    /** Returns the job with the given ID, or {@code null} if unknown or evicted. */
+    public Job get(String id) {
+        return id == null ? null : jobs.get(id);
+    }
+
+    /** All retained jobs, newest first. */
+    public List<Job> list() {
+        List<Job> all = new ArrayList<>(jobs.values());
+        all.sort(Comparator.comparing(Job::getSubmittedAt).reversed());
+        return all;
+    }
+
+    /** Number of jobs currently executing. */
+    public int runningCount() { return running.get(); }
+
+    /** Number of jobs waiting for a worker. */
+    public int queuedCount()  { return executor.getQueue().size(); }
+
+    // ── Cancellation ──────────────────────────────────────────────────────
+
+    /**
+     * Cancels a queued or running job.  Running jobs are interrupted.
+     *
+     * @return {@code true} if the job existed and was not already finished
+     */
+    public boolean cancel(String id) {
+        Job job = get(id);
+        if (job == null) return false;
+        boolean neverStarted;
+        // Same lock as execute(), so a job cannot start between the check and the finish
+        synchronized (job) {
+            if (job.state.isTerminal()) return false;
+            neverStarted = job.state == JobState.queued;
+            // Never started — execute() will now skip it, so finish it here
+            if (neverStarted) job.finish(JobState.cancelled, null, "Cancelled before start");
+        }
+        Future<?> f = job.future;
+        if (f != null) {
+            f.cancel(true);
+            if (neverStarted) executor.remove((Runnable) f);
+        }
+        if (neverStarted) onFinish.accept(job);
+        return true;
+    }
+
+    /** Cancels every queued and running job. */
+    public int cancelAll() {
+        int n = 0;
+        for (Job job : list()) {
+            if (cancel(job.id)) n++;
+        }
+        return n;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // ── Internal ──────────────────────────────────────────────────────────
+
+    private void execute(Job job, Callable<Object> work) {
+        synchronized (job) {
+            if (job.state != JobState.queued) return;
+            job.state     = JobState.running;
+            job.startedAt = Instant.now();
+        }
+        running.incrementAndGet();
+        try {
+            onStart.accept(job);
+            Object result = work.call();
+            job.finish(Thread.currentThread().isInterrupted() ? JobState.cancelled : JobState.succeeded,
+                    result, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(JobState.cancelled, null, "Interrupted");
+        } catch (Exception e) {
+            log.warn("Job {} failed: {}", job.id, e.getMessage());
+            job.finish(JobState.failed, null,
+                    e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            running.decrementAndGet();
+            log.info("Job {} {} in {} ms", job.id, job.state, job.getDurationMs());
+            onFinish.accept(job);
+        }
+    }
+
+    /** Drops the oldest finished jobs once more than {@code maxRetained} are held. */
+    private void evictFinished() {
+        int excess = jobs.size() - maxRetained;
+        if (excess <= 0) return;
+        jobs.values().stream()
+                .filter(j -> j.state.isTerminal())
+                .sorted(Comparator.comparing(Job::getSubmittedAt))
+                .limit(excess)
+                .map(Job::getId)
+                .toList()
+                .forEach(jobs::remove);
+    }
+
+    // ═════════════════════════════════════════════════════════════════════
+    // Job
+    // ═════════════════════════════════════════════════════════════════════
+
+    /**
+     * A unit of server work with an ID, a lifecycle state and, once finished,
+     * either a result object or an error message.
+     */
+    public static final class Job {
+
+        private final String  id;
+        private final JobType type;
+        private final String  target;
+        private final Instant submittedAt = Instant.now();
+
+        private volatile JobState state = JobState.queued;
+        private volatile Instant  startedAt;
+        private volatile Instant  finishedAt;
+        private volatile Object   result;
+        private volatile String   error;
+        private volatile Future<?> future;
+
+        Job(String id, JobType type, String target) {
+            this.id     = id;
+            this.type   = type;
+            this.target = target;
+        }
+
+        private synchronized void finish(JobState terminal, Object result, String error) {
+            if (state.isTerminal()) return;
+            this.state      = terminal;
+            this.result     = result;
+            this.error      = error;
+            this.finishedAt = Instant.now();
+        }
+
+        public String   getId()          { return id; }
+        public JobType  getType()        { return type; }
+        public String   getTarget()      { return target; }
+        public JobState getState()       { return state; }
+        public Instant  getSubmittedAt() { return submittedAt; }
+        public Instant  getStartedAt()   { return startedAt; }
+        public Instant  getFinishedAt()  { return finishedAt; }
+
+        /** Job result (type depends on {@link JobType}), or {@code null} until succeeded. */
+        public Object   getResult()      { return result; }
+
+        /** Failure or cancellation reason, or {@code null}. */
+        public String   getError()       { return error; }
+
+        /** Run time in milliseconds (so far, if still running); 0 while queued. */
+        public long getDurationMs() {
+            if (startedAt == null) return 0L;
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            return end.toEpochMilli() - startedAt.toEpochMilli();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Job{%s %s %s}", id, type, state);
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package autoqa.spy;
 
+import autoqa.capture.CaptureStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -41,9 +50,12 @@ import java.util.stream.Collectors;
  *   <li><b>Custom event capture</b> — subscribe to application-level CustomEvents</li>
  * </ul>
  *
- * <p>All captures are collected into an ordered, thread-safe list with sequence numbers
- * for perfect replay ordering. The spy can be queried for specific capture types, patterns,
- * time ranges, or asserted against for test validation.
+ * <p>All captures are collected into a bounded, thread-safe {@link CaptureStore} with
+ * sequence numbers for perfect replay ordering; the most recent
+ * {@value CaptureStore#DEFAULT_CAPACITY} are kept by default, and {@link #spillTo} saves
+ * older ones to disk. The spy can be queried for specific capture types, patterns,
+ * hosts, time ranges, or asserted against for test validation — type, host and URL
+ * pattern queries are served from indexes rather than a scan.
  *
  * <h3>Usage</h3>
  * <pre>{@code
@@ -76,9 +88,16 @@ import java.util.stream.Collectors;
  * <h3>Architecture</h3>
  * <p>The spy works by injecting a lightweight JavaScript shim at page load that wraps
  * XMLHttpRequest, fetch, localStorage, sessionStorage, console, and registers a
- * MutationObserver. The shim buffers all events in {@code window.__iqaSpy} queue.
- * A background Java thread polls this queue every {@code pollIntervalMs} and drains
- * it into the Java-side capture list.
+ * MutationObserver.
+ *
+ * <p>With the default {@link Transport#PUSH} transport the spy registers a CDP
+ * binding ({@code Runtime.addBinding}) that the shim calls for every event, so
+ * captures stream in as {@code Runtime.bindingCalled} events with no polling, and
+ * registers the shim with {@code Page.addScriptToEvaluateOnNewDocument} so every
+ * new document is covered from its first script on — no {@link #reattach()} needed.
+ * Without DevTools, or with {@link Transport#POLL}, the shim buffers events in the
+ * {@code window.__iqaSpy} queue and a background Java thread drains it every
+ * {@code pollMs} through {@code executeScript}.
  */
 public class ApplicationSpy {
 
@@ -90,16 +109,45 @@ public class ApplicationSpy {
     /** Default maximum body size to capture per request/response (bytes). */
     public static final int DEFAULT_MAX_BODY_CHARS = 4096;
 
+    /** Name of the page function the shim calls in {@link Transport#PUSH} mode. */
+    static final String BINDING = "__iqaSpyEmit";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Event<Map<String, Object>> BINDING_CALLED =
+            new Event<>("Runtime.bindingCalled", input -> input.read(Json.MAP_TYPE));
+
+    /** How captures travel from the page to Java. */
+    public enum Transport {
+        /** {@code executeScript} drains the page's queue every {@code pollMs}. */
+        POLL,
+        /** The shim calls a CDP binding; falls back to {@link #POLL} when the driver has no DevTools. */
+        PUSH
+    }
+
     private final WebDriver  driver;
     private final int        pollMs;
     private final int        maxBodyChars;
 
-    private final List<SpyCapture>          captures       = new CopyOnWriteArrayList<>();
+    private final CaptureStore<SpyCapture>  captures;
     private final AtomicLong                sequenceCounter = new AtomicLong(0);
+    /**
+     * Held while a capture takes its sequence number and joins {@link #captures},
+     * so store order matches sequence order when the DevTools thread and a
+     * caller's {@code drain()} record at the same time.
+     */
+    private final Object                    recordLock      = new Object();
     private final List<Consumer<SpyCapture>> listeners      = new CopyOnWriteArrayList<>();
 
     private ScheduledExecutorService poller;
-    private boolean active = false;
+    private volatile boolean active = false;
+    private Transport transport = Transport.PUSH;
+
+    // Push transport
+    private DevTools devTools;
+    private boolean  listening;
+    private boolean  pushing;
+    private String   shimScriptId;
 
     // ── Factory ───────────────────────────────────────────────────────────────
 
@@ -113,10 +161,21 @@ public class ApplicationSpy {
         return new ApplicationSpy(driver, pollMs, maxBodyChars);
     }
 
+    /** Attaches with custom poll interval and capture retention (rounded up to a power of two). */
+    public static ApplicationSpy attach(WebDriver driver, int pollMs, int maxBodyChars, int capacity) {
+        return new ApplicationSpy(driver, pollMs, maxBodyChars, capacity);
+    }
+
     protected ApplicationSpy(WebDriver driver, int pollMs, int maxBodyChars) {
+        this(driver, pollMs, maxBodyChars, CaptureStore.DEFAULT_CAPACITY);
+    }
+
+    protected ApplicationSpy(WebDriver driver, int pollMs, int maxBodyChars, int capacity) {
         this.driver       = driver;
         this.pollMs       = pollMs;
         this.maxBodyChars = maxBodyChars;
+        this.captures     = new CaptureStore<>(capacity, SpyCapture::getType,
+                c -> c.isNetworkCapture() ? c.getSource() : null);
     }
 
     /** Minimal constructor for test subclasses (no driver, no polling). */
@@ -124,24 +183,43 @@ public class ApplicationSpy {
         this(driver, DEFAULT_POLL_MS, DEFAULT_MAX_BODY_CHARS);
     }
 
+    /** Selects how captures are transported; call before {@link #start}. */
+    public ApplicationSpy setTransport(Transport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
     // ── Lifecycle ──────────────────────────────────────────────────────────────
 
     /**
-     * Starts the spy: injects the JS shim and begins polling for captures.
+     * Starts the spy: injects the JS shim and begins receiving captures.
      * Safe to call multiple times (idempotent).
      */
     public ApplicationSpy start() {
-        captures.clear();
-        sequenceCounter.set(0);
+        synchronized (recordLock) {
+            captures.clear();
+            sequenceCounter.set(0);
+        }
+        active  = true;
+        pushing = transport == Transport.PUSH && startPush();
         injectShim();
-        startPoller();
-        active = true;
-        log.info("ApplicationSpy: started (poll={}ms, maxBody={}chars)", pollMs, maxBodyChars);
+        if (pushing) {
+            drain(); // events the shim queued before the binding existed
+        } else {
+            startPoller();
+        }
+        log.info("ApplicationSpy: started ({}, maxBody={}chars)",
+                pushing ? "CDP binding" : "poll=" + pollMs + "ms", maxBodyChars);
         return this;
     }
 
     /**
      * Reinjects the shim after page navigation (call this after any navigation event).
+     * Not needed with the push transport, which injects it into every new document.
      */
     public ApplicationSpy reattach() {
         injectShim();
@@ -153,12 +231,14 @@ public class ApplicationSpy {
      */
     public ApplicationSpy stop() {
         if (active) {
+            if (pushing) stopPush();
             drain(); // final drain
             if (poller != null) {
                 poller.shutdownNow();
                 poller = null;
             }
             active = false;
+            captures.flush();
             log.info("ApplicationSpy: stopped — {} total captures", captures.size());
         }
         return this;
@@ -166,11 +246,27 @@ public class ApplicationSpy {
 
     /** Clears all captures without stopping the spy. */
     public ApplicationSpy clear() {
-        captures.clear();
-        sequenceCounter.set(0);
+        synchronized (recordLock) {
+            captures.clear();
+            sequenceCounter.set(0);
+        }
         return this;
     }
 
+    /**
+     * Appends captures evicted once the capacity is reached to {@code file}
+     * (JSON lines) instead of dropping them.
+     */
+    public ApplicationSpy spillTo(Path file) throws IOException {
+        captures.spillTo(file);
+        return this;
+    }
+
+    /** Captures overwritten because more than the capacity arrived. */
+    public long overwritten() {
+        return captures.overwritten();
+    }
+
     /** Registers a listener that receives each new capture in real time. */
     public ApplicationSpy onCapture(Consumer<SpyCapture> listener) {
         listeners.add(listener);
@@ -179,58 +275,63 @@ public class ApplicationSpy {
 
     // ── Accessors ─────────────────────────────────────────────────────────────
 
-    /** All captures in sequence order. */
+    /** All retained captures in sequence order. */
     public List<SpyCapture> captures() {
-        return Collections.unmodifiableList(captures);
+        return List.copyOf(captures.snapshot());
     }
 
     /** Captures of a specific type. */
     public List<SpyCapture> captures(SpyCapture.Type type) {
-        return captures.stream().filter(c -> c.getType() == type).toList();
+        return captures.ofType(type);
     }
 
     /** Captures whose source or data contains the given text (case-insensitive). */
     public List<SpyCapture> capturing(String text) {
-        return captures.stream().filter(c -> c.contains(text)).toList();
+        return captures.snapshot().stream().filter(c -> c.contains(text)).toList();
     }
 
     /** Network response captures matching the URL pattern (regex). */
     public List<SpyCapture> networkResponses(String urlPattern) {
-        return captures().stream()
+        return captures.matching(urlPattern).stream()
                 .filter(c -> c.getType() == SpyCapture.Type.NETWORK_RESPONSE)
-                .filter(c -> c.getSource() != null && c.getSource().matches(".*" + urlPattern + ".*"))
                 .toList();
     }
 
     /** Network request captures matching the URL pattern and HTTP method. */
     public List<SpyCapture> networkRequests(String urlPattern, String method) {
-        return captures().stream()
+        return captures.matching(urlPattern).stream()
                 .filter(c -> c.getType() == SpyCapture.Type.NETWORK_REQUEST)
-                .filter(c -> c.getSource() != null && c.getSource().matches(".*" + urlPattern + ".*"))
                 .filter(c -> method == null || method.equalsIgnoreCase(c.getExtra()))
                 .toList();
     }
 
+    /**
+     * Network captures to {@code host} whose path starts with {@code pathPrefix}
+     * ({@code null} for any path). Relative request URLs have the host {@code ""}.
+     */
+    public List<SpyCapture> networkCaptures(String host, String pathPrefix) {
+        return captures.forHost(host, pathPrefix);
+    }
+
     /** Storage captures for a specific key. */
     public List<SpyCapture> storageCaptures(String keyPattern) {
-        return captures().stream()
-                .filter(SpyCapture::isStorageCapture)
+        return Stream.concat(captures(SpyCapture.Type.STORAGE_SET).stream(),
+                             captures(SpyCapture.Type.STORAGE_REMOVE).stream())
                 .filter(c -> c.getSource() != null && c.getSource().matches(".*" + keyPattern + ".*"))
+                .sorted(Comparator.comparingLong(SpyCapture::getSequenceNo))
                 .toList();
     }
 
     /** Console captures at ERROR or WARNING level. */
     public List<SpyCapture> consoleErrors() {
-        return captures().stream()
-                .filter(SpyCapture::isConsoleCapture)
+        return captures(SpyCapture.Type.CONSOLE_LOG).stream()
                 .filter(c -> "error".equals(c.getExtra()) || "warn".equals(c.getExtra()))
                 .toList();
     }
 
     /** DOM mutation captures where the added element matches the CSS selector. */
     public List<SpyCapture> domAdditions(String selectorPattern) {
-        return captures().stream()
-                .filter(SpyCapture::isDomCapture)
+        return captures(SpyCapture.Type.DOM_MUTATION).stream()
                 .filter(c -> "added".equals(c.getExtra()))
                 .filter(c -> c.getSource() != null && c.getSource().matches(".*" + selectorPattern + ".*"))
                 .toList();
@@ -279,7 +380,8 @@ public class ApplicationSpy {
      * Asserts that no HTTP 5xx server errors were received.
      */
     public ApplicationSpy assertNoServerErrors() {
-        List<SpyCapture> errors = captures().stream().filter(SpyCapture::isServerError).toList();
+        List<SpyCapture> errors = captures(SpyCapture.Type.NETWORK_RESPONSE).stream()
+                .filter(SpyCapture::isServerError).toList();
         if (!errors.isEmpty()) {
             throw new AssertionError(
                     "ApplicationSpy: " + errors.size() + " server error(s) detected:\n  " +
@@ -373,15 +475,16 @@ public class ApplicationSpy {
         StringBuilder sb = new StringBuilder();
         sb.append("APPLICATION SPY REPORT\n");
         sb.append("======================\n");
-        sb.append(String.format("Total captures: %d%n%n", captures.size()));
+        List<SpyCapture> all = captures();
+        sb.append(String.format("Total captures: %d%n%n", all.size()));
 
-        Map<SpyCapture.Type, Long> counts = captures().stream()
+        Map<SpyCapture.Type, Long> counts = all.stream()
                 .collect(Collectors.groupingBy(SpyCapture::getType, Collectors.counting()));
         sb.append("Summary:\n");
         counts.forEach((type, count) ->
                 sb.append(String.format("  %-20s %d%n", type, count)));
         sb.append("\nTimeline:\n");
-        captures().forEach(c -> sb.append(String.format("  [%04d] %s%n", c.getSequenceNo(), c)));
+        all.forEach(c -> sb.append(String.format("  [%04d] %s%n", c.getSequenceNo(), c)));
         return sb.toString();
     }
 
@@ -405,14 +508,20 @@ public class ApplicationSpy {
                   if (window.__iqaSpyActive) return;
                   window.__iqaSpyActive = true;
                   window.__iqaSpy = [];
+                  var EMIT = '%s';
 
                   function push(type, source, data, extra, status, duration) {
-                    window.__iqaSpy.push({
+                    var e = {
                       type: type, source: source || '',
                       data: (data || '').substring(0, %d),
                       extra: extra || '', status: status || 0,
                       duration: duration || 0, ts: Date.now()
-                    });
+                    };
+                    // CDP binding present (push transport): stream the event straight to Java
+                    if (typeof window[EMIT] === 'function') {
+                      try { window[EMIT](JSON.stringify(e)); return; } catch (x) {}
+                    }
+                    window.__iqaSpy.push(e);
                   }
 
                   // ── XHR spy ────────────────────────────────────────────────
@@ -499,10 +608,73 @@ public class ApplicationSpy {
                       });
                     });
                   });
-                  observer.observe(document.documentElement, {childList: true, subtree: true});
+                  // documentElement does not exist yet when run as a new-document script
+                  observer.observe(document.documentElement || document, {childList: true, subtree: true});
 
                 })();
-                """.formatted(maxBody, maxBody);
+                """.formatted(BINDING, maxBody, maxBody);
+    }
+
+    // ── Push transport ────────────────────────────────────────────────────────
+
+    /** Adds the binding and registers the shim for new documents; {@code false} to fall back to polling. */
+    private boolean startPush() {
+        if (!(driver instanceof HasDevTools hasDevTools)) {
+            log.debug("ApplicationSpy: driver has no DevTools — polling instead");
+            return false;
+        }
+        try {
+            devTools = hasDevTools.getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            if (!listening) {
+                devTools.addListener(BINDING_CALLED, this::onBindingCalled);
+                listening = true;
+            }
+            devTools.send(new Command<>("Runtime.enable", Map.of()));
+            devTools.send(new Command<>("Runtime.addBinding", Map.of("name", BINDING)));
+            if (shimScriptId == null) {
+                Map<String, Object> result = devTools.send(new Command<Map<String, Object>>(
+                        "Page.addScriptToEvaluateOnNewDocument", Map.of("source", buildShimScript()),
+                        input -> input.read(Json.MAP_TYPE)));
+                shimScriptId = result != null ? (String) result.get("identifier") : null;
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("ApplicationSpy: cannot add CDP binding — falling back to polling: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Removes the binding and the new-document shim.  {@code Runtime.removeBinding}
+     * leaves the page's binding function in place (calls to it are then dropped),
+     * so it is deleted first and the page's shim falls back to its queue.
+     */
+    private void stopPush() {
+        try {
+            if (shimScriptId != null) {
+                devTools.send(new Command<>("Page.removeScriptToEvaluateOnNewDocument",
+                        Map.of("identifier", shimScriptId)));
+            }
+            devTools.send(new Command<>("Runtime.evaluate", Map.of("expression", "delete window." + BINDING)));
+            devTools.send(new Command<>("Runtime.removeBinding", Map.of("name", BINDING)));
+        } catch (Exception e) {
+            log.debug("ApplicationSpy: binding cleanup failed — {}", e.getMessage());
+        } finally {
+            shimScriptId = null;
+            pushing      = false;
+        }
+    }
+
+    /** Runs on the DevTools thread for every event the shim emits. */
+    void onBindingCalled(Map<String, Object> params) {
+        // Listener outlives stop(); DevTools has no per-listener removal
+        if (!active || !BINDING.equals(params.get("name"))) return;
+        try {
+            record(MAPPER.readValue(String.valueOf(params.get("payload")), Map.class));
+        } catch (Exception e) {
+            log.trace("ApplicationSpy: unreadable binding payload: {}", e.getMessage());
+        }
     }
 
     // ── Polling ───────────────────────────────────────────────────────────────
@@ -517,7 +689,6 @@ public class ApplicationSpy {
         poller.scheduleAtFixedRate(this::drain, pollMs, pollMs, TimeUnit.MILLISECONDS);
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
     private void drain() {
         try {
             JavascriptExecutor js = (JavascriptExecutor) driver;
@@ -526,33 +697,37 @@ public class ApplicationSpy {
             if (!(raw instanceof List<?> list) || list.isEmpty()) return;
 
             for (Object item : list) {
-                if (!(item instanceof Map)) continue;
-                Map<Object, Object> m = (Map) item;
-                String typeStr = m.getOrDefault("type", "").toString();
-                SpyCapture.Type type;
-                try { type = SpyCapture.Type.valueOf(typeStr); }
-                catch (Exception e) { type = SpyCapture.Type.CUSTOM_EVENT; }
-
-                SpyCapture capture = new SpyCapture(
-                        type,
-                        m.getOrDefault("source", "").toString(),
-                        m.getOrDefault("data",   "").toString(),
-                        m.getOrDefault("extra",  "").toString(),
-                        null,
-                        ((Number) m.getOrDefault("status",   0)).intValue(),
-                        ((Number) m.getOrDefault("duration", 0)).longValue(),
-                        Instant.now(),
-                        sequenceCounter.getAndIncrement()
-                );
-
-                captures.add(capture);
-                listeners.forEach(l -> {
-                    try { l.accept(capture); } catch (Exception ignored) {}
-                });
-                log.trace("ApplicationSpy: {}", capture);
+                if (item instanceof Map<?, ?> m) record(m);
             }
         } catch (Exception e) {
             log.trace("ApplicationSpy: drain error (page may be navigating): {}", e.getMessage());
         }
     }
+
+    /** Turns one shim event into a capture and notifies listeners. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void record(Map<?, ?> raw) {
+        Map<Object, Object> m = (Map) raw;
+        String typeStr = m.getOrDefault("type", "").toString();
+        SpyCapture.Type type;
+        try { type = SpyCapture.Type.valueOf(typeStr); }
+        catch (Exception e) { type = SpyCapture.Type.CUSTOM_EVENT; }
+
+        String source = m.getOrDefault("source", "").toString();
+        String data   = m.getOrDefault("data",   "").toString();
+        String extra  = m.getOrDefault("extra",  "").toString();
+        int status    = ((Number) m.getOrDefault("status",   0)).intValue();
+        long duration = ((Number) m.getOrDefault("duration", 0)).longValue();
+
+        SpyCapture capture;
+        synchronized (recordLock) {
+            capture = new SpyCapture(type, source, data, extra, null, status, duration,
+                    Instant.now(), sequenceCounter.getAndIncrement());
+            captures.add(capture);
+        }
+        listeners.forEach(l -> {
+            try { l.accept(capture); } catch (Exception ignored) {}
+        });
+        log.trace("ApplicationSpy: {}", capture);
+    }
 }
@@ -0,0 +1,77 @@
+package autoqa.ai;
+
+import autoqa.model.BoundingBox;
+import autoqa.model.ElementInfo;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DomSnippetExtractor}.  The pruning script itself runs
+ * in the browser; these tests cover what is sent to it and how its result is
+ * handled.
+ */
+public class DomSnippetExtractorTest {
+
+    private interface ScriptingDriver extends WebDriver, JavascriptExecutor {}
+
+    private static ElementInfo submitButton() {
+        ElementInfo el = new ElementInfo();
+        el.setTagName("button");
+        el.setId("submit");
+        el.setText("Sign in");
+        el.setBoundingBox(new BoundingBox(100.0, 200.0, 80.0, 30.0));
+        return el;
+    }
+
+    @Test
+    public void extract_returnsScriptResultWithBudgetAndCandidateCount() {
+        ScriptingDriver driver = mock(ScriptingDriver.class);
+        when(driver.executeScript(anyString(), any(), any(), any()))
+                .thenReturn("<!-- region 1 | body > form -->\n<form>...</form>\n");
+
+        String snippet = new DomSnippetExtractor(1500, 3).extract(driver, submitButton());
+
+        assertThat(snippet).startsWith("<!-- region 1");
+        verify(driver).executeScript(anyString(), any(), eq(1500), eq(3));
+    }
+
+    @Test
+    public void extract_noCandidatesOrScriptError_returnsNull() {
+        ScriptingDriver driver = mock(ScriptingDriver.class);
+        DomSnippetExtractor extractor = new DomSnippetExtractor(1500, 3);
+
+        when(driver.executeScript(anyString(), any(), any(), any())).thenReturn(null);
+        assertThat(extractor.extract(driver, submitButton())).isNull();
+
+        when(driver.executeScript(anyString(), any(), any(), any())).thenThrow(new WebDriverException("CSP"));
+        assertThat(extractor.extract(driver, submitButton())).isNull();
+    }
+
+    @Test
+    public void extract_driverWithoutScripting_returnsNull() {
+        assertThat(new DomSnippetExtractor(1500, 3).extract(mock(WebDriver.class), submitButton())).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void describe_carriesTagTextIdAndBox() {
+        Map<String, Object> t = ElementScoring.describe(submitButton());
+
+        assertThat(t).containsEntry("tag", "button").containsEntry("text", "Sign in");
+        assertThat((Map<String, String>) t.get("attrs")).containsEntry("id", "submit");
+        assertThat((Map<String, Object>) t.get("box")).containsEntry("x", 100.0).containsEntry("height", 30.0);
+        assertThat(ElementScoring.describe(new ElementInfo())).doesNotContainKey("box");
+    }
+}
@@ -0,0 +1,132 @@
+package autoqa.ai;
+
+import autoqa.model.ElementInfo;
+import autoqa.model.ElementLocator;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link HealCache}.
+ */
+public class HealCacheTest {
+
+    private static ElementInfo element(String id) {
+        ElementInfo ei = new ElementInfo();
+        ei.setTagName("button");
+        ei.setId(id);
+        return ei;
+    }
+
+    private static LocatorHealer.HealingResult css(String selector) {
+        return LocatorHealer.HealingResult.success(selector, ElementLocator.Strategy.CSS);
+    }
+
+    @Test
+    public void get_unknownElement_isMiss() {
+        HealCache cache = new HealCache(null);
+
+        assertThat(cache.get("rec", element("a"), "http://x")).isNull();
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void put_thenGet_returnsStoredLocatorAndConfidence() {
+        HealCache cache = new HealCache(null);
+        cache.put("rec", element("a"), "http://x", css("#new"), "llm");
+
+        HealCache.Entry e = cache.get("rec", element("a"), "http://x");
+
+        assertThat(e.getLocator()).isEqualTo("#new");
+        assertThat(e.getStrategy()).isEqualTo(ElementLocator.Strategy.CSS);
+        assertThat(e.getConfidence()).isEqualTo(HealCache.LLM_CONFIDENCE);
+    }
+
+    @Test
+    public void entries_areScopedByRecordingAndUrl() {
+        HealCache cache = new HealCache(null);
+        cache.put("rec", element("a"), "http://x", css("#new"), "llm");
+
+        assertThat(cache.get("other", element("a"), "http://x")).isNull();
+        assertThat(cache.get("rec", element("a"), "http://y")).isNull();
+        // Query string is ignored
+        assertThat(cache.get("rec", element("a"), "http://x?ts=123")).isNotNull();
+    }
+
+    @Test
+    public void confirm_raisesConfidence() {
+        HealCache cache = new HealCache(null);
+        cache.put("rec", element("a"), "http://x", css("#new"), "dom");
+
+        cache.confirm("rec", element("a"), "http://x");
+
+        HealCache.Entry e = cache.get("rec", element("a"), "http://x");
+        assertThat(e.getConfidence()).isGreaterThan(HealCache.DOM_CONFIDENCE);
+        assertThat(e.getUses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidate_removesEntry() {
+        HealCache cache = new HealCache(null);
+        cache.put("rec", element("a"), "http://x", css("#new"), "llm");
+
+        cache.invalidate("rec", element("a"), "http://x");
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getStale()).isEqualTo(1);
+    }
+
+    @Test
+    public void entries_persistAcrossInstances() throws IOException {
+        Path dir = Files.createTempDirectory("heal-cache-test");
+        Path file = dir.resolve("cache.json");
+
+        HealCache cache = new HealCache(file);
+        cache.put("rec", element("a"), "http://x", css("#new"), "llm");
+        cache.flush();
+        HealCache reloaded = new HealCache(file);
+
+        assertThat(reloaded.size()).isEqualTo(1);
+        assertThat(reloaded.get("rec", element("a"), "http://x").getLocator()).isEqualTo("#new");
+    }
+
+    @Test
+    public void changes_areBatchedUntilFlush() throws IOException {
+        Path dir = Files.createTempDirectory("heal-cache-test");
+        Path file = dir.resolve("cache.json");
+        HealCache cache = new HealCache(file);
+        cache.put("rec", element("a"), "http://x", css("#new"), "llm");
+        cache.flush();
+        String saved = Files.readString(file);
+
+        cache.confirm("rec", element("a"), "http://x");
+        cache.confirm("rec", element("a"), "http://x");
+        assertThat(Files.readString(file)).isEqualTo(saved);
+
+        cache.flush();
+        assertThat(new HealCache(file).get("rec", element("a"), "http://x").getUses()).isEqualTo(2);
+        try (var files = Files.list(dir)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    public void corruptFile_startsEmpty() throws IOException {
+        Path file = Files.createTempFile("heal-cache", ".json");
+        Files.writeString(file, "{not json");
+
+        assertThat(new HealCache(file).size()).isZero();
+    }
+
+    @Test
+    public void normalizeUrl_dropsQueryKeepsFragment() {
+        assertThat(HealCache.normalizeUrl("http://x/p?a=1#/route")).isEqualTo("http://x/p#/route");
+        assertThat(HealCache.normalizeUrl("http://x/p")).isEqualTo("http://x/p");
+        assertThat(HealCache.normalizeUrl(null)).isEmpty();
+    }
+}
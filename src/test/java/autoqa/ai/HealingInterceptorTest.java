@@ -2,6 +2,8 @@ package autoqa.ai;
 
 import autoqa.model.ElementInfo;
 import autoqa.model.ElementLocator;
+import autoqa.model.ObjectRepository;
+import autoqa.model.TestObject;
 import autoqa.player.AutoQAException;
 import autoqa.player.LocatorResolver;
 import org.openqa.selenium.By;
@@ -10,10 +12,13 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.testng.annotations.Test;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -226,4 +231,171 @@ public class HealingInterceptorTest {
         verify(healer, org.mockito.Mockito.times(1)).heal(any(), any(), any());
         verify(healer, org.mockito.Mockito.times(1)).healByDomComparison(any(), any());
     }
+
+    // ── Local heal ────────────────────────────────────────────────────────
+
+    @Test
+    public void findElement_localHealWins_llmNotCalled() {
+        LocatorResolver resolver = mock(LocatorResolver.class);
+        when(resolver.findElement(any())).thenThrow(new NoSuchElementException("gone"));
+
+        WebDriver driver = mock(WebDriver.class);
+        when(driver.getCurrentUrl()).thenReturn("http://example.com");
+        WebElement healedElement = mock(WebElement.class);
+        when(driver.findElement(By.cssSelector("#submit-v2"))).thenReturn(healedElement);
+
+        LocalHealer local = mock(LocalHealer.class);
+        when(local.heal(any(), any())).thenReturn(
+                LocatorHealer.HealingResult.success("#submit-v2", ElementLocator.Strategy.CSS));
+        LocatorHealer healer = mock(LocatorHealer.class);
+
+        HealingInterceptor interceptor = new HealingInterceptor(resolver, healer, driver);
+        interceptor.setLocalHealer(local);
+
+        assertThat(interceptor.findElement(new ElementInfo())).isEqualTo(healedElement);
+        verify(healer, never()).heal(any(), any(), any());
+        verify(driver, never()).getPageSource();
+    }
+
+    @Test
+    public void findElement_localHealInconclusive_fallsBackToLlm() {
+        LocatorResolver resolver = mock(LocatorResolver.class);
+        when(resolver.findElement(any())).thenThrow(new NoSuchElementException("gone"));
+
+        WebDriver driver = mock(WebDriver.class);
+        when(driver.getPageSource()).thenReturn("<html></html>");
+        when(driver.getCurrentUrl()).thenReturn("http://example.com");
+        WebElement healedElement = mock(WebElement.class);
+        when(driver.findElement(By.cssSelector("#new-btn"))).thenReturn(healedElement);
+
+        LocalHealer local = mock(LocalHealer.class);
+        when(local.heal(any(), any())).thenReturn(
+                LocatorHealer.HealingResult.failed("Local candidates ambiguous (0.90 vs 0.85)"));
+        LocatorHealer healer = mock(LocatorHealer.class);
+        when(healer.heal(any(), any(), any())).thenReturn(
+                LocatorHealer.HealingResult.success("#new-btn", ElementLocator.Strategy.CSS));
+
+        HealingInterceptor interceptor = new HealingInterceptor(resolver, healer, driver);
+        interceptor.setLocalHealer(local);
+
+        assertThat(interceptor.findElement(new ElementInfo())).isEqualTo(healedElement);
+        verify(healer).heal(any(), any(), any());
+    }
+
+    // ── Heal cache ────────────────────────────────────────────────────────
+
+    @Test
+    public void findElement_successfulHeal_isCachedAndReusedWithoutLlm() {
+        LocatorResolver resolver = mock(LocatorResolver.class);
+        when(resolver.findElement(any())).thenThrow(new AutoQAException("not found"));
+
+        WebDriver driver = mock(WebDriver.class);
+        when(driver.getPageSource()).thenReturn("<html></html>");
+        when(driver.getCurrentUrl()).thenReturn("http://example.com");
+        WebElement healedElement = mock(WebElement.class);
+        when(driver.findElement(By.cssSelector("#new-btn"))).thenReturn(healedElement);
+        when(driver.findElements(By.cssSelector("#new-btn"))).thenReturn(List.of(healedElement));
+
+        LocatorHealer healer = mock(LocatorHealer.class);
+        when(healer.heal(any(), any(), any())).thenReturn(
+                LocatorHealer.HealingResult.success("#new-btn", ElementLocator.Strategy.CSS));
+
+        HealCache cache = new HealCache(null);
+        HealingInterceptor interceptor = new HealingInterceptor(resolver, healer, driver, cache);
+        interceptor.setRecording("session-1");
+
+        interceptor.findElement(element("old-btn"));
+        WebElement second = interceptor.findElement(element("old-btn"));
+
+        assertThat(second).isEqualTo(healedElement);
+        assertThat(cache.getHits()).isEqualTo(1);
+        verify(healer, org.mockito.Mockito.times(1)).heal(any(), any(), any());
+    }
+
+    @Test
+    public void findElement_staleCachedHeal_fallsThroughToLlm() {
+        LocatorResolver resolver = mock(LocatorResolver.class);
+        when(resolver.findElement(any())).thenThrow(new AutoQAException("not found"));
+
+        WebDriver driver = mock(WebDriver.class);
+        when(driver.getPageSource()).thenReturn("<html></html>");
+        when(driver.getCurrentUrl()).thenReturn("http://example.com");
+        when(driver.findElements(By.cssSelector("#gone"))).thenReturn(List.of());
+        WebElement healedElement = mock(WebElement.class);
+        when(driver.findElement(By.cssSelector("#fresh"))).thenReturn(healedElement);
+
+        LocatorHealer healer = mock(LocatorHealer.class);
+        when(healer.heal(any(), any(), any())).thenReturn(
+                LocatorHealer.HealingResult.success("#fresh", ElementLocator.Strategy.CSS));
+
+        HealCache cache = new HealCache(null);
+        cache.put("session-1", element("old-btn"), "http://example.com",
+                LocatorHealer.HealingResult.success("#gone", ElementLocator.Strategy.CSS), "llm");
+        HealingInterceptor interceptor = new HealingInterceptor(resolver, healer, driver, cache);
+        interceptor.setRecording("session-1");
+
+        WebElement found = interceptor.findElement(element("old-btn"));
+
+        assertThat(found).isEqualTo(healedElement);
+        assertThat(cache.getStale()).isEqualTo(1);
+        assertThat(cache.get("session-1", element("old-btn"), "http://example.com").getLocator())
+                .isEqualTo("#fresh");
+    }
+
+    @Test
+    public void findElement_noCache_neverRevalidates() {
+        LocatorResolver resolver = mock(LocatorResolver.class);
+        when(resolver.findElement(any())).thenThrow(new AutoQAException("not found"));
+
+        WebDriver driver = mock(WebDriver.class);
+        when(driver.getPageSource()).thenReturn("<html></html>");
+        when(driver.getCurrentUrl()).thenReturn("http://example.com");
+        when(driver.findElement(By.cssSelector("#new-btn"))).thenReturn(mock(WebElement.class));
+
+        LocatorHealer healer = mock(LocatorHealer.class);
+        when(healer.heal(any(), any(), any())).thenReturn(
+                LocatorHealer.HealingResult.success("#new-btn", ElementLocator.Strategy.CSS));
+
+        new HealingInterceptor(resolver, healer, driver).findElement(element("old-btn"));
+
+        verify(driver, never()).findElements(any());
+    }
+
+    // ── Object Repository write-back ──────────────────────────────────────
+
+    @Test
+    public void findElement_healWrittenBackToMatchingOrEntry() {
+        LocatorResolver resolver = mock(LocatorResolver.class);
+        when(resolver.findElement(any())).thenThrow(new AutoQAException("not found"));
+
+        WebDriver driver = mock(WebDriver.class);
+        when(driver.getPageSource()).thenReturn("<html></html>");
+        when(driver.getCurrentUrl()).thenReturn("http://example.com");
+        when(driver.findElement(By.cssSelector("#new-btn"))).thenReturn(mock(WebElement.class));
+
+        LocatorHealer healer = mock(LocatorHealer.class);
+        when(healer.heal(any(), any(), any())).thenReturn(
+                LocatorHealer.HealingResult.success("#new-btn", ElementLocator.Strategy.CSS));
+
+        ObjectRepository or = ObjectRepository.empty();
+        TestObject submit = new TestObject("SubmitButton", "button");
+        submit.addLocator(ElementLocator.Strategy.ID, "old-btn");
+        submit.addLocator(ElementLocator.Strategy.CSS, "#old-btn");
+        or.add(submit);
+
+        HealingInterceptor interceptor = new HealingInterceptor(resolver, healer, driver);
+        interceptor.setObjectRepository(or, null);
+
+        interceptor.findElement(submit.toElementInfo());
+
+        assertThat(or.get("SubmitButton").toElementInfo().getCss()).isEqualTo("#new-btn");
+        assertThat(or.get("SubmitButton").getLocators()).hasSize(2);
+    }
+
+    private static ElementInfo element(String id) {
+        ElementInfo ei = new ElementInfo();
+        ei.setTagName("button");
+        ei.setId(id);
+        return ei;
+    }
 }
@@ -5,11 +5,14 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.time.Duration;
 import java.util.List;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
 import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -180,4 +183,93 @@ public class LLMClientTest {
 
         assertThat(slashClient.complete(List.of(LLMClient.ChatMessage.user("hi")))).isEqualTo("result");
     }
+
+    // ── Streaming ─────────────────────────────────────────────────────────
+
+    private static final String SSE_BODY = """
+            data: {"choices":[{"delta":{"role":"assistant","content":""}}]}
+
+            data: {"choices":[{"delta":{"content":"#sub"}}]}
+
+            data: {"choices":[{"delta":{"content":"mit\\nThe button"}}]}
+
+            data: {"choices":[{"delta":{"content":" moved."}}]}
+
+            data: [DONE]
+
+            """;
+
+    @Test
+    public void completeStreaming_stopsAsSoonAsPredicateAccepts() throws Exception {
+        wireMock.stubFor(post(urlEqualTo("/stream/v1/chat/completions"))
+                .withRequestBody(equalToJson("{\"stream\":true}", true, true))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "text/event-stream")
+                        .withBody(SSE_BODY)));
+        LLMClient streamClient = new LLMClient(
+                "http://localhost:" + wireMock.port() + "/stream/v1", "test-model", 0.1, 100, 10, 0, 0);
+
+        String result = streamClient.complete(List.of(LLMClient.ChatMessage.user("find it")),
+                text -> text.contains("\n"));
+
+        assertThat(result).isEqualTo("#submit\nThe button");
+    }
+
+    @Test
+    public void completeStreaming_readsToDoneWhenPredicateNeverAccepts() throws Exception {
+        wireMock.stubFor(post(urlEqualTo("/stream/v1/chat/completions"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "text/event-stream")
+                        .withBody(SSE_BODY)));
+        LLMClient streamClient = new LLMClient(
+                "http://localhost:" + wireMock.port() + "/stream/v1", "test-model", 0.1, 100, 10, 0, 0);
+
+        String result = streamClient.complete(List.of(LLMClient.ChatMessage.user("find it")), text -> false);
+
+        assertThat(result).isEqualTo("#submit\nThe button moved.");
+    }
+
+    // ── Response cache ────────────────────────────────────────────────────
+
+    @Test
+    public void complete_withCache_repeatedPromptIsNotResent() throws Exception {
+        wireMock.stubFor(post(urlEqualTo("/cached/v1/chat/completions"))
+                .willReturn(okJson("""
+                        {"choices":[{"message":{"content":"#cached","role":"assistant"}}]}
+                        """)));
+        LLMClient cachedClient = new LLMClient(
+                "http://localhost:" + wireMock.port() + "/cached/v1", "test-model", 0.1, 100, 10, 0, 0);
+        LLMResponseCache cache = new LLMResponseCache(null, 10, Duration.ofHours(1));
+        cachedClient.setResponseCache(cache);
+
+        List<LLMClient.ChatMessage> prompt = List.of(LLMClient.ChatMessage.user("same prompt"));
+        assertThat(cachedClient.complete(prompt)).isEqualTo("#cached");
+        assertThat(cachedClient.complete(prompt)).isEqualTo("#cached");
+        assertThat(cachedClient.complete(prompt, text -> true)).isEqualTo("#cached");
+
+        wireMock.verify(1, postRequestedFor(urlEqualTo("/cached/v1/chat/completions")));
+        assertThat(cache.getHits()).isEqualTo(2);
+    }
+
+    @Test
+    public void complete_withCache_blankCompletionIsNotReplayed() throws Exception {
+        wireMock.stubFor(post(urlEqualTo("/blank/v1/chat/completions"))
+                .willReturn(okJson("""
+                        {"choices":[{"message":{"content":"","role":"assistant"}}]}
+                        """)));
+        LLMClient cachedClient = new LLMClient(
+                "http://localhost:" + wireMock.port() + "/blank/v1", "test-model", 0.1, 100, 10, 0, 0);
+        LLMResponseCache cache = new LLMResponseCache(null, 10, Duration.ofHours(1));
+        cachedClient.setResponseCache(cache);
+
+        List<LLMClient.ChatMessage> prompt = List.of(LLMClient.ChatMessage.user("blank prompt"));
+        assertThat(cachedClient.complete(prompt)).isEmpty();
+        assertThat(cachedClient.complete(prompt)).isEmpty();
+
+        wireMock.verify(2, postRequestedFor(urlEqualTo("/blank/v1/chat/completions")));
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getHits()).isZero();
+    }
 }
@@ -0,0 +1,100 @@
+package autoqa.ai;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link LLMGateway}.
+ */
+public class LLMGatewayTest {
+
+    @Test
+    public void acquire_underLimit_doesNotBlock() throws Exception {
+        LLMGateway gateway = new LLMGateway("http://localhost:1/v1/", 2);
+
+        try (LLMGateway.Permit a = gateway.acquire(LLMGateway.Lane.BULK);
+             LLMGateway.Permit b = gateway.acquire(LLMGateway.Lane.BULK)) {
+            assertThat(gateway.inFlight()).isEqualTo(2);
+        }
+        assertThat(gateway.inFlight()).isZero();
+        assertThat(gateway.getBaseUrl()).isEqualTo("http://localhost:1/v1");
+    }
+
+    @Test
+    public void release_goesToHighestLaneFirst() throws Exception {
+        LLMGateway gateway = new LLMGateway("http://localhost:1/v1", 1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        LLMGateway.Permit held = gateway.acquire(LLMGateway.Lane.NORMAL);
+
+        Thread bulk = waiter(gateway, LLMGateway.Lane.BULK, order);
+        awaitQueued(gateway, LLMGateway.Lane.BULK);
+        Thread interactive = waiter(gateway, LLMGateway.Lane.INTERACTIVE, order);
+        awaitQueued(gateway, LLMGateway.Lane.INTERACTIVE);
+
+        held.close();
+        held.close();  // idempotent
+        bulk.join(5_000);
+        interactive.join(5_000);
+
+        assertThat(order).containsExactly("interactive", "bulk");
+        assertThat(gateway.inFlight()).isZero();
+    }
+
+    @Test
+    public void interruptedWaiter_leavesQueue() throws Exception {
+        LLMGateway gateway = new LLMGateway("http://localhost:1/v1", 1);
+        LLMGateway.Permit held = gateway.acquire(LLMGateway.Lane.NORMAL);
+
+        Thread t = waiter(gateway, LLMGateway.Lane.BULK, new CopyOnWriteArrayList<>());
+        awaitQueued(gateway, LLMGateway.Lane.BULK);
+        t.interrupt();
+        t.join(5_000);
+
+        assertThat(gateway.queued(LLMGateway.Lane.BULK)).isZero();
+        held.close();
+        assertThat(gateway.inFlight()).isZero();
+    }
+
+    @Test
+    public void backoff_doublesPerAttemptWithJitterAndCap() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(LLMGateway.backoffMillis(1, 100)).isBetween(50L, 100L);
+            assertThat(LLMGateway.backoffMillis(3, 100)).isBetween(200L, 400L);
+            assertThat(LLMGateway.backoffMillis(30, 100))
+                    .isBetween(LLMGateway.MAX_BACKOFF_MS / 2, LLMGateway.MAX_BACKOFF_MS);
+        }
+        assertThat(LLMGateway.backoffMillis(2, 0)).isZero();
+    }
+
+    @Test
+    public void constructor_rejectsNonPositiveLimit() {
+        assertThatThrownBy(() -> new LLMGateway("http://localhost:1/v1", 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // ── Helpers ───────────────────────────────────────────────────────────
+
+    private static Thread waiter(LLMGateway gateway, LLMGateway.Lane lane, List<String> order) {
+        Thread t = new Thread(() -> {
+            try (LLMGateway.Permit p = gateway.acquire(lane)) {
+                order.add(lane.name().toLowerCase());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        t.start();
+        return t;
+    }
+
+    private static void awaitQueued(LLMGateway gateway, LLMGateway.Lane lane) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gateway.queued(lane) == 0 && System.nanoTime() < deadline) Thread.sleep(5);
+        assertThat(gateway.queued(lane)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,118 @@
+package autoqa.ai;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link LLMResponseCache}.
+ */
+public class LLMResponseCacheTest {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    @Test
+    public void key_dependsOnModelSettingsAndEveryMessage() {
+        List<LLMClient.ChatMessage> a = List.of(LLMClient.ChatMessage.system("s"), LLMClient.ChatMessage.user("u"));
+        String k = LLMResponseCache.key("m", 0.1, 100, a);
+
+        assertThat(k).hasSize(64).isEqualTo(LLMResponseCache.key("m", 0.1, 100, List.copyOf(a)));
+        assertThat(LLMResponseCache.key("other", 0.1, 100, a)).isNotEqualTo(k);
+        assertThat(LLMResponseCache.key("m", 0.2, 100, a)).isNotEqualTo(k);
+        assertThat(LLMResponseCache.key("m", 0.1, 100,
+                List.of(LLMClient.ChatMessage.system("su"), LLMClient.ChatMessage.user("")))).isNotEqualTo(k);
+    }
+
+    @Test
+    public void get_afterTtl_isMiss() {
+        long[] now = {1_000};
+        LLMResponseCache cache = new LLMResponseCache(null, 10, Duration.ofMillis(500), () -> now[0]);
+        cache.put("k", "#btn");
+
+        assertThat(cache.get("k")).isEqualTo("#btn");
+        now[0] += 501;
+        assertThat(cache.get("k")).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void put_beyondMaxEntries_evictsLeastRecentlyUsed() {
+        LLMResponseCache cache = new LLMResponseCache(null, 2, HOUR);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");          // b is now least recently used
+        cache.put("c", "3");
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("c")).isEqualTo("3");
+        assertThat(cache.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void diskCopy_survivesReloadAndFollowsEviction() throws IOException {
+        Path dir = Files.createTempDirectory("llm-cache");
+        LLMResponseCache cache = new LLMResponseCache(dir, 2, HOUR);
+        cache.put("a", "first");
+        cache.put("b", "second\nline");
+        cache.put("c", "third");
+
+        assertThat(dir.resolve("a.json")).doesNotExist();
+        LLMResponseCache reloaded = new LLMResponseCache(dir, 2, HOUR);
+        assertThat(reloaded.size()).isEqualTo(2);
+        assertThat(reloaded.get("b")).isEqualTo("second\nline");
+        assertThat(reloaded.get("c")).isEqualTo("third");
+    }
+
+    @Test
+    public void concurrentPuts_leaveNoOrphanFiles() throws Exception {
+        Path dir = Files.createTempDirectory("llm-cache");
+        LLMResponseCache cache = new LLMResponseCache(dir, 3, HOUR);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> puts = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                String key = "k" + (i % 40);
+                puts.add(pool.submit(() -> cache.put(key, "v")));
+            }
+            for (Future<?> f : puts) f.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        try (var files = Files.list(dir)) {
+            assertThat(files.filter(f -> f.toString().endsWith(".json")).count()).isEqualTo(cache.size());
+        }
+        assertThat(cache.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void invalidate_dropsEntryFromMemoryAndDisk() throws IOException {
+        Path dir = Files.createTempDirectory("llm-cache");
+        LLMResponseCache cache = new LLMResponseCache(dir, 4, HOUR);
+        cache.put("a", "wrong");
+        cache.put("b", "right");
+
+        cache.invalidate("a");
+        cache.invalidate("missing");
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isEqualTo("right");
+        assertThat(dir.resolve("a.json")).doesNotExist();
+        try (var files = Files.list(dir)) {
+            assertThat(files.map(f -> f.getFileName().toString())).containsExactly("b.json");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package autoqa.ai;
+
+import autoqa.model.ElementInfo;
+import autoqa.model.ElementLocator;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link LocalHealer}.  The ranking script runs in the browser;
+ * these tests cover the thresholds applied to its result.
+ */
+public class LocalHealerTest {
+
+    private interface ScriptingDriver extends WebDriver, JavascriptExecutor {}
+
+    private final LocalHealer healer = new LocalHealer(0.75, 0.15);
+
+    @Test
+    public void decide_clearWinner_returnsCssLocator() {
+        LocatorHealer.HealingResult result = healer.decide(List.of(List.of(0.89, "#submit-v2"), List.of(0.29)));
+
+        assertThat(result.healed()).isTrue();
+        assertThat(result.locatorValue()).isEqualTo("#submit-v2");
+        assertThat(result.strategy()).isEqualTo(ElementLocator.Strategy.CSS);
+    }
+
+    @Test
+    public void decide_singleCandidate_hasNoRunnerUp() {
+        assertThat(healer.decide(List.of(List.of(0.8, "#only"))).healed()).isTrue();
+    }
+
+    @Test
+    public void decide_weakAmbiguousOrUnselectable_fails() {
+        assertThat(healer.decide(List.of(List.of(0.6, "#a"))).failureReason()).contains("too weak");
+        assertThat(healer.decide(List.of(List.of(1.0, "#a"), List.of(0.9))).failureReason()).contains("ambiguous");
+        assertThat(healer.decide(List.of(Arrays.asList(0.9, null))).failureReason()).contains("No unique selector");
+        assertThat(healer.decide(List.of()).healed()).isFalse();
+        assertThat(healer.decide(null).healed()).isFalse();
+    }
+
+    @Test
+    public void heal_runsScriptAndAppliesThresholds() {
+        ScriptingDriver driver = mock(ScriptingDriver.class);
+        when(driver.executeScript(anyString(), any())).thenReturn(List.of(List.of(0.95, "button[name=\"go\"]")));
+
+        ElementInfo element = new ElementInfo();
+        element.setTagName("button");
+        LocatorHealer.HealingResult result = healer.heal(element, driver);
+
+        assertThat(result.healed()).isTrue();
+        assertThat(result.locatorValue()).isEqualTo("button[name=\"go\"]");
+    }
+
+    @Test
+    public void heal_scriptErrorOrNoScripting_fails() {
+        ScriptingDriver driver = mock(ScriptingDriver.class);
+        when(driver.executeScript(anyString(), any())).thenThrow(new WebDriverException("CSP"));
+
+        assertThat(healer.heal(new ElementInfo(), driver).healed()).isFalse();
+        assertThat(healer.heal(new ElementInfo(), mock(WebDriver.class)).healed()).isFalse();
+    }
+}
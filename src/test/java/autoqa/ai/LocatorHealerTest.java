@@ -2,6 +2,7 @@ package autoqa.ai;
 
 import autoqa.model.ElementInfo;
 import autoqa.model.ElementLocator;
+import org.mockito.ArgumentCaptor;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
@@ -10,6 +11,7 @@ import java.util.List;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -95,6 +97,26 @@ public class LocatorHealerTest {
         assertThat(result.healed()).isFalse();
         assertThat(result.locatorValue()).isNull();
         assertThat(result.strategy()).isNull();
+        verify(mockLlm).invalidateCached(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rejectHeal_invalidatesTheCachedAnswerToTheSamePrompt() throws IOException {
+        LLMClient mockLlm = mock(LLMClient.class);
+        when(mockLlm.complete(any())).thenReturn("#stale-button");
+        ElementInfo element = new ElementInfo();
+        element.setId("submit");
+
+        LocatorHealer healer = new LocatorHealer(mockLlm, 1000);
+        healer.heal(element, "<button id='go'>Go</button>", "http://test.com");
+        healer.rejectHeal(element, "<button id='go'>Go</button>", "http://test.com");
+
+        ArgumentCaptor<List<LLMClient.ChatMessage>> sent = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<LLMClient.ChatMessage>> dropped = ArgumentCaptor.forClass(List.class);
+        verify(mockLlm).complete(sent.capture());
+        verify(mockLlm).invalidateCached(dropped.capture());
+        assertThat(dropped.getValue()).isEqualTo(sent.getValue());
     }
 
     // ── Blank response treated as CANNOT_HEAL ─────────────────────────────
@@ -128,6 +150,34 @@ public class LocatorHealerTest {
         assertThat(result.failureReason()).contains("timeout");
     }
 
+    // ── Streaming path ────────────────────────────────────────────────────
+
+    @Test
+    public void heal_streaming_usesFirstLocatorLineOnly() throws IOException {
+        LLMClient mockLlm = mock(LLMClient.class);
+        when(mockLlm.complete(any(), any())).thenAnswer(invocation -> {
+            java.util.function.Predicate<String> isComplete = invocation.getArgument(1);
+            assertThat(isComplete.test("```css\n#sub")).isFalse();
+            assertThat(isComplete.test("```css\n#submit\n")).isTrue();
+            return "```css\n#submit\nThe id changed";
+        });
+
+        LocatorHealer healer = new LocatorHealer(mockLlm, 1000, true);
+
+        LocatorHealer.HealingResult result = healer.heal(new ElementInfo(), "<html></html>", "http://test.com");
+
+        assertThat(result.healed()).isTrue();
+        assertThat(result.locatorValue()).isEqualTo("#submit");
+        assertThat(result.strategy()).isEqualTo(ElementLocator.Strategy.CSS);
+    }
+
+    @Test
+    public void firstLocatorLine_skipsBlankAndFenceLines() {
+        assertThat(LocatorHealer.firstLocatorLine("  //div[@id='x']  ")).isEqualTo("//div[@id='x']");
+        assertThat(LocatorHealer.firstLocatorLine("\n```\nCANNOT_HEAL\n```")).isEqualTo("CANNOT_HEAL");
+        assertThat(LocatorHealer.firstLocatorLine("")).isEmpty();
+    }
+
     // ── DOM snippet truncation ────────────────────────────────────────────
 
     @Test
@@ -0,0 +1,102 @@
+package autoqa.capture;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CaptureStore}.
+ */
+public class CaptureStoreTest {
+
+    record Cap(String type, String url) {}
+
+    private static CaptureStore<Cap> store(int capacity) {
+        return new CaptureStore<>(capacity, Cap::type, Cap::url);
+    }
+
+    @Test
+    public void ofType_returnsMatchingCapturesOldestFirst() {
+        CaptureStore<Cap> store = store(16);
+        Cap a = new Cap("req", "https://a.com/1");
+        Cap b = new Cap("resp", "https://a.com/1");
+        Cap c = new Cap("req", "https://a.com/2");
+        store.add(a);
+        store.add(b);
+        store.add(c);
+
+        assertThat(store.ofType("req")).containsExactly(a, c);
+        assertThat(store.ofTypes(List.of("resp", "req"))).containsExactly(a, b, c);
+        assertThat(store.ofType("none")).isEmpty();
+        assertThat(store.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void indexes_dropEvictedCaptures() {
+        CaptureStore<Cap> store = store(4);
+        for (int i = 0; i < 4; i++) store.add(new Cap(i % 2 == 0 ? "even" : "odd", "https://a.com/" + i));
+        assertThat(store.ofType("even")).hasSize(2);   // index built before the eviction
+
+        store.add(new Cap("odd", "https://a.com/4"));
+        store.add(new Cap("odd", "https://a.com/5"));
+
+        assertThat(store.ofType("even")).extracting(Cap::url).containsExactly("https://a.com/2");
+        assertThat(store.ofType("odd")).extracting(Cap::url)
+                .containsExactly("https://a.com/3", "https://a.com/4", "https://a.com/5");
+        assertThat(store.size()).isEqualTo(4);
+        assertThat(store.overwritten()).isEqualTo(2);
+    }
+
+    @Test
+    public void forHost_filtersByHostAndPathPrefix() {
+        CaptureStore<Cap> store = store(16);
+        store.add(new Cap("req", "https://API.example.com/v1/users?page=2"));
+        store.add(new Cap("req", "https://api.example.com/v2/users"));
+        store.add(new Cap("req", "https://cdn.example.com/v1/app.js"));
+        store.add(new Cap("req", "/v1/relative"));
+        store.add(new Cap("dom", null));
+
+        assertThat(store.forHost("api.example.com")).hasSize(2);
+        assertThat(store.forHost("api.example.com", "/v1/")).extracting(Cap::url)
+                .containsExactly("https://API.example.com/v1/users?page=2");
+        assertThat(store.forHost("", "/v1")).extracting(Cap::url).containsExactly("/v1/relative");
+    }
+
+    @Test
+    public void matching_isExtendedWithNewCaptures() {
+        CaptureStore<Cap> store = store(16);
+        store.add(new Cap("req", "https://a.com/api/cart"));
+        store.add(new Cap("req", "https://a.com/home"));
+        assertThat(store.matching("api/c.rt")).hasSize(1);
+
+        store.add(new Cap("resp", "https://a.com/api/cart"));
+        assertThat(store.matching("api/c.rt")).extracting(Cap::type).containsExactly("req", "resp");
+
+        store.clear();
+        assertThat(store.matching("api/c.rt")).isEmpty();
+        assertThat(store.ofType("req")).isEmpty();
+    }
+
+    @Test
+    public void spillTo_writesEvictedCapturesAsJsonLines() throws IOException {
+        Path file = Files.createTempFile("capture-spill-", ".jsonl");
+        try (CaptureStore<Cap> store = store(2)) {
+            store.spillTo(file);
+            for (int i = 0; i < 5; i++) store.add(new Cap("req", "https://a.com/" + i));
+            store.flush();
+
+            assertThat(store.spilled()).isEqualTo(3);
+            assertThat(store.snapshot()).extracting(Cap::url).containsExactly("https://a.com/3", "https://a.com/4");
+            List<String> lines = Files.readAllLines(file);
+            assertThat(lines).hasSize(3);
+            assertThat(lines.get(0)).contains("\"url\":\"https://a.com/0\"");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
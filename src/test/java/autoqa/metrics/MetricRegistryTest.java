@@ -0,0 +1,135 @@
+package autoqa.metrics;
+
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link MetricRegistry}, {@link Counter} and {@link Histogram}.
+ */
+public class MetricRegistryTest {
+
+    @Test(description = "Unlabelled counter renders HELP, TYPE and one sample")
+    public void counter_rendersSample() {
+        MetricRegistry r = new MetricRegistry();
+        Counter c = r.counter("test_events_total", "Events seen.");
+        c.inc();
+        c.add(4);
+
+        assertThat(r.scrape()).isEqualTo("""
+                # HELP test_events_total Events seen.
+                # TYPE test_events_total counter
+                test_events_total 5
+                """);
+    }
+
+    @Test(description = "Labelled children render sorted by label value, with values escaped")
+    public void labelledCounter_sortedAndEscaped() {
+        MetricRegistry r = new MetricRegistry();
+        Counter c = r.counter("test_hits_total", "Hits.", "strategy");
+        c.labels("XPATH").inc();
+        c.labels("CSS").add(2);
+        c.labels("a\"b\\c").inc();
+
+        assertThat(r.scrape()).contains("""
+                test_hits_total{strategy="CSS"} 2
+                test_hits_total{strategy="XPATH"} 1
+                test_hits_total{strategy="a\\"b\\\\c"} 1
+                """);
+        assertThat(c.labels("CSS")).isSameAs(c.labels("CSS"));
+    }
+
+    @Test(description = "Histogram buckets are cumulative and the sum is reported in seconds")
+    public void histogram_cumulativeBuckets() {
+        MetricRegistry r = new MetricRegistry();
+        Histogram h = r.histogram("test_latency_seconds", "Latency.", new double[]{0.01, 0.1, 1}, "op");
+        Histogram get = h.labels("get");
+        get.observeNanos(5_000_000);       // 5 ms
+        get.observeNanos(50_000_000);      // 50 ms
+        get.observeNanos(100_000_000);     // exactly on the 0.1 bound
+        get.observeNanos(3_000_000_000L);  // 3 s, overflow
+
+        String out = r.scrape();
+        assertThat(out).contains("# TYPE test_latency_seconds histogram\n");
+        assertThat(out).contains("""
+                test_latency_seconds_bucket{op="get",le="0.01"} 1
+                test_latency_seconds_bucket{op="get",le="0.1"} 3
+                test_latency_seconds_bucket{op="get",le="1"} 3
+                test_latency_seconds_bucket{op="get",le="+Inf"} 4
+                test_latency_seconds_sum{op="get"} 3.155
+                test_latency_seconds_count{op="get"} 4
+                """);
+        assertThat(get.getCount()).isEqualTo(4);
+    }
+
+    @Test(description = "Gauges are sampled at scrape time and may be replaced")
+    public void gauge_sampledAndReplaceable() {
+        MetricRegistry r = new MetricRegistry();
+        int[] depth = {3};
+        r.gauge("test_queue_depth", "Depth.", () -> depth[0]);
+        assertThat(r.scrape()).contains("test_queue_depth 3\n");
+
+        depth[0] = 7;
+        assertThat(r.scrape()).contains("test_queue_depth 7\n");
+
+        r.gauge("test_queue_depth", "Depth.", () -> 1);
+        assertThat(r.scrape()).contains("test_queue_depth 1\n");
+    }
+
+    @Test(description = "A labelled gauge renders one sample per map entry, sorted by label value")
+    public void labelledGauge_onePerEntry() {
+        MetricRegistry r = new MetricRegistry();
+        r.gauge("test_lane_depth", "Depth.", "lane", () -> Map.of("bulk", 4, "interactive", 1));
+
+        assertThat(r.scrape()).isEqualTo("""
+                # HELP test_lane_depth Depth.
+                # TYPE test_lane_depth gauge
+                test_lane_depth{lane="bulk"} 4
+                test_lane_depth{lane="interactive"} 1
+                """);
+    }
+
+    @Test(description = "Re-registering a name returns the same metric; a type clash is rejected")
+    public void registration_isIdempotentPerType() {
+        MetricRegistry r = new MetricRegistry();
+        Counter a = r.counter("test_x_total", "X.");
+
+        assertThat(r.counter("test_x_total", "X.")).isSameAs(a);
+        assertThatThrownBy(() -> r.histogram("test_x_total", "X.", Histogram.LATENCY_BUCKETS))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> r.counter("bad name", "X."))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> a.add(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test(description = "Wrong number of label values is rejected")
+    public void labels_arityChecked() {
+        Counter c = new MetricRegistry().counter("test_jobs_total", "Jobs.", "type", "state");
+
+        assertThatThrownBy(() -> c.labels("play"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(c::inc).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test(description = "Concurrent increments are not lost")
+    public void counter_concurrentIncrements() throws Exception {
+        Counter c = new MetricRegistry().counter("test_concurrent_total", "C.", "k");
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 10_000; i++) c.labels("a").inc();
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(c.labels("a").get()).isEqualTo(40_000);
+    }
+}
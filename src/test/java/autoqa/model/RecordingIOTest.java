@@ -126,8 +126,149 @@ public class RecordingIOTest {
         assertThat(s.isVersionSupported()).isFalse();
     }
 
+    // ── NDJSON ────────────────────────────────────────────────────────────
+
+    @Test
+    public void ndjson_roundTrip_viaWriteAndRead() throws IOException {
+        RecordedSession original = buildFullSession();
+        Path tmp = Files.createTempFile("autoqa-test-", ".ndjson");
+        try {
+            RecordingIO.write(original, tmp);
+
+            List<String> lines = Files.readAllLines(tmp);
+            assertThat(lines).hasSize(original.getEventCount() + 2); // header + events + footer
+            assertThat(lines.get(0)).doesNotContain("\"events\"");
+
+            RecordedSession loaded = RecordingIO.read(tmp);
+            assertThat(loaded.getSessionId()).isEqualTo(original.getSessionId());
+            assertThat(loaded.getEventCount()).isEqualTo(original.getEventCount());
+            assertThat(loaded.getEndTimestamp()).isEqualTo(original.getEndTimestamp());
+            assertThat(loaded.getEvents().get(1).getInputData().getKeys()).isEqualTo("hello world");
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Test
+    public void ndjson_reader_streamsEventsAfterHeader() throws IOException {
+        RecordedSession original = buildFullSession();
+        Path tmp = Files.createTempFile("autoqa-test-", ".ndjson");
+        try (RecordingWriter w = RecordingIO.openWriter(original, tmp)) {
+            w.append(original.getEvents().get(0));
+
+            // Readable while the writer is still open — no footer yet
+            try (RecordingReader r = RecordingIO.openReader(tmp)) {
+                assertThat(r.getHeader().getSessionId()).isEqualTo(original.getSessionId());
+                assertThat(r.getHeader().getEvents()).isEmpty();
+                assertThat(r.next().getEventType()).isEqualTo(RecordedEvent.EventType.CLICK);
+                assertThat(r.hasNext()).isFalse();
+                assertThat(r.getHeader().getEndTimestamp()).isNull();
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Test
+    public void ndjson_tornLastLine_isSkipped() throws IOException {
+        RecordedSession original = buildFullSession();
+        Path tmp = Files.createTempFile("autoqa-test-", ".ndjson");
+        try {
+            try (RecordingWriter w = RecordingIO.openWriter(original, tmp)) {
+                w.append(original.getEvents().get(0));
+            }
+            Files.writeString(tmp, "{\"eventType\":\"CLI", java.nio.file.StandardOpenOption.APPEND);
+
+            try (RecordingReader r = RecordingIO.openReader(tmp)) {
+                int n = 0;
+                while (r.hasNext()) { r.next(); n++; }
+                assertThat(n).isEqualTo(1);
+                assertThat(r.isTruncated()).isTrue();
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Test
+    public void ndjson_malformedMiddleLine_fails() throws IOException {
+        Path tmp = Files.createTempFile("autoqa-test-", ".ndjson");
+        try {
+            Files.writeString(tmp, NDJSON_HEADER
+                    + "not json\n"
+                    + "{\"eventType\":\"CLICK\"}\n");
+
+            try (RecordingReader r = RecordingIO.openReader(tmp)) {
+                assertThatThrownBy(r::hasNext).isInstanceOf(java.io.UncheckedIOException.class)
+                        .hasMessageContaining("line 2");
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Test
+    public void ndjson_eventViolatingSchema_failsWithLineNumber() throws IOException {
+        Path tmp = Files.createTempFile("autoqa-test-", ".ndjson");
+        try {
+            Files.writeString(tmp, NDJSON_HEADER
+                    + "{\"eventType\":\"CLICK\",\"timestamp\":\"2024-01-01T10:00:01Z\"}\n"
+                    + "{\"eventType\":\"CLICK\",\"timestamp\":\"2024-01-01T10:00:02Z\",\"bogus\":1}\n");
+
+            try (RecordingReader r = RecordingIO.openReader(tmp)) {
+                assertThat(r.next().getEventType()).isEqualTo(RecordedEvent.EventType.CLICK);
+                assertThatThrownBy(r::hasNext).isInstanceOf(RecordingIO.SchemaValidationException.class)
+                        .hasMessageContaining("line 3");
+            }
+            assertThatThrownBy(() -> RecordingIO.read(tmp))
+                    .isInstanceOf(RecordingIO.SchemaValidationException.class);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Test
+    public void ndjson_headerViolatingSchema_failsOnOpen() throws IOException {
+        Path tmp = Files.createTempFile("autoqa-test-", ".ndjson");
+        try {
+            Files.writeString(tmp, "{\"schemaVersion\":\"1.0\",\"sessionId\":\"s\"}\n");
+
+            assertThatThrownBy(() -> RecordingIO.openReader(tmp))
+                    .isInstanceOf(RecordingIO.SchemaValidationException.class)
+                    .hasMessageContaining("header");
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Test
+    public void convert_ndjsonToJsonAndBack_preservesSession() throws IOException {
+        RecordedSession original = buildFullSession();
+        Path ndjson = Files.createTempFile("autoqa-test-", ".ndjson");
+        Path json   = Files.createTempFile("autoqa-test-", ".json");
+        Path again  = Files.createTempFile("autoqa-test-", ".ndjson");
+        try {
+            RecordingIO.write(original, ndjson);
+            RecordingIO.convert(ndjson, json);
+            RecordingIO.convert(json, again);
+
+            RecordedSession fromJson = RecordingIO.read(json);
+            assertThat(fromJson.getEventCount()).isEqualTo(original.getEventCount());
+            assertThat(fromJson.getEndTimestamp()).isEqualTo(original.getEndTimestamp());
+            assertThat(fromJson.getEvents().get(0).getElement().getId()).isEqualTo("submit-btn");
+            assertThat(RecordingIO.toJson(RecordingIO.read(again))).isEqualTo(RecordingIO.toJson(fromJson));
+        } finally {
+            Files.deleteIfExists(ndjson);
+            Files.deleteIfExists(json);
+            Files.deleteIfExists(again);
+        }
+    }
+
     // ── Helpers ───────────────────────────────────────────────────────────
 
+    private static final String NDJSON_HEADER =
+            "{\"schemaVersion\":\"1.0\",\"sessionId\":\"s\",\"startTimestamp\":\"2024-01-01T10:00:00Z\"}\n";
+
     private RecordedSession buildMinimalSession() {
         RecordedSession s = new RecordedSession();
         s.setSessionId(UUID.randomUUID().toString());
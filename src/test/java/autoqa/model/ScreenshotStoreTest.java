@@ -0,0 +1,156 @@
+package autoqa.model;
+
+import autoqa.model.RecordedEvent.EventType;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link ScreenshotStore} and {@link RecordingIO#migrateScreenshots}.
+ */
+public class ScreenshotStoreTest {
+
+    private static final byte[] FRAME_A = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3};
+    private static final byte[] FRAME_B = {(byte) 0x89, 'P', 'N', 'G', 4, 5, 6};
+
+    private Path dir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("autoqa-shots-");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static RecordedEvent clickWithInlineShot(byte[] png) {
+        RecordedEvent e = new RecordedEvent();
+        e.setEventType(EventType.CLICK);
+        e.setTimestamp(Instant.parse("2024-01-01T10:00:00Z"));
+        e.setScreenshotBase64(Base64.getEncoder().encodeToString(png));
+        return e;
+    }
+
+    @Test
+    public void forRecording_mapsBothFormatsToSameDirectory() {
+        Path json   = dir.resolve("login.json");
+        Path ndjson = dir.resolve("login.ndjson");
+
+        assertThat(ScreenshotStore.forRecording(json).getDirectory())
+                .isEqualTo(dir.resolve("login.screenshots"))
+                .isEqualTo(ScreenshotStore.forRecording(ndjson).getDirectory());
+    }
+
+    @Test
+    public void put_identicalFrames_storedOnce() throws IOException {
+        ScreenshotStore store = new ScreenshotStore(dir.resolve("s"));
+
+        String a1 = store.put(FRAME_A);
+        String a2 = store.put(FRAME_A.clone());
+        String b  = store.put(FRAME_B);
+
+        assertThat(a1).startsWith("sha256:").isEqualTo(a2).isNotEqualTo(b);
+        try (Stream<Path> files = Files.list(store.getDirectory())) {
+            assertThat(files.count()).isEqualTo(2);
+        }
+        assertThat(store.get(a1)).isEqualTo(FRAME_A);
+    }
+
+    @Test
+    public void load_prefersRefAndFallsBackToInline() throws IOException {
+        ScreenshotStore store = new ScreenshotStore(dir.resolve("s"));
+        RecordedEvent legacy = clickWithInlineShot(FRAME_A);
+        RecordedEvent stored = new RecordedEvent();
+        stored.setScreenshotRef(store.put(FRAME_B));
+
+        assertThat(store.load(legacy)).isEqualTo(FRAME_A);
+        assertThat(store.load(stored)).isEqualTo(FRAME_B);
+        assertThat(store.load(new RecordedEvent())).isNull();
+    }
+
+    @Test
+    public void resolve_rejectsNonHashReferences() {
+        ScreenshotStore store = new ScreenshotStore(dir);
+
+        assertThatThrownBy(() -> store.resolve("sha256:../../etc/passwd"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.get("shot.png"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void migrateScreenshots_movesInlineDataToSidecar() throws IOException {
+        RecordedSession session = new RecordedSession();
+        session.setSessionId("migrate");
+        session.setStartTimestamp(Instant.parse("2024-01-01T10:00:00Z"));
+        session.addEvent(clickWithInlineShot(FRAME_A));
+        session.addEvent(clickWithInlineShot(FRAME_A));
+        // Written by an older build: screenshots inline in the JSON
+        Path file = dir.resolve("legacy.json");
+        Files.writeString(file, RecordingIO.toJson(session));
+
+        assertThat(RecordingIO.migrateScreenshots(file)).isEqualTo(2);
+
+        assertThat(Files.readString(file)).doesNotContain("screenshotBase64");
+        RecordedSession loaded = RecordingIO.read(file);
+        RecordedEvent first = loaded.getEvents().get(0);
+        assertThat(first.getScreenshotRef()).isEqualTo(loaded.getEvents().get(1).getScreenshotRef());
+        assertThat(ScreenshotStore.forRecording(file).load(first)).isEqualTo(FRAME_A);
+
+        // Second run finds nothing to move
+        assertThat(RecordingIO.migrateScreenshots(file)).isZero();
+    }
+
+    @Test
+    public void write_inlineScreenshot_storesOnlyRefsInRecording() throws IOException {
+        for (String name : new String[]{"new.json", "new.ndjson"}) {
+            RecordedSession session = new RecordedSession();
+            session.setSessionId("write");
+            session.setStartTimestamp(Instant.parse("2024-01-01T10:00:00Z"));
+            session.addEvent(clickWithInlineShot(FRAME_A));
+            Path file = dir.resolve(name);
+            RecordingIO.write(session, file);
+
+            String written = Files.readString(file);
+            assertThat(written).doesNotContain("screenshotBase64").contains("sha256:");
+            RecordedEvent loaded = RecordingIO.read(file).getEvents().get(0);
+            assertThat(loaded.getScreenshotRef()).startsWith("sha256:");
+            assertThat(ScreenshotStore.forRecording(file).load(loaded)).isEqualTo(FRAME_A);
+        }
+    }
+
+    @Test
+    public void convert_toNewName_copiesScreenshots() throws IOException {
+        Path from = dir.resolve("a.ndjson");
+        RecordedSession session = new RecordedSession();
+        session.setSessionId("convert");
+        session.setStartTimestamp(Instant.parse("2024-01-01T10:00:00Z"));
+        RecordedEvent e = new RecordedEvent();
+        e.setEventType(EventType.CLICK);
+        e.setTimestamp(Instant.parse("2024-01-01T10:00:01Z"));
+        e.setScreenshotRef(ScreenshotStore.forRecording(from).put(FRAME_B));
+        session.addEvent(e);
+        RecordingIO.write(session, from);
+
+        Path to = dir.resolve("b.json");
+        RecordingIO.convert(from, to);
+
+        RecordedEvent converted = RecordingIO.read(to).getEvents().get(0);
+        assertThat(ScreenshotStore.forRecording(to).load(converted)).isEqualTo(FRAME_B);
+    }
+}
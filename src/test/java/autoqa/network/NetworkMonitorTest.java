@@ -1,11 +1,27 @@
 package autoqa.network;
 
+import org.mockito.ArgumentCaptor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
 import org.testng.annotations.Test;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 /**
  * Unit tests for {@link NetworkMonitor}, {@link NetworkCapture}, and {@link NetworkAssertion}.
@@ -173,4 +189,123 @@ public class NetworkMonitorTest {
         String summary = monitor.summary();
         assertThat(summary).contains("NetworkMonitor");
     }
+
+    // ── DevTools event handling ───────────────────────────────────────────────
+
+    /** A started monitor with a mocked CDP and no DevTools; events are fed to its handlers directly. */
+    private NetworkMonitor startedMonitor(int capacity) {
+        return new NetworkMonitor(mock(HasCdp.class), null, capacity).start();
+    }
+
+    @Test
+    public void events_recordRealMethodStatusTimingAndSize() {
+        NetworkMonitor monitor = startedMonitor(16);
+
+        monitor.onRequestWillBeSent(Map.of("requestId", "7", "timestamp", 100.0, "wallTime", 1_700_000_000.0,
+                "request", Map.of("url", "https://example.com/api/login", "method", "POST")));
+        monitor.onResponseReceived(Map.of("requestId", "7",
+                "response", Map.of("status", 401, "mimeType", "application/json")));
+        assertThat(monitor.captures()).isEmpty();   // recorded once loading finishes
+
+        monitor.onLoadingFinished(Map.of("requestId", "7", "timestamp", 100.25, "encodedDataLength", 512));
+
+        assertThat(monitor.captures()).singleElement().satisfies(c -> {
+            assertThat(c.isResponse()).isTrue();
+            assertThat(c.getMethod()).isEqualTo("POST");
+            assertThat(c.getStatusCode()).isEqualTo(401);
+            assertThat(c.getMimeType()).isEqualTo("application/json");
+            assertThat(c.getDurationMs()).isEqualTo(250);
+            assertThat(c.getResponseSizeBytes()).isEqualTo(512);
+            assertThat(c.getTimestamp().getEpochSecond()).isEqualTo(1_700_000_000L);
+        });
+        assertThat(monitor.errors()).hasSize(1);
+    }
+
+    @Test
+    public void events_redirectAndFailureAreRecorded() {
+        NetworkMonitor monitor = startedMonitor(16);
+
+        monitor.onRequestWillBeSent(Map.of("requestId", "1", "timestamp", 1.0,
+                "request", Map.of("url", "http://example.com/old", "method", "GET")));
+        monitor.onRequestWillBeSent(Map.of("requestId", "1", "timestamp", 1.1,
+                "request", Map.of("url", "https://example.com/new", "method", "GET"),
+                "redirectResponse", Map.of("status", 301, "mimeType", "text/html")));
+        monitor.onResponseReceived(Map.of("requestId", "1", "response", Map.of("status", 200)));
+        monitor.onLoadingFinished(Map.of("requestId", "1", "timestamp", 1.3, "encodedDataLength", 10));
+
+        monitor.onRequestWillBeSent(Map.of("requestId", "2", "timestamp", 2.0,
+                "request", Map.of("url", "https://down.example.com/x", "method", "GET")));
+        monitor.onLoadingFailed(Map.of("requestId", "2", "timestamp", 2.5, "errorText", "net::ERR_CONNECTION_REFUSED"));
+
+        assertThat(monitor.captures()).extracting(NetworkCapture::getStatusCode).containsExactly(301, 200, 0);
+        assertThat(monitor.failed()).singleElement()
+                .extracting(NetworkCapture::getFailureReason).isEqualTo("net::ERR_CONNECTION_REFUSED");
+    }
+
+    @Test
+    public void events_ignoredAfterStop() {
+        NetworkMonitor monitor = startedMonitor(16);
+        monitor.stop();
+
+        monitor.onRequestWillBeSent(Map.of("requestId", "1", "timestamp", 1.0,
+                "request", Map.of("url", "https://example.com/", "method", "GET")));
+        monitor.onLoadingFinished(Map.of("requestId", "1", "timestamp", 1.1));
+
+        assertThat(monitor.captures()).isEmpty();
+    }
+
+    // ── Ring buffer and pattern index ─────────────────────────────────────────
+
+    @Test
+    public void ring_keepsMostRecentCaptures() {
+        NetworkMonitor monitor = new NetworkMonitor(null, null, 4);
+        for (int i = 0; i < 10; i++) {
+            monitor.record(NetworkCapture.response("r" + i, "https://example.com/item/" + i, "GET", 200, null, 0, 1));
+        }
+
+        assertThat(monitor.captures()).extracting(NetworkCapture::getRequestId)
+                .containsExactly("r6", "r7", "r8", "r9");
+        assertThat(monitor.overwritten()).isEqualTo(6);
+    }
+
+    @Test
+    public void capturesMatching_indexIsExtendedAndEvicted() {
+        NetworkMonitor monitor = new NetworkMonitor(null, null, 4);
+        monitor.record(NetworkCapture.response("a", "https://example.com/api/users", "GET", 200, null, 0, 1));
+        monitor.record(NetworkCapture.response("b", "https://example.com/home", "GET", 200, null, 0, 1));
+        assertThat(monitor.capturesMatching("api/users")).extracting(NetworkCapture::getRequestId)
+                .containsExactly("a");
+
+        monitor.record(NetworkCapture.response("c", "https://example.com/api/users/2", "GET", 200, null, 0, 1));
+        assertThat(monitor.capturesMatching("api/users")).extracting(NetworkCapture::getRequestId)
+                .containsExactly("a", "c");
+
+        // Two more captures push "a" out of the ring
+        monitor.record(NetworkCapture.response("d", "https://example.com/x", "GET", 200, null, 0, 1));
+        monitor.record(NetworkCapture.response("e", "https://example.com/y", "GET", 200, null, 0, 1));
+        assertThat(monitor.capturesMatching("api/users")).extracting(NetworkCapture::getRequestId)
+                .containsExactly("c");
+
+        monitor.clear();
+        assertThat(monitor.capturesMatching("api/users")).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void start_enablesNetworkOnTheListeningDevToolsSession() {
+        DevTools devTools = mock(DevTools.class);
+        WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(HasDevTools.class));
+        when(((HasDevTools) driver).getDevTools()).thenReturn(devTools);
+        HasCdp cdp = mock(HasCdp.class);
+
+        NetworkMonitor monitor = new NetworkMonitor(cdp, driver).start();
+        monitor.stop();
+
+        verify(devTools, atLeastOnce()).addListener(any(), any());
+        ArgumentCaptor<Command> sent = ArgumentCaptor.forClass(Command.class);
+        verify(devTools, atLeastOnce()).send(sent.capture());
+        assertThat(sent.getAllValues()).extracting(c -> ((Command<?>) c).getMethod())
+                .containsExactly("Network.enable", "Network.disable");
+        verify(cdp, never()).executeCdpCommand(anyString(), anyMap());
+    }
 }
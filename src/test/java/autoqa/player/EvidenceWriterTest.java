@@ -0,0 +1,131 @@
+package autoqa.player;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link EvidenceWriter}.
+ */
+public class EvidenceWriterTest {
+
+    private Path tempDir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("evidence-writer-test-");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (var stream = Files.walk(tempDir)) {
+            stream.sorted(Comparator.reverseOrder())
+                  .forEach(p -> {
+                      try { Files.delete(p); } catch (IOException ignored) { }
+                  });
+        }
+    }
+
+    @Test
+    public void submit_async_filesPresentAfterFlush() throws IOException {
+        try (EvidenceWriter writer = new EvidenceWriter(2, 4, 0, false)) {
+            for (int step = 0; step < 10; step++) {
+                writer.submit(tempDir.resolve("run").resolve(String.valueOf(step)), snapshot(100, "<html/>"));
+            }
+            assertThat(writer.flush(Duration.ofSeconds(10))).isTrue();
+            assertThat(writer.pending()).isZero();
+        }
+
+        for (int step = 0; step < 10; step++) {
+            Path dir = tempDir.resolve("run").resolve(String.valueOf(step));
+            assertThat(dir.resolve("screenshot.png")).hasSize(100);
+            assertThat(Files.readString(dir.resolve("page-source.html"))).isEqualTo("<html/>");
+            assertThat(dir.resolve("console.log")).exists();
+            assertThat(dir.resolve("context.txt")).exists();
+        }
+    }
+
+    @Test
+    public void submit_overBudget_skipsArtifactsAndNotesThemInContext() throws IOException {
+        EvidenceWriter writer = new EvidenceWriter(0, 0, 1_000, false);
+        Path first  = tempDir.resolve("run").resolve("0");
+        Path second = tempDir.resolve("run").resolve("1");
+
+        writer.submit(first, snapshot(600, "x".repeat(300)));
+        writer.submit(second, snapshot(600, "<html/>"));
+
+        assertThat(first.resolve("screenshot.png")).exists();
+        assertThat(first.resolve("page-source.html")).exists();
+        assertThat(second.resolve("screenshot.png")).doesNotExist();
+        assertThat(second.resolve("console.log")).exists();
+        assertThat(Files.readString(second.resolve("context.txt")))
+                .contains("Skipped")
+                .contains("screenshot.png");
+
+        // The budget is per run: another session starts from zero
+        Path other = tempDir.resolve("other-run").resolve("0");
+        writer.submit(other, snapshot(600, "<html/>"));
+        assertThat(other.resolve("screenshot.png")).exists();
+    }
+
+    @Test
+    public void beginRun_startsTheSessionBudgetAfresh() {
+        EvidenceWriter writer = new EvidenceWriter(0, 0, 1_000, false);
+        Path run = tempDir.resolve("run");
+        writer.submit(run.resolve("0"), snapshot(900, null));
+        writer.submit(run.resolve("1"), snapshot(900, null));
+        assertThat(run.resolve("1").resolve("screenshot.png")).doesNotExist();
+
+        writer.beginRun(run);
+        writer.submit(run.resolve("1"), snapshot(900, null));
+        assertThat(run.resolve("1").resolve("screenshot.png")).exists();
+    }
+
+    @Test
+    public void flush_forOneDirectory_waitsOnlyForThatDirectory() {
+        try (EvidenceWriter writer = new EvidenceWriter(1, 4, 0, false)) {
+            Path mine = tempDir.resolve("run").resolve("0");
+            writer.submit(mine, snapshot(100, "<html/>"));
+
+            assertThat(writer.flush(mine, Duration.ofSeconds(10))).isTrue();
+            assertThat(mine.resolve("screenshot.png")).hasSize(100);
+            assertThat(writer.flush(tempDir.resolve("run").resolve("9"), Duration.ZERO)).isTrue();
+        }
+    }
+
+    @Test
+    public void submit_compress_writesGzippedText() throws IOException {
+        EvidenceWriter writer = new EvidenceWriter(0, 0, 0, true);
+        Path dir = tempDir.resolve("run").resolve("0");
+        String html = "<html><body>" + "<p>row</p>".repeat(500) + "</body></html>";
+
+        writer.submit(dir, snapshot(10, html));
+
+        assertThat(dir.resolve("page-source.html")).doesNotExist();
+        Path gz = dir.resolve("page-source.html.gz");
+        assertThat(Files.size(gz)).isLessThan(html.length());
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gz))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(html);
+        }
+        assertThat(dir.resolve("screenshot.png")).exists();
+    }
+
+    // ── Helpers ───────────────────────────────────────────────────────────
+
+    private static EvidenceWriter.Snapshot snapshot(int screenshotBytes, String pageSource) {
+        return new EvidenceWriter.Snapshot(new byte[screenshotBytes], pageSource,
+                List.of("[t] [SEVERE] boom"), List.of("=== AutoQA Failure Evidence Context ==="));
+    }
+}
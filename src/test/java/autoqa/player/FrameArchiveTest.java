@@ -0,0 +1,103 @@
+package autoqa.player;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link FrameArchive}.
+ */
+public class FrameArchiveTest {
+
+    private static final byte[] RED   = {(byte) 0xFF, (byte) 0xD8, 1, 1, 1, (byte) 0xFF, (byte) 0xD9};
+    private static final byte[] GREEN = {(byte) 0xFF, (byte) 0xD8, 2, 2, (byte) 0xFF, (byte) 0xD9};
+    private static final byte[] BLUE  = {(byte) 0xFF, (byte) 0xD8, 3, (byte) 0xFF, (byte) 0xD9};
+
+    private Path tempDir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("frame-archive-test-");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (var stream = Files.walk(tempDir)) {
+            stream.sorted(Comparator.reverseOrder())
+                  .forEach(p -> {
+                      try { Files.delete(p); } catch (IOException ignored) { }
+                  });
+        }
+    }
+
+    @Test
+    public void append_dropsConsecutiveDuplicates() throws IOException {
+        Path file = tempDir.resolve("screencast.mjpeg");
+        try (FrameArchive.Writer w = FrameArchive.create(file)) {
+            assertThat(w.append(RED, 1_000)).isTrue();
+            assertThat(w.append(RED, 1_040)).isFalse();
+            assertThat(w.append(GREEN, 1_080)).isTrue();
+            assertThat(w.append(RED, 1_120)).isTrue();   // same as an earlier frame, but the screen changed back
+            assertThat(w.frameCount()).isEqualTo(3);
+            assertThat(w.duplicatesDropped()).isEqualTo(1);
+        }
+
+        // The archive is the frames back to back — a plain MJPEG stream
+        assertThat(Files.size(file)).isEqualTo(RED.length * 2L + GREEN.length);
+        assertThat(FrameArchive.indexPath(file)).exists();
+    }
+
+    @Test
+    public void frameAt_returnsFrameOnScreenAtThatTime() throws IOException {
+        Path file = tempDir.resolve("screencast.mjpeg");
+        try (FrameArchive.Writer w = FrameArchive.create(file)) {
+            w.append(RED, 1_000);
+            w.append(GREEN, 2_000);
+            w.append(BLUE, 3_000);
+        }
+
+        FrameArchive archive = FrameArchive.open(file);
+        assertThat(archive.frames()).hasSize(3);
+        assertThat(archive.frameAt(500)).isEqualTo(RED);     // before the first frame
+        assertThat(archive.frameAt(1_999)).isEqualTo(RED);
+        assertThat(archive.frameAt(2_000)).isEqualTo(GREEN);
+        assertThat(archive.frameAt(9_999)).isEqualTo(BLUE);
+        assertThat(archive.readFrame(1)).isEqualTo(GREEN);
+    }
+
+    @Test
+    public void frameForStep_usesStepMarks() throws IOException {
+        Path file = tempDir.resolve("screencast.mjpeg");
+        try (FrameArchive.Writer w = FrameArchive.create(file)) {
+            w.append(RED, 1_000);
+            w.markStep(0, "Navigate", 1_500);
+            w.append(GREEN, 2_000);
+            w.markStep(1, "Click login", 2_100);
+        }
+
+        FrameArchive archive = FrameArchive.open(file);
+        assertThat(archive.steps()).extracting(FrameArchive.StepMark::label)
+                .containsExactly("Navigate", "Click login");
+        assertThat(archive.steps().get(1).frame()).isEqualTo(1);
+        assertThat(archive.frameForStep(0)).isEqualTo(RED);
+        assertThat(archive.frameForStep(1)).isEqualTo(GREEN);
+        assertThat(archive.frameForStep(7)).isNull();
+    }
+
+    @Test
+    public void emptyArchive_hasNoFrames() throws IOException {
+        Path file = tempDir.resolve("empty.mjpeg");
+        FrameArchive.create(file).close();
+
+        FrameArchive archive = FrameArchive.open(file);
+        assertThat(archive.frameIndexAt(1_000)).isEqualTo(-1);
+        assertThat(archive.frameAt(1_000)).isNull();
+    }
+}
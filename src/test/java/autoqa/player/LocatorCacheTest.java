@@ -0,0 +1,104 @@
+package autoqa.player;
+
+import autoqa.model.ElementInfo;
+import autoqa.model.ElementLocator.Strategy;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link LocatorCache}.
+ */
+public class LocatorCacheTest {
+
+    private LocatorCache cache;
+
+    @BeforeMethod
+    public void setUp() {
+        cache = new LocatorCache();
+        cache.setPage("https://app/home");
+    }
+
+    private ElementInfo element(String id, String css) {
+        ElementInfo ei = new ElementInfo();
+        ei.setTagName("button");
+        ei.setId(id);
+        ei.setCss(css);
+        return ei;
+    }
+
+    @Test(description = "First lookup is a miss; the recorded winner is returned next time")
+    public void testMissThenHit() {
+        ElementInfo ei = element("save", "#save");
+
+        assertThat(cache.lookup(ei)).isNull();
+        cache.record(ei, null, Strategy.CSS);
+
+        assertThat(cache.lookup(element("save", "#save"))).isEqualTo(Strategy.CSS);
+        cache.record(ei, Strategy.CSS, Strategy.CSS);
+
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test(description = "A cached strategy that misses is invalidated and replaced by the new winner")
+    public void testStaleEntryReplaced() {
+        ElementInfo ei = element("save", "#save");
+        cache.record(ei, null, Strategy.ID);
+
+        cache.record(ei, Strategy.ID, Strategy.CSS);
+
+        assertThat(cache.getInvalidations()).isEqualTo(1);
+        assertThat(cache.lookup(ei)).isEqualTo(Strategy.CSS);
+    }
+
+    @Test(description = "A cached strategy that misses with no replacement leaves no entry")
+    public void testStaleEntryDroppedWhenNothingMatches() {
+        ElementInfo ei = element("save", "#save");
+        cache.record(ei, null, Strategy.ID);
+
+        cache.record(ei, Strategy.ID, null);
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test(description = "Entries are scoped to the page URL")
+    public void testEntriesScopedToPage() {
+        ElementInfo ei = element("save", "#save");
+        cache.record(ei, null, Strategy.ID);
+
+        cache.setPage("https://app/other");
+
+        assertThat(cache.lookup(ei)).isNull();
+    }
+
+    @Test(description = "Navigating to a page drops the entries cached for it")
+    public void testNavigationInvalidatesPage() {
+        ElementInfo ei = element("save", "#save");
+        cache.record(ei, null, Strategy.ID);
+        cache.setPage("https://app/other");
+        cache.setPage("https://app/home");
+
+        assertThat(cache.lookup(ei)).isNull();
+
+        cache.record(ei, null, Strategy.ID);
+        cache.onNavigate("https://app/home");
+        assertThat(cache.lookup(ei)).isNull();
+    }
+
+    @Test(description = "Hit rate counts hits over all lookups")
+    public void testHitRate() {
+        ElementInfo ei = element("save", "#save");
+        assertThat(cache.hitRate()).isZero();
+
+        cache.lookup(ei);
+        cache.record(ei, null, Strategy.ID);
+        for (int i = 0; i < 3; i++) {
+            cache.record(ei, cache.lookup(ei), Strategy.ID);
+        }
+
+        assertThat(cache.hitRate()).isEqualTo(0.75);
+    }
+}
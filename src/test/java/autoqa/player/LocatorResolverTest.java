@@ -4,9 +4,12 @@ import autoqa.model.ElementInfo;
 import autoqa.model.ElementLocator;
 import autoqa.model.ElementLocator.Strategy;
 
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.JavascriptException;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
@@ -14,9 +17,13 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
@@ -28,6 +35,9 @@ import static org.mockito.Mockito.*;
  */
 public class LocatorResolverTest {
 
+    /** Driver that can run scripts, so the resolver enables batched mode. */
+    private interface ScriptingDriver extends WebDriver, JavascriptExecutor {}
+
     @Mock
     private WebDriver driver;
 
@@ -255,4 +265,199 @@ public class LocatorResolverTest {
         // By.id(any()) passes null to Selenium which throws; use argThat on toString instead
         verify(driver, never()).findElement(argThat(by -> by.toString().startsWith("By.id")));
     }
+
+    // ── Batched mode ──────────────────────────────────────────────────────
+
+    @Test(description = "Plain WebDriver without script support stays on the sequential path")
+    public void testNonScriptingDriverIsNotBatched() {
+        assertThat(resolver(4).isBatched()).isFalse();
+    }
+
+    @Test(description = "Batched mode resolves all candidates in one executeScript call")
+    public void testBatchedResolvesInOneRoundTrip() {
+        ScriptingDriver js = mock(ScriptingDriver.class);
+        when(js.executeScript(anyString(), any())).thenReturn(List.of(2L, mockElement));
+
+        LocatorResolver r = new LocatorResolver(js, wait, 4);
+        WebElement found = r.findElement(fullElement("a", "b", "#c", "//d"));
+
+        assertThat(r.isBatched()).isTrue();
+        assertThat(found).isSameAs(mockElement);
+        assertThat(r.resolve(fullElement("a", "b", "#c", "//d")).getStrategy()).isEqualTo(Strategy.CSS);
+        assertThat(r.getRoundTrips()).isEqualTo(2);
+        verify(js, never()).findElement(any());
+    }
+
+    @Test(description = "Batched payload is capped at maxAttempts candidates")
+    @SuppressWarnings("unchecked")
+    public void testBatchedPayloadRespectsMaxAttempts() {
+        ScriptingDriver js = mock(ScriptingDriver.class);
+        when(js.executeScript(anyString(), any())).thenReturn(null);
+
+        LocatorResolver r = new LocatorResolver(js, wait, 2);
+
+        assertThatThrownBy(() -> r.resolve(fullElement("a", "b", "#c", "//d")))
+                .isInstanceOf(AutoQAException.class);
+        verify(js).executeScript(anyString(), argThat(arg -> ((List<Object>) arg).size() == 2));
+    }
+
+    @Test(description = "Script failure falls back to sequential findElement calls")
+    public void testBatchedFallsBackOnScriptError() {
+        ScriptingDriver js = mock(ScriptingDriver.class);
+        when(js.executeScript(anyString(), any())).thenThrow(new JavascriptException("CSP"));
+        when(js.findElement(By.id("a"))).thenThrow(new NoSuchElementException("no id"));
+        when(js.findElement(By.name("b"))).thenReturn(mockElement);
+
+        LocatorResolver r = new LocatorResolver(js, wait, 4);
+        ElementLocator result = r.resolve(fullElement("a", "b", null, null));
+
+        assertThat(result.getStrategy()).isEqualTo(Strategy.NAME);
+        assertThat(r.getRoundTrips()).isEqualTo(3);
+    }
+
+    @Test(description = "Batched mode can be disabled explicitly")
+    public void testBatchedDisabledUsesFindElement() {
+        ScriptingDriver js = mock(ScriptingDriver.class);
+        when(js.findElement(By.id("a"))).thenReturn(mockElement);
+
+        LocatorResolver r = new LocatorResolver(js, wait, 4, false);
+        r.resolve(fullElement("a", null, null, null));
+
+        assertThat(r.isBatched()).isFalse();
+        verify(js, never()).executeScript(anyString(), any());
+    }
+
+    // ── Strategy statistics ───────────────────────────────────────────────
+
+    @Test(description = "Stats count an attempt per strategy tried and a hit for the winner")
+    public void testStrategyStatsCountAttemptsAndHits() {
+        ScriptingDriver js = mock(ScriptingDriver.class);
+        when(js.executeScript(anyString(), any())).thenReturn(List.of(1L, mockElement));
+
+        LocatorResolver r = new LocatorResolver(js, wait, 4);
+        r.resolve(fullElement("a", "b", "#c", "//d"));
+        r.resolve(fullElement("a", "b", "#c", "//d"));
+
+        Map<Strategy, LocatorResolver.StrategyStats> stats = r.getStrategyStats();
+        assertThat(stats.get(Strategy.ID).attempts()).isEqualTo(2);
+        assertThat(stats.get(Strategy.ID).hits()).isZero();
+        assertThat(stats.get(Strategy.NAME).hitRate()).isEqualTo(1.0);
+        assertThat(stats.get(Strategy.CSS).attempts()).isZero();
+        assertThat(r.statsSummary()).contains("NAME 2/2").contains("[batched]");
+    }
+
+    // ── Strategy cache ────────────────────────────────────────────────────
+
+    @Test(description = "Cached winning strategy is tried first and confirmed against higher-priority ones")
+    public void testCachedStrategyTriedFirst() {
+        when(driver.findElement(By.id("a"))).thenThrow(new NoSuchElementException("no id"));
+        when(driver.findElement(By.name("b"))).thenThrow(new NoSuchElementException("no name"));
+        when(driver.findElement(By.cssSelector("#c"))).thenReturn(mockElement);
+
+        LocatorResolver r = resolver(4);
+        LocatorCache cache = new LocatorCache();
+        r.setCache(cache);
+
+        ElementInfo ei = fullElement("a", "b", "#c", "//d");
+        r.resolve(ei);
+        ElementLocator second = r.resolve(ei);
+
+        // Second lookup starts with CSS, then re-checks ID and Name before accepting it
+        InOrder order = inOrder(driver);
+        order.verify(driver).findElement(By.cssSelector("#c"));
+        order.verify(driver).findElement(By.id("a"));
+        order.verify(driver).findElement(By.name("b"));
+        verify(driver, never()).findElement(By.xpath("//d"));
+        assertThat(second.getStrategy()).isEqualTo(Strategy.CSS);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test(description = "A cached locator that drifted onto another element loses to a higher-priority match")
+    public void testCachedStrategyDriftIsReplaced() {
+        WebElement other = mock(WebElement.class);
+        when(driver.findElement(By.id("a")))
+                .thenThrow(new NoSuchElementException("not rendered yet"))
+                .thenReturn(mockElement);
+        when(driver.findElement(By.cssSelector(".row > button"))).thenReturn(other);
+
+        LocatorResolver r = resolver(4);
+        LocatorCache cache = new LocatorCache();
+        r.setCache(cache);
+
+        ElementInfo ei = fullElement("a", null, ".row > button", null);
+        r.resolve(ei);
+        assertThat(cache.lookup(ei)).isEqualTo(Strategy.CSS);
+
+        // CSS still matches, but now on a different element than the ID
+        WebElement found = r.findElement(ei);
+
+        assertThat(found).isSameAs(mockElement);
+        assertThat(cache.getHits()).isZero();
+        assertThat(cache.getInvalidations()).isEqualTo(1);
+        assertThat(cache.lookup(ei)).isEqualTo(Strategy.ID);
+    }
+
+    @Test(description = "A cached hit stands when the higher-priority strategy finds the same element")
+    public void testCachedStrategyConfirmedBySameElement() {
+        when(driver.findElement(By.id("a")))
+                .thenThrow(new NoSuchElementException("not rendered yet"))
+                .thenReturn(mockElement);
+        when(driver.findElement(By.cssSelector("#c"))).thenReturn(mockElement);
+
+        LocatorResolver r = resolver(4);
+        LocatorCache cache = new LocatorCache();
+        r.setCache(cache);
+
+        ElementInfo ei = fullElement("a", null, "#c", null);
+        r.resolve(ei);
+        ElementLocator second = r.resolve(ei);
+
+        assertThat(second.getStrategy()).isEqualTo(Strategy.CSS);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getInvalidations()).isZero();
+    }
+
+    @Test(description = "Batched lookups keep priority order, so a drifted cached locator cannot win")
+    @SuppressWarnings("unchecked")
+    public void testBatchedIgnoresCachedOrder() {
+        ScriptingDriver js = mock(ScriptingDriver.class);
+        when(js.executeScript(anyString(), any()))
+                .thenReturn(List.of(1L, mockElement))   // ID missing: CSS wins
+                .thenReturn(List.of(0L, mockElement));  // ID back
+
+        LocatorResolver r = new LocatorResolver(js, wait, 4);
+        LocatorCache cache = new LocatorCache();
+        r.setCache(cache);
+
+        ElementInfo ei = fullElement("a", null, "#c", null);
+        r.resolve(ei);
+        ElementLocator second = r.resolve(ei);
+
+        verify(js, times(2)).executeScript(anyString(),
+                argThat(arg -> ((List<List<String>>) arg).get(0).get(0).equals("ID")));
+        assertThat(second.getStrategy()).isEqualTo(Strategy.ID);
+        assertThat(cache.lookup(ei)).isEqualTo(Strategy.ID);
+    }
+
+    @Test(description = "A cached strategy that stops matching is invalidated and the chain continues")
+    public void testCachedStrategyMissFallsThrough() {
+        when(driver.findElement(By.id("a"))).thenThrow(new NoSuchElementException("no id"));
+        when(driver.findElement(By.cssSelector("#c")))
+                .thenReturn(mockElement)
+                .thenThrow(new NoSuchElementException("gone"));
+        when(driver.findElement(By.xpath("//d"))).thenReturn(mockElement);
+
+        LocatorResolver r = resolver(4);
+        LocatorCache cache = new LocatorCache();
+        r.setCache(cache);
+
+        ElementInfo ei = fullElement("a", null, "#c", "//d");
+        r.resolve(ei);
+        ElementLocator second = r.resolve(ei);
+
+        assertThat(second.getStrategy()).isEqualTo(Strategy.XPATH);
+        assertThat(cache.getInvalidations()).isEqualTo(1);
+        assertThat(cache.lookup(ei)).isEqualTo(Strategy.XPATH);
+    }
 }
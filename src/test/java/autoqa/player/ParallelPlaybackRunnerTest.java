@@ -0,0 +1,151 @@
+package autoqa.player;
+
+import autoqa.model.RecordedEvent;
+import autoqa.model.RecordedEvent.EventType;
+import autoqa.model.RecordedSession;
+import autoqa.model.RecordingIO;
+import autoqa.player.PlayerEngine.PlaybackResult;
+import org.mockito.Answers;
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ParallelPlaybackRunner}.
+ *
+ * <p>Recordings are written to a temp directory; engines are Mockito mocks so
+ * no browser is launched.
+ */
+public class ParallelPlaybackRunnerTest {
+
+    private Path dir;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("autoqa-parallel");
+        for (int i = 0; i < 6; i++) {
+            writeRecording("rec-" + i);
+        }
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private void writeRecording(String id) throws Exception {
+        RecordedSession s = new RecordedSession();
+        s.setSessionId(id);
+        s.setStartTimestamp(Instant.now());
+        RecordedEvent e = new RecordedEvent();
+        e.setEventType(EventType.NAVIGATE);
+        e.setTimestamp(Instant.now());
+        e.setUrl("https://example.com/" + id);
+        s.addEvent(e);
+        RecordingIO.write(s, dir.resolve(id + ".json"));
+    }
+
+    private static WebDriver newDriver() {
+        WebDriver d = mock(WebDriver.class, Answers.RETURNS_DEEP_STUBS);
+        when(d.getWindowHandles()).thenReturn(Set.of("main"));
+        return d;
+    }
+
+    @Test(description = "All recordings in a directory are replayed and results keep input order")
+    public void runDirectory_aggregatesInOrder() throws Exception {
+        try (WebDriverPool pool = new WebDriverPool(ParallelPlaybackRunnerTest::newDriver, 3)) {
+            ParallelPlaybackRunner runner = new ParallelPlaybackRunner(pool, 3, d -> {
+                PlayerEngine engine = mock(PlayerEngine.class);
+                when(engine.play(any())).thenReturn(new PlaybackResult(true, 1, 1, null));
+                return engine;
+            });
+
+            ParallelPlaybackRunner.SuiteResult suite = runner.runDirectory(dir);
+
+            assertThat(suite.getResults()).hasSize(6);
+            assertThat(suite.isSuccess()).isTrue();
+            assertThat(suite.getResults())
+                    .extracting(r -> r.recording().getFileName().toString())
+                    .containsExactly("rec-0.json", "rec-1.json", "rec-2.json",
+                                     "rec-3.json", "rec-4.json", "rec-5.json");
+        }
+    }
+
+    @Test(description = "Workers run concurrently up to the configured count")
+    public void run_usesMultipleWorkers() throws Exception {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        try (WebDriverPool pool = new WebDriverPool(ParallelPlaybackRunnerTest::newDriver, 3)) {
+            ParallelPlaybackRunner runner = new ParallelPlaybackRunner(pool, 3, d -> {
+                PlayerEngine engine = mock(PlayerEngine.class);
+                when(engine.play(any())).thenAnswer(inv -> {
+                    peak.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    Thread.sleep(50);
+                    concurrent.decrementAndGet();
+                    return new PlaybackResult(true, 1, 1, null);
+                });
+                return engine;
+            });
+
+            runner.runDirectory(dir);
+        }
+
+        assertThat(peak.get()).isBetween(2, 3);
+    }
+
+    @Test(description = "A failing recording is reported without affecting the others")
+    public void run_reportsFailuresIndividually() throws Exception {
+        try (WebDriverPool pool = new WebDriverPool(ParallelPlaybackRunnerTest::newDriver, 2)) {
+            ParallelPlaybackRunner runner = new ParallelPlaybackRunner(pool, 2, d -> {
+                PlayerEngine engine = mock(PlayerEngine.class);
+                when(engine.play(any())).thenAnswer(inv -> {
+                    RecordedSession s = inv.getArgument(0);
+                    if ("rec-2".equals(s.getSessionId())) {
+                        throw new IllegalStateException("browser crashed");
+                    }
+                    return new PlaybackResult(true, 1, 1, null);
+                });
+                return engine;
+            });
+
+            ParallelPlaybackRunner.SuiteResult suite = runner.runDirectory(dir);
+
+            assertThat(suite.getPassed()).isEqualTo(5);
+            assertThat(suite.getFailed()).isEqualTo(1);
+            assertThat(suite.getFailures().get(0).result().getFailureReason())
+                    .contains("browser crashed");
+        }
+    }
+
+    @Test(description = "An unreadable recording yields a failed result, not an exception")
+    public void run_unreadableRecording() throws Exception {
+        Path bogus = dir.resolve("missing.json");
+        try (WebDriverPool pool = new WebDriverPool(ParallelPlaybackRunnerTest::newDriver, 1)) {
+            ParallelPlaybackRunner runner = new ParallelPlaybackRunner(pool, 1, d -> mock(PlayerEngine.class));
+
+            ParallelPlaybackRunner.SuiteResult suite = runner.run(List.of(bogus));
+
+            assertThat(suite.isSuccess()).isFalse();
+            assertThat(suite.getResults().get(0).result().getFailureReason())
+                    .startsWith("Cannot read recording");
+            assertThat(pool.getOwnedCount()).isZero();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package autoqa.player;
+
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link PixelDiff}.
+ */
+public class PixelDiffTest {
+
+    private static BufferedImage image(int type, int w, int h, Color fill, int changedRows, Color change) {
+        BufferedImage img = new BufferedImage(w, h, type);
+        Graphics2D g = img.createGraphics();
+        g.setColor(fill);
+        g.fillRect(0, 0, w, h);
+        if (changedRows > 0) {
+            g.setColor(change);
+            g.fillRect(0, 0, w, changedRows);
+        }
+        g.dispose();
+        return img;
+    }
+
+    @Test(description = "Packed int, interleaved byte and fallback layouts give the same count")
+    public void layouts_agree() {
+        int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+                BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_USHORT_565_RGB};
+        BufferedImage base = image(BufferedImage.TYPE_INT_RGB, 64, 40, Color.WHITE, 0, null);
+
+        for (int type : types) {
+            BufferedImage cur = image(type, 64, 40, Color.WHITE, 10, Color.BLUE);
+            PixelDiff.Result r = PixelDiff.compare(base, cur, 0, 1.0);
+            assertThat(r.diffPixels()).as("type %d", type).isEqualTo(64 * 10);
+            assertThat(r.partial()).isFalse();
+        }
+    }
+
+    @Test(description = "PNG decoded by ImageIO is read through the raster fast path")
+    public void decodedPng_matchesSource() throws IOException {
+        BufferedImage src = image(BufferedImage.TYPE_INT_RGB, 50, 50, Color.WHITE, 5, Color.RED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(src, "PNG", out);
+        BufferedImage decoded = ImageIO.read(new java.io.ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(PixelDiff.compare(src, decoded, 0, 1.0).diffPixels()).isZero();
+    }
+
+    @Test(description = "Channel tolerance ignores small differences")
+    public void tolerance_appliesPerChannel() {
+        BufferedImage a = image(BufferedImage.TYPE_INT_RGB, 10, 10, new Color(100, 100, 100), 0, null);
+        BufferedImage b = image(BufferedImage.TYPE_INT_RGB, 10, 10, new Color(108, 100, 100), 0, null);
+
+        assertThat(PixelDiff.compare(a, b, 10, 1.0).diffPixels()).isZero();
+        assertThat(PixelDiff.compare(a, b, 0, 1.0).diffPixels()).isEqualTo(100);
+    }
+
+    @Test(description = "Large images are compared in parallel bands with an exact total")
+    public void parallelScan_countsExactly() {
+        int w = 1920, h = 1080;
+        BufferedImage a = image(BufferedImage.TYPE_INT_RGB, w, h, Color.WHITE, 0, null);
+        BufferedImage b = image(BufferedImage.TYPE_3BYTE_BGR, w, h, Color.WHITE, 333, Color.BLACK);
+
+        PixelDiff.Result r = PixelDiff.compare(a, b, 0, 1.0);
+
+        assertThat(r.diffPixels()).isEqualTo(333L * w);
+        assertThat(r.totalPixels()).isEqualTo((long) w * h);
+    }
+
+    @Test(description = "The scan stops once the threshold is exceeded")
+    public void threshold_stopsEarly() {
+        int w = 1920, h = 1080;
+        BufferedImage a = image(BufferedImage.TYPE_INT_RGB, w, h, Color.WHITE, 0, null);
+        BufferedImage b = image(BufferedImage.TYPE_INT_RGB, w, h, Color.BLACK, 0, null);
+
+        PixelDiff.Result r = PixelDiff.compare(a, b, 0, 0.01);
+
+        assertThat(r.partial()).isTrue();
+        assertThat(r.diffRatio()).isGreaterThan(0.01);
+        assertThat(r.diffPixels()).isLessThan((long) w * h);
+    }
+
+    @Test(description = "Only the common area is compared when sizes differ")
+    public void differentSizes_useCommonArea() {
+        BufferedImage a = image(BufferedImage.TYPE_INT_RGB, 30, 20, Color.WHITE, 0, null);
+        BufferedImage b = image(BufferedImage.TYPE_INT_RGB, 20, 30, Color.WHITE, 0, null);
+
+        PixelDiff.Result r = PixelDiff.compare(a, b, 0, 0.0);
+        BufferedImage diff = PixelDiff.render(a, b, 0);
+
+        assertThat(r.totalPixels()).isEqualTo(400);
+        assertThat(diff.getWidth()).isEqualTo(20);
+        assertThat(diff.getHeight()).isEqualTo(20);
+    }
+
+    @Test(description = "The diff image marks changed pixels red and dims the rest")
+    public void render_highlightsChanges() {
+        BufferedImage a = image(BufferedImage.TYPE_INT_RGB, 4, 4, Color.WHITE, 0, null);
+        BufferedImage b = image(BufferedImage.TYPE_INT_RGB, 4, 4, Color.WHITE, 1, Color.BLACK);
+
+        BufferedImage diff = PixelDiff.render(a, b, 0);
+
+        assertThat(diff.getRGB(0, 0) & 0xFFFFFF).isEqualTo(0xFF0000);
+        assertThat(diff.getRGB(0, 3) & 0xFFFFFF).isEqualTo(0x7F7F7F);
+    }
+
+    @Test(description = "VisualRegression renders a diff image only when the comparison fails")
+    public void visualRegression_diffImageOnlyOnFailure() throws IOException {
+        ByteArrayOutputStream white = new ByteArrayOutputStream();
+        ImageIO.write(image(BufferedImage.TYPE_INT_RGB, 20, 20, Color.WHITE, 0, null), "PNG", white);
+        ByteArrayOutputStream mostlyWhite = new ByteArrayOutputStream();
+        ImageIO.write(image(BufferedImage.TYPE_INT_RGB, 20, 20, Color.WHITE, 1, Color.BLACK), "PNG", mostlyWhite);
+
+        VisualRegression.DiffResult pass = VisualRegression.pixelDiff(
+                white.toByteArray(), mostlyWhite.toByteArray(), 0.10);
+        VisualRegression.DiffResult fail = VisualRegression.pixelDiff(
+                white.toByteArray(), mostlyWhite.toByteArray(), 0.01);
+
+        assertThat(pass.diffImage()).isNull();
+        assertThat(fail.diffImage()).isNotNull();
+    }
+}
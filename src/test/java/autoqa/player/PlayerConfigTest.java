@@ -33,6 +33,22 @@ public class PlayerConfigTest {
                 .as("stepDelayMs default")
                 .isEqualTo(300L);
 
+        assertThat(cfg.getPacingMode())
+                .as("pacingMode default")
+                .isEqualTo("fixed");
+
+        assertThat(cfg.isTimelineEnabled())
+                .as("timelineEnabled default")
+                .isTrue();
+
+        assertThat(cfg.getPacingQuietMs())
+                .as("pacingQuietMs default")
+                .isEqualTo(100L);
+
+        assertThat(cfg.getPacingMaxMs())
+                .as("pacingMaxMs default")
+                .isEqualTo(3000L);
+
         assertThat(cfg.getEvidenceDir())
                 .as("evidenceDir default")
                 .isEqualTo("evidence");
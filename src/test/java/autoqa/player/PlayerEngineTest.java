@@ -13,6 +13,9 @@ import autoqa.model.ObjectRepository;
 import autoqa.model.RecordedEvent;
 import autoqa.model.RecordedEvent.EventType;
 import autoqa.model.RecordedSession;
+import autoqa.model.RecordingIO;
+import autoqa.model.RecordingReader;
+import autoqa.model.RecordingWriter;
 import autoqa.model.TestObject;
 
 import org.mockito.Mock;
@@ -30,9 +33,12 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -704,4 +710,74 @@ public class PlayerEngineTest {
         assertThat(result.getStepsCompleted()).isEqualTo(3);
         assertThat(result.getTotalSteps()).isEqualTo(3);
     }
+
+    // ── Streamed playback ─────────────────────────────────────────────────
+
+    /** Writes nav, a NAVIGATE without URL (fails), and two more events to an NDJSON file. */
+    private static Path failingNdjson(boolean withFooter) throws Exception {
+        RecordedSession header = session();
+        header.setStartTimestamp(Instant.now());
+        RecordedEvent bad = event(EventType.NAVIGATE);
+        bad.setUrl(null);
+        Path file = Files.createTempFile("autoqa-stream-", ".ndjson");
+        RecordingWriter w = RecordingIO.openWriter(header, file);
+        for (RecordedEvent e : List.of(event(EventType.NAVIGATE), bad,
+                event(EventType.NAVIGATE), event(EventType.NAVIGATE))) {
+            w.append(e);
+        }
+        if (withFooter) w.finish(Instant.now()); else w.close();
+        return file;
+    }
+
+    @Test(description = "A failed streamed run takes the total from the footer without reading the rest")
+    public void streamedFailure_totalFromFooter_restNotRead() throws Exception {
+        Path file = failingNdjson(true);
+        try (RecordingReader reader = RecordingIO.openReader(file)) {
+            PlayerEngine.PlaybackResult result = engine.play(reader);
+
+            assertThat(result.isSuccess()).isFalse();
+            assertThat(result.getStepsCompleted()).isEqualTo(1);
+            assertThat(result.getTotalSteps()).isEqualTo(4);
+            assertThat(reader.getEventsRead()).isEqualTo(2);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(description = "Without a footer the total of a failed streamed run is unknown")
+    public void streamedFailure_noFooter_totalUnknown() throws Exception {
+        Path file = failingNdjson(false);
+        try (RecordingReader reader = RecordingIO.openReader(file)) {
+            PlayerEngine.PlaybackResult result = engine.play(reader);
+
+            assertThat(result.getTotalSteps()).isEqualTo(-1);
+            assertThat(result.toString()).contains("1/?");
+            assertThat(reader.getEventsRead()).isEqualTo(2);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // ── Step timing ───────────────────────────────────────────────────────
+
+    @Test(description = "Every step that ran gets a timing record, including the failed one")
+    public void stepTimings_attachedToResult() {
+        RecordedEvent click = event(EventType.CLICK);
+        click.setElement(ei("next-btn"));
+        when(resolver.resolve(any())).thenReturn(new ElementLocator(Strategy.ID, "next-btn"));
+        when(wait.waitForClickable(any(By.class))).thenReturn(element);
+
+        RecordedEvent bad = event(EventType.NAVIGATE);
+        bad.setUrl(null);
+
+        PlayerEngine.PlaybackResult result = engine.play(session(click, bad));
+
+        assertThat(result.getStepTimings()).hasSize(2);
+        StepTiming first = result.getStepTimings().get(0);
+        assertThat(first.getEventType()).isEqualTo(EventType.CLICK);
+        assertThat(first.isFailed()).isFalse();
+        assertThat(first.getPhaseNanos(StepTiming.Phase.LOCATE)).isPositive();
+        assertThat(result.getStepTimings().get(1).isFailed()).isTrue();
+        assertThat(engine.getTimeline().getSteps()).isEqualTo(result.getStepTimings());
+    }
 }
@@ -0,0 +1,98 @@
+package autoqa.player;
+
+import autoqa.model.RecordedEvent.EventType;
+import autoqa.player.StepTiming.Phase;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link RunTimeline} and {@link StepTiming}.
+ */
+public class RunTimelineTest {
+
+    private static void spin(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) Thread.onSpinWait();
+    }
+
+    @Test(description = "Nested spans charge only their self time to the outer phase")
+    public void nestedSpans_chargeSelfTime() {
+        RunTimeline tl = new RunTimeline("s1");
+        tl.beginStep(0, EventType.CLICK, "Save");
+
+        long action = tl.start();
+        spin(2_000_000);
+        long locate = tl.start();
+        spin(5_000_000);
+        tl.end(Phase.LOCATE, locate);
+        tl.end(Phase.ACTION, action);
+        StepTiming step = tl.endStep(false);
+
+        assertThat(step.getPhaseNanos(Phase.LOCATE)).isGreaterThanOrEqualTo(5_000_000);
+        assertThat(step.getPhaseNanos(Phase.ACTION))
+                .isGreaterThanOrEqualTo(2_000_000)
+                .isLessThan(step.getPhaseNanos(Phase.LOCATE));
+        assertThat(step.getPhaseNanos(Phase.LOCATE) + step.getPhaseNanos(Phase.ACTION))
+                .isLessThanOrEqualTo(step.getDurationNanos());
+        assertThat(step.getPhaseNanos(Phase.PACING)).isZero();
+    }
+
+    @Test(description = "Step records and run totals accumulate across steps")
+    public void steps_accumulateTotals() {
+        RunTimeline tl = new RunTimeline("s1");
+        for (int i = 0; i < 3; i++) {
+            tl.beginStep(i, EventType.INPUT, null);
+            long t = tl.start();
+            spin(1_000_000);
+            tl.end(Phase.PACING, t);
+            tl.endStep(i == 2);
+        }
+
+        assertThat(tl.getSteps()).hasSize(3);
+        assertThat(tl.getSteps().get(2).isFailed()).isTrue();
+        assertThat(tl.getSteps().get(1).getStartNanos())
+                .isGreaterThan(tl.getSteps().get(0).getStartNanos());
+        assertThat(tl.getTotalNanos(Phase.PACING)).isGreaterThanOrEqualTo(3_000_000);
+        assertThat(tl.summary()).startsWith("3 step(s)").contains("pacing");
+    }
+
+    @Test(description = "Spans outside a step are ignored")
+    public void spanOutsideStep_ignored() {
+        RunTimeline tl = new RunTimeline("s1");
+        long t = tl.start();
+        tl.end(Phase.LOCATE, t);
+
+        assertThat(tl.getTotalNanos(Phase.LOCATE)).isZero();
+        assertThat(tl.endStep(false)).isNull();
+        assertThat(tl.summary()).isEqualTo("no steps timed");
+    }
+
+    @Test(description = "Chrome trace holds one complete event per step and per phase span")
+    public void chromeTrace_isWellFormed() throws Exception {
+        RunTimeline tl = new RunTimeline("session-1");
+        tl.beginStep(0, EventType.NAVIGATE, "https://example.com");
+        long t = tl.start();
+        tl.end(Phase.ACTION, t);
+        tl.endStep(false);
+
+        Path file = Files.createTempDirectory("timeline").resolve("run.trace.json");
+        tl.writeChromeTrace(file);
+        JsonNode root = new ObjectMapper().readTree(file.toFile());
+
+        JsonNode events = root.get("traceEvents");
+        assertThat(root.get("otherData").get("sessionId").asText()).isEqualTo("session-1");
+        assertThat(events).hasSize(4);   // 2 metadata + step + phase
+        JsonNode step = events.get(3);
+        assertThat(step.get("name").asText()).isEqualTo("step 1 NAVIGATE");
+        assertThat(step.get("ph").asText()).isEqualTo("X");
+        assertThat(step.get("args").get("label").asText()).isEqualTo("https://example.com");
+        assertThat(events.get(2).get("name").asText()).isEqualTo("action");
+        assertThat(events.get(2).get("cat").asText()).isEqualTo("phase");
+    }
+}
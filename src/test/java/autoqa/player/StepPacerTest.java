@@ -0,0 +1,99 @@
+package autoqa.player;
+
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link StepPacer}.
+ */
+public class StepPacerTest {
+
+    /** Driver that can run scripts, so adaptive mode is available. */
+    private interface ScriptingDriver extends WebDriver, JavascriptExecutor {}
+
+    @Test(description = "Mode.parse accepts 'adaptive' case-insensitively and defaults to FIXED")
+    public void testModeParse() {
+        assertThat(StepPacer.Mode.parse(" Adaptive ")).isEqualTo(StepPacer.Mode.ADAPTIVE);
+        assertThat(StepPacer.Mode.parse("fixed")).isEqualTo(StepPacer.Mode.FIXED);
+        assertThat(StepPacer.Mode.parse("bogus")).isEqualTo(StepPacer.Mode.FIXED);
+        assertThat(StepPacer.Mode.parse(null)).isEqualTo(StepPacer.Mode.FIXED);
+    }
+
+    @Test(description = "Adaptive mode degrades to FIXED when the driver cannot run scripts")
+    public void testAdaptiveRequiresJavascript() {
+        StepPacer pacer = new StepPacer(mock(WebDriver.class), StepPacer.Mode.ADAPTIVE, 0, 100, 1000);
+        assertThat(pacer.getMode()).isEqualTo(StepPacer.Mode.FIXED);
+    }
+
+    @Test(description = "Fixed mode sleeps the configured delay and saves nothing")
+    public void testFixedModeSleeps() throws InterruptedException {
+        StepPacer pacer = new StepPacer(mock(WebDriver.class), StepPacer.Mode.FIXED, 5, 100, 1000);
+
+        pacer.pace();
+        pacer.pace();
+
+        assertThat(pacer.getSteps()).isEqualTo(2);
+        assertThat(pacer.getWaitedMs()).isEqualTo(10);
+        assertThat(pacer.getSavedMs()).isZero();
+    }
+
+    @Test(description = "Adaptive mode returns as soon as the page reports quiescence")
+    public void testAdaptiveQuietSavesTime() throws InterruptedException {
+        ScriptingDriver driver = mock(ScriptingDriver.class);
+        when(driver.executeAsyncScript(anyString(), any(), any())).thenReturn(List.of(true, 12L));
+        StepPacer pacer = new StepPacer(driver, StepPacer.Mode.ADAPTIVE, 300, 100, 3000);
+
+        pacer.pace();
+        pacer.pace();
+
+        assertThat(pacer.getMode()).isEqualTo(StepPacer.Mode.ADAPTIVE);
+        assertThat(pacer.getBaselineMs()).isEqualTo(600);
+        assertThat(pacer.getSavedMs()).isGreaterThan(0);
+        assertThat(pacer.getTimeouts()).isZero();
+        assertThat(pacer.summary()).contains("saved");
+        verify(driver, times(2)).executeAsyncScript(anyString(), eq(100L), eq(3000L));
+    }
+
+    @Test(description = "A page that never goes quiet is counted as a timeout")
+    public void testAdaptiveTimeoutCounted() throws InterruptedException {
+        ScriptingDriver driver = mock(ScriptingDriver.class);
+        when(driver.executeAsyncScript(anyString(), any(), any())).thenReturn(List.of(false, 3000L));
+        StepPacer pacer = new StepPacer(driver, StepPacer.Mode.ADAPTIVE, 300, 100, 3000);
+
+        pacer.pace();
+
+        assertThat(pacer.getTimeouts()).isEqualTo(1);
+    }
+
+    @Test(description = "Script failure falls back to the fixed delay for that step")
+    public void testAdaptiveFallsBackOnScriptError() throws InterruptedException {
+        ScriptingDriver driver = mock(ScriptingDriver.class);
+        when(driver.executeAsyncScript(anyString(), any(), any())).thenThrow(new JavascriptException("CSP"));
+        StepPacer pacer = new StepPacer(driver, StepPacer.Mode.ADAPTIVE, 5, 100, 3000);
+
+        pacer.pace();
+
+        assertThat(pacer.getFallbacks()).isEqualTo(1);
+        assertThat(pacer.getWaitedMs()).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test(description = "reset clears the per-run totals")
+    public void testReset() throws InterruptedException {
+        StepPacer pacer = new StepPacer(mock(WebDriver.class), StepPacer.Mode.FIXED, 1, 100, 1000);
+        pacer.pace();
+
+        pacer.reset();
+
+        assertThat(pacer.getSteps()).isZero();
+        assertThat(pacer.getWaitedMs()).isZero();
+    }
+}
@@ -4,7 +4,10 @@ import org.testng.annotations.Test;
 
 import javax.imageio.ImageIO;
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -110,4 +113,131 @@ public class VisualRegressionTest {
         assertThat(result.diffImage().getWidth()).isEqualTo(100);
         assertThat(result.diffImage().getHeight()).isEqualTo(100);
     }
+
+    // ── Perceptual modes and masks ────────────────────────────────────────────
+
+    /** Text page; {@code antialias} toggles font smoothing, {@code banner} adds a red block. */
+    private static BufferedImage textPage(boolean antialias, boolean banner) {
+        BufferedImage img = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 640, 480);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, antialias
+                ? RenderingHints.VALUE_TEXT_ANTIALIAS_ON : RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        g.setColor(Color.DARK_GRAY);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 14));
+        for (int y = 20; y < 480; y += 20) g.drawString("The quick brown fox jumps over the lazy dog " + y, 16, y);
+        if (banner) {
+            g.setColor(Color.RED);
+            g.fillRect(320, 160, 240, 160);
+        }
+        g.dispose();
+        return img;
+    }
+
+    @Test
+    public void ssim_toleratesAntialiasingNoise() {
+        BufferedImage smooth = textPage(true, false);
+        BufferedImage sharp  = textPage(false, false);
+
+        VisualRegression.DiffResult pixel = VisualRegression.compare(
+                smooth, sharp, VisualRegression.CompareOptions.pixel(0.05), null);
+        VisualRegression.DiffResult ssim = VisualRegression.compare(
+                smooth, sharp, VisualRegression.CompareOptions.ssim(0.05), null);
+
+        assertThat(pixel.isPassed(0.05)).isFalse();
+        assertThat(ssim.mode()).isEqualTo(VisualRegression.Mode.SSIM);
+        assertThat(ssim.isPassed(0.05)).isTrue();
+        assertThat(ssim.diffImage()).isNull();
+    }
+
+    @Test
+    public void perceptualModes_detectRealChange() {
+        BufferedImage before = textPage(true, false);
+        BufferedImage after  = textPage(true, true);
+
+        VisualRegression.DiffResult ssim = VisualRegression.compare(
+                before, after, VisualRegression.CompareOptions.ssim(0.02), null);
+        VisualRegression.DiffResult hash = VisualRegression.compare(
+                before, after, VisualRegression.CompareOptions.blockHash(0.02), null);
+
+        assertThat(ssim.isPassed(0.02)).isFalse();
+        assertThat(ssim.diffImage()).isNotNull();
+        assertThat(ssim.diffImage().getWidth()).isEqualTo(640);
+        assertThat(hash.isPassed(0.02)).isFalse();
+        assertThat(hash.diffPixels()).isPositive();
+    }
+
+    @Test
+    public void blockHash_detectsUniformBrightnessChange() throws IOException {
+        // Average hash alone is blind to solid blocks; the mean-luminance check is not
+        VisualRegression.DiffResult result = VisualRegression.compare(whiteImage(), blackImage(),
+                VisualRegression.CompareOptions.blockHash(0.0), null);
+        assertThat(result.diffRatio()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void perceptualModes_fallBackToPixelBelowOneCell() {
+        // 12×12 holds one SSIM window but no hash block; 4×4 holds neither
+        BufferedImage before = new BufferedImage(12, 12, BufferedImage.TYPE_INT_RGB);
+        BufferedImage after  = new BufferedImage(12, 12, BufferedImage.TYPE_INT_RGB);
+        after.setRGB(3, 3, Color.WHITE.getRGB());
+        BufferedImage tinyBefore = before.getSubimage(0, 0, 4, 4);
+        BufferedImage tinyAfter  = after.getSubimage(0, 0, 4, 4);
+
+        VisualRegression.DiffResult hash = VisualRegression.compare(
+                before, after, VisualRegression.CompareOptions.blockHash(0.0), null);
+        VisualRegression.DiffResult ssim = VisualRegression.compare(
+                tinyBefore, tinyAfter, VisualRegression.CompareOptions.ssim(0.0), null);
+
+        assertThat(hash.mode()).isEqualTo(VisualRegression.Mode.PIXEL);
+        assertThat(hash.isPassed(0.0)).isFalse();
+        assertThat(ssim.mode()).isEqualTo(VisualRegression.Mode.PIXEL);
+        assertThat(ssim.isPassed(0.0)).isFalse();
+        assertThat(ssim.diffPixels()).isEqualTo(1);
+    }
+
+    @Test
+    public void ignoreRegions_excludeChangedArea() {
+        BufferedImage before = textPage(true, false);
+        BufferedImage after  = textPage(true, true);
+        Rectangle banner = new Rectangle(320, 160, 240, 160);
+
+        for (VisualRegression.CompareOptions opts : new VisualRegression.CompareOptions[] {
+                VisualRegression.CompareOptions.pixel(0.0),
+                VisualRegression.CompareOptions.ssim(0.0),
+                VisualRegression.CompareOptions.blockHash(0.0)}) {
+            VisualRegression.DiffResult r = VisualRegression.compare(before, after, opts.withIgnoreRegions(banner), null);
+            assertThat(r.diffPixels()).as("%s", opts.mode()).isZero();
+        }
+    }
+
+    @Test
+    public void maskImage_excludesNonBlackPixels() throws IOException {
+        BufferedImage mask = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = mask.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 100, 50);  // top half ignored
+        g.dispose();
+
+        BufferedImage current = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        g = current.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 100, 100);
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, 100, 50);  // change only inside the mask
+        g.dispose();
+
+        VisualRegression.DiffResult r = VisualRegression.compare(solidColorPng(100, 100, Color.WHITE),
+                toPng(current), VisualRegression.CompareOptions.pixel(0.0), mask);
+
+        assertThat(r.diffPixels()).isZero();
+        assertThat(r.totalPixels()).isEqualTo(5000);
+    }
+
+    private static byte[] toPng(BufferedImage img) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(img, "PNG", baos);
+        return baos.toByteArray();
+    }
 }
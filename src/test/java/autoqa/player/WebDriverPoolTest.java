@@ -0,0 +1,130 @@
+package autoqa.player;
+
+import org.mockito.Answers;
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link WebDriverPool}.
+ *
+ * <p>Drivers are deep-stubbed Mockito mocks so {@code manage().deleteAllCookies()}
+ * and {@code switchTo().window()} resolve without a real browser.
+ */
+public class WebDriverPoolTest {
+
+    private final List<WebDriver> created = new ArrayList<>();
+
+    private WebDriver newDriver() {
+        WebDriver d = mock(WebDriver.class, Answers.RETURNS_DEEP_STUBS);
+        when(d.getWindowHandles()).thenReturn(Set.of("main"));
+        synchronized (created) {
+            created.add(d);
+        }
+        return d;
+    }
+
+    @Test(description = "A released driver is reset and reused by the next lease")
+    public void releasedDriverIsReused() throws Exception {
+        try (WebDriverPool pool = new WebDriverPool(this::newDriver, 2)) {
+            WebDriver first = pool.lease();
+            pool.release(first);
+            WebDriver second = pool.lease();
+
+            assertThat(second).isSameAs(first);
+            assertThat(created).hasSize(1);
+            verify(first).get("about:blank");
+            verify(first.manage()).deleteAllCookies();
+        }
+    }
+
+    @Test(description = "Pool never creates more than maxSize drivers under concurrent leasing")
+    public void poolIsBounded() throws Exception {
+        WebDriverPool pool = new WebDriverPool(this::newDriver, 2);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(6);
+
+        for (int i = 0; i < 6; i++) {
+            new Thread(() -> {
+                try {
+                    WebDriver d = pool.lease();
+                    peak.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    concurrent.decrementAndGet();
+                    pool.release(d);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+        assertThat(created).hasSizeLessThanOrEqualTo(2);
+        pool.close();
+    }
+
+    @Test(description = "A driver whose reset fails is quit and replaced on the next lease")
+    public void brokenDriverIsReplaced() throws Exception {
+        try (WebDriverPool pool = new WebDriverPool(this::newDriver, 1)) {
+            WebDriver broken = pool.lease();
+            when(broken.getWindowHandles()).thenThrow(new RuntimeException("session deleted"));
+            pool.release(broken);
+
+            WebDriver next = pool.lease();
+            assertThat(next).isNotSameAs(broken);
+            verify(broken).quit();
+            assertThat(pool.getOwnedCount()).isEqualTo(1);
+        }
+    }
+
+    @Test(description = "discard() quits the driver and frees its slot")
+    public void discardFreesSlot() throws Exception {
+        try (WebDriverPool pool = new WebDriverPool(this::newDriver, 1)) {
+            WebDriver d = pool.lease();
+            pool.discard(d);
+
+            verify(d).quit();
+            assertThat(pool.getOwnedCount()).isZero();
+            assertThat(pool.lease()).isNotSameAs(d);
+        }
+    }
+
+    @Test(description = "close() quits idle drivers and rejects further leases")
+    public void closeQuitsIdleDrivers() throws Exception {
+        WebDriverPool pool = new WebDriverPool(this::newDriver, 2);
+        WebDriver d = pool.lease();
+        pool.release(d);
+        pool.close();
+
+        verify(d).quit();
+        assertThatThrownBy(pool::lease).isInstanceOf(AutoQAException.class);
+    }
+
+    @Test(description = "Factory failure surfaces as AutoQAException and does not leak a slot")
+    public void factoryFailureReleasesSlot() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try (WebDriverPool pool = new WebDriverPool(() -> {
+            if (calls.getAndIncrement() == 0) throw new IllegalStateException("no browser");
+            return newDriver();
+        }, 1)) {
+            assertThatThrownBy(pool::lease)
+                    .isInstanceOf(AutoQAException.class)
+                    .hasMessageContaining("no browser");
+            assertThat(pool.lease()).isNotNull();
+        }
+    }
+}
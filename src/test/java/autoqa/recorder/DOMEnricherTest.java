@@ -332,4 +332,151 @@ public class DOMEnricherTest {
         // Verify that CDP was actually called (i.e., the JS was built without error)
         verify(mockCdp, atLeastOnce()).sendCommand(eq("Runtime.evaluate"), any(ObjectNode.class));
     }
+
+    // ── Combined mode ─────────────────────────────────────────────────────
+
+    /** Wraps a JS return value the way CDP does: {@code {result: {value: …}}}. */
+    private static ObjectNode remote(JsonNode value) {
+        ObjectNode response = MAPPER.createObjectNode();
+        response.putObject("result").set("value", value);
+        return response;
+    }
+
+    private void stubWindow(String... objectIds) throws IOException {
+        var stub = when(mockCdp.sendCommand(eq("Runtime.evaluate"), argThat(
+                (ObjectNode p) -> p != null && "window".equals(p.path("expression").asText()))));
+        for (String id : objectIds) {
+            ObjectNode response = MAPPER.createObjectNode();
+            response.putObject("result").put("objectId", id);
+            stub = stub.thenReturn(response);
+        }
+    }
+
+    @Test(description = "enrich unwraps the real CDP result.result.value envelope")
+    public void enrich_nestedCdpEnvelope_parsed() throws IOException {
+        when(mockCdp.sendCommand(eq("Runtime.evaluate"), any(ObjectNode.class)))
+                .thenReturn(remote(MAPPER.readTree("{\"tagName\":\"a\",\"id\":\"home\"}")));
+
+        ElementInfo info = enricher.enrich(1.0, 1.0);
+
+        assertThat(info).isNotNull();
+        assertThat(info.getId()).isEqualTo("home");
+    }
+
+    @Test(description = "installHelper registers the helper for new documents and the current one")
+    public void installHelper_registersOnNewDocumentAndEvaluates() throws IOException {
+        enricher.installHelper();
+
+        verify(mockCdp).sendCommand(eq("Page.addScriptToEvaluateOnNewDocument"),
+                argThat((ObjectNode p) -> p.path("source").asText().equals(DOMEnricher.HELPER_JS)));
+        verify(mockCdp).sendCommand(eq("Runtime.evaluate"),
+                argThat((ObjectNode p) -> p.path("expression").asText().equals(DOMEnricher.HELPER_JS)));
+    }
+
+    @Test(description = "snapshot returns element, frames, URL and title from one callFunctionOn")
+    public void snapshot_singleCall_parsesEverything() throws IOException {
+        stubWindow("win-1");
+        when(mockCdp.sendCommand(eq("Runtime.callFunctionOn"), any(ObjectNode.class)))
+                .thenReturn(remote(MAPPER.readTree("""
+                        {
+                          "url": "https://app/orders",
+                          "title": "Orders",
+                          "frames": ["#main", "[name=\\"detail\\"]"],
+                          "element": { "tagName": "button", "id": "save", "css": "#save" }
+                        }
+                        """)));
+
+        DOMEnricher.Snapshot snap = enricher.snapshot(10.0, 20.0);
+        enricher.snapshot(11.0, 21.0);
+
+        assertThat(snap.url()).isEqualTo("https://app/orders");
+        assertThat(snap.title()).isEqualTo("Orders");
+        assertThat(snap.frameChain()).containsExactly("#main", "[name=\"detail\"]");
+        assertThat(snap.element().getId()).isEqualTo("save");
+        // window is resolved once and reused; each snapshot is one call
+        verify(mockCdp, times(1)).sendCommand(eq("Runtime.evaluate"), any(ObjectNode.class));
+        verify(mockCdp, times(2)).sendCommand(eq("Runtime.callFunctionOn"),
+                argThat((ObjectNode p) -> "win-1".equals(p.path("objectId").asText())));
+    }
+
+    @Test(description = "snapshot without coordinates returns URL and title only")
+    public void snapshot_noCoordinates_passesNulls() throws IOException {
+        stubWindow("win-1");
+        when(mockCdp.sendCommand(eq("Runtime.callFunctionOn"), any(ObjectNode.class)))
+                .thenReturn(remote(MAPPER.readTree(
+                        "{\"url\":\"https://app\",\"title\":\"T\",\"frames\":[],\"element\":null}")));
+
+        DOMEnricher.Snapshot snap = enricher.snapshot(null, null);
+
+        assertThat(snap.element()).isNull();
+        assertThat(snap.frameChain()).isEmpty();
+        assertThat(snap.url()).isEqualTo("https://app");
+        verify(mockCdp).sendCommand(eq("Runtime.callFunctionOn"),
+                argThat((ObjectNode p) -> p.path("arguments").get(0).path("value").isNull()));
+    }
+
+    @Test(description = "snapshot injects the helper into a document that lacks it and retries")
+    public void snapshot_missingHelper_injectsAndRetries() throws IOException {
+        stubWindow("win-1");
+        when(mockCdp.sendCommand(eq("Runtime.callFunctionOn"), any(ObjectNode.class)))
+                .thenReturn(remote(MAPPER.readTree("{\"missing\":true}")))
+                .thenReturn(remote(MAPPER.readTree("{\"url\":\"https://app\",\"frames\":[]}")));
+
+        DOMEnricher.Snapshot snap = enricher.snapshot(1.0, 1.0);
+
+        assertThat(snap).isNotNull();
+        assertThat(snap.url()).isEqualTo("https://app");
+        verify(mockCdp).sendCommand(eq("Runtime.evaluate"),
+                argThat((ObjectNode p) -> p.path("expression").asText().equals(DOMEnricher.HELPER_JS)));
+    }
+
+    @Test(description = "snapshot re-resolves window when the cached reference is stale")
+    public void snapshot_staleWindow_reResolves() throws IOException {
+        stubWindow("old", "new");
+        when(mockCdp.sendCommand(eq("Runtime.callFunctionOn"), any(ObjectNode.class)))
+                .thenThrow(new IOException("Could not find object with given id"))
+                .thenReturn(remote(MAPPER.readTree("{\"url\":\"https://next\",\"frames\":[]}")));
+
+        DOMEnricher.Snapshot snap = enricher.snapshot(1.0, 1.0);
+
+        assertThat(snap.url()).isEqualTo("https://next");
+        verify(mockCdp).sendCommand(eq("Runtime.callFunctionOn"),
+                argThat((ObjectNode p) -> "new".equals(p.path("objectId").asText())));
+    }
+
+    @Test(description = "snapshotTyped resolves focus from key times, merging segments for one element")
+    public void snapshotTyped_passesKeyTimesAndParsesFocusSegments() throws IOException {
+        stubWindow("win-1");
+        when(mockCdp.sendCommand(eq("Runtime.callFunctionOn"), any(ObjectNode.class)))
+                .thenReturn(remote(MAPPER.readTree("""
+                        {
+                          "url": "https://app/login", "title": "Login",
+                          "frames": [], "element": { "tagName": "input", "id": "user" },
+                          "focus": [
+                            { "from": 0, "frames": [], "element": { "tagName": "input", "id": "user" } },
+                            { "from": 2, "frames": [], "element": { "tagName": "input", "id": "user" } },
+                            { "from": 3, "frames": ["#auth"], "element": { "tagName": "input", "id": "pw" } }
+                          ]
+                        }
+                        """)));
+
+        DOMEnricher.TypedSnapshot snap = enricher.snapshotTyped(new long[]{1_000, 1_010, 1_020, 1_500});
+
+        assertThat(snap.page().url()).isEqualTo("https://app/login");
+        assertThat(snap.focus()).extracting(DOMEnricher.FocusSegment::from).containsExactly(0, 3);
+        assertThat(snap.focus().get(1).element().getId()).isEqualTo("pw");
+        assertThat(snap.focus().get(1).frameChain()).containsExactly("#auth");
+        verify(mockCdp).sendCommand(eq("Runtime.callFunctionOn"), argThat((ObjectNode p) -> {
+            JsonNode times = p.path("arguments").path(2).path("value");
+            return times.isArray() && times.size() == 4 && times.get(3).asLong() == 1_500;
+        }));
+    }
+
+    @Test(description = "snapshot returns null when CDP is unavailable")
+    public void snapshot_cdpFails_returnsNull() throws IOException {
+        when(mockCdp.sendCommand(anyString(), any(ObjectNode.class)))
+                .thenThrow(new IOException("closed"));
+
+        assertThat(enricher.snapshot(1.0, 1.0)).isNull();
+    }
 }
@@ -0,0 +1,129 @@
+package autoqa.recorder;
+
+import autoqa.model.RecordedEvent;
+import autoqa.model.RecordedEvent.EventType;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link EnrichmentPipeline}.
+ */
+public class EnrichmentPipelineTest {
+
+    private static RecordedEvent event(int n) {
+        RecordedEvent e = new RecordedEvent();
+        e.setEventType(EventType.KEY_PRESS);
+        e.setComment(String.valueOf(n));
+        return e;
+    }
+
+    private static List<Integer> order(List<RecordedEvent> events) {
+        return events.stream().map(e -> Integer.parseInt(e.getComment())).toList();
+    }
+
+    @Test(description = "Events reach the sink in submission order despite uneven enrichment times")
+    public void preservesOrderWithParallelWorkers() throws Exception {
+        List<RecordedEvent> out = new CopyOnWriteArrayList<>();
+        EnrichmentPipeline pipeline = new EnrichmentPipeline(16, 4, e -> {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(0, 5));
+            return true;
+        }, out::add);
+
+        for (int i = 0; i < 200; i++) {
+            assertThat(pipeline.submit(event(i))).isTrue();
+        }
+
+        assertThat(pipeline.drain(10, TimeUnit.SECONDS)).isTrue();
+        pipeline.close();
+
+        assertThat(order(out)).isSorted().hasSize(200);
+        assertThat(pipeline.getStats().committed()).isEqualTo(200);
+    }
+
+    @Test(description = "submit stamps a timestamp when the adapter did not")
+    public void submitStampsTimestamp() throws Exception {
+        List<RecordedEvent> out = new CopyOnWriteArrayList<>();
+        EnrichmentPipeline pipeline = new EnrichmentPipeline(4, 1, e -> true, out::add);
+
+        pipeline.submit(event(1));
+        pipeline.drain(5, TimeUnit.SECONDS);
+        pipeline.close();
+
+        assertThat(out.get(0).getTimestamp()).isNotNull();
+    }
+
+    @Test(description = "Events rejected by the stage are dropped without blocking later events")
+    public void droppedEventsDoNotBlockOrder() throws Exception {
+        List<RecordedEvent> out = new CopyOnWriteArrayList<>();
+        EnrichmentPipeline pipeline = new EnrichmentPipeline(8, 2,
+                e -> Integer.parseInt(e.getComment()) % 2 == 0, out::add);
+
+        for (int i = 0; i < 10; i++) pipeline.submit(event(i));
+        pipeline.drain(5, TimeUnit.SECONDS);
+        pipeline.close();
+
+        assertThat(order(out)).containsExactly(0, 2, 4, 6, 8);
+        assertThat(pipeline.getStats().dropped()).isEqualTo(5);
+    }
+
+    @Test(description = "A failing stage keeps the event un-enriched and counts the failure")
+    public void stageFailureKeepsEvent() throws Exception {
+        List<RecordedEvent> out = new CopyOnWriteArrayList<>();
+        EnrichmentPipeline pipeline = new EnrichmentPipeline(4, 1, e -> {
+            throw new IllegalStateException("CDP gone");
+        }, out::add);
+
+        pipeline.submit(event(7));
+        pipeline.drain(5, TimeUnit.SECONDS);
+        pipeline.close();
+
+        assertThat(order(out)).containsExactly(7);
+        assertThat(pipeline.getStats().failed()).isEqualTo(1);
+    }
+
+    @Test(description = "A full queue blocks the producer and is reported as a stall")
+    public void fullQueueCountsStall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<RecordedEvent> out = new CopyOnWriteArrayList<>();
+        EnrichmentPipeline pipeline = new EnrichmentPipeline(1, 1, e -> {
+            release.await();
+            return true;
+        }, out::add);
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+                // fall through and release
+            }
+            release.countDown();
+        });
+        releaser.start();
+
+        // Worker holds #0, queue holds #1, #2 must wait for a slot
+        for (int i = 0; i < 3; i++) pipeline.submit(event(i));
+        pipeline.drain(5, TimeUnit.SECONDS);
+        pipeline.close();
+
+        EnrichmentPipeline.Stats stats = pipeline.getStats();
+        assertThat(stats.stalls()).isGreaterThanOrEqualTo(1);
+        assertThat(stats.maxQueueDepth()).isEqualTo(1);
+        assertThat(order(out)).containsExactly(0, 1, 2);
+    }
+
+    @Test(description = "submit after drain is rejected")
+    public void submitAfterDrainRejected() throws Exception {
+        EnrichmentPipeline pipeline = new EnrichmentPipeline(4, 1, e -> true, e -> {});
+        pipeline.drain(1, TimeUnit.SECONDS);
+        pipeline.close();
+
+        assertThat(pipeline.submit(event(1))).isFalse();
+    }
+}
@@ -0,0 +1,240 @@
+package autoqa.recorder;
+
+import autoqa.model.Coordinates;
+import autoqa.model.ElementInfo;
+import autoqa.model.InputData;
+import autoqa.model.RecordedEvent;
+import autoqa.model.RecordedEvent.EventType;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link KeystrokeCoalescer}.
+ */
+public class KeystrokeCoalescerTest {
+
+    private final List<RecordedEvent> out = new CopyOnWriteArrayList<>();
+    private KeystrokeCoalescer coalescer;
+
+    @AfterMethod
+    public void tearDown() {
+        out.clear();
+        if (coalescer != null) coalescer.close();
+    }
+
+    private KeystrokeCoalescer coalescer(long idleMs) {
+        coalescer = new KeystrokeCoalescer(out::add, idleMs);
+        return coalescer;
+    }
+
+    /** A typed character as the input hook reports it: no element, no coordinates. */
+    private static RecordedEvent typed(char c, long epochMs) {
+        RecordedEvent e = new RecordedEvent();
+        e.setEventType(EventType.INPUT);
+        e.setTimestamp(Instant.ofEpochMilli(epochMs));
+        InputData in = new InputData();
+        in.setKeys(String.valueOf(c));
+        e.setInputData(in);
+        return e;
+    }
+
+    private static RecordedEvent typed(char c) {
+        return typed(c, System.currentTimeMillis());
+    }
+
+    private static ElementInfo field(String id) {
+        ElementInfo field = new ElementInfo();
+        field.setTagName("input");
+        field.setId(id);
+        return field;
+    }
+
+    private static void type(KeystrokeCoalescer c, String text) {
+        for (char ch : text.toCharArray()) c.accept(typed(ch));
+    }
+
+    private static RecordedEvent key(String keyCode) {
+        RecordedEvent e = new RecordedEvent();
+        e.setEventType(EventType.KEY_PRESS);
+        InputData in = new InputData();
+        in.setKeyCode(keyCode);
+        e.setInputData(in);
+        return e;
+    }
+
+    private static RecordedEvent click() {
+        RecordedEvent e = new RecordedEvent();
+        e.setEventType(EventType.CLICK);
+        e.setCoordinates(new Coordinates(10.0, 20.0));
+        return e;
+    }
+
+    @Test(description = "A run of characters becomes one INPUT event, sealed by the next event")
+    public void typingThenClick_oneInputEvent() {
+        KeystrokeCoalescer c = coalescer(0);
+
+        type(c, "hello");
+        c.accept(click());
+
+        assertThat(out).extracting(RecordedEvent::getEventType)
+                .containsExactly(EventType.INPUT, EventType.CLICK);
+        assertThat(out.get(0).getInputData().getKeys()).isEqualTo("hello");
+        assertThat(c.getCharacters()).isEqualTo(5);
+        assertThat(c.getEmitted()).isEqualTo(2);
+    }
+
+    @Test(description = "An open run is held back from the session until it is sealed")
+    public void openRun_notReleasedUntilFlush() throws Exception {
+        KeystrokeCoalescer c = coalescer(0);
+
+        type(c, "ab");
+        Thread.sleep(100);
+        assertThat(out).isEmpty();
+
+        c.flush();
+        assertThat(out).hasSize(1);
+        assertThat(out.get(0).getInputData().getKeys()).isEqualTo("ab");
+    }
+
+    @Test(description = "A run carries the time each of its characters was typed")
+    public void run_carriesKeyTimes() {
+        KeystrokeCoalescer c = coalescer(0);
+
+        c.accept(typed('a', 1_000));
+        c.accept(typed('b', 1_040));
+        c.accept(key("BACK_SPACE"));
+        c.accept(typed('c', 1_090));
+        c.flush();
+
+        assertThat(out).singleElement().isInstanceOf(KeystrokeCoalescer.TypedRun.class);
+        KeystrokeCoalescer.TypedRun run = (KeystrokeCoalescer.TypedRun) out.get(0);
+        assertThat(run.getInputData().getKeys()).isEqualTo("ac");
+        assertThat(run.keyTimes()).containsExactly(1_000L, 1_090L);
+        assertThat(run.getTimestamp()).isEqualTo(Instant.ofEpochMilli(1_000));
+        assertThat(run.getElement()).isNull();
+    }
+
+    @Test(description = "Tab seals the run, so keys on either side of it are never merged")
+    public void tab_sealsRun() {
+        KeystrokeCoalescer c = coalescer(0);
+
+        type(c, "user");
+        c.accept(key("TAB"));
+        type(c, "pw");
+        c.flush();
+
+        assertThat(out).extracting(RecordedEvent::getEventType)
+                .containsExactly(EventType.INPUT, EventType.KEY_PRESS, EventType.INPUT);
+        assertThat(out.get(0).getInputData().getKeys()).isEqualTo("user");
+        assertThat(out.get(2).getInputData().getKeys()).isEqualTo("pw");
+    }
+
+    @Test(description = "Focus moved between queued keystrokes splits the run by key time")
+    public void focusChangeBetweenQueuedKeys_splitsRunAtFocusChange() {
+        KeystrokeCoalescer c = coalescer(0);
+
+        // The page auto-advances from otp-1 to otp-2 after the second digit;
+        // the run is enriched later, when otp-3 already has focus
+        c.accept(typed('1', 1_000));
+        c.accept(typed('2', 1_050));
+        c.accept(typed('3', 1_100));
+        c.accept(typed('4', 1_150));
+        c.flush();
+        KeystrokeCoalescer.TypedRun run = (KeystrokeCoalescer.TypedRun) out.get(0);
+
+        // What DOMEnricher.snapshotTyped resolves from the focus log for these key times
+        run.setUrl("https://app/verify");
+        run.applyFocus(List.of(
+                new DOMEnricher.FocusSegment(0, field("otp-1"), List.of()),
+                new DOMEnricher.FocusSegment(2, field("otp-2"), List.of("#auth"))));
+
+        assertThat(run.getInputData().getKeys()).isEqualTo("12");
+        assertThat(run.getElement().getId()).isEqualTo("otp-1");
+        assertThat(run.continuations()).singleElement().satisfies(next -> {
+            assertThat(next.getInputData().getKeys()).isEqualTo("34");
+            assertThat(next.getElement().getId()).isEqualTo("otp-2");
+            assertThat(next.getFrameChain()).containsExactly("#auth");
+            assertThat(next.getTimestamp()).isEqualTo(Instant.ofEpochMilli(1_100));
+            assertThat(next.getUrl()).isEqualTo("https://app/verify");
+        });
+    }
+
+    @Test(description = "Backspace inside a run edits the buffered text")
+    public void backspace_editsRun() {
+        KeystrokeCoalescer c = coalescer(0);
+
+        type(c, "helo");
+        c.accept(key("BACK_SPACE"));
+        type(c, "lo");
+        c.accept(key("ENTER"));
+
+        assertThat(out).hasSize(2);
+        assertThat(out.get(0).getInputData().getKeys()).isEqualTo("hello");
+        assertThat(out.get(1).getInputData().getKeyCode()).isEqualTo("ENTER");
+    }
+
+    @Test(description = "A run erased completely by Backspace is dropped, not recorded as empty input")
+    public void backspace_erasingWholeRun_dropsRun() {
+        KeystrokeCoalescer c = coalescer(0);
+
+        type(c, "ab");
+        c.accept(key("BACK_SPACE"));
+        c.accept(key("BACK_SPACE"));
+        c.accept(click());
+
+        assertThat(out).extracting(RecordedEvent::getEventType).containsExactly(EventType.CLICK);
+    }
+
+    @Test(description = "Backspace with no open run is recorded as a key press")
+    public void backspace_withoutRun_passesThrough() {
+        KeystrokeCoalescer c = coalescer(0);
+
+        c.accept(key("BACK_SPACE"));
+
+        assertThat(out).extracting(RecordedEvent::getEventType).containsExactly(EventType.KEY_PRESS);
+    }
+
+    @Test(description = "A pause longer than the idle interval closes the run")
+    public void idleFlush_startsNewRun() throws Exception {
+        KeystrokeCoalescer c = coalescer(50);
+
+        type(c, "ab");
+        Thread.sleep(300);
+        type(c, "cd");
+        c.close();
+
+        assertThat(out).extracting(e -> e.getInputData().getKeys()).containsExactly("ab", "cd");
+    }
+
+    @Test(description = "INPUT events that already name an element are not merged")
+    public void inputWithElement_passesThrough() {
+        KeystrokeCoalescer c = coalescer(0);
+        RecordedEvent targeted = typed('x');
+        targeted.setElement(field("q"));
+
+        type(c, "a");
+        c.accept(targeted);
+
+        assertThat(out).hasSize(2);
+        assertThat(out.get(1)).isSameAs(targeted);
+    }
+
+    @Test(description = "INPUT events with coordinates are not merged")
+    public void inputWithCoordinates_passesThrough() {
+        KeystrokeCoalescer c = coalescer(0);
+        RecordedEvent located = typed('x');
+        located.setCoordinates(new Coordinates(1.0, 1.0));
+
+        type(c, "a");
+        c.accept(located);
+
+        assertThat(out).hasSize(2);
+        assertThat(out.get(1)).isSameAs(located);
+    }
+}
@@ -244,6 +244,15 @@ public class RecorderConfigTest {
                 .isInstanceOf(UnsupportedOperationException.class);
     }
 
+    @Test(description = "Combined enrichment is on by default and can be disabled")
+    public void testEnrichCombined() {
+        assertThat(new RecorderConfig(new Properties()).isEnrichCombined()).isTrue();
+
+        Properties p = new Properties();
+        p.setProperty("recorder.enrich.combined", "false");
+        assertThat(new RecorderConfig(p).isEnrichCombined()).isFalse();
+    }
+
     @Test(description = "Classpath config.properties loads without error when present")
     public void testClasspathConfigLoadsWithoutError() {
         // Exercises the real file-loading constructor path.
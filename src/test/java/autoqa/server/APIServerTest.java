@@ -197,6 +197,20 @@ public class APIServerTest {
         assertThat(resp.statusCode()).isEqualTo(405);
     }
 
+    // ── /metrics ──────────────────────────────────────────────────────────
+
+    @Test(description = "GET /metrics returns the Prometheus text format with job queue gauges")
+    public void metrics_returnsPrometheusText() throws Exception {
+        HttpResponse<String> resp = get("/metrics");
+
+        assertThat(resp.statusCode()).isEqualTo(200);
+        assertThat(resp.headers().firstValue("Content-Type"))
+                .hasValueSatisfying(ct -> assertThat(ct).startsWith("text/plain"));
+        assertThat(resp.body())
+                .contains("# TYPE autoqa_jobs_queued gauge")
+                .contains("# TYPE autoqa_playback_step_duration_seconds histogram");
+    }
+
     // ── /api/stop ─────────────────────────────────────────────────────────
 
     @Test(description = "POST /api/stop returns 200 with ok=true and state=idle")
@@ -381,4 +395,60 @@ public class APIServerTest {
         JsonNode body = json(stopResp);
         assertThat(body.get("state").asText()).isEqualTo("idle");
     }
+
+    // ── /api/jobs ─────────────────────────────────────────────────────────
+
+    @Test(description = "POST /api/play returns a jobId and a status URL")
+    public void play_returnsJobId() throws Exception {
+        JsonNode body = json(post("/api/play", "{\"recording\":\"no-such-recording.json\"}"));
+
+        assertThat(body.has("jobId")).isTrue();
+        assertThat(body.get("statusUrl").asText()).isEqualTo("/api/jobs/" + body.get("jobId").asText());
+    }
+
+    @Test(description = "GET /api/jobs/{id} reports a missing recording as a failed job")
+    public void job_missingRecording_fails() throws Exception {
+        String id = json(post("/api/play", "{\"recording\":\"no-such-recording.json\"}"))
+                .get("jobId").asText();
+
+        JsonNode job = awaitTerminal(id);
+        assertThat(job.get("type").asText()).isEqualTo("play");
+        assertThat(job.get("state").asText()).isEqualTo("failed");
+        assertThat(job.has("error")).isTrue();
+
+        HttpResponse<String> result = get("/api/jobs/" + id + "/result");
+        assertThat(result.statusCode()).isEqualTo(200);
+        assertThat(json(result).get("state").asText()).isEqualTo("failed");
+    }
+
+    @Test(description = "GET /api/jobs returns a JSON array including submitted jobs")
+    public void jobs_listIncludesSubmitted() throws Exception {
+        String id = json(post("/api/heal", "{\"recording\":\"no-such-recording.json\"}"))
+                .get("jobId").asText();
+
+        HttpResponse<String> resp = get("/api/jobs");
+        assertThat(resp.statusCode()).isEqualTo(200);
+        JsonNode arr = json(resp);
+        assertThat(arr.isArray()).isTrue();
+        assertThat(arr.findValuesAsText("jobId")).contains(id);
+    }
+
+    @Test(description = "GET /api/jobs/{unknown} returns 404")
+    public void job_unknown_returns404() throws Exception {
+        HttpResponse<String> resp = get("/api/jobs/does-not-exist");
+
+        assertThat(resp.statusCode()).isEqualTo(404);
+    }
+
+    /** Polls a job until it leaves the queued/running states (max ~5 s). */
+    private JsonNode awaitTerminal(String id) throws Exception {
+        JsonNode job = null;
+        for (int i = 0; i < 50; i++) {
+            job = json(get("/api/jobs/" + id));
+            String state = job.get("state").asText();
+            if (!state.equals("queued") && !state.equals("running")) return job;
+            Thread.sleep(100);
+        }
+        return job;
+    }
 }
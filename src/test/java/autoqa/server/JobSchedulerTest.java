@@ -0,0 +1,136 @@
+package autoqa.server;
+
+import autoqa.server.JobScheduler.Job;
+import autoqa.server.JobScheduler.JobState;
+import autoqa.server.JobScheduler.JobType;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link JobScheduler}.
+ */
+public class JobSchedulerTest {
+
+    private JobScheduler scheduler;
+
+    @AfterMethod
+    public void tearDown() {
+        if (scheduler != null) scheduler.close();
+    }
+
+    private static JobState await(Job job) throws InterruptedException {
+        for (int i = 0; i < 100 && !job.getState().isTerminal(); i++) {
+            Thread.sleep(20);
+        }
+        return job.getState();
+    }
+
+    @Test(description = "A successful job records its result")
+    public void submit_succeeds() throws Exception {
+        scheduler = new JobScheduler(2, 4, 10);
+        Job job = scheduler.submit(JobType.generate, "a.json", () -> "done");
+
+        assertThat(await(job)).isEqualTo(JobState.succeeded);
+        assertThat(job.getResult()).isEqualTo("done");
+        assertThat(scheduler.get(job.getId())).isSameAs(job);
+    }
+
+    @Test(description = "An exception in the job body marks it failed with the message")
+    public void submit_fails() throws Exception {
+        scheduler = new JobScheduler(1, 4, 10);
+        Job job = scheduler.submit(JobType.play, "a.json", () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertThat(await(job)).isEqualTo(JobState.failed);
+        assertThat(job.getError()).isEqualTo("boom");
+    }
+
+    @Test(description = "Jobs run concurrently up to the worker count")
+    public void jobs_runConcurrently() throws Exception {
+        scheduler = new JobScheduler(3, 4, 10);
+        CountDownLatch allStarted = new CountDownLatch(3);
+        CountDownLatch release = new CountDownLatch(1);
+
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit(JobType.play, "r" + i, () -> {
+                allStarted.countDown();
+                release.await();
+                return null;
+            });
+        }
+
+        assertThat(allStarted.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(scheduler.runningCount()).isEqualTo(3);
+        release.countDown();
+    }
+
+    @Test(description = "Submissions beyond workers + queue capacity are rejected")
+    public void queue_isBounded() {
+        scheduler = new JobScheduler(1, 1, 10);
+        CountDownLatch release = new CountDownLatch(1);
+
+        scheduler.submit(JobType.play, "running", () -> { release.await(); return null; });
+        scheduler.submit(JobType.play, "queued",  () -> null);
+
+        assertThatThrownBy(() -> scheduler.submit(JobType.play, "rejected", () -> null))
+                .isInstanceOf(RejectedExecutionException.class);
+        release.countDown();
+    }
+
+    @Test(description = "Cancelling a queued job prevents it from running")
+    public void cancel_queuedJob() throws Exception {
+        scheduler = new JobScheduler(1, 4, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+
+        scheduler.submit(JobType.play, "blocker", () -> { release.await(); return null; });
+        Job queued = scheduler.submit(JobType.heal, "victim", () -> ran.incrementAndGet());
+
+        assertThat(scheduler.cancel(queued.getId())).isTrue();
+        release.countDown();
+
+        assertThat(queued.getState()).isEqualTo(JobState.cancelled);
+        Thread.sleep(100);
+        assertThat(ran.get()).isZero();
+    }
+
+    @Test(description = "Cancelling a running job interrupts it")
+    public void cancel_runningJob() throws Exception {
+        scheduler = new JobScheduler(1, 4, 10);
+        CountDownLatch started = new CountDownLatch(1);
+
+        Job job = scheduler.submit(JobType.play, "long", () -> {
+            started.countDown();
+            Thread.sleep(10_000);
+            return null;
+        });
+
+        assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+        scheduler.cancel(job.getId());
+
+        assertThat(await(job)).isEqualTo(JobState.cancelled);
+    }
+
+    @Test(description = "Only the newest maxRetained jobs are kept once finished")
+    public void finishedJobs_areEvicted() throws Exception {
+        scheduler = new JobScheduler(1, 10, 2);
+        Job first = scheduler.submit(JobType.generate, "1", () -> 1);
+        await(first);
+        Job second = scheduler.submit(JobType.generate, "2", () -> 2);
+        await(second);
+        Job third = scheduler.submit(JobType.generate, "3", () -> 3);
+        await(third);
+
+        assertThat(scheduler.get(first.getId())).isNull();
+        assertThat(scheduler.list()).hasSizeLessThanOrEqualTo(2);
+    }
+}
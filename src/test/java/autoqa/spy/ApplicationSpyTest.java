@@ -1,5 +1,11 @@
 package autoqa.spy;
 
+import org.mockito.ArgumentCaptor;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
 import org.testng.annotations.Test;
 
 import java.time.Instant;
@@ -8,6 +14,11 @@ import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 /**
  * Unit tests for {@link SpyCapture} and {@link ApplicationSpy} data model / assertions.
@@ -132,6 +143,45 @@ public class ApplicationSpyTest {
                 .hasMessageContaining("500");
     }
 
+    // ── Push transport ────────────────────────────────────────────────────────
+
+    @Test
+    public void push_start_addsBindingAndNewDocumentShim() {
+        DevTools devTools = mock(DevTools.class);
+        ApplicationSpy spy = ApplicationSpy.attach(driverWith(devTools)).start();
+
+        assertThat(sentMethods(devTools))
+                .contains("Runtime.enable", "Runtime.addBinding", "Page.addScriptToEvaluateOnNewDocument");
+
+        spy.stop();
+        // The binding function is deleted first, so the shim queues instead of emitting into the void
+        assertThat(sentMethods(devTools)).containsSubsequence("Runtime.evaluate", "Runtime.removeBinding");
+    }
+
+    @Test
+    public void push_bindingCalled_recordsCapture() {
+        ApplicationSpy spy = ApplicationSpy.attach(driverWith(mock(DevTools.class))).start();
+        spy.onBindingCalled(Map.of("name", ApplicationSpy.BINDING, "payload",
+                "{\"type\":\"NETWORK_RESPONSE\",\"source\":\"https://a.com/api/cart\"," +
+                "\"data\":\"boom\",\"extra\":\"POST\",\"status\":503,\"duration\":42}"));
+        spy.onBindingCalled(Map.of("name", "someOtherBinding", "payload", "{\"type\":\"CONSOLE_LOG\"}"));
+
+        assertThat(spy.captures()).hasSize(1);
+        SpyCapture c = spy.captures().get(0);
+        assertThat(c.getType()).isEqualTo(SpyCapture.Type.NETWORK_RESPONSE);
+        assertThat(c.getStatusCode()).isEqualTo(503);
+        assertThat(c.getExtra()).isEqualTo("POST");
+        assertThatThrownBy(spy::assertNoServerErrors).isInstanceOf(AssertionError.class);
+    }
+
+    @Test
+    public void push_bindingCalledAfterStop_isIgnored() {
+        ApplicationSpy spy = ApplicationSpy.attach(driverWith(mock(DevTools.class))).start();
+        spy.stop();
+        spy.onBindingCalled(Map.of("name", ApplicationSpy.BINDING, "payload", "{\"type\":\"CONSOLE_LOG\"}"));
+        assertThat(spy.captures()).isEmpty();
+    }
+
     @Test
     public void defaultPollMs_isPositive() {
         assertThat(ApplicationSpy.DEFAULT_POLL_MS).isGreaterThan(0);
@@ -141,4 +191,20 @@ public class ApplicationSpyTest {
     public void defaultMaxBodyChars_isPositive() {
         assertThat(ApplicationSpy.DEFAULT_MAX_BODY_CHARS).isGreaterThan(0);
     }
+
+    // ── Helpers ───────────────────────────────────────────────────────────────
+
+    private static WebDriver driverWith(DevTools devTools) {
+        WebDriver driver = mock(WebDriver.class,
+                withSettings().extraInterfaces(HasDevTools.class, JavascriptExecutor.class));
+        when(((HasDevTools) driver).getDevTools()).thenReturn(devTools);
+        return driver;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<String> sentMethods(DevTools devTools) {
+        ArgumentCaptor<Command> sent = ArgumentCaptor.forClass(Command.class);
+        verify(devTools, atLeastOnce()).send(sent.capture());
+        return sent.getAllValues().stream().map(c -> ((Command<?>) c).getMethod()).toList();
+    }
 }